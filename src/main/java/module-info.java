@@ -22,6 +22,7 @@ module org.jboss.modules {
   requires java.logging;
   requires java.management;
   requires java.prefs;
+  requires static jdk.jfr;
   exports org.jboss.modules;
   exports org.jboss.modules.filter;
   exports org.jboss.modules.log;
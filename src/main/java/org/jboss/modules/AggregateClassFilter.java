@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import java.util.Arrays;
+
+import org.jboss.modules.filter.ClassFilter;
+
+/**
+ * A class filter which accepts a class name only if all of its delegate filters accept it.
+ */
+final class AggregateClassFilter implements ClassFilter {
+    private final ClassFilter[] delegates;
+    private final int hashCode;
+
+    AggregateClassFilter(final ClassFilter... delegates) {
+        this.delegates = delegates;
+        hashCode = Arrays.hashCode(delegates);
+    }
+
+    public boolean accept(final String className) {
+        for (ClassFilter filter : delegates) {
+            if (! filter.accept(className)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int hashCode() {
+        return hashCode;
+    }
+
+    public boolean equals(final Object obj) {
+        return obj instanceof AggregateClassFilter && equals((AggregateClassFilter) obj);
+    }
+
+    boolean equals(final AggregateClassFilter obj) {
+        return obj == this || obj != null && Arrays.equals(obj.delegates, delegates);
+    }
+
+    public String toString() {
+        return "All of " + Arrays.toString(delegates);
+    }
+}
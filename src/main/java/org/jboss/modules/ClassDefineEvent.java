@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for the definition of a class by a module class loader.  The event duration covers package
+ * definition, class transformation and the definition of the class itself.
+ */
+@Name("org.jboss.modules.ClassDefine")
+@Label("Class Define")
+@Category("JBoss Modules")
+@Description("A class was defined by a module class loader")
+final class ClassDefineEvent extends Event {
+    @Label("Module Name")
+    String moduleName;
+
+    @Label("Class Name")
+    String className;
+
+    @Label("Resource Root")
+    @Description("The name of the resource root which supplied the class bytes")
+    String resourceRoot;
+
+    @Label("Races")
+    @Description("The number of times the class was concurrently defined by another thread first")
+    int races;
+}
@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import java.security.AccessController;
+import java.util.Iterator;
+
+import org.jboss.modules.filter.PathFilter;
+
+/**
+ * An immutable index from class file name to the resource loader which holds it.  The index is an open-addressing
+ * hash table with linear probing, stored as parallel key and value arrays.
+ * <p>
+ * An index is only built when every resource loader of a module can enumerate its content, so a name which is absent
+ * from the index is known not to exist in the module.  Since the index is computed ahead of time, content which is
+ * added to a resource root afterwards is not visible until the resource loaders are refreshed; for this reason the
+ * index is only used when the {@code jboss.modules.class-index} system property is set to {@code true}.
+ *
+ * @param <T> the value type
+ */
+final class ClassIndex<T> {
+    static final boolean ENABLED = Boolean.parseBoolean(AccessController.doPrivileged(new PropertyReadAction("jboss.modules.class-index", "false")));
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+    private String[] keys;
+    private Object[] values;
+    private int size;
+
+    private ClassIndex(final int initialCapacity) {
+        keys = new String[initialCapacity];
+        values = new Object[initialCapacity];
+    }
+
+    /**
+     * Get the value for the given class file name.
+     *
+     * @param fileName the class file name (e.g. {@code org/foo/Bar.class})
+     * @return the value, or {@code null} if the name is not in the index
+     */
+    @SuppressWarnings("unchecked")
+    T get(final String fileName) {
+        final String[] keys = this.keys;
+        final int mask = keys.length - 1;
+        int idx = hash(fileName) & mask;
+        String key;
+        while ((key = keys[idx]) != null) {
+            if (key.equals(fileName)) {
+                return (T) values[idx];
+            }
+            idx = idx + 1 & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of entries in this index.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    private void putIfAbsent(final String fileName, final T value) {
+        String[] keys = this.keys;
+        if (size << 1 >= keys.length) {
+            grow();
+            keys = this.keys;
+        }
+        final int mask = keys.length - 1;
+        int idx = hash(fileName) & mask;
+        String key;
+        while ((key = keys[idx]) != null) {
+            if (key.equals(fileName)) {
+                return;
+            }
+            idx = idx + 1 & mask;
+        }
+        keys[idx] = fileName;
+        values[idx] = value;
+        size++;
+    }
+
+    private void grow() {
+        final String[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int newCapacity = oldKeys.length << 1;
+        final String[] newKeys = new String[newCapacity];
+        final Object[] newValues = new Object[newCapacity];
+        final int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i ++) {
+            final String key = oldKeys[i];
+            if (key != null) {
+                int idx = hash(key) & mask;
+                while (newKeys[idx] != null) {
+                    idx = idx + 1 & mask;
+                }
+                newKeys[idx] = key;
+                newValues[idx] = oldValues[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static int hash(final String key) {
+        final int h = key.hashCode();
+        return h ^ h >>> 16;
+    }
+
+    /**
+     * Build an index of the class files of the given resource loaders.  The first loader to contain a class file wins,
+     * matching the search order of the module class loader.  Class files found only under
+     * {@code META-INF/versions/} are indexed under their base name so that the index never hides a multi-release class.
+     *
+     * @param specs the resource loader specifications, in search order
+     * @return the index, or {@code null} if some resource loader cannot enumerate its content
+     */
+    static ClassIndex<ResourceLoader> build(final ResourceLoaderSpec[] specs) {
+        for (ResourceLoaderSpec spec : specs) {
+            if (! (spec.getResourceLoader() instanceof IterableResourceLoader)) {
+                return null;
+            }
+        }
+        final ClassIndex<ResourceLoader> index = new ClassIndex<>(64);
+        for (ResourceLoaderSpec spec : specs) {
+            final IterableResourceLoader loader = (IterableResourceLoader) spec.getResourceLoader();
+            final PathFilter filter = spec.getPathFilter();
+            final Iterator<Resource> iterator = loader.iterateResources("", true);
+            while (iterator.hasNext()) {
+                String name = iterator.next().getName();
+                if (! name.endsWith(CLASS_SUFFIX)) {
+                    continue;
+                }
+                if (name.startsWith(VERSIONS_PREFIX)) {
+                    final int idx = name.indexOf('/', VERSIONS_PREFIX.length());
+                    if (idx == -1) {
+                        continue;
+                    }
+                    name = name.substring(idx + 1);
+                }
+                if (filter.accept(Module.pathOf(name))) {
+                    index.putIfAbsent(name, loader);
+                }
+            }
+        }
+        return index;
+    }
+}
@@ -55,6 +55,10 @@ final class ClassLoaderLocalLoader implements LocalLoader {
     // Public members
 
     public Class<?> loadClassLocal(final String name, final boolean resolve) {
+        if (! resolve && classLoader instanceof ConcurrentClassLoader) {
+            // avoid constructing an exception for every miss
+            return ((ConcurrentClassLoader) classLoader).tryLoadClass(name);
+        }
         try {
             return Class.forName(name, resolve, classLoader);
         } catch (ClassNotFoundException e) {
@@ -150,6 +150,31 @@ public abstract class ConcurrentClassLoader extends NamedClassLoader {
         return performLoadClass(className, true, resolve);
     }
 
+    /**
+     * Loads the class with the specified binary name, returning {@code null} rather than throwing an exception if the
+     * class is not found.  Equivalent to calling {@link #tryLoadClass(String, boolean) tryLoadClass(className, false)}.
+     *
+     * @param className the binary name of the class
+     * @return the resulting {@code Class} instance, or {@code null} if the class was not found
+     */
+    public final Class<?> tryLoadClass(final String className) {
+        return performTryLoadClass(className, false, false);
+    }
+
+    /**
+     * Loads the class with the specified binary name, returning {@code null} rather than throwing an exception if the
+     * class is not found.  Callers which probe for classes that are often missing should prefer this method to
+     * {@link #loadClass(String, boolean)}, because no exception has to be constructed on a miss.  Errors raised while
+     * defining a class which is found are still thrown.
+     *
+     * @param className the binary name of the class
+     * @param resolve {@code true} if the class should be linked after loading
+     * @return the resulting {@code Class} instance, or {@code null} if the class was not found
+     */
+    public final Class<?> tryLoadClass(final String className, boolean resolve) {
+        return performTryLoadClass(className, false, resolve);
+    }
+
     /**
      * Find a class, possibly delegating to other loader(s).  This method should <b>never</b> synchronize across a
      * delegation method call of any sort.  The default implementation always throws {@code ClassNotFoundException}.
@@ -167,6 +192,25 @@ public abstract class ConcurrentClassLoader extends NamedClassLoader {
         throw new ClassNotFoundException(className);
     }
 
+    /**
+     * Find a class, possibly delegating to other loader(s), returning {@code null} if the class is not found.  The
+     * default implementation calls {@link #findClass(String, boolean, boolean)}; subclasses which can detect a missing
+     * class without throwing an exception should override this method and implement
+     * {@link #findClass(String, boolean, boolean)} in terms of it.
+     *
+     * @param className the class name
+     * @param exportsOnly {@code true} if only exported classes should be considered
+     * @param resolve {@code true} if the class should be linked after loading
+     * @return the class, or {@code null} if the class is not found
+     */
+    protected Class<?> findClassOrNull(final String className, final boolean exportsOnly, final boolean resolve) {
+        try {
+            return findClass(className, exportsOnly, resolve);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
     /**
      * Atomically define or load the named class.  If the class is already defined, the existing class is returned.
      *
@@ -228,11 +272,7 @@ public abstract class ConcurrentClassLoader extends NamedClassLoader {
      * @return the result of {@code findClass(className, false, false)}
      */
     protected final Class<?> findClass(final String moduleName, final String className) {
-        try {
-            return findClass(className);
-        } catch (ClassNotFoundException e) {
-            return null;
-        }
+        return findClassOrNull(className, false, false);
     }
 
     /**
@@ -245,10 +285,8 @@ public abstract class ConcurrentClassLoader extends NamedClassLoader {
      * permission to access it
      */
     public final URL getResource(final String name) {
-        for (String s : Module.systemPaths) {
-            if (name.startsWith(s)) {
-                return Utils.getSystemResource(name);
-            }
+        if (Module.systemPaths.matches(name)) {
+            return Utils.getSystemResource(name);
         }
         return findResource(name, false);
     }
@@ -263,10 +301,8 @@ public abstract class ConcurrentClassLoader extends NamedClassLoader {
      * @throws IOException if an I/O error occurs
      */
     public final Enumeration<URL> getResources(final String name) throws IOException {
-        for (String s : Module.systemPaths) {
-            if (name.startsWith(s)) {
-                return Utils.getSystemResources(name);
-            }
+        if (Module.systemPaths.matches(name)) {
+            return Utils.getSystemResources(name);
         }
         return findResources(name, false);
     }
@@ -358,10 +394,8 @@ public abstract class ConcurrentClassLoader extends NamedClassLoader {
      * @return the resource stream, or {@code null} if the resource is not found
      */
     public final InputStream getResourceAsStream(final String name) {
-        for (String s : Module.systemPaths) {
-            if (name.startsWith(s)) {
-                return Utils.getSystemResourceAsStream(name);
-            }
+        if (Module.systemPaths.matches(name)) {
+            return Utils.getSystemResourceAsStream(name);
         }
         return findResourceAsStream(name, false);
     }
@@ -388,14 +422,30 @@ public abstract class ConcurrentClassLoader extends NamedClassLoader {
         if (className.length() == 0) {
             throw new IllegalArgumentException("name is empty");
         }
-        for (String s : Module.systemPackages) {
-            if (className.startsWith(s)) {
-                return Utils.getSystemClass(this, className);
-            }
+        if (Module.systemPackages.matches(className)) {
+            return Utils.getSystemClass(this, className);
         }
         return performLoadClassUnchecked(className, exportsOnly, resolve);
     }
 
+    private Class<?> performTryLoadClass(final String className, final boolean exportsOnly, final boolean resolve) {
+        if (className == null) {
+            throw new IllegalArgumentException("name is null");
+        }
+        if (className.length() == 0) {
+            throw new IllegalArgumentException("name is empty");
+        }
+        if (Module.systemPackages.matches(className) || className.charAt(0) == '[') {
+            // these are resolved by the JDK, which only reports a miss by throwing
+            try {
+                return performLoadClass(className, exportsOnly, resolve);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        }
+        return findClassOrNull(className, exportsOnly, resolve);
+    }
+
     private Class<?> performLoadClassUnchecked(final String className, final boolean exportsOnly, final boolean resolve) throws ClassNotFoundException {
         if (className.charAt(0) == '[') {
             // Use Class.forName to load the array type
@@ -424,10 +474,8 @@ public abstract class ConcurrentClassLoader extends NamedClassLoader {
     @Deprecated
     protected final Package getPackage(final String name) {
         final String packageName = name + ".";
-        for (String s : Module.systemPackages) {
-            if (packageName.startsWith(s)) {
-                return Package.getPackage(name);
-            }
+        if (Module.systemPackages.matches(packageName)) {
+            return Package.getPackage(name);
         }
         if (GET_PACKAGE_SUPPRESSOR.get() == Boolean.TRUE) {
             return null;
@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.jboss.modules.filter.PathFilters;
+
+/**
+ * Loads the modules which a link will visit, in parallel, before the link visits them.  Linking is dominated by the
+ * serial loading of the modules it visits; preloading them on a fork-join pool moves that work off the critical path.
+ * The link itself is unchanged and still visits the dependencies one after another, so the resulting paths and any
+ * load failures are exactly the same as without preloading.  Failures during preloading are ignored; the link will
+ * encounter them again and report them in the usual way.
+ * <p>
+ * Preloading is enabled with the {@code jboss.modules.parallel-link} system property.  Since loading a module is
+ * partly bound by I/O, the pool has twice as many threads as there are processors by default; the
+ * {@code jboss.modules.parallel-link-threads} system property overrides this.
+ */
+final class DependencyPreloader {
+    static final boolean ENABLED = Boolean.parseBoolean(AccessController.doPrivileged(new PropertyReadAction("jboss.modules.parallel-link", "false")));
+    static final int THREADS = Integer.parseInt(AccessController.doPrivileged(new PropertyReadAction("jboss.modules.parallel-link-threads", Integer.toString(2 * Runtime.getRuntime().availableProcessors()))));
+
+    private DependencyPreloader() {
+    }
+
+    /**
+     * Preload the modules which will be visited when linking the given dependencies: every module dependency, and
+     * transitively every module which those modules re-export.  Returns when all of them have been loaded or failed.
+     *
+     * @param dependencies the dependencies of the module being linked
+     */
+    static void preload(final Dependency[] dependencies) {
+        if (System.getSecurityManager() != null) {
+            // pool threads would not run with the permissions of the caller
+            return;
+        }
+        final Set<Module> visited = ConcurrentHashMap.newKeySet();
+        final List<PreloadTask> tasks = createTasks(dependencies, false, visited);
+        if (tasks.isEmpty()) {
+            return;
+        }
+        PoolHolder.POOL.invoke(new RecursiveAction() {
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    static List<PreloadTask> createTasks(final Dependency[] dependencies, final boolean exportedOnly, final Set<Module> visited) {
+        final List<PreloadTask> tasks = new ArrayList<>();
+        for (Dependency dependency : dependencies) {
+            if (dependency instanceof ModuleDependency && ! (exportedOnly && dependency.getExportFilter() == PathFilters.rejectAll())) {
+                tasks.add(new PreloadTask((ModuleDependency) dependency, visited));
+            }
+        }
+        return tasks;
+    }
+
+    static final class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, THREADS));
+    }
+
+    static final class PreloadTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ModuleDependency dependency;
+        private final Set<Module> visited;
+
+        PreloadTask(final ModuleDependency dependency, final Set<Module> visited) {
+            this.dependency = dependency;
+            this.visited = visited;
+        }
+
+        protected void compute() {
+            final Module module;
+            try {
+                module = dependency.getModuleLoader().preloadModule(dependency.getName());
+            } catch (ModuleLoadException | RuntimeException ignored) {
+                // the link will fail or skip the dependency itself
+                return;
+            }
+            if (module != null && visited.add(module)) {
+                invokeAll(createTasks(module.getDependenciesInternal(), true, visited));
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import java.security.AccessController;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A cache of the paths exported by modules, as seen through a given stack of import and export filters.  Each
+ * {@linkplain Module.Visited module and filter stack} maps to an {@link Entry} which lists the module's exported local
+ * loaders and re-exported modules in dependency order; the entry also memoizes the transitive closure of its
+ * exports once it has been computed.  Linking a module which imports an already-cached module then merges the
+ * memoized closure rather than walking the export graph again.
+ * <p>
+ * The cache also holds the import tables of linked modules, keyed by their dependencies, so that modules with
+ * identical dependencies share one table of imports.
+ * <p>
+ * Each module loader holds the cache entries of its own modules.  Any change to the exported dependencies or paths of
+ * a live module, as well as unloading a module, advances the global epoch, which discards the contents of every cache
+ * at once.  The discarded caches are also emptied right away, so that a module loader which does not link again does
+ * not keep unloaded modules reachable through its outdated cache.
+ */
+final class ExportCache {
+    private static final AtomicInteger EPOCH = new AtomicInteger();
+    // the caches of the current epoch; guarded by itself
+    private static final Set<ExportCache> LIVE = Collections.newSetFromMap(new WeakHashMap<>());
+
+    static final boolean ENABLED = Boolean.parseBoolean(AccessController.doPrivileged(new PropertyReadAction("jboss.modules.export-cache", "true")));
+
+    private final int epoch;
+    private final ConcurrentHashMap<Module.Visited, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ImportKey, SharedImports> imports = new ConcurrentHashMap<>();
+    private volatile boolean discarded;
+
+    private ExportCache(final int epoch) {
+        this.epoch = epoch;
+    }
+
+    /**
+     * Create a new, empty cache for the current epoch.
+     *
+     * @return the new cache
+     */
+    static ExportCache create() {
+        synchronized (LIVE) {
+            final ExportCache cache = new ExportCache(EPOCH.get());
+            LIVE.add(cache);
+            return cache;
+        }
+    }
+
+    /**
+     * Get the current global epoch.
+     *
+     * @return the current epoch
+     */
+    static int epoch() {
+        return EPOCH.get();
+    }
+
+    /**
+     * Invalidate the contents of every export cache.
+     */
+    static void invalidateAll() {
+        synchronized (LIVE) {
+            EPOCH.getAndIncrement();
+            for (ExportCache cache : LIVE) {
+                cache.discard();
+            }
+            LIVE.clear();
+        }
+    }
+
+    private void discard() {
+        // set the flag first, so that a racing put either sees it or is cleared below
+        discarded = true;
+        entries.clear();
+        imports.clear();
+    }
+
+    int getEpoch() {
+        return epoch;
+    }
+
+    Entry get(final Module.Visited key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Add an entry to this cache, unless another thread added one first.
+     *
+     * @param key the module and filter stack
+     * @param entry the newly computed entry
+     * @return the entry which is in the cache
+     */
+    Entry putIfAbsent(final Module.Visited key, final Entry entry) {
+        final Entry existing = entries.putIfAbsent(key, entry);
+        if (existing == null && discarded) {
+            entries.remove(key, entry);
+        }
+        return existing == null ? entry : existing;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    SharedImports getImports(final ImportKey key) {
+        return imports.get(key);
+    }
+
+    /**
+     * Add shared imports to this cache, unless another thread added them first.
+     *
+     * @param key the dependencies of the linked module
+     * @param sharedImports the newly computed imports
+     * @return the imports which are in the cache
+     */
+    SharedImports putImportsIfAbsent(final ImportKey key, final SharedImports sharedImports) {
+        final SharedImports existing = imports.putIfAbsent(key, sharedImports);
+        if (existing == null && discarded) {
+            imports.remove(key, sharedImports);
+        }
+        return existing == null ? sharedImports : existing;
+    }
+
+    /**
+     * The dependencies of a module, with the dependency on the module's own class loader replaced by a placeholder.
+     * Two modules with equal keys import the same loaders for every path which does not come from their own class
+     * loaders.
+     */
+    static final class ImportKey {
+        private final Dependency[] dependencies;
+        private final int ownIndex;
+        private final int hashCode;
+
+        private ImportKey(final Dependency[] dependencies, final int ownIndex) {
+            this.dependencies = dependencies;
+            this.ownIndex = ownIndex;
+            int hashCode = ownIndex;
+            for (int i = 0; i < dependencies.length; i ++) {
+                if (i != ownIndex) {
+                    hashCode = hashCode * 19 + hashCode(dependencies[i]);
+                }
+            }
+            this.hashCode = hashCode;
+        }
+
+        /**
+         * Get the import key for the given dependencies.
+         *
+         * @param dependencies the dependencies of the linked module
+         * @return the key, or {@code null} if the imports of these dependencies cannot be shared
+         */
+        static ImportKey of(final Dependency[] dependencies) {
+            int ownIndex = -1;
+            for (int i = 0; i < dependencies.length; i ++) {
+                final Dependency dependency = dependencies[i];
+                if (dependency instanceof ModuleClassLoaderDependency) {
+                    if (ownIndex != -1) {
+                        // more than one overlay
+                        return null;
+                    }
+                    ownIndex = i;
+                } else if (! (dependency instanceof ModuleDependency) && ! (dependency instanceof LocalDependency)) {
+                    return null;
+                }
+            }
+            final Dependency[] copy = dependencies.clone();
+            if (ownIndex != -1) {
+                // do not retain the class loader of the first module
+                copy[ownIndex] = null;
+            }
+            return new ImportKey(copy, ownIndex);
+        }
+
+        /**
+         * Get the index of the dependency on the module's own class loader.
+         *
+         * @return the index, or -1 if there is none
+         */
+        int getOwnIndex() {
+            return ownIndex;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object other) {
+            return other instanceof ImportKey && equals((ImportKey) other);
+        }
+
+        boolean equals(final ImportKey other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || hashCode != other.hashCode || ownIndex != other.ownIndex || dependencies.length != other.dependencies.length) {
+                return false;
+            }
+            for (int i = 0; i < dependencies.length; i ++) {
+                if (i != ownIndex && ! equivalent(dependencies[i], other.dependencies[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hashCode(final Dependency dependency) {
+            int hashCode = dependency.getImportFilter().hashCode();
+            hashCode = hashCode * 19 + dependency.getExportFilter().hashCode();
+            hashCode = hashCode * 19 + dependency.getClassImportFilter().hashCode();
+            hashCode = hashCode * 19 + dependency.getResourceImportFilter().hashCode();
+            if (dependency instanceof ModuleDependency) {
+                final ModuleDependency moduleDependency = (ModuleDependency) dependency;
+                return (hashCode * 19 + moduleDependency.getName().hashCode()) * 19 + System.identityHashCode(moduleDependency.getModuleLoader());
+            } else {
+                return hashCode * 19 + System.identityHashCode(((LocalDependency) dependency).getLocalLoader());
+            }
+        }
+
+        /**
+         * Determine whether two dependencies of the same module import the same loaders through the same filters.
+         *
+         * @param a the first dependency
+         * @param b the second dependency
+         * @return {@code true} if the dependencies are equivalent
+         */
+        static boolean equivalent(final Dependency a, final Dependency b) {
+            if (a.getClass() != b.getClass()
+                || ! a.getImportFilter().equals(b.getImportFilter())
+                || ! a.getExportFilter().equals(b.getExportFilter())
+                || ! a.getResourceImportFilter().equals(b.getResourceImportFilter())
+                || ! a.getResourceExportFilter().equals(b.getResourceExportFilter())
+                || ! a.getClassImportFilter().equals(b.getClassImportFilter())
+                || ! a.getClassExportFilter().equals(b.getClassExportFilter())) {
+                return false;
+            }
+            if (a instanceof ModuleDependency) {
+                final ModuleDependency moduleA = (ModuleDependency) a;
+                final ModuleDependency moduleB = (ModuleDependency) b;
+                return moduleA.getModuleLoader() == moduleB.getModuleLoader() && moduleA.getName().equals(moduleB.getName()) && moduleA.isOptional() == moduleB.isOptional();
+            } else if (a instanceof ModuleClassLoaderDependency) {
+                return ((ModuleClassLoaderDependency) a).getLocalLoader() == ((ModuleClassLoaderDependency) b).getLocalLoader();
+            } else if (a instanceof LocalDependency) {
+                final LocalDependency localA = (LocalDependency) a;
+                final LocalDependency localB = (LocalDependency) b;
+                return localA.getLocalLoader() == localB.getLocalLoader() && localA.getPaths() == localB.getPaths();
+            } else {
+                return a == b;
+            }
+        }
+    }
+
+    /**
+     * The imports shared by all modules with the same {@link ImportKey}.
+     */
+    static final class SharedImports {
+        // the imports of all dependencies except the module's own class loader
+        private final Map<String, List<LocalLoader>> all;
+        // the imports of the dependencies which precede the module's own class loader
+        private final Map<String, List<LocalLoader>> before;
+
+        SharedImports(final Map<String, List<LocalLoader>> all, final Map<String, List<LocalLoader>> before) {
+            this.all = all;
+            this.before = before;
+        }
+
+        Map<String, List<LocalLoader>> getAll() {
+            return all;
+        }
+
+        Map<String, List<LocalLoader>> getBefore() {
+            return before;
+        }
+    }
+
+    /**
+     * The exports of one module through one filter stack.
+     */
+    static final class Entry {
+        // in dependency order: a Module.Visited for each re-exported module, or an ExportedLoader
+        private final Object[] items;
+        // false if an optional dependency was missing, so the entry may change without an explicit invalidation
+        private final boolean complete;
+        private volatile Map<String, List<LocalLoader>> closure;
+
+        Entry(final Object[] items, final boolean complete) {
+            this.items = items;
+            this.complete = complete;
+        }
+
+        Object[] getItems() {
+            return items;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        Map<String, List<LocalLoader>> getClosure() {
+            return closure;
+        }
+
+        /**
+         * Memoize the transitive closure of this entry.  The closure lives as long as the entry, so it is kept as a
+         * compact {@link PathTable}.
+         *
+         * @param closure the closure
+         * @return the memoized closure, which must not be modified
+         */
+        Map<String, List<LocalLoader>> setClosure(final Map<String, List<LocalLoader>> closure) {
+            final Map<String, List<LocalLoader>> table = PathTable.of(closure);
+            this.closure = table;
+            return table;
+        }
+    }
+
+    /**
+     * A local loader exported by a module, along with the paths it exports.
+     */
+    static final class ExportedLoader {
+        private final LocalLoader loader;
+        private final String[] paths;
+
+        ExportedLoader(final LocalLoader loader, final String[] paths) {
+            this.loader = loader;
+            this.paths = paths;
+        }
+
+        void addTo(final Map<String, List<LocalLoader>> map) {
+            final LocalLoader loader = this.loader;
+            for (String path : paths) {
+                Module.addLoader(map, path, loader);
+            }
+        }
+    }
+}
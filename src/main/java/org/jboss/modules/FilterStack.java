@@ -0,0 +1,223 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable set of filters which are applied to the paths or classes of a module as seen through a chain of
+ * dependencies.
+ * <p>
+ * Filter stacks are hash-consed: every stack with a given set of filters is represented by a single instance for as
+ * long as it is reachable, regardless of the order in which the filters were added.  Extending a stack with a filter it
+ * already contains returns the same stack, and extending it with a new filter only allocates when no equal stack
+ * is currently live.  Thus two filter stacks are equal if and only if they are the same instance.
+ *
+ * @param <F> the filter type
+ */
+final class FilterStack<F> {
+    private static final FilterStack<?> EMPTY = new FilterStack<>(new Object[0], 0);
+    private static final ConcurrentHashMap<Object, Interned> interned = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<FilterStack<?>> queue = new ReferenceQueue<>();
+
+    private final Object[] filters;
+    private final int hashCode;
+
+    private FilterStack(final Object[] filters, final int hashCode) {
+        this.filters = filters;
+        this.hashCode = hashCode;
+    }
+
+    /**
+     * Get the empty filter stack.
+     *
+     * @param <F> the filter type
+     * @return the empty filter stack
+     */
+    @SuppressWarnings("unchecked")
+    static <F> FilterStack<F> empty() {
+        return (FilterStack<F>) EMPTY;
+    }
+
+    /**
+     * Get the filter stack which contains the filters of this stack and the given filter.
+     *
+     * @param filter the filter to add (must not be {@code null})
+     * @return the filter stack, which is this stack if it already contains the filter
+     */
+    @SuppressWarnings("unchecked")
+    FilterStack<F> with(final F filter) {
+        if (contains(filter)) {
+            return this;
+        }
+        final Probe probe = new Probe(this, filter);
+        Interned existing = interned.get(probe);
+        if (existing != null) {
+            final FilterStack<?> stack = existing.get();
+            if (stack != null) {
+                return (FilterStack<F>) stack;
+            }
+        }
+        expunge();
+        final Object[] filters = this.filters;
+        final Object[] newFilters = new Object[filters.length + 1];
+        System.arraycopy(filters, 0, newFilters, 0, filters.length);
+        newFilters[filters.length] = filter;
+        final FilterStack<F> newStack = new FilterStack<>(newFilters, probe.hashCode);
+        final Interned entry = new Interned(newStack);
+        for (;;) {
+            existing = interned.putIfAbsent(entry, entry);
+            if (existing == null) {
+                return newStack;
+            }
+            final FilterStack<?> stack = existing.get();
+            if (stack != null) {
+                return (FilterStack<F>) stack;
+            }
+            // cleared but not yet expunged
+            interned.remove(existing, existing);
+        }
+    }
+
+    /**
+     * Determine whether this stack contains the given filter.
+     *
+     * @param filter the filter
+     * @return {@code true} if the filter is contained in this stack
+     */
+    boolean contains(final Object filter) {
+        for (Object item : filters) {
+            if (item == filter || item.equals(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of filters in this stack.
+     *
+     * @return the number of filters
+     */
+    int size() {
+        return filters.length;
+    }
+
+    /**
+     * Get the filter at the given position, in the order in which the filters were first added.
+     *
+     * @param index the position
+     * @return the filter
+     */
+    @SuppressWarnings("unchecked")
+    F get(final int index) {
+        return (F) filters[index];
+    }
+
+    public int hashCode() {
+        return hashCode;
+    }
+
+    public boolean equals(final Object other) {
+        return this == other;
+    }
+
+    public String toString() {
+        return Arrays.toString(filters);
+    }
+
+    private boolean containsAll(final Object[] items) {
+        for (Object item : items) {
+            if (! contains(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void expunge() {
+        Reference<?> ref;
+        while ((ref = queue.poll()) != null) {
+            interned.remove(ref, ref);
+        }
+    }
+
+    /**
+     * A weak reference to an interned stack.
+     */
+    static final class Interned extends WeakReference<FilterStack<?>> {
+        private final int hashCode;
+
+        Interned(final FilterStack<?> stack) {
+            super(stack, queue);
+            hashCode = stack.hashCode;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other instanceof Probe) {
+                return other.equals(this);
+            }
+            if (! (other instanceof Interned)) {
+                return false;
+            }
+            final FilterStack<?> stack = get();
+            final FilterStack<?> otherStack = ((Interned) other).get();
+            return stack != null && otherStack != null && stack.filters.length == otherStack.filters.length && stack.containsAll(otherStack.filters);
+        }
+    }
+
+    /**
+     * A lookup key for the stack obtained by adding a filter to a stack, which avoids building the stack itself.
+     */
+    static final class Probe {
+        private final FilterStack<?> base;
+        private final Object filter;
+        private final int hashCode;
+
+        Probe(final FilterStack<?> base, final Object filter) {
+            this.base = base;
+            this.filter = filter;
+            hashCode = base.hashCode + filter.hashCode();
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object other) {
+            if (! (other instanceof Interned)) {
+                return false;
+            }
+            final FilterStack<?> stack = ((Interned) other).get();
+            return stack != null && stack.filters.length == base.filters.length + 1 && stack.contains(filter) && stack.containsAll(base.filters);
+        }
+    }
+}
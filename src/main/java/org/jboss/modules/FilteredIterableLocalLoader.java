@@ -55,4 +55,17 @@ class FilteredIterableLocalLoader implements IterableLocalLoader {
     public Iterator<Resource> iterateResources(final String startPath, final boolean recursive) {
         return PathFilters.filtered(resourcePathFilter, originalLoader.iterateResources(startPath, recursive));
     }
+
+    public int hashCode() {
+        return (classFilter.hashCode() * 19 + resourcePathFilter.hashCode()) * 19 + originalLoader.hashCode();
+    }
+
+    public boolean equals(final Object obj) {
+        return obj != null && obj.getClass() == getClass() && equals((FilteredIterableLocalLoader) obj);
+    }
+
+    boolean equals(final FilteredIterableLocalLoader other) {
+        // filtered loaders are created on every link, so compare them by value
+        return this == other || other != null && classFilter.equals(other.classFilter) && resourcePathFilter.equals(other.resourcePathFilter) && originalLoader.equals(other.originalLoader);
+    }
 }
@@ -49,4 +49,17 @@ class FilteredLocalLoader implements LocalLoader {
     public List<Resource> loadResourceLocal(final String name) {
         return resourcePathFilter.accept(name) ? originalLoader.loadResourceLocal(name) : Collections.<Resource>emptyList();
     }
+
+    public int hashCode() {
+        return (classFilter.hashCode() * 19 + resourcePathFilter.hashCode()) * 19 + originalLoader.hashCode();
+    }
+
+    public boolean equals(final Object obj) {
+        return obj != null && obj.getClass() == getClass() && equals((FilteredLocalLoader) obj);
+    }
+
+    boolean equals(final FilteredLocalLoader other) {
+        // filtered loaders are created on every link, so compare them by value
+        return this == other || other != null && classFilter.equals(other.classFilter) && resourcePathFilter.equals(other.resourcePathFilter) && originalLoader.equals(other.originalLoader);
+    }
 }
@@ -0,0 +1,43 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+/**
+ * Flight recorder support.  The {@code jdk.jfr} module is optional: if it is missing from the runtime, or was not
+ * resolved along with this module, no events are created at all.
+ */
+final class FlightRecorder {
+    static final boolean AVAILABLE;
+
+    private FlightRecorder() {
+    }
+
+    static {
+        boolean available;
+        try {
+            // loading an event class fails if the event API cannot be reached from this module
+            new ModuleLinkEvent();
+            available = true;
+        } catch (LinkageError e) {
+            available = false;
+        }
+        AVAILABLE = available;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static java.security.AccessController.doPrivileged;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.modules._private.ModuleXmlPrivateAccess;
+import org.jboss.modules.xml.ModuleXmlParser;
+
+/**
+ * A module finder which loads modules from a module image: a single memory-mapped file holding the descriptors and
+ * resource roots of the modules of a local module repository.  Loading modules from an image opens one file instead
+ * of a descriptor and the JARs of each module, and classes are defined straight from the mapping.
+ * <p>
+ * Images are written by running JBoss Modules with the {@code -build-image} option and the module path to pack.  An
+ * image is a snapshot of the repository, and must be rebuilt when the repository changes.  Resource roots which could
+ * not be packed, such as signed JARs, are loaded from their original location.  The default boot module loader
+ * consults the image given by the {@code jboss.modules.image} system property before the module path.
+ */
+public final class ImageModuleFinder implements IterableModuleFinder, AutoCloseable {
+    // also used by the image builder
+    static final ModuleXmlPrivateAccess XML_ACCESS = ModuleXmlParser.getPrivateAccess();
+
+    private final ModuleImage image;
+    private final AccessControlContext accessControlContext;
+    // the loaders of resource roots which are not in the image
+    private final List<ResourceLoader> resourceLoaderList = new ArrayList<>();
+    private boolean closed;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param imageFile the module image file
+     * @throws IOException if the file cannot be read or is not a valid module image
+     */
+    public ImageModuleFinder(final File imageFile) throws IOException {
+        final SecurityManager sm = System.getSecurityManager();
+        if (sm != null) {
+            sm.checkRead(imageFile.getPath());
+        }
+        image = ModuleImage.open(imageFile);
+        accessControlContext = AccessController.getContext();
+    }
+
+    public ModuleSpec findModule(final String name, final ModuleLoader delegateLoader) throws ModuleLoadException {
+        final String child = PathUtils.basicModuleNameToPath(name);
+        if (child == null) {
+            return null; // not valid, so not found
+        }
+        final int module = image.findModule(child);
+        if (module == -1) {
+            return null;
+        }
+        try {
+            return doPrivileged((PrivilegedExceptionAction<ModuleSpec>) () -> parseModule(module, delegateLoader, name, null), accessControlContext);
+        } catch (PrivilegedActionException e) {
+            try {
+                throw e.getCause();
+            } catch (IOException e1) {
+                throw new ModuleLoadException(e1);
+            } catch (RuntimeException | Error | ModuleLoadException e1) {
+                throw e1;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        }
+    }
+
+    /**
+     * Parse the descriptor of a module.
+     *
+     * @param module the module index
+     * @param delegateLoader the module loader to use for dependency specifications
+     * @param name the module name, or {@code null} to accept any name
+     * @param untracked the list which collects the loaders of resource roots which are not in the image, or
+     *      {@code null} to have them closed along with this finder
+     * @return the module specification
+     */
+    private ModuleSpec parseModule(final int module, final ModuleLoader delegateLoader, final String name, final List<ResourceLoader> untracked) throws IOException, ModuleLoadException {
+        final ModuleXmlParser.ResourceRootFactory factory = (rootPath, loaderPath, loaderName) -> {
+            final int root = image.findResourceRoot(module, loaderPath);
+            if (root != -1) {
+                return new ImageResourceLoader(image, root, loaderName);
+            }
+            final ResourceLoader loader = ModuleXmlParser.ResourceRootFactory.getDefault().createResourceLoader(rootPath, loaderPath, loaderName);
+            if (untracked != null) {
+                untracked.add(loader);
+                return loader;
+            }
+            final List<ResourceLoader> list = this.resourceLoaderList;
+            synchronized (list) {
+                if (closed) {
+                    loader.close();
+                    throw new IllegalStateException("Module finder is closed");
+                }
+                list.add(loader);
+            }
+            return loader;
+        };
+        final String description = image.getFile() + "!/" + image.getModulePath(module) + "/" + Utils.MODULE_FILE;
+        return XML_ACCESS.parseTokenizedModuleXml(factory, image.getModuleDirectory(module), image.getDescriptor(module), description, delegateLoader, name);
+    }
+
+    public Iterator<String> iterateModules(final String baseName, final boolean recursive, final ModuleLoader delegateLoader) {
+        final String base = baseName == null || baseName.isEmpty() ? "" : PathUtils.basicModuleNameToPath(baseName);
+        final Set<String> found = new LinkedHashSet<>();
+        final int count = image.getModuleCount();
+        for (int module = 0; module < count; module ++) {
+            final String path = image.getModulePath(module);
+            // the same modules as walking the base directory of an exploded repository
+            if (path.equals(base) || recursive && (base.isEmpty() || path.startsWith(base + "/"))) {
+                // only the name is needed, so the loaders of the module are not kept
+                final List<ResourceLoader> loaders = new ArrayList<>();
+                try {
+                    final ModuleSpec moduleSpec = parseModule(module, delegateLoader, null, loaders);
+                    if (moduleSpec != null) {
+                        found.add(moduleSpec.getName());
+                    }
+                } catch (IOException | ModuleLoadException e) {
+                    // ignore
+                } finally {
+                    for (ResourceLoader loader : loaders) {
+                        try {
+                            loader.close();
+                        } catch (Throwable ignored) {}
+                    }
+                }
+            }
+        }
+        return found.iterator();
+    }
+
+    public String toString() {
+        return "image module finder @" + Integer.toHexString(hashCode()) + " (image: " + image.getFile() + ")";
+    }
+
+    /**
+     * Close this module finder and its image.  Note that classes and resources which were already loaded from the
+     * image remain valid, but subsequent load attempts will fail with an error after this method is called.
+     */
+    public void close() {
+        final List<ResourceLoader> toClose;
+        synchronized (resourceLoaderList) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(resourceLoaderList);
+            resourceLoaderList.clear();
+        }
+        for (ResourceLoader resourceLoader : toClose) {
+            try {
+                resourceLoader.close();
+            } catch (Throwable ignored) {}
+        }
+        image.close();
+    }
+}
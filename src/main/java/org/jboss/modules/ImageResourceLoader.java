@@ -0,0 +1,182 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.jar.Manifest;
+
+/**
+ * A resource loader for a resource root which is packed into a {@link ModuleImage}.  Class files which are stored
+ * uncompressed are passed to the class loader as slices of the mapping without being copied.  Created classes have the
+ * code source of the JAR or directory which the resource root was packed from, as if it was loaded from there, while
+ * resources have {@code module-image:} URLs.
+ */
+final class ImageResourceLoader extends AbstractResourceLoader implements IterableResourceLoader {
+    private static final Manifest NO_MANIFEST = new Manifest();
+
+    private final ModuleImage image;
+    private final int root;
+    private final String rootName;
+    private final URL rootUrl;
+    private final URL codeSourceUrl;
+    private final CodeSource codeSource;
+    private volatile Manifest manifest;
+
+    ImageResourceLoader(final ModuleImage image, final int root, final String rootName) {
+        this.image = image;
+        this.root = root;
+        this.rootName = rootName;
+        rootUrl = image.getURL(root, "");
+        final File file = image.getRootFile(root);
+        try {
+            // the same locations as the JAR and path resource loaders
+            codeSourceUrl = file.isDirectory() ? file.toPath().toUri().toURL() : JarFileResourceLoader.getJarURI(file.toURI(), null).toURL();
+        } catch (URISyntaxException | MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid root file specified", e);
+        }
+        // signed JARs are never packed, so all classes share one code source
+        codeSource = new CodeSource(codeSourceUrl, (CodeSigner[]) null);
+    }
+
+    public String getRootName() {
+        return rootName;
+    }
+
+    public ClassSpec getClassSpec(final String fileName) throws IOException {
+        final int entry = image.find(root, fileName);
+        if (entry == -1) {
+            // no such entry
+            return null;
+        }
+        final ClassSpec spec = new ClassSpec();
+        if (image.getMethod(entry) == ModuleImage.STORED) {
+            spec.setByteBuffer(image.getRawData(entry));
+        } else {
+            spec.setBytes(image.readBytes(entry));
+        }
+        spec.setCodeSource(codeSource);
+        return spec;
+    }
+
+    public PackageSpec getPackageSpec(final String name) throws IOException {
+        Manifest manifest = this.manifest;
+        if (manifest == null) {
+            final int entry = image.find(root, "META-INF/MANIFEST.MF");
+            // racing readers just parse the manifest twice
+            this.manifest = manifest = entry == -1 ? NO_MANIFEST : new Manifest(new ByteArrayInputStream(image.readBytes(entry)));
+        }
+        return getPackageSpec(name, manifest == NO_MANIFEST ? null : manifest, codeSourceUrl);
+    }
+
+    public String getLibrary(final String name) {
+        // resource roots with native libraries are not packed
+        return null;
+    }
+
+    public Resource getResource(String name) {
+        name = PathUtils.canonicalize(PathUtils.relativize(name));
+        final int entry = image.find(root, name);
+        return entry == -1 ? null : new ImageResource(entry, name);
+    }
+
+    public Iterator<Resource> iterateResources(final String startPath, final boolean recursive) {
+        final String startName = PathUtils.canonicalize(PathUtils.relativize(startPath));
+        final int end = image.getFirstEntry(root) + image.getEntryCount(root);
+        return new Iterator<>() {
+            private int entry = image.getFirstEntry(root);
+            private Resource next;
+
+            public boolean hasNext() {
+                while (next == null) {
+                    if (entry == end) {
+                        return false;
+                    }
+                    final String name = image.getName(entry);
+                    if (recursive ? PathUtils.isChild(startName, name) : PathUtils.isDirectChild(startName, name)) {
+                        next = new ImageResource(entry, name);
+                    }
+                    entry ++;
+                }
+                return true;
+            }
+
+            public Resource next() {
+                if (! hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return next;
+                } finally {
+                    next = null;
+                }
+            }
+        };
+    }
+
+    public Collection<String> getPaths() {
+        return image.getPaths(root);
+    }
+
+    public URI getLocation() {
+        try {
+            return rootUrl.toURI();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    final class ImageResource implements Resource {
+        private final int entry;
+        private final String name;
+
+        ImageResource(final int entry, final String name) {
+            this.entry = entry;
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public URL getURL() {
+            return image.getURL(root, name);
+        }
+
+        public InputStream openStream() throws IOException {
+            return image.openStream(entry);
+        }
+
+        public long getSize() {
+            return image.getSize(entry);
+        }
+    }
+}
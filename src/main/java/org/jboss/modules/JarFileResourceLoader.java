@@ -34,12 +34,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -59,9 +59,9 @@ final class JarFileResourceLoader extends AbstractResourceLoader implements Iter
     private final String relativePath;
     private final File fileOfJar;
     private volatile List<String> directory;
+    private final ReentrantLock directoryLock = new ReentrantLock();
 
-    // protected by {@code this}
-    private final Map<CodeSigners, CodeSource> codeSources = new HashMap<>();
+    private final ConcurrentHashMap<CodeSigners, CodeSource> codeSources = new ConcurrentHashMap<>();
 
     JarFileResourceLoader(final String rootName, final JarFile jarFile) {
         this(rootName, jarFile, null);
@@ -89,7 +89,7 @@ final class JarFileResourceLoader extends AbstractResourceLoader implements Iter
         }
     }
 
-    private static URI getJarURI(final URI original, final String nestedPath) throws URISyntaxException {
+    static URI getJarURI(final URI original, final String nestedPath) throws URISyntaxException {
         final StringBuilder b = new StringBuilder();
         b.append("file:");
         assert original.getScheme().equals("file");
@@ -115,7 +115,7 @@ final class JarFileResourceLoader extends AbstractResourceLoader implements Iter
         return rootName;
     }
 
-    public synchronized ClassSpec getClassSpec(final String fileName) throws IOException {
+    public ClassSpec getClassSpec(final String fileName) throws IOException {
         final ClassSpec spec = new ClassSpec();
         final JarEntry entry = getJarEntry(fileName);
         if (entry == null) {
@@ -168,7 +168,11 @@ final class JarFileResourceLoader extends AbstractResourceLoader implements Iter
         final CodeSigners codeSigners = entryCodeSigners == null || entryCodeSigners.length == 0 ? EMPTY_CODE_SIGNERS : new CodeSigners(entryCodeSigners);
         CodeSource codeSource = codeSources.get(codeSigners);
         if (codeSource == null) {
-            codeSources.put(codeSigners, codeSource = new CodeSource(rootUrl, entryCodeSigners));
+            codeSource = new CodeSource(rootUrl, entryCodeSigners);
+            final CodeSource appearing = codeSources.putIfAbsent(codeSigners, codeSource);
+            if (appearing != null) {
+                codeSource = appearing;
+            }
         }
         return codeSource;
     }
@@ -249,7 +253,9 @@ final class JarFileResourceLoader extends AbstractResourceLoader implements Iter
         final String startName = PathUtils.canonicalize(PathUtils.relativize(startPath));
         List<String> directory = this.directory;
         if (directory == null) {
-            synchronized (jarFile) {
+            final ReentrantLock directoryLock = this.directoryLock;
+            directoryLock.lock();
+            try {
                 directory = this.directory;
                 if (directory == null) {
                     directory = new ArrayList<>();
@@ -262,6 +268,8 @@ final class JarFileResourceLoader extends AbstractResourceLoader implements Iter
                     }
                     this.directory = directory;
                 }
+            } finally {
+                directoryLock.unlock();
             }
         }
         final Iterator<String> iterator = directory.iterator();
@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of modules to be linked together.  The modules are split into the connected components of their dependency
+ * graph, and each component is ordered so that dependencies come before the modules which import them.
+ */
+final class LinkBatch {
+    private final List<List<Module>> components;
+
+    private LinkBatch(final List<List<Module>> components) {
+        this.components = components;
+    }
+
+    /**
+     * Order the given modules.  Only dependencies on modules of the set are considered; modules which form a cycle
+     * are ordered arbitrarily with respect to each other.
+     *
+     * @param modules the modules
+     * @return the batch
+     */
+    static LinkBatch of(final Collection<Module> modules) {
+        final Map<Module, Integer> indexes = new IdentityHashMap<>(modules.size());
+        final List<Module> list = new ArrayList<>(modules.size());
+        for (Module module : modules) {
+            if (module == null) {
+                throw new IllegalArgumentException("modules contains a null module");
+            }
+            if (indexes.putIfAbsent(module, Integer.valueOf(list.size())) == null) {
+                list.add(module);
+            }
+        }
+        final int size = list.size();
+        final int[][] edges = new int[size][];
+        final int[] parents = new int[size];
+        for (int i = 0; i < size; i ++) {
+            parents[i] = i;
+        }
+        for (int i = 0; i < size; i ++) {
+            final Dependency[] dependencies = list.get(i).getDependenciesInternal();
+            final int[] targets = new int[dependencies.length];
+            int count = 0;
+            for (Dependency dependency : dependencies) {
+                if (dependency instanceof ModuleDependency) {
+                    final ModuleDependency moduleDependency = (ModuleDependency) dependency;
+                    final Module target = moduleDependency.getModuleLoader().findLoadedModuleLocal(moduleDependency.getName());
+                    final Integer index = target == null ? null : indexes.get(target);
+                    if (index != null && index.intValue() != i) {
+                        targets[count ++] = index.intValue();
+                        union(parents, i, index.intValue());
+                    }
+                }
+            }
+            edges[i] = count == targets.length ? targets : Arrays.copyOf(targets, count);
+        }
+        // depth-first post-order, so that each module follows the modules it depends on
+        final Map<Integer, List<Module>> components = new HashMap<>();
+        final List<List<Module>> ordered = new ArrayList<>();
+        final boolean[] seen = new boolean[size];
+        final int[] stack = new int[size];
+        final int[] positions = new int[size];
+        for (int root = 0; root < size; root ++) {
+            if (seen[root]) {
+                continue;
+            }
+            seen[root] = true;
+            int depth = 0;
+            stack[0] = root;
+            positions[0] = 0;
+            while (depth >= 0) {
+                final int node = stack[depth];
+                final int[] targets = edges[node];
+                if (positions[depth] < targets.length) {
+                    final int target = targets[positions[depth] ++];
+                    if (! seen[target]) {
+                        seen[target] = true;
+                        depth ++;
+                        stack[depth] = target;
+                        positions[depth] = 0;
+                    }
+                } else {
+                    final Integer component = Integer.valueOf(find(parents, node));
+                    List<Module> members = components.get(component);
+                    if (members == null) {
+                        components.put(component, members = new ArrayList<>());
+                        ordered.add(members);
+                    }
+                    members.add(list.get(node));
+                    depth --;
+                }
+            }
+        }
+        return new LinkBatch(ordered);
+    }
+
+    private static int find(final int[] parents, int i) {
+        while (parents[i] != i) {
+            i = parents[i] = parents[parents[i]];
+        }
+        return i;
+    }
+
+    private static void union(final int[] parents, final int a, final int b) {
+        final int ra = find(parents, a);
+        final int rb = find(parents, b);
+        if (ra != rb) {
+            parents[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+
+    /**
+     * Get the independent components of this batch, each in link order.
+     *
+     * @return the components
+     */
+    List<List<Module>> getComponents() {
+        return components;
+    }
+
+    /**
+     * Link the modules of a component which are not yet linked, in order.  The links of the component share the
+     * exports computed for it which could not be cached.
+     *
+     * @param component the component
+     * @throws ModuleLoadException if a module could not be linked
+     */
+    static void link(final List<Module> component) throws ModuleLoadException {
+        final Map<Module.Visited, ExportCache.Entry> shared = new HashMap<>();
+        for (Module module : component) {
+            module.getLinkage(shared);
+        }
+    }
+}
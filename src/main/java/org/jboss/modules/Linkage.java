@@ -45,6 +45,12 @@ final class Linkage {
 
     private final State state;
     private final Map<String, List<LocalLoader>> allPaths;
+    private final NegativeCache missingClasses = new NegativeCache();
+    private final NegativeCache missingResources = new NegativeCache();
+    // the export cache epoch at which a linked linkage was computed, or -1 if it may not be used for an incremental link
+    private final int epoch;
+    // for an unlinked linkage, the linked linkage which it replaces
+    private final Linkage previous;
 
     Linkage(final State state) {
         this(NO_DEPENDENCY_SPECS, NO_DEPENDENCIES, state, Collections.<String, List<LocalLoader>>emptyMap());
@@ -55,10 +61,24 @@ final class Linkage {
     }
 
     Linkage(final DependencySpec[] dependencySpecs, final Dependency[] dependencies, final State state, final Map<String, List<LocalLoader>> allPaths) {
+        this(dependencySpecs, dependencies, state, allPaths, -1, null);
+    }
+
+    Linkage(final DependencySpec[] dependencySpecs, final Dependency[] dependencies, final State state, final Linkage previous) {
+        this(dependencySpecs, dependencies, state, Collections.<String, List<LocalLoader>>emptyMap(), -1, previous);
+    }
+
+    Linkage(final DependencySpec[] dependencySpecs, final Dependency[] dependencies, final State state, final Map<String, List<LocalLoader>> allPaths, final int epoch) {
+        this(dependencySpecs, dependencies, state, allPaths, epoch, null);
+    }
+
+    private Linkage(final DependencySpec[] dependencySpecs, final Dependency[] dependencies, final State state, final Map<String, List<LocalLoader>> allPaths, final int epoch, final Linkage previous) {
         this.dependencySpecs = dependencySpecs;
         this.dependencies = dependencies;
         this.state = state;
         this.allPaths = PathUtils.deduplicateLists(allPaths);
+        this.epoch = epoch;
+        this.previous = previous;
     }
 
     Map<String, List<LocalLoader>> getPaths() {
@@ -77,5 +97,31 @@ final class Linkage {
         return dependencySpecs;
     }
 
+    /**
+     * Get the export cache epoch at which this linkage was linked.
+     *
+     * @return the epoch, or -1 if this linkage cannot be the base of an incremental link
+     */
+    int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Get the linked linkage which this linkage replaces, if any.
+     *
+     * @return the previous linkage, or {@code null} if there is none
+     */
+    Linkage getPrevious() {
+        return previous;
+    }
+
+    NegativeCache getMissingClasses() {
+        return missingClasses;
+    }
+
+    NegativeCache getMissingResources() {
+        return missingResources;
+    }
+
     static final Linkage NONE = new Linkage(State.NEW);
 }
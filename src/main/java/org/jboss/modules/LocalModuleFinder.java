@@ -30,7 +30,6 @@ import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -62,6 +61,8 @@ public final class LocalModuleFinder implements IterableModuleFinder, AutoClosea
     private final AccessControlContext accessControlContext;
     private final List<ResourceLoader> resourceLoaderList = new ArrayList<>(64);
     private final ModuleXmlParser.ResourceRootFactory resourceRootFactory;
+    // the repository indexes of the roots, with null elements for roots without an index; read on first use
+    private volatile RepositoryIndex[] indexes;
 
     private static final ResourceLoader TERMINATED_MARKER = new ResourceLoader() {
         public String getRootName() {
@@ -192,7 +193,7 @@ public final class LocalModuleFinder implements IterableModuleFinder, AutoClosea
         final PathFilter pathFilter = this.pathFilter;
         if (pathFilter.accept(child + "/")) {
             try {
-                return doPrivileged((PrivilegedExceptionAction<ModuleSpec>) () -> parseModuleXmlFile(resourceRootFactory, name, delegateLoader, repoRoots), accessControlContext);
+                return doPrivileged((PrivilegedExceptionAction<ModuleSpec>) () -> parseModuleXmlFile(name, child, delegateLoader), accessControlContext);
             } catch (PrivilegedActionException e) {
                 try {
                     throw e.getCause();
@@ -239,6 +240,106 @@ public final class LocalModuleFinder implements IterableModuleFinder, AutoClosea
         return null;
     }
 
+    private ModuleSpec parseModuleXmlFile(final String name, final String child, final ModuleLoader delegateLoader) throws IOException, ModuleLoadException {
+        int rootIndex = findRoot(child, false);
+        if (rootIndex == -1 && hasIndex()) {
+            // the answers of the indexes may predate modules which were added since
+            rootIndex = findRoot(child, true);
+        }
+        if (rootIndex == -1) {
+            return null;
+        }
+        final File file = new File(repoRoots[rootIndex], child);
+        return ModuleXmlParser.parseModuleXml(resourceRootFactory, delegateLoader, name, file, new File(file, MODULE_FILE));
+    }
+
+    /**
+     * Find the first root which has a module.
+     *
+     * @param child the module path
+     * @param recheck {@code true} to check the answers of the indexes against the filesystem again
+     * @return the index of the root, or -1 if no root has the module
+     */
+    private int findRoot(final String child, final boolean recheck) {
+        final File[] repoRoots = this.repoRoots;
+        for (int i = 0; i < repoRoots.length; i ++) {
+            final int found = findInIndex(i, child, recheck);
+            if (found == RepositoryIndex.PRESENT || found == RepositoryIndex.STALE && new File(new File(repoRoots[i], child), MODULE_FILE).exists()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find a module in the index of a root.
+     *
+     * @param rootIndex the index of the root
+     * @param child the module path
+     * @return {@link RepositoryIndex#PRESENT} or {@link RepositoryIndex#ABSENT}, or {@link RepositoryIndex#STALE} if
+     *      the root has no usable index
+     */
+    private int findInIndex(final int rootIndex, final String child, final boolean recheck) {
+        final RepositoryIndex index = getIndex(rootIndex);
+        if (index == null) {
+            return RepositoryIndex.STALE;
+        }
+        final int found = index.find(child, recheck);
+        if (found == RepositoryIndex.STALE) {
+            dropIndex(rootIndex, index);
+        }
+        return found;
+    }
+
+    private boolean hasIndex() {
+        if (! RepositoryIndex.ENABLED) {
+            return false;
+        }
+        for (int i = 0; i < repoRoots.length; i ++) {
+            if (getIndex(i) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RepositoryIndex getIndex(final int rootIndex) {
+        if (! RepositoryIndex.ENABLED) {
+            return null;
+        }
+        RepositoryIndex[] indexes = this.indexes;
+        if (indexes == null) {
+            synchronized (this) {
+                indexes = this.indexes;
+                if (indexes == null) {
+                    indexes = new RepositoryIndex[repoRoots.length];
+                    for (int i = 0; i < indexes.length; i ++) {
+                        if (repoRoots[i] != null) {
+                            indexes[i] = RepositoryIndex.read(repoRoots[i]);
+                        }
+                    }
+                    this.indexes = indexes;
+                }
+            }
+        }
+        return indexes[rootIndex];
+    }
+
+    /**
+     * Stop using a stale index, and probe its root directly from now on.  The index file is left alone; it is only
+     * written by the {@code -index} command.
+     */
+    private void dropIndex(final int rootIndex, final RepositoryIndex stale) {
+        synchronized (this) {
+            final RepositoryIndex[] indexes = this.indexes;
+            if (indexes[rootIndex] == stale) {
+                final RepositoryIndex[] newIndexes = indexes.clone();
+                newIndexes[rootIndex] = null;
+                this.indexes = newIndexes;
+            }
+        }
+    }
+
     private static final Path MODULE_FILE_PATH = new File(MODULE_FILE).toPath();
 
     private static final Predicate<Path> ITER_FILTER = new Predicate<Path>() {
@@ -249,8 +350,13 @@ public final class LocalModuleFinder implements IterableModuleFinder, AutoClosea
     };
 
     public Iterator<String> iterateModules(final String baseName, final boolean recursive, final ModuleLoader delegateLoader) {
+        final String base = baseName == null || baseName.isEmpty() ? "" : PathUtils.basicModuleNameToPath(baseName);
+        if (ModuleDiscovery.ENABLED && System.getSecurityManager() == null) {
+            // pool threads would not run with the permissions of the caller
+            return discoverModules(base, recursive);
+        }
         return new Iterator<>() {
-            private final Iterator<File> rootIter = Arrays.asList(repoRoots).iterator();
+            private int rootIndex;
             private final Set<String> found = new HashSet<>();
             private Iterator<Path> pathIter;
             private String next;
@@ -258,12 +364,15 @@ public final class LocalModuleFinder implements IterableModuleFinder, AutoClosea
             public boolean hasNext() {
                 while (next == null) {
                     while (pathIter == null) {
-                        if (! rootIter.hasNext()) {
+                        if (rootIndex == repoRoots.length) {
                             return false;
                         }
-                        Path path = rootIter.next().toPath();
-                        if (baseName != null && ! baseName.isEmpty()) {
-                            path = path.resolve(PathUtils.basicModuleNameToPath(baseName));
+                        final Path rootPath = repoRoots[rootIndex].toPath();
+                        final Path path = rootPath.resolve(base);
+                        final List<String> indexed = listFromIndex(rootIndex ++, base, recursive);
+                        if (indexed != null) {
+                            pathIter = indexed.stream().map(child -> rootPath.resolve(child).resolve(MODULE_FILE)).iterator();
+                            continue;
                         }
                         try {
                             pathIter = Files.walk(path, recursive ? Integer.MAX_VALUE : 1).filter(ITER_FILTER).iterator();
@@ -307,6 +416,26 @@ public final class LocalModuleFinder implements IterableModuleFinder, AutoClosea
         };
     }
 
+    Iterator<String> discoverModules(final String base, final boolean recursive) {
+        final Path[] roots = new Path[repoRoots.length];
+        for (int i = 0; i < roots.length; i ++) {
+            roots[i] = repoRoots[i].toPath();
+        }
+        return ModuleDiscovery.discover(roots, base, recursive, rootIndex -> listFromIndex(rootIndex, base, recursive));
+    }
+
+    private List<String> listFromIndex(final int rootIndex, final String base, final boolean recursive) {
+        RepositoryIndex index = getIndex(rootIndex);
+        if (index == null) {
+            return null;
+        }
+        final List<String> list = index.list(base, recursive);
+        if (list == null) {
+            dropIndex(rootIndex, index);
+        }
+        return list;
+    }
+
     public String toString() {
         final StringBuilder b = new StringBuilder();
         b.append("local module finder @").append(Integer.toHexString(hashCode())).append(" (roots: ");
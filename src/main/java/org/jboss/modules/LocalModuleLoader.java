@@ -19,6 +19,9 @@
 package org.jboss.modules;
 
 import java.io.File;
+import java.io.IOException;
+import java.security.AccessController;
+
 import org.jboss.modules.filter.PathFilter;
 import org.jboss.modules.filter.PathFilters;
 
@@ -51,10 +54,23 @@ public final class LocalModuleLoader extends DelegatingModuleLoader implements A
 
     /**
      * Construct a new instance, using the {@code module.path} system property or the {@code JAVA_MODULEPATH} environment variable
-     * to get the list of module repository roots.
+     * to get the list of module repository roots.  If the {@code jboss.modules.image} system property names a module
+     * image, modules are looked up in the image first.
      */
     public LocalModuleLoader() {
-        super(Utils.JDK_MODULE_LOADER, new ModuleFinder[] { new LocalModuleFinder() });
+        super(Utils.JDK_MODULE_LOADER, createFinders(new LocalModuleFinder()));
+    }
+
+    private static ModuleFinder[] createFinders(final LocalModuleFinder localModuleFinder) {
+        final String image = AccessController.doPrivileged(new PropertyReadAction("jboss.modules.image"));
+        if (image == null || image.isEmpty()) {
+            return new ModuleFinder[] { localModuleFinder };
+        }
+        try {
+            return new ModuleFinder[] { new ImageModuleFinder(new File(image)), localModuleFinder };
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to open module image " + image, e);
+        }
     }
 
     public String toString() {
@@ -68,8 +84,13 @@ public final class LocalModuleLoader extends DelegatingModuleLoader implements A
      * error after this method is called.
      */
     public void close() {
-        final ModuleFinder[] finders = getFinders();
-        assert finders.length == 1 && finders[0] instanceof LocalModuleFinder;
-        ((LocalModuleFinder)finders[0]).close();
+        for (ModuleFinder finder : getFinders()) {
+            if (finder instanceof ImageModuleFinder) {
+                ((ImageModuleFinder) finder).close();
+            } else {
+                assert finder instanceof LocalModuleFinder;
+                ((LocalModuleFinder) finder).close();
+            }
+        }
     }
 }
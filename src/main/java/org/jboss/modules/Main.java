@@ -102,6 +102,11 @@ public final class Main {
         System.out.println("                  requires -class or -cp");
         System.out.println("    -deptree      Print the dependency tree of the given module instead of running it");
         System.out.println("    -debuglog     Enable debug mode output to System.out during bootstrap before any logging manager is installed");
+        System.out.println("    -index        Write a " + RepositoryIndex.FILE_NAME + " index file to each module repository root and exit");
+        System.out.println("    -build-image <file>");
+        System.out.println("                  Pack the modules of the module path into a module image file and exit;");
+        System.out.println("                  use it with -Djboss.modules.image=<file>");
+        System.out.println("    -compress     Compress the entries of the module image; requires -build-image");
         System.out.println("    -jar          Specify that the final argument is the name of a");
         System.out.println("                  JAR file to run as a module; not compatible with -class");
         System.out.println("    -javaagent:agent.jar");
@@ -135,6 +140,9 @@ public final class Main {
         boolean defaultSecMgr = false;
         String secMgrModule = null;
         boolean debuglog = false;
+        boolean index = false;
+        String buildImage = null;
+        boolean compress = false;
         final List<String> agentJars = new ArrayList<>();
         final List<String> addedProviders = new ArrayList<>();
         for (int i = 0; i < argsLen; i++) {
@@ -175,6 +183,16 @@ public final class Main {
                         depTree = true;
                     } else if ("-debuglog".equals(arg)) {
                         debuglog = true;
+                    } else if ("-index".equals(arg)) {
+                        index = true;
+                    } else if ("-build-image".equals(arg)) {
+                        if (buildImage != null) {
+                            System.err.println("-build-image may only be specified once");
+                            System.exit(1);
+                        }
+                        buildImage = args[++i];
+                    } else if ("-compress".equals(arg)) {
+                        compress = true;
                     } else if ("-jar".equals(arg)) {
                         if (jar) {
                             System.err.println("-jar flag may only be specified once");
@@ -281,6 +299,35 @@ public final class Main {
             }
         }
 
+        if (index) {
+            for (File root : LocalModuleFinder.getRepoRoots(true)) {
+                try {
+                    final RepositoryIndex repositoryIndex = RepositoryIndex.generate(root);
+                    System.out.printf("Indexed %d modules in %s%n", Integer.valueOf(repositoryIndex.getModuleCount()), root);
+                } catch (IOException e) {
+                    System.err.printf("Failed to index %s: %s%n", root, e);
+                    System.exit(1);
+                }
+            }
+            return;
+        }
+
+        if (compress && buildImage == null) {
+            System.err.println("-compress may only be specified with -build-image");
+            System.exit(1);
+        }
+        if (buildImage != null) {
+            final File imageFile = new File(buildImage);
+            try {
+                final int count = ModuleImageBuilder.build(LocalModuleFinder.getRepoRoots(true), imageFile, compress);
+                System.out.printf("Packed %d modules into %s%n", Integer.valueOf(count), imageFile);
+            } catch (IOException e) {
+                System.err.printf("Failed to build %s: %s%n", imageFile, e);
+                System.exit(1);
+            }
+            return;
+        }
+
         if (deps != null && ! classDefined && ! classpathDefined) {
             System.err.println("-deps may only be specified when -cp/-classpath or -class is in use");
             System.exit(1);
@@ -0,0 +1,258 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * A JAR resource loader which reads a memory-mapped {@link MappedZipFile} instead of a {@link JarFile}.  Class
+ * files which are stored uncompressed are passed to the class loader as slices of the mapping without being copied.
+ * Created classes have a code source with a {@code jar:} URL, just like those of the {@code JarFile}-backed loader.
+ */
+final class MappedJarResourceLoader extends AbstractResourceLoader implements IterableResourceLoader {
+    private static final Manifest NO_MANIFEST = new Manifest();
+
+    private final MappedZipFile zipFile;
+    private final String rootName;
+    private final URI fileUri;
+    private final URL rootUrl;
+    private final String relativePath;
+    private final CodeSource codeSource;
+    private volatile Manifest manifest;
+
+    MappedJarResourceLoader(final String rootName, final MappedZipFile zipFile, final String relativePath) {
+        if (zipFile == null) {
+            throw new IllegalArgumentException("zipFile is null");
+        }
+        if (rootName == null) {
+            throw new IllegalArgumentException("rootName is null");
+        }
+        this.zipFile = zipFile;
+        this.rootName = rootName;
+        String realPath = relativePath == null ? null : PathUtils.canonicalize(relativePath);
+        if (realPath != null && realPath.endsWith("/")) realPath = realPath.substring(0, realPath.length() - 1);
+        this.relativePath = realPath;
+        fileUri = zipFile.getFile().getAbsoluteFile().toURI();
+        try {
+            rootUrl = JarFileResourceLoader.getJarURI(fileUri, realPath).toURL();
+        } catch (URISyntaxException | MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid root file specified", e);
+        }
+        // signed JARs are never mapped, so all classes share one code source
+        codeSource = new CodeSource(rootUrl, (CodeSigner[]) null);
+    }
+
+    /**
+     * Create a resource loader for the given JAR file, using a memory-mapped reader if the file supports it and a
+     * {@link JarFile} for the current runtime version otherwise.
+     *
+     * @param rootName the name of the resource root
+     * @param file the JAR file
+     * @return the resource loader
+     * @throws IOException if the file cannot be opened
+     */
+    static IterableResourceLoader create(final String rootName, final File file) throws IOException {
+        final MappedZipFile zipFile = MappedZipFile.open(file);
+        if (zipFile == null) {
+            return new JarFileResourceLoader(rootName, new JarFile(file, true, JarFile.OPEN_READ, JarFile.runtimeVersion()));
+        }
+        return new MappedJarResourceLoader(rootName, zipFile, null);
+    }
+
+    public String getRootName() {
+        return rootName;
+    }
+
+    private int findEntry(final String fileName) {
+        return zipFile.find(relativePath == null ? fileName : relativePath + "/" + fileName);
+    }
+
+    public ClassSpec getClassSpec(final String fileName) throws IOException {
+        final int entry = findEntry(fileName);
+        if (entry == -1) {
+            // no such entry
+            return null;
+        }
+        final ClassSpec spec = new ClassSpec();
+        if (zipFile.getMethod(entry) == MappedZipFile.STORED) {
+            spec.setByteBuffer(zipFile.getRawData(entry));
+        } else {
+            spec.setBytes(zipFile.readBytes(entry));
+        }
+        spec.setCodeSource(codeSource);
+        return spec;
+    }
+
+    public PackageSpec getPackageSpec(final String name) throws IOException {
+        Manifest manifest = this.manifest;
+        if (manifest == null) {
+            final int entry = findEntry("META-INF/MANIFEST.MF");
+            // racing readers just parse the manifest twice
+            this.manifest = manifest = entry == -1 ? NO_MANIFEST : zipFile.readManifest(entry);
+        }
+        return getPackageSpec(name, manifest == NO_MANIFEST ? null : manifest, rootUrl);
+    }
+
+    public String getLibrary(final String name) {
+        // JARs cannot have libraries in them
+        return null;
+    }
+
+    public Resource getResource(String name) {
+        name = PathUtils.canonicalize(PathUtils.relativize(name));
+        final int entry = findEntry(name);
+        return entry == -1 ? null : createResource(entry);
+    }
+
+    private Resource createResource(final int entry) {
+        final String entryName = zipFile.getName(entry);
+        final URL url;
+        try {
+            url = JarFileResourceLoader.getJarURI(fileUri, entryName).toURL();
+        } catch (URISyntaxException | MalformedURLException e) {
+            // must be invalid...?
+            return null;
+        }
+        return new MappedJarEntryResource(zipFile, entry, relativePath == null ? entryName : entryName.substring(relativePath.length() + 1), url);
+    }
+
+    public Iterator<Resource> iterateResources(String startPath, final boolean recursive) {
+        if (relativePath != null) startPath = startPath.equals("") ? relativePath : relativePath + "/" + startPath;
+        final String startName = PathUtils.canonicalize(PathUtils.relativize(startPath));
+        final MappedZipFile zipFile = this.zipFile;
+        return new Iterator<>() {
+            private int idx;
+            private Resource next;
+
+            public boolean hasNext() {
+                while (next == null) {
+                    if (idx == zipFile.size()) {
+                        return false;
+                    }
+                    final int entry = idx++;
+                    final String name = zipFile.getName(entry);
+                    if (! name.endsWith("/") && (recursive ? PathUtils.isChild(startName, name) : PathUtils.isDirectChild(startName, name))) {
+                        next = createResource(entry);
+                    }
+                }
+                return true;
+            }
+
+            public Resource next() {
+                if (! hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return next;
+                } finally {
+                    next = null;
+                }
+            }
+        };
+    }
+
+    public Collection<String> getPaths() {
+        final Collection<String> index = new HashSet<>();
+        index.add("");
+        final String prefix = relativePath == null ? null : relativePath + "/";
+        for (int i = 0; i < zipFile.size(); i ++) {
+            final String name = zipFile.getName(i);
+            final int idx = name.lastIndexOf('/');
+            if (idx == -1) continue;
+            final String path = name.substring(0, idx);
+            if (path.length() == 0 || path.endsWith("/")) {
+                // invalid name, just skip...
+                continue;
+            }
+            if (prefix == null) {
+                index.add(path);
+            } else if (path.startsWith(prefix)) {
+                index.add(path.substring(prefix.length()));
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    public URI getLocation() {
+        try {
+            return JarFileResourceLoader.getJarURI(fileUri, "");
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    public ResourceLoader createSubloader(final String relativePath, final String rootName) {
+        final String ourRelativePath = this.relativePath;
+        final String fixedPath = PathUtils.relativize(PathUtils.canonicalize(relativePath));
+        return new MappedJarResourceLoader(rootName, zipFile, ourRelativePath == null ? fixedPath : ourRelativePath + "/" + fixedPath);
+    }
+
+    static final class MappedJarEntryResource implements Resource {
+        private final MappedZipFile zipFile;
+        private final int entry;
+        private final String name;
+        private final URL url;
+
+        MappedJarEntryResource(final MappedZipFile zipFile, final int entry, final String name, final URL url) {
+            this.zipFile = zipFile;
+            this.entry = entry;
+            this.name = name;
+            this.url = url;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public URL getURL() {
+            return url;
+        }
+
+        public InputStream openStream() throws IOException {
+            return zipFile.openStream(entry);
+        }
+
+        public long getSize() {
+            return zipFile.getSize(entry);
+        }
+    }
+}
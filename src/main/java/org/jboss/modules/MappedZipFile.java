@@ -0,0 +1,425 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A read-only ZIP file which is memory-mapped in its entirety.  The central directory is parsed once into a compact
+ * index of parallel arrays; entry data is read directly from the mapping, so {@code STORED} entries can be handed out
+ * as buffer slices without copying.
+ * <p>
+ * Only plain archives are supported: ZIP64, encrypted entries, compression methods other than {@code STORED} and
+ * {@code DEFLATED}, signed JARs and multi-release JARs cause {@link #open(File)} to return {@code null} so that the
+ * caller can fall back to {@link java.util.jar.JarFile}, which implements verification and versioned lookup.
+ */
+final class MappedZipFile {
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    private static final int LOCSIG = 0x04034b50;
+    private static final int CENSIG = 0x02014b50;
+    private static final int ENDSIG = 0x06054b50;
+    private static final int LOCHDR = 30;
+    private static final int CENHDR = 46;
+    private static final int ENDHDR = 22;
+
+    private static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+
+    private final File file;
+    private final ByteBuffer buffer;
+    // parallel entry arrays, in central directory order
+    private final String[] names;
+    private final int[] offsets;
+    private final int[] compressedSizes;
+    private final int[] sizes;
+    private final byte[] methods;
+    // open-addressing hash table of entry index + 1
+    private final int[] table;
+    private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    private MappedZipFile(final File file, final ByteBuffer buffer, final int count) {
+        this.file = file;
+        this.buffer = buffer;
+        names = new String[count];
+        offsets = new int[count];
+        compressedSizes = new int[count];
+        sizes = new int[count];
+        methods = new byte[count];
+        table = new int[Integer.highestOneBit(Math.max(count, 1) * 4 - 1)];
+    }
+
+    /**
+     * Open and index the given ZIP file.
+     *
+     * @param file the file to open
+     * @return the mapped ZIP file, or {@code null} if the file uses features which this reader does not support
+     * @throws IOException if the file cannot be read or is not a valid ZIP file
+     */
+    static MappedZipFile open(final File file) throws IOException {
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        final int end = findEnd(buffer);
+        if (end == -1) {
+            throw new ZipException("End of central directory not found in " + file);
+        }
+        final int count = buffer.getShort(end + 10) & 0xffff;
+        final long cenSize = buffer.getInt(end + 12) & 0xffffffffL;
+        final long cenOffset = buffer.getInt(end + 16) & 0xffffffffL;
+        if (count == 0xffff || cenSize == 0xffffffffL || cenOffset == 0xffffffffL) {
+            // ZIP64
+            return null;
+        }
+        if (cenOffset + cenSize > end) {
+            throw new ZipException("Invalid central directory in " + file);
+        }
+        final MappedZipFile zipFile = new MappedZipFile(file, buffer, count);
+        int pos = (int) cenOffset;
+        for (int i = 0; i < count; i ++) {
+            if (pos + CENHDR > end || buffer.getInt(pos) != CENSIG) {
+                throw new ZipException("Invalid central directory entry in " + file);
+            }
+            final int flags = buffer.getShort(pos + 8) & 0xffff;
+            final int method = buffer.getShort(pos + 10) & 0xffff;
+            final int compressedSize = buffer.getInt(pos + 20);
+            final int size = buffer.getInt(pos + 24);
+            final int nameLength = buffer.getShort(pos + 28) & 0xffff;
+            final int extraLength = buffer.getShort(pos + 30) & 0xffff;
+            final int commentLength = buffer.getShort(pos + 32) & 0xffff;
+            final int offset = buffer.getInt(pos + 42);
+            if ((flags & 1) != 0 || method != STORED && method != DEFLATED || compressedSize < 0 || size < 0 || offset < 0) {
+                // encrypted, unsupported compression, or ZIP64 sizes
+                return null;
+            }
+            if (pos + CENHDR + nameLength + extraLength + commentLength > end) {
+                throw new ZipException("Invalid central directory entry in " + file);
+            }
+            final String name = readName(buffer, pos + CENHDR, nameLength);
+            if (isSignatureFile(name)) {
+                return null;
+            }
+            zipFile.names[i] = name;
+            zipFile.offsets[i] = offset;
+            zipFile.compressedSizes[i] = compressedSize;
+            zipFile.sizes[i] = size;
+            zipFile.methods[i] = (byte) method;
+            zipFile.insert(i);
+            pos += CENHDR + nameLength + extraLength + commentLength;
+        }
+        final int manifest = zipFile.find(MANIFEST_NAME);
+        if (manifest != -1 && isMultiRelease(zipFile.readManifest(manifest))) {
+            return null;
+        }
+        return zipFile;
+    }
+
+    private static int findEnd(final ByteBuffer buffer) {
+        final int limit = Math.max(0, buffer.capacity() - ENDHDR - 0xffff);
+        for (int pos = buffer.capacity() - ENDHDR; pos >= limit; pos --) {
+            if (buffer.getInt(pos) == ENDSIG) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private static String readName(final ByteBuffer buffer, final int pos, final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i ++) {
+            bytes[i] = buffer.get(pos + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isSignatureFile(final String name) {
+        return name.startsWith("META-INF/") && name.indexOf('/', 9) == -1 && name.toUpperCase(Locale.ROOT).endsWith(".SF");
+    }
+
+    private static boolean isMultiRelease(final Manifest manifest) {
+        return "true".equalsIgnoreCase(manifest.getMainAttributes().getValue(Attributes.Name.MULTI_RELEASE));
+    }
+
+    private static int hash(final String name) {
+        final int h = name.hashCode();
+        return h ^ h >>> 16;
+    }
+
+    private void insert(final int entry) {
+        final int[] table = this.table;
+        final String name = names[entry];
+        final int mask = table.length - 1;
+        int idx = hash(name) & mask;
+        int existing;
+        while ((existing = table[idx]) != 0) {
+            if (names[existing - 1].equals(name)) {
+                // first entry wins
+                return;
+            }
+            idx = idx + 1 & mask;
+        }
+        table[idx] = entry + 1;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the number of entries, including directory entries.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return names.length;
+    }
+
+    String getName(final int entry) {
+        return names[entry];
+    }
+
+    int getSize(final int entry) {
+        return sizes[entry];
+    }
+
+    int getMethod(final int entry) {
+        return methods[entry];
+    }
+
+    /**
+     * Find the entry with the given name.
+     *
+     * @param name the entry name
+     * @return the entry index, or -1 if there is no such entry
+     */
+    int find(final String name) {
+        final int[] table = this.table;
+        final int mask = table.length - 1;
+        int idx = hash(name) & mask;
+        int entry;
+        while ((entry = table[idx]) != 0) {
+            if (names[entry - 1].equals(name)) {
+                return entry - 1;
+            }
+            idx = idx + 1 & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the raw (possibly compressed) data of an entry as a read-only slice of the mapping.
+     *
+     * @param entry the entry index
+     * @return the entry data
+     * @throws IOException if the entry's local header is invalid
+     */
+    ByteBuffer getRawData(final int entry) throws IOException {
+        checkOpen();
+        final ByteBuffer buffer = this.buffer;
+        final int offset = offsets[entry];
+        if (offset > buffer.capacity() - LOCHDR || buffer.getInt(offset) != LOCSIG) {
+            throw new ZipException("Invalid local header for " + names[entry] + " in " + file);
+        }
+        final int start = offset + LOCHDR + (buffer.getShort(offset + 26) & 0xffff) + (buffer.getShort(offset + 28) & 0xffff);
+        final int length = compressedSizes[entry];
+        if (start > buffer.capacity() - length) {
+            throw new ZipException("Truncated entry " + names[entry] + " in " + file);
+        }
+        final ByteBuffer slice = buffer.duplicate();
+        slice.position(start);
+        slice.limit(start + length);
+        return slice.slice();
+    }
+
+    /**
+     * Read the uncompressed content of an entry into a new array.
+     *
+     * @param entry the entry index
+     * @return the entry content
+     * @throws IOException if the entry cannot be read
+     */
+    byte[] readBytes(final int entry) throws IOException {
+        final ByteBuffer raw = getRawData(entry);
+        final byte[] bytes = new byte[sizes[entry]];
+        if (methods[entry] == STORED) {
+            raw.get(bytes);
+            return bytes;
+        }
+        final Inflater inflater = getInflater();
+        try {
+            inflater.setInput(raw);
+            boolean padded = false;
+            int pos = 0;
+            while (pos < bytes.length) {
+                final int res = inflater.inflate(bytes, pos, bytes.length - pos);
+                if (res == 0) {
+                    if (inflater.finished() || inflater.needsDictionary() || padded) {
+                        throw new ZipException("Truncated entry " + names[entry] + " in " + file);
+                    }
+                    // raw inflation may need one byte past the end of the data to complete
+                    inflater.setInput(new byte[1]);
+                    padded = true;
+                }
+                pos += res;
+            }
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid compressed data for " + names[entry] + " in " + file + ": " + e.getMessage());
+        } finally {
+            releaseInflater(inflater);
+        }
+    }
+
+    /**
+     * Open a stream over the uncompressed content of an entry.
+     *
+     * @param entry the entry index
+     * @return the stream
+     * @throws IOException if the entry cannot be read
+     */
+    InputStream openStream(final int entry) throws IOException {
+        final ByteBuffer raw = getRawData(entry);
+        final InputStream is = new BufferInputStream(raw);
+        if (methods[entry] == STORED) {
+            return is;
+        }
+        return new EntryInflaterInputStream(is, getInflater());
+    }
+
+    Manifest readManifest(final int entry) throws IOException {
+        return new Manifest(new ByteArrayInputStream(readBytes(entry)));
+    }
+
+    private Inflater getInflater() {
+        final Inflater inflater = inflaters.poll();
+        return inflater == null ? new Inflater(true) : inflater;
+    }
+
+    private void releaseInflater(final Inflater inflater) {
+        if (closed) {
+            inflater.end();
+        } else {
+            inflater.reset();
+            inflaters.offer(inflater);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new ZipException("ZIP file closed: " + file);
+        }
+    }
+
+    /**
+     * Close this file.  Buffers which were already handed out remain valid until they are garbage collected.
+     */
+    void close() {
+        closed = true;
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+    static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            final int cnt = Math.min(len, buffer.remaining());
+            if (cnt == 0) {
+                return -1;
+            }
+            buffer.get(b, off, cnt);
+            return cnt;
+        }
+
+        public long skip(final long n) {
+            final int cnt = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + cnt);
+            return cnt;
+        }
+
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    final class EntryInflaterInputStream extends InflaterInputStream {
+        private boolean padded;
+        private boolean released;
+
+        EntryInflaterInputStream(final InputStream in, final Inflater inflater) {
+            super(in, inflater, 8192);
+        }
+
+        protected void fill() throws IOException {
+            if (padded || in.available() > 0) {
+                super.fill();
+                return;
+            }
+            // raw inflation may need one byte past the end of the data to complete
+            padded = true;
+            buf[0] = 0;
+            len = 1;
+            inf.setInput(buf, 0, 1);
+        }
+
+        public void close() throws IOException {
+            super.close();
+            if (! released) {
+                released = true;
+                releaseInflater(inf);
+            }
+        }
+    }
+}
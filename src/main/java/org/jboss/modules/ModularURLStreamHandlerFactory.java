@@ -97,6 +97,9 @@ final class ModularURLStreamHandlerFactory implements URLStreamHandlerFactory {
         if (protocol.equals("data")) {
             return DataURLStreamHandler.getInstance();
         }
+        if (protocol.equals(ModuleImage.PROTOCOL)) {
+            return ModuleImage.Handler.INSTANCE;
+        }
 
         return null;
     }
@@ -34,6 +34,7 @@ import java.security.PermissionCollection;
 import java.security.Permissions;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -46,6 +47,8 @@ import java.util.NoSuchElementException;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 
 import org.jboss.modules._private.ModulesPrivateAccess;
@@ -79,8 +82,6 @@ public final class Module {
     static {
         log = NoopModuleLogger.getInstance();
         BOOT_MODULE_LOADER = new AtomicReference<>();
-        EMPTY_CLASS_FILTERS = new FastCopyHashSet<>(0);
-        EMPTY_PATH_FILTERS = new FastCopyHashSet<>(0);
         GET_DEPENDENCIES = new RuntimePermission("getDependencies");
         GET_CLASS_LOADER = new RuntimePermission("getClassLoader");
         GET_BOOT_MODULE_LOADER = new RuntimePermission("getBootModuleLoader");
@@ -107,8 +108,8 @@ public final class Module {
                 }
             } while (nc != -1);
         }
-        systemPackages = list.toArray(String[]::new);
-        systemPaths = list.stream().map(i -> i.replace('.', '/')).toArray(String[]::new);
+        systemPackages = PrefixMatcher.compile(list.toArray(String[]::new));
+        systemPaths = PrefixMatcher.compile(list.stream().map(i -> i.replace('.', '/')).toArray(String[]::new));
 
         AccessController.doPrivileged(new PrivilegedAction<Void>() {
             public Void run() {
@@ -129,8 +130,8 @@ public final class Module {
 
     // static properties
 
-    static final String[] systemPackages;
-    static final String[] systemPaths;
+    static final PrefixMatcher systemPackages;
+    static final PrefixMatcher systemPaths;
 
     static final ModulesPrivateAccess PRIVATE_ACCESS = new ModulesPrivateAccess() {
         public ModuleClassLoader getClassLoaderOf(final Module module) {
@@ -155,9 +156,6 @@ public final class Module {
      */
     static volatile ModuleLogger log;
 
-    private static final FastCopyHashSet<ClassFilter> EMPTY_CLASS_FILTERS;
-    private static final FastCopyHashSet<PathFilter> EMPTY_PATH_FILTERS;
-
     // immutable properties
 
     /**
@@ -203,6 +201,14 @@ public final class Module {
      * The linkage state.
      */
     private volatile Linkage linkage = Linkage.NONE;
+    /**
+     * The lock guarding linkage state transitions; an explicit lock so that waiters do not pin virtual threads.
+     */
+    private final ReentrantLock linkLock = new ReentrantLock();
+    /**
+     * Signalled whenever the linkage changes.
+     */
+    private final Condition linkageChanged = linkLock.newCondition();
 
     // private constants
 
@@ -661,16 +667,22 @@ public final class Module {
      *
      * @param className the class name
      * @param resolve {@code true} to resolve the class after definition
-     * @return the class
+     * @return the class, or {@code null} if it was not found
      */
-    Class<?> loadModuleClass(final String className, final boolean resolve) throws ClassNotFoundException {
-        for (String s : systemPackages) {
-            if (className.startsWith(s)) {
-                return moduleClassLoader.loadClass(className, resolve);
-            }
+    Class<?> loadModuleClass(final String className, final boolean resolve) {
+        if (systemPackages.matches(className)) {
+            return moduleClassLoader.tryLoadClass(className, resolve);
+        }
+        final int epoch = NegativeCache.epoch();
+        final Linkage linkage = getLinkageUnchecked();
+        final LocalLoader fallbackLoader = this.fallbackLoader;
+        final NegativeCache missingClasses = linkage.getMissingClasses();
+        if (fallbackLoader == null && missingClasses.contains(className, epoch)) {
+            moduleLoader.incNegativeCacheHitCount();
+            return null;
         }
         final String path = pathOfClass(className);
-        final Map<String, List<LocalLoader>> paths = getPathsUnchecked();
+        final Map<String, List<LocalLoader>> paths = linkage.getPaths();
         final List<LocalLoader> loaders = paths.get(path);
         if (loaders != null) {
             Class<?> clazz;
@@ -681,10 +693,11 @@ public final class Module {
                 }
             }
         }
-        final LocalLoader fallbackLoader = this.fallbackLoader;
         if (fallbackLoader != null) {
             return fallbackLoader.loadClassLocal(className, resolve);
         }
+        missingClasses.add(className, epoch);
+        moduleLoader.incNegativeCacheMissCount();
         return null;
     }
 
@@ -696,14 +709,22 @@ public final class Module {
      */
     URL getResource(final String name) {
         final String canonPath = PathUtils.canonicalize(name);
-        for (String s : Module.systemPaths) {
-            if (canonPath.startsWith(s)) {
-                return moduleClassLoader.getResource(canonPath);
-            }
+        if (Module.systemPaths.matches(canonPath)) {
+            return moduleClassLoader.getResource(canonPath);
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Attempting to find resource %s in %s", canonPath, this);
+        }
+        final int epoch = NegativeCache.epoch();
+        final Linkage linkage = getLinkageUnchecked();
+        final LocalLoader fallbackLoader = this.fallbackLoader;
+        final NegativeCache missingResources = linkage.getMissingResources();
+        if (fallbackLoader == null && missingResources.contains(canonPath, epoch)) {
+            moduleLoader.incNegativeCacheHitCount();
+            return null;
         }
-        log.trace("Attempting to find resource %s in %s", canonPath, this);
         final String path = pathOf(canonPath);
-        final Map<String, List<LocalLoader>> paths = getPathsUnchecked();
+        final Map<String, List<LocalLoader>> paths = linkage.getPaths();
         final List<LocalLoader> loaders = paths.get(path);
         if (loaders != null) {
             for (LocalLoader loader : loaders) {
@@ -713,13 +734,15 @@ public final class Module {
                 }
             }
         }
-        final LocalLoader fallbackLoader = this.fallbackLoader;
         if (fallbackLoader != null) {
             final Iterator<Resource> iterator = fallbackLoader.loadResourceLocal(canonPath).iterator();
             if (iterator.hasNext()) {
                 return iterator.next().getURL();
             }
+            return null;
         }
+        missingResources.add(canonPath, epoch);
+        moduleLoader.incNegativeCacheMissCount();
         return null;
     }
 
@@ -731,14 +754,22 @@ public final class Module {
      */
     InputStream getResourceAsStream(final String name) throws IOException {
         final String canonPath = PathUtils.canonicalize(name);
-        for (String s : Module.systemPaths) {
-            if (canonPath.startsWith(s)) {
-                return moduleClassLoader.getResourceAsStream(canonPath);
-            }
+        if (Module.systemPaths.matches(canonPath)) {
+            return moduleClassLoader.getResourceAsStream(canonPath);
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Attempting to find resource %s in %s", canonPath, this);
+        }
+        final int epoch = NegativeCache.epoch();
+        final Linkage linkage = getLinkageUnchecked();
+        final LocalLoader fallbackLoader = this.fallbackLoader;
+        final NegativeCache missingResources = linkage.getMissingResources();
+        if (fallbackLoader == null && missingResources.contains(canonPath, epoch)) {
+            moduleLoader.incNegativeCacheHitCount();
+            return null;
         }
-        log.trace("Attempting to find resource %s in %s", canonPath, this);
         final String path = pathOf(canonPath);
-        final Map<String, List<LocalLoader>> paths = getPathsUnchecked();
+        final Map<String, List<LocalLoader>> paths = linkage.getPaths();
         final List<LocalLoader> loaders = paths.get(path);
         if (loaders != null) {
             for (LocalLoader loader : loaders) {
@@ -749,14 +780,16 @@ public final class Module {
                 }
             }
         }
-        final LocalLoader fallbackLoader = this.fallbackLoader;
         if (fallbackLoader != null) {
             final List<Resource> resourceList = fallbackLoader.loadResourceLocal(canonPath);
             final Iterator<Resource> iterator = resourceList.iterator();
             if (iterator.hasNext()) {
                 return iterator.next().openStream();
             }
+            return null;
         }
+        missingResources.add(canonPath, epoch);
+        moduleLoader.incNegativeCacheMissCount();
         return null;
     }
 
@@ -768,18 +801,26 @@ public final class Module {
      */
     Enumeration<URL> getResources(final String name) {
         final String canonPath = PathUtils.canonicalize(PathUtils.relativize(name));
-        for (String s : Module.systemPaths) {
-            if (canonPath.startsWith(s)) {
-                try {
-                    return moduleClassLoader.getResources(canonPath);
-                } catch (IOException e) {
-                    return Collections.emptyEnumeration();
-                }
+        if (Module.systemPaths.matches(canonPath)) {
+            try {
+                return moduleClassLoader.getResources(canonPath);
+            } catch (IOException e) {
+                return Collections.emptyEnumeration();
             }
         }
-        log.trace("Attempting to find all resources %s in %s", canonPath, this);
+        if (log.isTraceEnabled()) {
+            log.trace("Attempting to find all resources %s in %s", canonPath, this);
+        }
+        final int epoch = NegativeCache.epoch();
+        final Linkage linkage = getLinkageUnchecked();
+        final LocalLoader fallbackLoader = this.fallbackLoader;
+        final NegativeCache missingResources = linkage.getMissingResources();
+        if (fallbackLoader == null && missingResources.contains(canonPath, epoch)) {
+            moduleLoader.incNegativeCacheHitCount();
+            return Collections.emptyEnumeration();
+        }
         final String path = pathOf(canonPath);
-        final Map<String, List<LocalLoader>> paths = getPathsUnchecked();
+        final Map<String, List<LocalLoader>> paths = linkage.getPaths();
         final List<LocalLoader> loaders = paths.get(path);
 
         final List<URL> list = new ArrayList<>();
@@ -791,12 +832,14 @@ public final class Module {
                 }
             }
         }
-        final LocalLoader fallbackLoader = this.fallbackLoader;
         if (fallbackLoader != null) {
             final List<Resource> resourceList = fallbackLoader.loadResourceLocal(canonPath);
             for (Resource resource : resourceList) {
                 list.add(resource.getURL());
             }
+        } else if (list.isEmpty()) {
+            missingResources.add(canonPath, epoch);
+            moduleLoader.incNegativeCacheMissCount();
         }
 
         return Collections.enumeration(list);
@@ -1128,12 +1171,12 @@ public final class Module {
 
     static final class Visited {
         private final Module module;
-        private final FastCopyHashSet<PathFilter> filters;
-        private final FastCopyHashSet<ClassFilter> classFilters;
-        private final FastCopyHashSet<PathFilter> resourceFilters;
+        private final FilterStack<PathFilter> filters;
+        private final FilterStack<ClassFilter> classFilters;
+        private final FilterStack<PathFilter> resourceFilters;
         private final int hashCode;
 
-        Visited(final Module module, final FastCopyHashSet<PathFilter> filters, final FastCopyHashSet<ClassFilter> classFilters, final FastCopyHashSet<PathFilter> resourceFilters) {
+        Visited(final Module module, final FilterStack<PathFilter> filters, final FilterStack<ClassFilter> classFilters, final FilterStack<PathFilter> resourceFilters) {
             this.module = module;
             this.filters = filters;
             this.classFilters = classFilters;
@@ -1150,88 +1193,69 @@ public final class Module {
         }
 
         public boolean equals(Visited other) {
-            return this == other || other != null && module == other.module && filters.equals(other.filters) && classFilters.equals(other.classFilters) && resourceFilters.equals(other.resourceFilters);
+            return this == other || other != null && module == other.module && filters == other.filters && classFilters == other.classFilters && resourceFilters == other.resourceFilters;
         }
     }
 
-    private long addPaths(Dependency[] dependencies, Map<String, List<LocalLoader>> map, FastCopyHashSet<PathFilter> filterStack, FastCopyHashSet<ClassFilter> classFilterStack, final FastCopyHashSet<PathFilter> resourceFilterStack, Set<Visited> visited) throws ModuleLoadException {
-        long subtract = 0L;
+    /**
+     * Resolve the module of a dependency, and get the key of its exports as seen through the given filter stacks.
+     *
+     * @return the key, or {@code null} if the dependency is optional and its module is missing
+     */
+    private Visited getImportKey(final ModuleDependency moduleDependency, final FilterStack<PathFilter> filterStack, final FilterStack<ClassFilter> classFilterStack, final FilterStack<PathFilter> resourceFilterStack, final LinkContext context) throws ModuleLoadException {
+        final ModuleLoader moduleLoader = moduleDependency.getModuleLoader();
+        final String name = moduleDependency.getName();
+        final Module module;
+
+        try {
+            long pauseStart = Metrics.getCurrentCPUTime();
+            try {
+                module = moduleLoader.preloadModule(name);
+            } finally {
+                context.subtract += Metrics.getCurrentCPUTime() - pauseStart;
+            }
+        } catch (ModuleLoadException ex) {
+            if (moduleDependency.isOptional()) {
+                context.incomplete = true;
+                return null;
+            } else {
+                log.trace("Module %s, dependency %s preload failed: %s", getName(), moduleDependency.getName(), ex);
+                throw ex;
+            }
+        }
+        if (module == null) {
+            if (!moduleDependency.isOptional()) {
+                throw new ModuleNotFoundException(name);
+            }
+            context.incomplete = true;
+            return null;
+        }
+
+        final PathFilter importFilter = moduleDependency.getImportFilter();
+        final FilterStack<PathFilter> nestedFilters = filterStack.with(importFilter);
+        final ClassFilter classImportFilter = moduleDependency.getClassImportFilter();
+        final FilterStack<ClassFilter> nestedClassFilters = classImportFilter == ClassFilters.acceptAll() ? classFilterStack : classFilterStack.with(classImportFilter);
+        final PathFilter resourceImportFilter = moduleDependency.getResourceImportFilter();
+        final FilterStack<PathFilter> nestedResourceFilters = resourceImportFilter == PathFilters.acceptAll() ? resourceFilterStack : resourceFilterStack.with(resourceImportFilter);
+        return new Visited(module, nestedFilters, nestedClassFilters, nestedResourceFilters);
+    }
+
+    private void addPaths(Dependency[] dependencies, Map<String, List<LocalLoader>> map, FilterStack<PathFilter> filterStack, FilterStack<ClassFilter> classFilterStack, final FilterStack<PathFilter> resourceFilterStack, Set<Visited> visited, final LinkContext context) throws ModuleLoadException {
         moduleLoader.incScanCount();
         for (Dependency dependency : dependencies) {
             if (dependency instanceof ModuleDependency) {
-                final ModuleDependency moduleDependency = (ModuleDependency) dependency;
-                final ModuleLoader moduleLoader = moduleDependency.getModuleLoader();
-                final String name = moduleDependency.getName();
-                final Module module;
-
-                try {
-                    long pauseStart = Metrics.getCurrentCPUTime();
-                    try {
-                        module = moduleLoader.preloadModule(name);
-                    } finally {
-                        subtract += Metrics.getCurrentCPUTime() - pauseStart;
-                    }
-                } catch (ModuleLoadException ex) {
-                    if (moduleDependency.isOptional()) {
-                        continue;
-                    } else {
-                        log.trace("Module %s, dependency %s preload failed: %s", getName(), moduleDependency.getName(), ex);
-                        throw ex;
-                    }
-                }
-                if (module == null) {
-                    if (!moduleDependency.isOptional()) {
-                        throw new ModuleNotFoundException(name);
-                    }
+                final Visited key = getImportKey((ModuleDependency) dependency, filterStack, classFilterStack, resourceFilterStack, context);
+                if (key == null) {
                     continue;
                 }
-
-                final PathFilter importFilter = dependency.getImportFilter();
-                final FastCopyHashSet<PathFilter> nestedFilters;
-                final FastCopyHashSet<ClassFilter> nestedClassFilters;
-                final FastCopyHashSet<PathFilter> nestedResourceFilters;
-                if (filterStack.contains(importFilter)) {
-                    nestedFilters = filterStack;
-                } else {
-                    nestedFilters = filterStack.clone();
-                    nestedFilters.add(importFilter);
-                }
-                final ClassFilter classImportFilter = dependency.getClassImportFilter();
-                if (classImportFilter == ClassFilters.acceptAll() || classFilterStack.contains(classImportFilter)) {
-                    nestedClassFilters = classFilterStack;
-                } else {
-                    nestedClassFilters = classFilterStack.clone();
-                    if (classImportFilter != ClassFilters.acceptAll()) nestedClassFilters.add(classImportFilter);
-                }
-                final PathFilter resourceImportFilter = dependency.getResourceImportFilter();
-                if (resourceImportFilter == PathFilters.acceptAll() || resourceFilterStack.contains(resourceImportFilter)) {
-                    nestedResourceFilters = resourceFilterStack;
+                if (ExportCache.ENABLED) {
+                    mergeExportedPaths(key, map, context);
                 } else {
-                    nestedResourceFilters = resourceFilterStack.clone();
-                    if (resourceImportFilter != PathFilters.acceptAll()) nestedResourceFilters.add(resourceImportFilter);
+                    addExportedPaths(key, map, visited, context);
                 }
-                subtract += module.addExportedPaths(module.getDependenciesInternal(), map, nestedFilters, nestedClassFilters, nestedResourceFilters, visited);
             } else if (dependency instanceof ModuleClassLoaderDependency) {
                 final ModuleClassLoaderDependency classLoaderDependency = (ModuleClassLoaderDependency) dependency;
-                LocalLoader localLoader = classLoaderDependency.getLocalLoader();
-                for (Object filter : classFilterStack.getRawArray()) {
-                    if (filter != null && filter != ClassFilters.acceptAll()) {
-                        localLoader = createClassFilteredLocalLoader((ClassFilter) filter, localLoader);
-                    }
-                }
-                for (Object filter : resourceFilterStack.getRawArray()) {
-                    if (filter != null && filter != PathFilters.acceptAll()) {
-                        localLoader = createPathFilteredLocalLoader((PathFilter) filter, localLoader);
-                    }
-                }
-                ClassFilter classFilter = classLoaderDependency.getClassImportFilter();
-                if (classFilter != ClassFilters.acceptAll()) {
-                    localLoader = createClassFilteredLocalLoader(classFilter, localLoader);
-                }
-                PathFilter resourceFilter = classLoaderDependency.getResourceImportFilter();
-                if (resourceFilter != PathFilters.acceptAll()) {
-                    localLoader = createPathFilteredLocalLoader(resourceFilter, localLoader);
-                }
+                final LocalLoader localLoader = createFilteredLocalLoader(classLoaderDependency.getLocalLoader(), classFilterStack, resourceFilterStack, classLoaderDependency.getClassImportFilter(), ClassFilters.acceptAll(), classLoaderDependency.getResourceImportFilter(), PathFilters.acceptAll());
                 final PathFilter importFilter = classLoaderDependency.getImportFilter();
                 final Set<String> paths = classLoaderDependency.getPaths();
                 for (String path : paths) {
@@ -1247,25 +1271,7 @@ public final class Module {
                 }
             } else if (dependency instanceof LocalDependency) {
                 final LocalDependency localDependency = (LocalDependency) dependency;
-                LocalLoader localLoader = localDependency.getLocalLoader();
-                for (Object filter : classFilterStack.getRawArray()) {
-                    if (filter != null && filter != ClassFilters.acceptAll()) {
-                        localLoader = createClassFilteredLocalLoader((ClassFilter) filter, localLoader);
-                    }
-                }
-                for (Object filter : resourceFilterStack.getRawArray()) {
-                    if (filter != null && filter != PathFilters.acceptAll()) {
-                        localLoader = createPathFilteredLocalLoader((PathFilter) filter, localLoader);
-                    }
-                }
-                final ClassFilter classFilter = localDependency.getClassImportFilter();
-                if (classFilter != ClassFilters.acceptAll()) {
-                    localLoader = createClassFilteredLocalLoader(classFilter, localLoader);
-                }
-                final PathFilter resourceFilter = localDependency.getResourceImportFilter();
-                if (resourceFilter != PathFilters.acceptAll()) {
-                    localLoader = createPathFilteredLocalLoader(resourceFilter, localLoader);
-                }
+                final LocalLoader localLoader = createFilteredLocalLoader(localDependency.getLocalLoader(), classFilterStack, resourceFilterStack, localDependency.getClassImportFilter(), ClassFilters.acceptAll(), localDependency.getResourceImportFilter(), PathFilters.acceptAll());
                 final PathFilter importFilter = localDependency.getImportFilter();
                 final Set<String> paths = localDependency.getPaths();
                 for (String path : paths) {
@@ -1282,30 +1288,72 @@ public final class Module {
             }
             // else unknown dep type so just skip
         }
-        return subtract;
     }
 
-    private LocalLoader createPathFilteredLocalLoader(PathFilter filter, LocalLoader localLoader) {
-        if (localLoader instanceof IterableLocalLoader)
-            return LocalLoaders.createIterablePathFilteredLocalLoader(filter, (IterableLocalLoader) localLoader);
-        else
-            return LocalLoaders.createPathFilteredLocalLoader(filter, localLoader);
+    /**
+     * Create a loader which applies the filters of the given stacks and of a dependency to a local loader in a single
+     * step.  Filters which accept everything are dropped, and the remaining ones are combined into one class filter
+     * and one resource filter.
+     *
+     * @return the filtered loader, or the original loader if there is nothing to filter
+     */
+    private static LocalLoader createFilteredLocalLoader(final LocalLoader localLoader, FilterStack<ClassFilter> classFilterStack, FilterStack<PathFilter> resourceFilterStack, final ClassFilter classImportFilter, final ClassFilter classExportFilter, final PathFilter resourceImportFilter, final PathFilter resourceExportFilter) {
+        if (classImportFilter != ClassFilters.acceptAll()) classFilterStack = classFilterStack.with(classImportFilter);
+        if (classExportFilter != ClassFilters.acceptAll()) classFilterStack = classFilterStack.with(classExportFilter);
+        if (resourceImportFilter != PathFilters.acceptAll()) resourceFilterStack = resourceFilterStack.with(resourceImportFilter);
+        if (resourceExportFilter != PathFilters.acceptAll()) resourceFilterStack = resourceFilterStack.with(resourceExportFilter);
+        final ClassFilter classFilter = combineClassFilters(classFilterStack);
+        final PathFilter resourceFilter = combinePathFilters(resourceFilterStack);
+        if (classFilter == ClassFilters.acceptAll() && resourceFilter == PathFilters.acceptAll()) {
+            return localLoader;
+        }
+        if (localLoader instanceof IterableLocalLoader) {
+            return LocalLoaders.createIterableFilteredLocalLoader(classFilter, resourceFilter, (IterableLocalLoader) localLoader);
+        } else {
+            return LocalLoaders.createFilteredLocalLoader(classFilter, resourceFilter, localLoader);
+        }
     }
 
-    private LocalLoader createClassFilteredLocalLoader(ClassFilter filter, LocalLoader localLoader) {
-        if (localLoader instanceof IterableLocalLoader)
-            return LocalLoaders.createIterableClassFilteredLocalLoader(filter, (IterableLocalLoader) localLoader);
-        else
-            return LocalLoaders.createClassFilteredLocalLoader(filter, localLoader);
+    private static ClassFilter combineClassFilters(final FilterStack<ClassFilter> stack) {
+        final ClassFilter[] filters = new ClassFilter[stack.size()];
+        int count = 0;
+        for (int i = 0; i < filters.length; i ++) {
+            final ClassFilter filter = stack.get(i);
+            if (filter == ClassFilters.rejectAll()) {
+                return filter;
+            } else if (filter != ClassFilters.acceptAll()) {
+                filters[count ++] = filter;
+            }
+        }
+        return count == 0 ? ClassFilters.acceptAll() : count == 1 ? filters[0] : new AggregateClassFilter(Arrays.copyOf(filters, count));
+    }
+
+    private static PathFilter combinePathFilters(final FilterStack<PathFilter> stack) {
+        final PathFilter[] filters = new PathFilter[stack.size()];
+        int count = 0;
+        for (int i = 0; i < filters.length; i ++) {
+            final PathFilter filter = stack.get(i);
+            if (filter == PathFilters.rejectAll()) {
+                return filter;
+            } else if (filter != PathFilters.acceptAll()) {
+                filters[count ++] = filter;
+            }
+        }
+        return count == 0 ? PathFilters.acceptAll() : count == 1 ? filters[0] : PathFilters.all(Arrays.copyOf(filters, count));
     }
 
-    private long addExportedPaths(Dependency[] dependencies, Map<String, List<LocalLoader>> map, FastCopyHashSet<PathFilter> filterStack, FastCopyHashSet<ClassFilter> classFilterStack, final FastCopyHashSet<PathFilter> resourceFilterStack, Set<Visited> visited) throws ModuleLoadException {
-        if (!visited.add(new Visited(this, filterStack, classFilterStack, resourceFilterStack))) {
-            return 0L;
-        }
-        long subtract = 0L;
+    /**
+     * Compute the exports of this module as seen through the filter stack of the given key, without following
+     * re-exported modules.
+     */
+    private ExportCache.Entry computeExports(final Visited key, final LinkContext context) throws ModuleLoadException {
+        final FilterStack<PathFilter> filterStack = key.filters;
+        final FilterStack<ClassFilter> classFilterStack = key.classFilters;
+        final FilterStack<PathFilter> resourceFilterStack = key.resourceFilters;
+        final List<Object> items = new ArrayList<>();
+        boolean complete = true;
         moduleLoader.incScanCount();
-        for (Dependency dependency : dependencies) {
+        for (Dependency dependency : getDependenciesInternal()) {
             final PathFilter exportFilter = dependency.getExportFilter();
             // skip non-exported dependencies altogether
             if (exportFilter != PathFilters.rejectAll()) {
@@ -1320,10 +1368,11 @@ public final class Module {
                         try {
                             module = moduleLoader.preloadModule(name);
                         } finally {
-                            subtract += Metrics.getCurrentCPUTime() - pauseStart;
+                            context.subtract += Metrics.getCurrentCPUTime() - pauseStart;
                         }
                     } catch (ModuleLoadException ex) {
                         if (moduleDependency.isOptional()) {
+                            complete = false;
                             continue;
                         } else {
                             log.trace("Module %s, dependency %s preload failed: %s", getName(), moduleDependency.getName(), ex);
@@ -1334,219 +1383,472 @@ public final class Module {
                         if (!moduleDependency.isOptional()) {
                             throw new ModuleNotFoundException(name);
                         }
+                        complete = false;
                         continue;
                     }
 
                     final PathFilter importFilter = dependency.getImportFilter();
-                    final FastCopyHashSet<PathFilter> nestedFilters;
-                    final FastCopyHashSet<ClassFilter> nestedClassFilters;
-                    final FastCopyHashSet<PathFilter> nestedResourceFilters;
-                    if (filterStack.contains(importFilter) && filterStack.contains(exportFilter)) {
-                        nestedFilters = filterStack;
-                    } else {
-                        nestedFilters = filterStack.clone();
-                        nestedFilters.add(importFilter);
-                        nestedFilters.add(exportFilter);
-                    }
+                    final FilterStack<PathFilter> nestedFilters = filterStack.with(importFilter).with(exportFilter);
                     final ClassFilter classImportFilter = dependency.getClassImportFilter();
                     final ClassFilter classExportFilter = dependency.getClassExportFilter();
-                    if ((classImportFilter == ClassFilters.acceptAll() || classFilterStack.contains(classImportFilter)) && (classExportFilter == ClassFilters.acceptAll() || classFilterStack.contains(classExportFilter))) {
-                        nestedClassFilters = classFilterStack;
-                    } else {
-                        nestedClassFilters = classFilterStack.clone();
-                        if (classImportFilter != ClassFilters.acceptAll()) nestedClassFilters.add(classImportFilter);
-                        if (classExportFilter != ClassFilters.acceptAll()) nestedClassFilters.add(classExportFilter);
-                    }
+                    FilterStack<ClassFilter> nestedClassFilters = classFilterStack;
+                    if (classImportFilter != ClassFilters.acceptAll()) nestedClassFilters = nestedClassFilters.with(classImportFilter);
+                    if (classExportFilter != ClassFilters.acceptAll()) nestedClassFilters = nestedClassFilters.with(classExportFilter);
                     final PathFilter resourceImportFilter = dependency.getResourceImportFilter();
                     final PathFilter resourceExportFilter = dependency.getResourceExportFilter();
-                    if ((resourceImportFilter == PathFilters.acceptAll() || resourceFilterStack.contains(resourceImportFilter)) && (resourceExportFilter == PathFilters.acceptAll() || resourceFilterStack.contains(resourceExportFilter))) {
-                        nestedResourceFilters = resourceFilterStack;
-                    } else {
-                        nestedResourceFilters = resourceFilterStack.clone();
-                        if (resourceImportFilter != PathFilters.acceptAll()) nestedResourceFilters.add(resourceImportFilter);
-                        if (resourceExportFilter != PathFilters.acceptAll()) nestedResourceFilters.add(resourceExportFilter);
-                    }
-                    subtract += module.addExportedPaths(module.getDependenciesInternal(), map, nestedFilters, nestedClassFilters, nestedResourceFilters, visited);
+                    FilterStack<PathFilter> nestedResourceFilters = resourceFilterStack;
+                    if (resourceImportFilter != PathFilters.acceptAll()) nestedResourceFilters = nestedResourceFilters.with(resourceImportFilter);
+                    if (resourceExportFilter != PathFilters.acceptAll()) nestedResourceFilters = nestedResourceFilters.with(resourceExportFilter);
+                    items.add(new Visited(module, nestedFilters, nestedClassFilters, nestedResourceFilters));
                 } else if (dependency instanceof ModuleClassLoaderDependency) {
                     final ModuleClassLoaderDependency classLoaderDependency = (ModuleClassLoaderDependency) dependency;
-                    LocalLoader localLoader = classLoaderDependency.getLocalLoader();
-                    for (Object filter : classFilterStack.getRawArray()) {
-                        if (filter != null && filter != ClassFilters.acceptAll()) {
-                            localLoader = createClassFilteredLocalLoader((ClassFilter) filter, localLoader);
-                        }
-                    }
-                    for (Object filter : resourceFilterStack.getRawArray()) {
-                        if (filter != null && filter != PathFilters.acceptAll()) {
-                            localLoader = createPathFilteredLocalLoader((PathFilter) filter, localLoader);
-                        }
-                    }
-                    ClassFilter classImportFilter = classLoaderDependency.getClassImportFilter();
-                    if (classImportFilter != ClassFilters.acceptAll()) {
-                        localLoader = createClassFilteredLocalLoader(classImportFilter, localLoader);
-                    }
-                    ClassFilter classExportFilter = classLoaderDependency.getClassExportFilter();
-                    if (classExportFilter != ClassFilters.acceptAll()) {
-                        localLoader = createClassFilteredLocalLoader(classExportFilter, localLoader);
-                    }
-                    PathFilter resourceImportFilter = classLoaderDependency.getResourceImportFilter();
-                    if (resourceImportFilter != PathFilters.acceptAll()) {
-                        localLoader = createPathFilteredLocalLoader(resourceImportFilter, localLoader);
-                    }
-                    PathFilter resourceExportFilter = classLoaderDependency.getResourceExportFilter();
-                    if (resourceExportFilter != PathFilters.acceptAll()) {
-                        localLoader = createPathFilteredLocalLoader(resourceExportFilter, localLoader);
-                    }
+                    final LocalLoader localLoader = createFilteredLocalLoader(classLoaderDependency.getLocalLoader(), classFilterStack, resourceFilterStack, classLoaderDependency.getClassImportFilter(), classLoaderDependency.getClassExportFilter(), classLoaderDependency.getResourceImportFilter(), classLoaderDependency.getResourceExportFilter());
                     final PathFilter importFilter = classLoaderDependency.getImportFilter();
                     final Set<String> paths = classLoaderDependency.getPaths();
+                    final List<String> exportedPaths = new ArrayList<>();
                     for (String path : paths) {
                         boolean accept = ! "_private".equals(path);
-                        if (accept) for (Object filter : filterStack.getRawArray()) {
-                            if (filter != null && ! ((PathFilter)filter).accept(path)) {
+                        if (accept) for (int i = 0; i < filterStack.size(); i ++) {
+                            if (! filterStack.get(i).accept(path)) {
                                 accept = false; break;
                             }
                         }
                         if (accept && importFilter.accept(path) && exportFilter.accept(path)) {
-                            List<LocalLoader> list = map.get(path);
-                            if (list == null) {
-                                map.put(path, list = new ArrayList<>(1));
-                                list.add(localLoader);
-                            } else if (! list.contains(localLoader)) {
-                                list.add(localLoader);
-                            }
+                            exportedPaths.add(path);
                         }
                     }
+                    if (! exportedPaths.isEmpty()) {
+                        items.add(new ExportCache.ExportedLoader(localLoader, exportedPaths.toArray(String[]::new)));
+                    }
                 } else if (dependency instanceof LocalDependency) {
                     final LocalDependency localDependency = (LocalDependency) dependency;
-                    LocalLoader localLoader = localDependency.getLocalLoader();
-                    for (Object filter : classFilterStack.getRawArray()) {
-                        if (filter != null && filter != ClassFilters.acceptAll()) {
-                            localLoader = createClassFilteredLocalLoader((ClassFilter) filter, localLoader);
-                        }
-                    }
-                    for (Object filter : resourceFilterStack.getRawArray()) {
-                        if (filter != null && filter != PathFilters.acceptAll()) {
-                            localLoader = createPathFilteredLocalLoader((PathFilter) filter, localLoader);
-                        }
-                    }
-                    ClassFilter classFilter = localDependency.getClassExportFilter();
-                    if (classFilter != ClassFilters.acceptAll()) {
-                        localLoader = createClassFilteredLocalLoader(classFilter, localLoader);
-                    }
-                    classFilter = localDependency.getClassImportFilter();
-                    if (classFilter != ClassFilters.acceptAll()) {
-                        localLoader = createClassFilteredLocalLoader(classFilter, localLoader);
-                    }
-                    PathFilter resourceFilter = localDependency.getResourceExportFilter();
-                    if (resourceFilter != PathFilters.acceptAll()) {
-                        localLoader = createPathFilteredLocalLoader(resourceFilter, localLoader);
-                    }
-                    resourceFilter = localDependency.getResourceImportFilter();
-                    if (resourceFilter != PathFilters.acceptAll()) {
-                        localLoader = createPathFilteredLocalLoader(resourceFilter, localLoader);
-                    }
+                    final LocalLoader localLoader = createFilteredLocalLoader(localDependency.getLocalLoader(), classFilterStack, resourceFilterStack, localDependency.getClassImportFilter(), localDependency.getClassExportFilter(), localDependency.getResourceImportFilter(), localDependency.getResourceExportFilter());
                     final Set<String> paths = localDependency.getPaths();
+                    final List<String> exportedPaths = new ArrayList<>();
                     for (String path : paths) {
                         boolean accept = true;
-                        for (Object filter : filterStack.getRawArray()) {
-                            if (filter != null && ! ((PathFilter)filter).accept(path)) {
+                        for (int i = 0; i < filterStack.size(); i ++) {
+                            if (! filterStack.get(i).accept(path)) {
                                 accept = false; break;
                             }
                         }
                         if (accept && localDependency.getImportFilter().accept(path) && localDependency.getExportFilter().accept(path)) {
-                            List<LocalLoader> list = map.get(path);
-                            if (list == null) {
-                                map.put(path, list = new ArrayList<>(1));
-                                list.add(localLoader);
-                            } else if (! list.contains(localLoader)) {
-                                list.add(localLoader);
-                            }
+                            exportedPaths.add(path);
                         }
                     }
+                    if (! exportedPaths.isEmpty()) {
+                        items.add(new ExportCache.ExportedLoader(localLoader, exportedPaths.toArray(String[]::new)));
+                    }
                 }
                 // else unknown dep type so just skip
             }
         }
-        return subtract;
+        return new ExportCache.Entry(items.toArray(), complete);
+    }
+
+    /**
+     * Get the exports of the module of the given key, computing them if they are not cached.
+     */
+    private static ExportCache.Entry getExports(final Visited key, final LinkContext context) throws ModuleLoadException {
+        ExportCache.Entry entry = context.uncached.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        final ExportCache cache = ExportCache.ENABLED ? key.module.moduleLoader.getExportCache() : null;
+        if (cache != null) {
+            entry = cache.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        entry = key.module.computeExports(key, context);
+        if (cache != null && entry.isComplete()) {
+            return cache.putIfAbsent(key, entry);
+        }
+        // keep incomplete entries for the rest of this link, so that each filtered loader is only created once
+        context.uncached.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Add the transitive exports of the module of the given key to a path map, skipping modules which were already
+     * visited.
+     *
+     * @return {@code true} if every visited entry was complete
+     */
+    private static boolean addExportedPaths(final Visited key, final Map<String, List<LocalLoader>> map, final Set<Visited> visited, final LinkContext context) throws ModuleLoadException {
+        if (! visited.add(key)) {
+            return true;
+        }
+        final ExportCache.Entry entry = getExports(key, context);
+        boolean complete = entry.isComplete();
+        for (Object item : entry.getItems()) {
+            if (item instanceof Visited) {
+                complete &= addExportedPaths((Visited) item, map, visited, context);
+            } else {
+                ((ExportCache.ExportedLoader) item).addTo(map);
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Merge the transitive exports of the module of the given key into a path map.  The closure is computed once per
+     * cache entry; since every closure is built from the same cached entries, merging it yields the same loader lists
+     * as visiting the exported modules directly.
+     */
+    private static void mergeExportedPaths(final Visited key, final Map<String, List<LocalLoader>> map, final LinkContext context) throws ModuleLoadException {
+        final Map<String, List<LocalLoader>> closure = getClosure(key, context);
+        for (Map.Entry<String, List<LocalLoader>> closureEntry : closure.entrySet()) {
+            final String path = closureEntry.getKey();
+            final List<LocalLoader> loaders = closureEntry.getValue();
+            final List<LocalLoader> list = map.get(path);
+            if (list == null) {
+                map.put(path, new ArrayList<>(loaders));
+            } else {
+                for (LocalLoader loader : loaders) {
+                    if (! list.contains(loader)) {
+                        list.add(loader);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the transitive exports of the module of the given key, computing and caching them if necessary.  The
+     * returned map must not be modified.
+     */
+    private static Map<String, List<LocalLoader>> getClosure(final Visited key, final LinkContext context) throws ModuleLoadException {
+        final ExportCache.Entry entry = getExports(key, context);
+        Map<String, List<LocalLoader>> closure = entry.getClosure();
+        if (closure == null) {
+            closure = new HashMap<>();
+            if (addExportedPaths(key, closure, new HashSet<>(), context)) {
+                closure = entry.setClosure(closure);
+            } else {
+                context.incomplete = true;
+            }
+        }
+        return closure;
+    }
+
+    static void addLoader(final Map<String, List<LocalLoader>> map, final String path, final LocalLoader loader) {
+        List<LocalLoader> list = map.get(path);
+        if (list == null) {
+            map.put(path, list = new ArrayList<>(1));
+            list.add(loader);
+        } else if (! list.contains(loader)) {
+            list.add(loader);
+        }
+    }
+
+    static final class LinkContext {
+        // entries which must not be cached beyond this link, or beyond the batch of links sharing this map
+        final Map<Visited, ExportCache.Entry> uncached;
+        long subtract;
+        // true if an optional dependency was missing, so the resulting imports must not be shared
+        boolean incomplete;
+
+        LinkContext() {
+            this(new HashMap<>());
+        }
+
+        LinkContext(final Map<Visited, ExportCache.Entry> uncached) {
+            this.uncached = uncached;
+        }
+    }
+
+    /**
+     * Compute the imports of this module, sharing the table of imports with every other module which has the same
+     * dependencies.  The shared table excludes this module's own class loader; the paths imported from it are added
+     * as a small per-module overlay, merged in dependency order.
+     */
+    private Map<String, List<LocalLoader>> addSharedPaths(final ExportCache.ImportKey key, final Dependency[] dependencies, final LinkContext context) throws ModuleLoadException {
+        final FilterStack<PathFilter> filterStack = FilterStack.empty();
+        final FilterStack<ClassFilter> classFilterStack = FilterStack.empty();
+        final FilterStack<PathFilter> resourceFilterStack = FilterStack.empty();
+        final Set<Visited> visited = new FastCopyHashSet<>(16);
+        final int ownIndex = key.getOwnIndex();
+        final ExportCache cache = moduleLoader.getExportCache();
+        ExportCache.SharedImports shared = cache.getImports(key);
+        if (shared == null) {
+            final Map<String, List<LocalLoader>> map = new HashMap<>();
+            Map<String, List<LocalLoader>> before = Collections.emptyMap();
+            if (ownIndex == -1) {
+                addPaths(dependencies, map, filterStack, classFilterStack, resourceFilterStack, visited, context);
+            } else {
+                addPaths(Arrays.copyOfRange(dependencies, 0, ownIndex), map, filterStack, classFilterStack, resourceFilterStack, visited, context);
+                before = PathTable.of(map);
+                addPaths(Arrays.copyOfRange(dependencies, ownIndex + 1, dependencies.length), map, filterStack, classFilterStack, resourceFilterStack, visited, context);
+            }
+            shared = new ExportCache.SharedImports(PathTable.of(map), before);
+            if (! context.incomplete) {
+                shared = cache.putImportsIfAbsent(key, shared);
+            }
+            moduleLoader.incUniqueLinkageCount();
+        } else {
+            moduleLoader.incSharedLinkageCount();
+        }
+        final Map<String, List<LocalLoader>> all = shared.getAll();
+        if (ownIndex == -1) {
+            return all;
+        }
+        final Map<String, List<LocalLoader>> overlay = new HashMap<>();
+        addPaths(new Dependency[] { dependencies[ownIndex] }, overlay, filterStack, classFilterStack, resourceFilterStack, visited, context);
+        final Map<String, List<LocalLoader>> before = shared.getBefore();
+        for (Map.Entry<String, List<LocalLoader>> entry : overlay.entrySet()) {
+            final String path = entry.getKey();
+            final List<LocalLoader> beforeList = before.get(path);
+            final List<LocalLoader> list = beforeList == null ? new ArrayList<>() : new ArrayList<>(beforeList);
+            for (LocalLoader loader : entry.getValue()) {
+                if (! list.contains(loader)) {
+                    list.add(loader);
+                }
+            }
+            final List<LocalLoader> allList = all.get(path);
+            if (allList != null) {
+                // the loaders which the shared table has after the position of our own class loader
+                for (LocalLoader loader : allList.subList(beforeList == null ? 0 : beforeList.size(), allList.size())) {
+                    if (! list.contains(loader)) {
+                        list.add(loader);
+                    }
+                }
+            }
+            entry.setValue(list);
+        }
+        return PathTable.overlay(all, overlay);
+    }
+
+    /**
+     * Compute the imports of this module by splicing the contributions of replaced dependencies into the imports of
+     * the previous linkage.  This is only possible if the dependency lists differ only in replaced elements, and if
+     * no export cache invalidation happened since the previous linkage was computed; in that case the contributions
+     * of the unchanged dependencies are still those of the previous link.
+     * <p>
+     * In practice this covers {@link ModuleLoader#setAndRelinkDependencies} on a module whose exported dependencies
+     * do not change.  Explicit relinks, unloading a module and changing resource loaders all advance the epoch, so
+     * the modules linked after them are always linked in full.
+     *
+     * @return the imports, or {@code null} if a full link is required
+     */
+    private Map<String, List<LocalLoader>> spliceChangedPaths(final Linkage previous, final Dependency[] dependencies, final int epoch, final LinkContext context) throws ModuleLoadException {
+        if (previous == null || previous.getEpoch() != epoch) {
+            return null;
+        }
+        final Dependency[] oldDependencies = previous.getDependencies();
+        final int length = dependencies.length;
+        if (oldDependencies.length != length) {
+            return null;
+        }
+        final List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < length; i ++) {
+            if (! ExportCache.ImportKey.equivalent(oldDependencies[i], dependencies[i])) {
+                changed.add(Integer.valueOf(i));
+            }
+        }
+        if (changed.size() * 2 > length) {
+            // not worth it
+            return null;
+        }
+        // the paths whose loader lists may differ
+        final Set<String> affected = new HashSet<>();
+        for (Integer index : changed) {
+            affected.addAll(getContribution(oldDependencies[index.intValue()], context).keySet());
+            affected.addAll(getContribution(dependencies[index.intValue()], context).keySet());
+        }
+        if (context.incomplete) {
+            return null;
+        }
+        final Map<String, List<LocalLoader>> map = new HashMap<>(previous.getPaths());
+        if (affected.isEmpty()) {
+            return map;
+        }
+        final List<Map<String, List<LocalLoader>>> contributions = new ArrayList<>(length);
+        for (Dependency dependency : dependencies) {
+            contributions.add(getContribution(dependency, context));
+        }
+        if (context.incomplete) {
+            return null;
+        }
+        for (String path : affected) {
+            final List<LocalLoader> list = new ArrayList<>();
+            for (Map<String, List<LocalLoader>> contribution : contributions) {
+                final List<LocalLoader> loaders = contribution.get(path);
+                if (loaders != null) for (LocalLoader loader : loaders) {
+                    if (! list.contains(loader)) {
+                        list.add(loader);
+                    }
+                }
+            }
+            if (list.isEmpty()) {
+                map.remove(path);
+            } else {
+                map.put(path, list);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Get the paths which a single dependency contributes to the imports of this module.  The returned map must not
+     * be modified.
+     */
+    private Map<String, List<LocalLoader>> getContribution(final Dependency dependency, final LinkContext context) throws ModuleLoadException {
+        final FilterStack<PathFilter> filterStack = FilterStack.empty();
+        if (dependency instanceof ModuleDependency) {
+            final Visited key = getImportKey((ModuleDependency) dependency, filterStack, FilterStack.empty(), FilterStack.empty(), context);
+            return key == null ? Collections.emptyMap() : getClosure(key, context);
+        }
+        final Map<String, List<LocalLoader>> map = new HashMap<>();
+        addPaths(new Dependency[] { dependency }, map, filterStack, FilterStack.empty(), FilterStack.empty(), new HashSet<>(), context);
+        return map;
     }
 
     Map<String, List<LocalLoader>> getPaths() throws ModuleLoadException {
+        return getLinkage().getPaths();
+    }
+
+    Map<String, List<LocalLoader>> getPathsUnchecked() {
+        return getLinkageUnchecked().getPaths();
+    }
+
+    Linkage getLinkageUnchecked() {
+        try {
+            return getLinkage();
+        } catch (ModuleLoadException e) {
+            throw e.toError();
+        }
+    }
+
+    /**
+     * Get the current linkage of this module, linking it first if necessary.
+     *
+     * @return the linkage, which is always in the {@link Linkage.State#LINKED LINKED} state
+     * @throws ModuleLoadException if linking failed
+     */
+    Linkage getLinkage() throws ModuleLoadException {
+        return getLinkage(null);
+    }
+
+    /**
+     * Get the current linkage of this module, linking it first if necessary.
+     *
+     * @param batch the entries shared by a batch of links, or {@code null} to link this module on its own
+     * @return the linkage, which is always in the {@link Linkage.State#LINKED LINKED} state
+     * @throws ModuleLoadException if linking failed
+     */
+    Linkage getLinkage(final Map<Visited, ExportCache.Entry> batch) throws ModuleLoadException {
         Linkage oldLinkage = this.linkage;
         Linkage linkage;
         Linkage.State state = oldLinkage.getState();
         if (state == Linkage.State.LINKED) {
-            return oldLinkage.getPaths();
+            return oldLinkage;
         }
         // slow path loop
-        boolean intr = false;
-        try {
-            for (;;) {
-                synchronized (this) {
+        for (;;) {
+            final ReentrantLock linkLock = this.linkLock;
+            linkLock.lock();
+            try {
+                oldLinkage = this.linkage;
+                state = oldLinkage.getState();
+                while (state == Linkage.State.LINKING || state == Linkage.State.NEW) {
+                    // preserves the interrupt status
+                    linkageChanged.awaitUninterruptibly();
                     oldLinkage = this.linkage;
                     state = oldLinkage.getState();
-                    while (state == Linkage.State.LINKING || state == Linkage.State.NEW) try {
-                        wait();
-                        oldLinkage = this.linkage;
-                        state = oldLinkage.getState();
-                    } catch (InterruptedException e) {
-                        intr = true;
-                    }
-                    if (state == Linkage.State.LINKED) {
-                        return oldLinkage.getPaths();
-                    }
-                    this.linkage = linkage = new Linkage(oldLinkage.getDependencySpecs(), oldLinkage.getDependencies(), Linkage.State.LINKING);
-                    // fall out and link
                 }
-                boolean ok = false;
-                try {
-                    link(linkage);
-                    ok = true;
-                } finally {
-                    if (! ok) {
-                        // restore original (lack of) linkage
-                        synchronized (this) {
-                            if (this.linkage == linkage) {
-                                this.linkage = oldLinkage;
-                                notifyAll();
-                            }
-                        }
-                    }
+                if (state == Linkage.State.LINKED) {
+                    return oldLinkage;
                 }
+                this.linkage = linkage = new Linkage(oldLinkage.getDependencySpecs(), oldLinkage.getDependencies(), Linkage.State.LINKING, oldLinkage.getPrevious());
+                // fall out and link
+            } finally {
+                linkLock.unlock();
             }
-        } finally {
-            if (intr) {
-                Thread.currentThread().interrupt();
+            boolean ok = false;
+            try {
+                link(linkage, batch);
+                ok = true;
+            } finally {
+                if (! ok) {
+                    // restore original (lack of) linkage
+                    restoreLinkage(linkage, oldLinkage);
+                }
             }
         }
     }
 
-    Map<String, List<LocalLoader>> getPathsUnchecked() {
+    private void restoreLinkage(final Linkage expected, final Linkage oldLinkage) {
+        final ReentrantLock linkLock = this.linkLock;
+        linkLock.lock();
         try {
-            return getPaths();
-        } catch (ModuleLoadException e) {
-            throw e.toError();
+            if (this.linkage == expected) {
+                this.linkage = oldLinkage;
+                linkageChanged.signalAll();
+            }
+        } finally {
+            linkLock.unlock();
         }
     }
 
     void link(final Linkage linkage) throws ModuleLoadException {
-        final HashMap<String, List<LocalLoader>> importsMap = new HashMap<>();
+        link(linkage, null);
+    }
+
+    private void link(final Linkage linkage, final Map<Visited, ExportCache.Entry> batch) throws ModuleLoadException {
+        Map<String, List<LocalLoader>> importsMap = Collections.emptyMap();
         final Dependency[] dependencies = linkage.getDependencies();
+        // read before linking, so that a concurrent invalidation prevents a later incremental link on top of this one
+        final int epoch = ExportCache.epoch();
         final long start = Metrics.getCurrentCPUTime();
         long subtractTime = 0L;
+        final ModuleLinkEvent event = FlightRecorder.AVAILABLE ? new ModuleLinkEvent() : null;
+        if (event != null) event.begin();
+        boolean discarded = true;
         try {
-            final Set<Visited> visited = new FastCopyHashSet<>(16);
-            final FastCopyHashSet<PathFilter> filterStack = new FastCopyHashSet<>(8);
-            final FastCopyHashSet<ClassFilter> classFilterStack = EMPTY_CLASS_FILTERS;
-            final FastCopyHashSet<PathFilter> resourceFilterStack = EMPTY_PATH_FILTERS;
-            subtractTime += addPaths(dependencies, importsMap, filterStack, classFilterStack, resourceFilterStack, visited);
-            synchronized (this) {
+            if (DependencyPreloader.ENABLED) {
+                final long pauseStart = Metrics.getCurrentCPUTime();
+                DependencyPreloader.preload(dependencies);
+                subtractTime += Metrics.getCurrentCPUTime() - pauseStart;
+            }
+            final LinkContext context = batch == null ? new LinkContext() : new LinkContext(batch);
+            final ExportCache.ImportKey importKey = ExportCache.ENABLED ? ExportCache.ImportKey.of(dependencies) : null;
+            final Map<String, List<LocalLoader>> splicedMap = ExportCache.ENABLED ? spliceChangedPaths(linkage.getPrevious(), dependencies, epoch, context) : null;
+            if (splicedMap != null) {
+                importsMap = splicedMap;
+                if (event != null) event.incremental = true;
+            } else if (importKey != null) {
+                importsMap = addSharedPaths(importKey, dependencies, context);
+            } else {
+                final Set<Visited> visited = new FastCopyHashSet<>(16);
+                final FilterStack<PathFilter> filterStack = FilterStack.empty();
+                final FilterStack<ClassFilter> classFilterStack = FilterStack.empty();
+                final FilterStack<PathFilter> resourceFilterStack = FilterStack.empty();
+                importsMap = new HashMap<>();
+                addPaths(dependencies, importsMap, filterStack, classFilterStack, resourceFilterStack, visited, context);
+            }
+            subtractTime += context.subtract;
+            linkLock.lock();
+            try {
                 if (this.linkage == linkage) {
-                    this.linkage = new Linkage(linkage.getDependencySpecs(), linkage.getDependencies(), Linkage.State.LINKED, importsMap);
-                    notifyAll();
+                    this.linkage = new Linkage(linkage.getDependencySpecs(), linkage.getDependencies(), Linkage.State.LINKED, importsMap, context.incomplete ? -1 : epoch);
+                    discarded = false;
+                    linkageChanged.signalAll();
                 }
                 // else all our efforts were just wasted since someone changed the deps in the meantime
+            } finally {
+                linkLock.unlock();
             }
         } finally {
             moduleLoader.addLinkTime(Metrics.getCurrentCPUTime() - start - subtractTime);
+            if (event != null && event.shouldCommit()) {
+                event.moduleName = getName();
+                event.dependencies = dependencies.length;
+                event.paths = importsMap.size();
+                event.discarded = discarded;
+                event.commit();
+            }
         }
     }
 
@@ -1556,12 +1858,16 @@ public final class Module {
         if (oldLinkage.getState() != Linkage.State.UNLINKED) {
             return;
         }
-        synchronized (this) {
+        final ReentrantLock linkLock = this.linkLock;
+        linkLock.lock();
+        try {
             oldLinkage = this.linkage;
             if (oldLinkage.getState() != Linkage.State.UNLINKED) {
                 return;
             }
-            this.linkage = linkage = new Linkage(oldLinkage.getDependencySpecs(), oldLinkage.getDependencies(), Linkage.State.LINKING);
+            this.linkage = linkage = new Linkage(oldLinkage.getDependencySpecs(), oldLinkage.getDependencies(), Linkage.State.LINKING, oldLinkage.getPrevious());
+        } finally {
+            linkLock.unlock();
         }
         boolean ok = false;
         try {
@@ -1570,17 +1876,14 @@ public final class Module {
         } finally {
             if (! ok) {
                 // restore original (lack of) linkage
-                synchronized (this) {
-                    if (this.linkage == linkage) {
-                        this.linkage = oldLinkage;
-                        notifyAll();
-                    }
-                }
+                restoreLinkage(linkage, oldLinkage);
             }
         }
     }
 
     void relink() throws ModuleLoadException {
+        // an explicit relink may follow changes which were not announced to the module loader, so always start over
+        ExportCache.invalidateAll();
         link(linkage);
     }
 
@@ -1598,10 +1901,47 @@ public final class Module {
     }
 
     void setDependencies(final DependencySpec[] dependencySpecs) {
-        synchronized (this) {
-            linkage = new Linkage(dependencySpecs, calculateDependencies(dependencySpecs), Linkage.State.UNLINKED, null);
-            notifyAll();
+        final ReentrantLock linkLock = this.linkLock;
+        linkLock.lock();
+        try {
+            final Linkage oldLinkage = this.linkage;
+            final Dependency[] dependencies = calculateDependencies(dependencySpecs);
+            final Linkage previous = oldLinkage.getState() == Linkage.State.LINKED ? oldLinkage : oldLinkage.getPrevious();
+            linkage = new Linkage(dependencySpecs, dependencies, Linkage.State.UNLINKED, previous);
+            if (oldLinkage != Linkage.NONE && ! sameExports(oldLinkage.getDependencies(), dependencies)) {
+                // the exports of a live module changed; invalidate only after publishing the new dependencies, so
+                // that a cache of the new epoch is never filled from the old ones
+                ExportCache.invalidateAll();
+            }
+            linkageChanged.signalAll();
+        } finally {
+            linkLock.unlock();
+        }
+    }
+
+    /**
+     * Determine whether two dependency lists of this module have equivalent exported dependencies, in the same order.
+     */
+    private static boolean sameExports(final Dependency[] oldDependencies, final Dependency[] newDependencies) {
+        int j = 0;
+        for (Dependency oldDependency : oldDependencies) {
+            if (oldDependency.getExportFilter() == PathFilters.rejectAll()) {
+                continue;
+            }
+            while (j < newDependencies.length && newDependencies[j].getExportFilter() == PathFilters.rejectAll()) {
+                j ++;
+            }
+            if (j == newDependencies.length || ! ExportCache.ImportKey.equivalent(oldDependency, newDependencies[j])) {
+                return false;
+            }
+            j ++;
+        }
+        while (j < newDependencies.length) {
+            if (newDependencies[j ++].getExportFilter() != PathFilters.rejectAll()) {
+                return false;
+            }
         }
+        return true;
     }
 
     private Dependency[] calculateDependencies(final DependencySpec[] dependencySpecs) {
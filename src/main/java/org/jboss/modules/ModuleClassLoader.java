@@ -22,7 +22,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteBuffer;
 import java.security.PermissionCollection;
 import java.security.ProtectionDomain;
-import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -36,6 +35,7 @@ import java.io.InputStream;
 import java.net.URL;
 import java.security.CodeSource;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -162,7 +162,8 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
                 }
             }
         }
-        return this.paths.compareAndSet(paths, new Paths<>(resourceLoaders, allPaths));
+        final ClassIndex<ResourceLoader> classIndex = ClassIndex.ENABLED ? ClassIndex.build(resourceLoaders) : null;
+        return this.paths.compareAndSet(paths, new Paths<>(resourceLoaders, allPaths, classIndex));
     }
 
     /**
@@ -177,6 +178,16 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
     /** {@inheritDoc} */
     @Override
     protected final Class<?> findClass(String className, boolean exportsOnly, final boolean resolve) throws ClassNotFoundException {
+        final Class<?> clazz = findClassOrNull(className, exportsOnly, resolve);
+        if (clazz != null) {
+            return clazz;
+        }
+        throw new ClassNotFoundException(getClassNotFoundExceptionMessage(className, module));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected final Class<?> findClassOrNull(final String className, final boolean exportsOnly, final boolean resolve) {
         // Check if we have already loaded it..
         Class<?> loadedClass = findLoadedClass(className);
         if (loadedClass != null) {
@@ -187,7 +198,9 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
         }
         final ModuleLogger log = Module.log;
         final Module module = this.module;
-        log.trace("Finding class %s from %s", className, module);
+        if (log.isTraceEnabled()) {
+            log.trace("Finding class %s from %s", className, module);
+        }
 
         final Class<?> clazz = module.loadModuleClass(className, resolve);
 
@@ -195,9 +208,10 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
             return clazz;
         }
 
-        log.trace("Class %s not found from %s", className, module);
-
-        throw new ClassNotFoundException(getClassNotFoundExceptionMessage(className, module));
+        if (log.isTraceEnabled()) {
+            log.trace("Class %s not found from %s", className, module);
+        }
+        return null;
     }
 
     /**
@@ -234,24 +248,30 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
     public Class<?> loadClassLocal(final String className, final boolean resolve) throws ClassNotFoundException {
         final ModuleLogger log = Module.log;
         final Module module = this.module;
-        log.trace("Finding local class %s from %s", className, module);
+        if (log.isTraceEnabled()) {
+            log.trace("Finding local class %s from %s", className, module);
+        }
 
         // Check if we have already loaded it..
         Class<?> loadedClass = findLoadedClass(className);
         if (loadedClass != null) {
-            log.trace("Found previously loaded %s from %s", loadedClass, module);
+            if (log.isTraceEnabled()) {
+                log.trace("Found previously loaded %s from %s", loadedClass, module);
+            }
             if (resolve) {
                 resolveClass(loadedClass);
             }
             return loadedClass;
         }
 
-        final Map<String, List<ResourceLoader>> paths = this.paths.get().getAllPaths();
+        final Paths<ResourceLoader, ResourceLoaderSpec> paths = this.paths.get();
 
-        log.trace("Loading class %s locally from %s", className, module);
+        if (log.isTraceEnabled()) {
+            log.trace("Loading class %s locally from %s", className, module);
+        }
 
         String pathOfClass = Module.pathOfClass(className);
-        final List<ResourceLoader> loaders = paths.get(pathOfClass);
+        final List<ResourceLoader> loaders = paths.getAllPaths().get(pathOfClass);
         if (loaders == null) {
             // no loaders for this path
             return null;
@@ -259,31 +279,28 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
 
         // Check to see if we can define it locally it
         ClassSpec classSpec;
-        ResourceLoader resourceLoader;
         try {
             if (loaders.size() > 0) {
                 String fileName = Module.fileNameOfClass(className);
+                final ClassIndex<ResourceLoader> classIndex = paths.getClassIndex();
+                if (classIndex != null) {
+                    final ResourceLoader indexedLoader = classIndex.get(fileName);
+                    if (indexedLoader == null) {
+                        if (log.isTraceEnabled()) {
+                            log.trace("No local specification found for class %s in %s", className, module);
+                        }
+                        return null;
+                    }
+                    classSpec = indexedLoader.getClassSpec(fileName);
+                    if (classSpec != null) {
+                        return defineLocalClass(className, classSpec, indexedLoader, resolve);
+                    }
+                    // otherwise the index entry is stale or versioned; fall back to a full search
+                }
                 for (ResourceLoader loader : loaders) {
                     classSpec = loader.getClassSpec(fileName);
                     if (classSpec != null) {
-                        resourceLoader = loader;
-                        try {
-                            preDefine(classSpec, className);
-                        }
-                        catch (Throwable th) {
-                            throw new ClassNotFoundException("Failed to preDefine class: " + className, th);
-                        }
-                        final Class<?> clazz = defineClass(className, classSpec, resourceLoader);
-                        try {
-                            postDefine(classSpec, clazz);
-                        }
-                        catch (Throwable th) {
-                            throw new ClassNotFoundException("Failed to postDefine class: " + className, th);
-                        }
-                        if (resolve) {
-                            resolveClass(clazz);
-                        }
-                        return clazz;
+                        return defineLocalClass(className, classSpec, loader, resolve);
                     }
                 }
             }
@@ -296,10 +313,32 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
             log.trace(e, "Unexpected error in module loader");
             throw e;
         }
-        log.trace("No local specification found for class %s in %s", className, module);
+        if (log.isTraceEnabled()) {
+            log.trace("No local specification found for class %s in %s", className, module);
+        }
         return null;
     }
 
+    private Class<?> defineLocalClass(final String className, final ClassSpec classSpec, final ResourceLoader resourceLoader, final boolean resolve) throws ClassNotFoundException {
+        try {
+            preDefine(classSpec, className);
+        }
+        catch (Throwable th) {
+            throw new ClassNotFoundException("Failed to preDefine class: " + className, th);
+        }
+        final Class<?> clazz = defineClass(className, classSpec, resourceLoader);
+        try {
+            postDefine(classSpec, clazz);
+        }
+        catch (Throwable th) {
+            throw new ClassNotFoundException("Failed to postDefine class: " + className, th);
+        }
+        if (resolve) {
+            resolveClass(clazz);
+        }
+        return clazz;
+    }
+
     /**
      * Load a local exported resource from a specific root from this module class loader.
      *
@@ -329,22 +368,38 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
      * @return the list of resources
      */
     public List<Resource> loadResourceLocal(final String name) {
+        final ResourceLookupEvent event = FlightRecorder.AVAILABLE ? new ResourceLookupEvent() : null;
+        if (event != null) event.begin();
         final Map<String, List<ResourceLoader>> paths = this.paths.get().getAllPaths();
         final String path = Module.pathOf(name);
         final List<ResourceLoader> loaders = paths.get(path);
         final List<Resource> list = new ArrayList<>(loaders == null ? 1 : loaders.size());
+        ResourceLoader foundLoader = null;
         if (loaders != null) {
             for (ResourceLoader loader : loaders) {
                 final Resource resource = loader.getResource(name);
                 if (resource != null) {
+                    if (foundLoader == null) {
+                        foundLoader = loader;
+                    }
                     list.add(resource);
                 }
             }
         }
+        if (event != null && event.shouldCommit()) {
+            @SuppressWarnings("deprecation")
+            final String rootName = foundLoader == null ? null : foundLoader.getRootName();
+            event.moduleName = module.getName();
+            event.resourceName = name;
+            event.resourceRoot = rootName;
+            event.rootsSearched = loaders == null ? 0 : loaders.size();
+            event.found = list.size();
+            event.commit();
+        }
         return list.isEmpty() ? Collections.emptyList() : list;
     }
 
-    private Class<?> doDefineOrLoadClass(final String className, final byte[] bytes, final ByteBuffer byteBuffer, ProtectionDomain protectionDomain) {
+    private Class<?> doDefineOrLoadClass(final String className, final byte[] bytes, final ByteBuffer byteBuffer, ProtectionDomain protectionDomain, final ClassDefineEvent event) {
         try {
             final Class<?> definedClass = bytes != null ?
                 defineClass(className, bytes, 0, bytes.length, protectionDomain) :
@@ -355,27 +410,59 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
             final Class<?> loadedClass = findLoadedClass(className);
             if (loadedClass != null) {
                 module.getModuleLoader().incRaceCount();
+                if (event != null) event.races ++;
                 return loadedClass;
             }
             throw e;
         }
     }
 
-    private final IdentityHashMap<CodeSource, ProtectionDomain> protectionDomains = new IdentityHashMap<>();
+    private static final Object[] NO_PROTECTION_DOMAINS = new Object[0];
+
+    // alternating code source and protection domain pairs; replaced as a whole when a domain is added
+    private final AtomicReference<Object[]> protectionDomains = new AtomicReference<>(NO_PROTECTION_DOMAINS);
 
     private ProtectionDomain getProtectionDomain(CodeSource codeSource) {
-        final IdentityHashMap<CodeSource, ProtectionDomain> map = protectionDomains;
-        synchronized (map) {
-            ProtectionDomain protectionDomain = map.get(codeSource);
+        Object[] domains = protectionDomains.get();
+        for (;;) {
+            ProtectionDomain protectionDomain = null;
+            for (int i = 0; i < domains.length; i += 2) {
+                if (domains[i] == codeSource) {
+                    return (ProtectionDomain) domains[i + 1];
+                }
+                // distinct but equal code sources share a domain
+                if (protectionDomain == null && sameCodeSource((CodeSource) domains[i], codeSource)) {
+                    protectionDomain = (ProtectionDomain) domains[i + 1];
+                }
+            }
             if (protectionDomain == null) {
                 final PermissionCollection permissions = module.getPermissionCollection();
                 protectionDomain = new ModularProtectionDomain(codeSource, permissions, this);
-                map.put(codeSource, protectionDomain);
             }
-            return protectionDomain;
+            final Object[] newDomains = Arrays.copyOf(domains, domains.length + 2);
+            newDomains[domains.length] = codeSource;
+            newDomains[domains.length + 1] = protectionDomain;
+            if (protectionDomains.compareAndSet(domains, newDomains)) {
+                return protectionDomain;
+            }
+            // lost a race; the winner may have added this code source
+            domains = protectionDomains.get();
         }
     }
 
+    private static boolean sameCodeSource(final CodeSource a, final CodeSource b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        // compare URL strings, since URL.equals may resolve host names
+        final URL aLocation = a.getLocation();
+        final URL bLocation = b.getLocation();
+        if (aLocation == null ? bLocation != null : bLocation == null || ! aLocation.toExternalForm().equals(bLocation.toExternalForm())) {
+            return false;
+        }
+        return Arrays.equals(a.getCodeSigners(), b.getCodeSigners());
+    }
+
     Class<?> defineClassInternal(final String className, ByteBuffer byteBuffer, final ProtectionDomain protectionDomain) {
         if (transformer != null) {
             int pos = byteBuffer.position();
@@ -399,6 +486,8 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
         final long start = Metrics.getCurrentCPUTime();
         final Class<?> defined = defineClass(className, byteBuffer, protectionDomain);
         module.getModuleLoader().addClassLoadTime(Metrics.getCurrentCPUTime() - start);
+        // a class defined at run time may have been recorded as missing by an importing module
+        NegativeCache.invalidateAll();
         return defined;
     }
 
@@ -409,6 +498,7 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
         final long start = Metrics.getCurrentCPUTime();
         final Class<?> defined = defineClass(className, bytes, off, len, protectionDomain);
         module.getModuleLoader().addClassLoadTime(Metrics.getCurrentCPUTime() - start);
+        NegativeCache.invalidateAll();
         return defined;
     }
 
@@ -424,28 +514,33 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
     private Class<?> defineClass(final String name, final ClassSpec classSpec, final ResourceLoader resourceLoader) {
         final ModuleLogger log = Module.log;
         final Module module = this.module;
-        log.trace("Attempting to define class %s in %s", name, module);
+        if (log.isTraceEnabled()) {
+            log.trace("Attempting to define class %s in %s", name, module);
+        }
+        final ClassDefineEvent event = FlightRecorder.AVAILABLE ? new ClassDefineEvent() : null;
+        if (event != null) event.begin();
 
         // Ensure that the package is loaded
         final int lastIdx = name.lastIndexOf('.');
         if (lastIdx != -1) {
             // there's a package name; get the Package for it
             final String packageName = name.substring(0, lastIdx);
-            synchronized (this) {
-                Package pkg = findLoadedPackage(packageName);
-                if (pkg == null) {
-                    try {
-                        pkg = definePackage(packageName, resourceLoader.getPackageSpec(packageName));
-                    } catch (IOException e) {
-                        pkg = definePackage(packageName, null);
-                    }
+            // no lock needed: racing definitions of a new package all resolve to the first one registered
+            Package pkg = findLoadedPackage(packageName);
+            if (pkg == null) {
+                try {
+                    pkg = definePackage(packageName, resourceLoader.getPackageSpec(packageName));
+                } catch (IOException e) {
+                    pkg = definePackage(packageName, null);
                 }
-                // Check sealing
-                if (pkg.isSealed() && ! pkg.isSealed(classSpec.getCodeSource().getLocation())) {
+            }
+            // Check sealing
+            if (pkg.isSealed() && ! pkg.isSealed(classSpec.getCodeSource().getLocation())) {
+                if (log.isTraceEnabled()) {
                     log.trace("Detected a sealing violation (attempt to define class %s in sealed package %s in %s)", name, packageName, module);
-                    // use the same message as the JDK
-                    throw new SecurityException("sealing violation: package " + packageName + " is sealed");
                 }
+                // use the same message as the JDK
+                throw new SecurityException("sealing violation: package " + packageName + " is sealed");
             }
         }
         final Class<?> newClass;
@@ -479,7 +574,7 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
                     }
                 }
                 final long start = Metrics.getCurrentCPUTime();
-                newClass = doDefineOrLoadClass(name, bytes, byteBuffer, protectionDomain);
+                newClass = doDefineOrLoadClass(name, bytes, byteBuffer, protectionDomain, event);
                 module.getModuleLoader().addClassLoadTime(Metrics.getCurrentCPUTime() - start);
                 log.classDefined(name, module);
             } catch (LinkageError e) {
@@ -505,6 +600,14 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
         if (setting != AssertionSetting.INHERIT) {
             setClassAssertionStatus(name, setting == AssertionSetting.ENABLED);
         }
+        if (event != null && event.shouldCommit()) {
+            @SuppressWarnings("deprecation")
+            final String rootName = resourceLoader.getRootName();
+            event.moduleName = module.getName();
+            event.className = name;
+            event.resourceRoot = rootName;
+            event.commit();
+        }
         return newClass;
     }
 
@@ -538,19 +641,24 @@ public class ModuleClassLoader extends ConcurrentClassLoader {
     private Package definePackage(final String name, final PackageSpec spec) {
         final Module module = this.module;
         final ModuleLogger log = Module.log;
-        log.trace("Attempting to define package %s in %s", name, module);
+        if (log.isTraceEnabled()) {
+            log.trace("Attempting to define package %s in %s", name, module);
+        }
 
         final Package pkg;
         if (spec == null) {
             pkg = definePackage(name, null, null, null, null, null, null, null);
         } else {
-            pkg = definePackage(name, spec.getSpecTitle(), spec.getSpecVersion(), spec.getSpecVendor(), spec.getImplTitle(), spec.getImplVersion(), spec.getImplVendor(), spec.getSealBase());
+            // set the assertion status first, since other threads may define classes as soon as the package is visible
             final AssertionSetting setting = spec.getAssertionSetting();
             if (setting != AssertionSetting.INHERIT) {
                 setPackageAssertionStatus(name, setting == AssertionSetting.ENABLED);
             }
+            pkg = definePackage(name, spec.getSpecTitle(), spec.getSpecVersion(), spec.getSpecVendor(), spec.getImplTitle(), spec.getImplVersion(), spec.getImplVendor(), spec.getSealBase());
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Defined package %s in %s", name, module);
         }
-        log.trace("Defined package %s in %s", name, module);
         return pkg;
     }
 
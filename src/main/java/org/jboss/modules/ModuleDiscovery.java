@@ -0,0 +1,235 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static org.jboss.modules.Utils.MODULE_FILE;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+import org.jboss.modules.xml.ModuleXmlParser;
+
+/**
+ * Discovers the modules of local module repositories in parallel.  The roots, and the directories below each root,
+ * are walked concurrently on a fork-join pool, and only the root element of each {@code module.xml} is parsed to
+ * determine the module name.  Unlike the serial iteration, a descriptor whose root element is valid is therefore
+ * reported even if the rest of it is not.
+ * <p>
+ * Names are streamed to the caller as they are found.  Each root has its own queue, and the queues are drained in
+ * root order, so that the names of the first root come before the names which are only found in later roots, and
+ * every name is only returned once.  Within a root the names are returned in no particular order.
+ * <p>
+ * Parallel discovery is enabled with the {@code jboss.modules.parallel-discovery} system property.  Since the walk
+ * is bound by I/O, the pool has twice as many threads as there are processors by default; the
+ * {@code jboss.modules.parallel-discovery-threads} system property overrides this.
+ */
+final class ModuleDiscovery implements Iterator<String> {
+    static final boolean ENABLED = Boolean.parseBoolean(AccessController.doPrivileged(new PropertyReadAction("jboss.modules.parallel-discovery", "false")));
+    static final int THREADS = Integer.parseInt(AccessController.doPrivileged(new PropertyReadAction("jboss.modules.parallel-discovery-threads", Integer.toString(2 * Runtime.getRuntime().availableProcessors()))));
+
+    /**
+     * The marker which ends the queue of a root; compared by identity.
+     */
+    private static final String END = new String("end");
+
+    private final RootTask[] tasks;
+    private final Set<String> found = new HashSet<>();
+    private int current;
+    private String next;
+
+    private ModuleDiscovery(final RootTask[] tasks) {
+        this.tasks = tasks;
+    }
+
+    /**
+     * Start discovering the modules below the given base path of each root.
+     *
+     * @param roots the repository roots
+     * @param base the relative path of the directory to search in each root, or {@code ""} for the whole root
+     * @param recursive {@code true} to search the whole tree below the base path, {@code false} to only search the
+     *      base path itself
+     * @param indexed a function which returns the module directories below the base path of the root with the given
+     *      index as recorded in its repository index, or {@code null} if the root must be walked
+     * @return an iterator over the names of the discovered modules
+     */
+    static Iterator<String> discover(final Path[] roots, final String base, final boolean recursive, final IntFunction<List<String>> indexed) {
+        final RootTask[] tasks = new RootTask[roots.length];
+        for (int i = 0; i < roots.length; i ++) {
+            tasks[i] = new RootTask(roots[i], i, base, recursive, indexed);
+            PoolHolder.POOL.execute(tasks[i]);
+        }
+        return new ModuleDiscovery(tasks);
+    }
+
+    public boolean hasNext() {
+        while (next == null) {
+            if (current == tasks.length) {
+                return false;
+            }
+            final String name = take(tasks[current].queue);
+            if (name == END) {
+                tasks[current ++] = null;
+            } else if (found.add(name)) {
+                next = name;
+            }
+        }
+        return true;
+    }
+
+    public String next() {
+        if (! hasNext()) throw new NoSuchElementException();
+        try {
+            return next;
+        } finally {
+            next = null;
+        }
+    }
+
+    private static String take(final BlockingQueue<String> queue) {
+        boolean intr = false;
+        try {
+            for (;;) try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                intr = true;
+            }
+        } finally {
+            if (intr) {
+                // preserve the interrupt status
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static final class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, THREADS));
+    }
+
+    static final class RootTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path root;
+        private final int index;
+        private final String base;
+        private final boolean recursive;
+        private final IntFunction<List<String>> indexed;
+        final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+
+        RootTask(final Path root, final int index, final String base, final boolean recursive, final IntFunction<List<String>> indexed) {
+            this.root = root;
+            this.index = index;
+            this.base = base;
+            this.recursive = recursive;
+            this.indexed = indexed;
+        }
+
+        protected void compute() {
+            try {
+                final List<String> children = indexed.apply(index);
+                if (children == null) {
+                    // same depth as Files.walk(path, recursive ? Integer.MAX_VALUE : 1)
+                    new DirectoryTask(root.resolve(base), recursive ? Integer.MAX_VALUE : 1, queue).compute();
+                } else {
+                    final List<ParseTask> tasks = new ArrayList<>(children.size());
+                    for (String child : children) {
+                        tasks.add(new ParseTask(root.resolve(child).resolve(MODULE_FILE), queue));
+                    }
+                    invokeAll(tasks);
+                }
+            } catch (RuntimeException ignored) {
+                // report whatever was found
+            } finally {
+                queue.add(END);
+            }
+        }
+    }
+
+    static final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final int depth;
+        private final BlockingQueue<String> queue;
+
+        DirectoryTask(final Path directory, final int depth, final BlockingQueue<String> queue) {
+            this.directory = directory;
+            this.depth = depth;
+            this.queue = queue;
+        }
+
+        protected void compute() {
+            final List<DirectoryTask> tasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream) {
+                    if (path.getFileName().toString().equals(MODULE_FILE)) {
+                        parse(path, queue);
+                    } else if (depth > 1 && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                        tasks.add(new DirectoryTask(path, depth - 1, queue));
+                    }
+                }
+            } catch (IOException | RuntimeException ignored) {
+                // skip unreadable directories
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    static final class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path file;
+        private final BlockingQueue<String> queue;
+
+        ParseTask(final Path file, final BlockingQueue<String> queue) {
+            this.file = file;
+            this.queue = queue;
+        }
+
+        protected void compute() {
+            parse(file, queue);
+        }
+    }
+
+    static void parse(final Path file, final BlockingQueue<String> queue) {
+        try {
+            final String name = ModuleXmlParser.parseModuleName(Files.newInputStream(file), file.toString());
+            if (name != null) {
+                queue.add(name);
+            }
+        } catch (IOException | ModuleLoadException | RuntimeException ignored) {
+            // not a module
+        }
+    }
+}
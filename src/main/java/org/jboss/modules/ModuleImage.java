@@ -0,0 +1,555 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilePermission;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.AccessController;
+import java.security.Permission;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A read-only module image: a single file holding the descriptors and resource roots of the modules of a module
+ * repository, as written by {@link ModuleImageBuilder}.  The file is memory-mapped in its entirety and is never
+ * parsed as a whole; lookups read the tables of the mapping directly, and entries which are stored uncompressed are
+ * handed out as buffer slices without copying.
+ * <p>
+ * The file starts with a header of ten integers: the magic number, the format version, and the count and offset of
+ * each of the module, resource root and entry tables, followed by the size and offset of the entry hash table.
+ * All integers are big-endian, and all offsets are from the start of the file, which limits images to 2 GB.
+ * <ul>
+ *     <li>A module record holds the module's path in the repository, such as {@code org/example/main}, the
+ *     directory it was packed from, the offset and length of its descriptor in the binary form of
+ *     {@link org.jboss.modules._private.ModuleXmlPrivateAccess#tokenizeModuleXml(byte[], String)}, and the range of its resource
+ *     roots.</li>
+ *     <li>A resource root record holds its module, the path of the resource root as given to the resource root
+ *     factory, the range of its entries, and the offset and count of the string references which make up the result
+ *     of {@link ResourceLoader#getPaths()}.</li>
+ *     <li>An entry record holds the name, data offset, stored size, size and compression method of a file.  The
+ *     entries of a resource root are contiguous and sorted by name.</li>
+ *     <li>The hash table holds pairs of a hash of the resource root and entry name, and the entry index plus one;
+ *     collisions are resolved by linear probing.</li>
+ * </ul>
+ * Strings are stored as an unsigned 16-bit length followed by that many bytes of UTF-8, and referenced by offset.
+ * Entries are either {@link #STORED} or {@link #DEFLATED} with a zlib wrapper.
+ */
+final class ModuleImage {
+    static final int MAGIC = 0x4a424d49;
+    static final int VERSION = 1;
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    static final int HEADER_SIZE = 40;
+    static final int MODULE_SIZE = 24;
+    static final int ROOT_SIZE = 24;
+    static final int ENTRY_SIZE = 20;
+    static final int SLOT_SIZE = 8;
+
+    static final String PROTOCOL = "module-image";
+
+    // the open images by the path of their URLs, so that a URL which was rebuilt from its string form still resolves
+    private static final Map<String, List<ModuleImage>> openImages = new HashMap<>();
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int modulesOffset;
+    private final int rootCount;
+    private final int rootsOffset;
+    private final int entryCount;
+    private final int entriesOffset;
+    private final int tableMask;
+    private final int tableOffset;
+    // the module index for each module path; the module table is small, so it is decoded up front
+    private final Map<String, Integer> modules;
+    private final String[] modulePaths;
+    private final String urlBase;
+    private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    private ModuleImage(final File file, final ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a module image: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported module image version " + buffer.getInt(4) + ": " + file);
+        }
+        final int moduleCount = buffer.getInt(8);
+        modulesOffset = checkTable(buffer.getInt(12), moduleCount, MODULE_SIZE);
+        rootCount = buffer.getInt(16);
+        rootsOffset = checkTable(buffer.getInt(20), rootCount, ROOT_SIZE);
+        entryCount = buffer.getInt(24);
+        entriesOffset = checkTable(buffer.getInt(28), entryCount, ENTRY_SIZE);
+        final int tableSize = buffer.getInt(32);
+        if (Integer.bitCount(tableSize) != 1) {
+            throw new IOException("Invalid module image: " + file);
+        }
+        tableMask = tableSize - 1;
+        tableOffset = checkTable(buffer.getInt(36), tableSize, SLOT_SIZE);
+        modules = new HashMap<>(moduleCount * 2);
+        modulePaths = new String[moduleCount];
+        for (int i = 0; i < moduleCount; i ++) {
+            final int record = modulesOffset + i * MODULE_SIZE;
+            checkRange(buffer.getInt(record + 16), buffer.getInt(record + 20), rootCount);
+            modulePaths[i] = getString(buffer.getInt(record));
+            modules.put(modulePaths[i], Integer.valueOf(i));
+        }
+        // lookups trust the ranges of the resource roots, so they are checked up front like those of the modules
+        for (int root = 0; root < rootCount; root ++) {
+            final int record = rootsOffset + root * ROOT_SIZE;
+            checkRange(buffer.getInt(record + 8), buffer.getInt(record + 12), entryCount);
+            checkTable(buffer.getInt(record + 16), buffer.getInt(record + 20), 4);
+        }
+        urlBase = file.getAbsoluteFile().toURI().getRawPath() + "!/";
+    }
+
+    private int checkTable(final int offset, final int count, final int recordSize) throws IOException {
+        if (offset < HEADER_SIZE || count < 0 || (long) count * recordSize > buffer.capacity() - offset) {
+            throw new IOException("Invalid module image: " + file);
+        }
+        return offset;
+    }
+
+    private void checkRange(final int first, final int count, final int total) throws IOException {
+        if (first < 0 || count < 0 || first > total - count) {
+            throw new IOException("Invalid module image: " + file);
+        }
+    }
+
+    /**
+     * Open and map the given module image.
+     *
+     * @param file the image file
+     * @return the module image
+     * @throws IOException if the file cannot be read or is not a valid module image
+     */
+    static ModuleImage open(final File file) throws IOException {
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Module image is too large: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        final ModuleImage image;
+        try {
+            image = new ModuleImage(file, buffer);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Invalid module image: " + file, e);
+        }
+        synchronized (openImages) {
+            openImages.computeIfAbsent(image.urlBase, k -> new ArrayList<>(1)).add(image);
+        }
+        return image;
+    }
+
+    static int hash(final int root, final String name) {
+        final int h = (name.hashCode() * 31 + root) * 0x9e3779b9;
+        return h ^ h >>> 16;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int getModuleCount() {
+        return modulePaths.length;
+    }
+
+    /**
+     * Find the module with the given path in the repository.
+     *
+     * @param path the module path, such as {@code org/example/main}
+     * @return the module index, or -1 if there is no such module
+     */
+    int findModule(final String path) {
+        final Integer module = modules.get(path);
+        return module == null ? -1 : module.intValue();
+    }
+
+    String getModulePath(final int module) {
+        return modulePaths[module];
+    }
+
+    /**
+     * Get the directory which the module was packed from, which is the root path for resource roots which are not
+     * in the image.
+     *
+     * @param module the module index
+     * @return the directory
+     */
+    String getModuleDirectory(final int module) {
+        return getString(buffer.getInt(modulesOffset + module * MODULE_SIZE + 4));
+    }
+
+    byte[] getDescriptor(final int module) throws IOException {
+        final int record = modulesOffset + module * MODULE_SIZE;
+        final ByteBuffer slice = slice(buffer.getInt(record + 8), buffer.getInt(record + 12), modulePaths[module]);
+        final byte[] bytes = new byte[slice.remaining()];
+        slice.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Find the packed resource root of a module.
+     *
+     * @param module the module index
+     * @param loaderPath the path of the resource root, as given to the resource root factory
+     * @return the resource root index, or -1 if the resource root is not in the image
+     */
+    int findResourceRoot(final int module, final String loaderPath) {
+        final int record = modulesOffset + module * MODULE_SIZE;
+        final int first = buffer.getInt(record + 16);
+        final int count = buffer.getInt(record + 20);
+        for (int root = first; root < first + count; root ++) {
+            if (stringEquals(buffer.getInt(rootsOffset + root * ROOT_SIZE + 4), loaderPath)) {
+                return root;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the JAR or directory which a resource root was packed from, resolved in the same way as by the default
+     * resource root factory.
+     *
+     * @param root the resource root index
+     * @return the file
+     */
+    File getRootFile(final int root) {
+        final int record = rootsOffset + root * ROOT_SIZE;
+        final File loaderFile = new File(getString(buffer.getInt(record + 4)).replace('/', File.separatorChar));
+        if (loaderFile.isAbsolute()) {
+            return loaderFile;
+        }
+        return new File(getModuleDirectory(buffer.getInt(record)).replace('/', File.separatorChar), loaderFile.getPath());
+    }
+
+    /**
+     * Get the paths of a resource root, as reported by {@link ResourceLoader#getPaths()} of its original loader.
+     *
+     * @param root the resource root index
+     * @return the paths
+     */
+    Collection<String> getPaths(final int root) {
+        final int record = rootsOffset + root * ROOT_SIZE;
+        final int offset = buffer.getInt(record + 16);
+        final int count = buffer.getInt(record + 20);
+        final List<String> paths = new ArrayList<>(count);
+        for (int i = 0; i < count; i ++) {
+            paths.add(getString(buffer.getInt(offset + i * 4)));
+        }
+        return paths;
+    }
+
+    int getFirstEntry(final int root) {
+        return buffer.getInt(rootsOffset + root * ROOT_SIZE + 8);
+    }
+
+    int getEntryCount(final int root) {
+        return buffer.getInt(rootsOffset + root * ROOT_SIZE + 12);
+    }
+
+    /**
+     * Find an entry of a resource root.
+     *
+     * @param root the resource root index
+     * @param name the entry name
+     * @return the entry index, or -1 if there is no such entry
+     */
+    int find(final int root, final String name) {
+        final ByteBuffer buffer = this.buffer;
+        final int first = getFirstEntry(root);
+        final int end = first + getEntryCount(root);
+        final int hash = hash(root, name);
+        int idx = hash & tableMask;
+        // a valid table always has an empty slot, but a corrupt one must not be probed forever
+        for (int probes = 0; probes <= tableMask; probes ++) {
+            final int slot = tableOffset + idx * SLOT_SIZE;
+            final int entry = buffer.getInt(slot + 4) - 1;
+            if (entry == -1) {
+                return -1;
+            }
+            if (buffer.getInt(slot) == hash && entry >= first && entry < end && stringEquals(buffer.getInt(entriesOffset + entry * ENTRY_SIZE), name)) {
+                return entry;
+            }
+            idx = idx + 1 & tableMask;
+        }
+        return -1;
+    }
+
+    String getName(final int entry) {
+        return getString(buffer.getInt(entriesOffset + entry * ENTRY_SIZE));
+    }
+
+    int getSize(final int entry) {
+        return buffer.getInt(entriesOffset + entry * ENTRY_SIZE + 12);
+    }
+
+    int getMethod(final int entry) {
+        return buffer.getInt(entriesOffset + entry * ENTRY_SIZE + 16);
+    }
+
+    /**
+     * Get the raw (possibly compressed) data of an entry as a read-only slice of the mapping.
+     *
+     * @param entry the entry index
+     * @return the entry data
+     * @throws IOException if the image is closed or the entry is invalid
+     */
+    ByteBuffer getRawData(final int entry) throws IOException {
+        final int record = entriesOffset + entry * ENTRY_SIZE;
+        return slice(buffer.getInt(record + 4), buffer.getInt(record + 8), getName(entry));
+    }
+
+    private ByteBuffer slice(final int offset, final int length, final String name) throws IOException {
+        if (closed) {
+            throw new ZipException("Module image closed: " + file);
+        }
+        final ByteBuffer buffer = this.buffer;
+        if (offset < HEADER_SIZE || length < 0 || offset > buffer.capacity() - length) {
+            throw new ZipException("Invalid entry " + name + " in " + file);
+        }
+        final ByteBuffer slice = buffer.duplicate();
+        slice.position(offset);
+        slice.limit(offset + length);
+        return slice.slice();
+    }
+
+    /**
+     * Read the uncompressed content of an entry into a new array.
+     *
+     * @param entry the entry index
+     * @return the entry content
+     * @throws IOException if the entry cannot be read
+     */
+    byte[] readBytes(final int entry) throws IOException {
+        final ByteBuffer raw = getRawData(entry);
+        final byte[] bytes = new byte[getSize(entry)];
+        if (getMethod(entry) == STORED) {
+            raw.get(bytes);
+            return bytes;
+        }
+        final Inflater inflater = getInflater();
+        try {
+            inflater.setInput(raw);
+            int pos = 0;
+            while (pos < bytes.length) {
+                final int res = inflater.inflate(bytes, pos, bytes.length - pos);
+                if (res == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException("Truncated entry " + getName(entry) + " in " + file);
+                }
+                pos += res;
+            }
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid compressed data for " + getName(entry) + " in " + file + ": " + e.getMessage());
+        } finally {
+            releaseInflater(inflater);
+        }
+    }
+
+    /**
+     * Open a stream over the uncompressed content of an entry.
+     *
+     * @param entry the entry index
+     * @return the stream
+     * @throws IOException if the entry cannot be read
+     */
+    InputStream openStream(final int entry) throws IOException {
+        if (getMethod(entry) == STORED) {
+            return new MappedZipFile.BufferInputStream(getRawData(entry));
+        }
+        return new ByteArrayInputStream(readBytes(entry));
+    }
+
+    /**
+     * Get the URL of an entry, or of the resource root itself if the name is empty.  The URL is only valid while
+     * this image is open.
+     *
+     * @param root the resource root index
+     * @param name the entry name
+     * @return the URL
+     */
+    URL getURL(final int root, final String name) {
+        // creating a URL with a handler is privileged
+        return AccessController.doPrivileged((PrivilegedAction<URL>) () -> {
+            try {
+                return new URL(PROTOCOL, null, -1, urlBase + root + "/" + name, Handler.INSTANCE);
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private String getString(final int offset) {
+        final int length = buffer.getShort(offset) & 0xffff;
+        final byte[] bytes = new byte[length];
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset + 2);
+        duplicate.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare a string of the image with the given string, without decoding it if it is ASCII.
+     */
+    private boolean stringEquals(final int offset, final String string) {
+        final ByteBuffer buffer = this.buffer;
+        final int length = buffer.getShort(offset) & 0xffff;
+        final int stringLength = string.length();
+        if (length < stringLength) {
+            // UTF-8 never has fewer bytes than chars
+            return false;
+        }
+        for (int i = 0; i < length; i ++) {
+            final byte b = buffer.get(offset + 2 + i);
+            if (b < 0) {
+                return getString(offset).equals(string);
+            }
+            if (i == stringLength || string.charAt(i) != b) {
+                return false;
+            }
+        }
+        return length == stringLength;
+    }
+
+    private Inflater getInflater() {
+        final Inflater inflater = inflaters.poll();
+        return inflater == null ? new Inflater() : inflater;
+    }
+
+    private void releaseInflater(final Inflater inflater) {
+        if (closed) {
+            inflater.end();
+        } else {
+            inflater.reset();
+            inflaters.offer(inflater);
+        }
+    }
+
+    /**
+     * Close this image.  Buffers which were already handed out remain valid until they are garbage collected.
+     */
+    void close() {
+        closed = true;
+        synchronized (openImages) {
+            final List<ModuleImage> images = openImages.get(urlBase);
+            if (images != null && images.remove(this) && images.isEmpty()) {
+                openImages.remove(urlBase);
+            }
+        }
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+    private static ModuleImage getOpenImage(final String urlBase) {
+        synchronized (openImages) {
+            final List<ModuleImage> images = openImages.get(urlBase);
+            return images == null ? null : images.get(0);
+        }
+    }
+
+    /**
+     * The handler of the URLs of module images, which have the form
+     * {@code module-image:/path/to/image!/<resource root index>/<entry name>}.  The handler resolves them against the
+     * images which are currently open, and is also served by {@link ModularURLStreamHandlerFactory}, so that URLs
+     * which are rebuilt from their string form keep working while the image is open.
+     */
+    static final class Handler extends URLStreamHandler {
+        static final Handler INSTANCE = new Handler();
+
+        private Handler() {
+        }
+
+        protected URLConnection openConnection(final URL url) throws IOException {
+            final String path = url.getPath();
+            final int idx = path.indexOf("!/");
+            final ModuleImage image = idx == -1 ? null : getOpenImage(path.substring(0, idx + 2));
+            if (image == null) {
+                throw new IOException("No open module image for " + url);
+            }
+            return image.openConnection(url, path, idx);
+        }
+    }
+
+    /**
+     * Open a connection to an entry of this image.
+     */
+    private URLConnection openConnection(final URL url, final String path, final int idx) throws IOException {
+        final int slash = path.indexOf('/', idx + 2);
+        final int root;
+        try {
+            root = slash == -1 ? -1 : Integer.parseInt(path.substring(idx + 2, slash));
+        } catch (NumberFormatException e) {
+            throw new MalformedURLException("Invalid module image URL " + url);
+        }
+        if (root < 0 || root >= rootCount) {
+            throw new MalformedURLException("Invalid module image URL " + url);
+        }
+        final int entry = find(root, path.substring(slash + 1));
+        return new URLConnection(url) {
+            public void connect() throws IOException {
+                if (entry == -1) {
+                    throw new IOException("No entry for " + url);
+                }
+                connected = true;
+            }
+
+            public InputStream getInputStream() throws IOException {
+                connect();
+                return openStream(entry);
+            }
+
+            public long getContentLengthLong() {
+                return entry == -1 ? -1 : getSize(entry);
+            }
+
+            public Permission getPermission() {
+                return new FilePermission(file.getPath(), "read");
+            }
+        };
+    }
+}
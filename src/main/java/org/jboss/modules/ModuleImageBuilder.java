@@ -0,0 +1,419 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static org.jboss.modules.Utils.MODULE_FILE;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import org.jboss.modules.xml.ModuleXmlParser;
+
+/**
+ * Writes a {@link ModuleImage} from the module repository roots of a {@link LocalModuleFinder}.
+ * <p>
+ * Every {@code module.xml} below the roots is packed in binary form, the first root winning as usual.  To learn
+ * which resource roots a module has, its descriptor is parsed with the current system properties, and each resource
+ * root which the default resource root factory opens is packed along with it.  Resource roots which the image cannot
+ * serve faithfully are left on the filesystem, and are loaded from there: JARs which
+ * {@link MappedZipFile#open(File)} does not support, such as signed and multi-release JARs, and directories which
+ * contain native libraries.  Descriptors which are not well-formed are not packed at all.
+ */
+final class ModuleImageBuilder {
+    private final DataOutputStream os;
+    private final boolean compress;
+    private final Deflater deflater;
+    private final List<ModuleRecord> modules = new ArrayList<>();
+    private final List<RootRecord> roots = new ArrayList<>();
+    private final List<EntryRecord> entries = new ArrayList<>();
+    // filled in by finish()
+    private final int[] header = new int[ModuleImage.HEADER_SIZE / 4];
+    private long position;
+
+    private ModuleImageBuilder(final OutputStream os, final boolean compress) {
+        this.os = new DataOutputStream(new BufferedOutputStream(os, 65536));
+        this.compress = compress;
+        deflater = compress ? new Deflater() : null;
+    }
+
+    /**
+     * Build a module image.  The image is written to a temporary file which then replaces the image file, so that
+     * processes which have the previous image mapped are not disturbed.
+     *
+     * @param repoRoots the module repository roots
+     * @param imageFile the image file to write
+     * @param compress {@code true} to deflate entries which become smaller, {@code false} to store all entries
+     * @return the number of modules in the image
+     * @throws IOException if the image could not be written
+     */
+    static int build(final File[] repoRoots, final File imageFile, final boolean compress) throws IOException {
+        final Map<String, Path> descriptors = new TreeMap<>();
+        for (File repoRoot : repoRoots) {
+            final Path rootPath = repoRoot.toPath();
+            if (! Files.isDirectory(rootPath)) {
+                continue;
+            }
+            try (Stream<Path> stream = Files.walk(rootPath)) {
+                final Iterator<Path> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    final Path path = iterator.next();
+                    final Path dir = path.getParent();
+                    if (path.getFileName().toString().equals(MODULE_FILE) && ! dir.equals(rootPath)) {
+                        // the first root wins
+                        descriptors.putIfAbsent(rootPath.relativize(dir).toString().replace(File.separatorChar, '/'), path);
+                    }
+                }
+            }
+        }
+        final Path imagePath = imageFile.toPath().toAbsolutePath();
+        final Path tempFile = Files.createTempFile(imagePath.getParent(), imagePath.getFileName().toString(), ".tmp");
+        try {
+            final ModuleImageBuilder builder;
+            try (OutputStream fos = Files.newOutputStream(tempFile)) {
+                builder = new ModuleImageBuilder(fos, compress);
+                try {
+                    builder.pad(ModuleImage.HEADER_SIZE);
+                    final ModuleLoader moduleLoader = new ModuleLoader(new ModuleFinder[0]);
+                    for (Map.Entry<String, Path> entry : descriptors.entrySet()) {
+                        builder.addModule(entry.getKey(), entry.getValue(), moduleLoader);
+                    }
+                    builder.finish();
+                } finally {
+                    if (builder.deflater != null) {
+                        builder.deflater.end();
+                    }
+                }
+            }
+            builder.writeHeader(tempFile.toFile());
+            try {
+                Files.move(tempFile, imagePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, imagePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return builder.modules.size();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void addModule(final String modulePath, final Path file, final ModuleLoader moduleLoader) throws IOException {
+        final byte[] content = Files.readAllBytes(file);
+        final byte[] tokens;
+        try {
+            tokens = ImageModuleFinder.XML_ACCESS.tokenizeModuleXml(content, file.toString());
+        } catch (ModuleLoadException e) {
+            // left to the module finders of the repository, which report the error
+            return;
+        }
+        final String directory = file.getParent().toString();
+        // the loaders which the descriptor opens, by resource root path
+        final Map<String, ResourceLoader> loaders = new LinkedHashMap<>();
+        final Map<String, File> files = new HashMap<>();
+        try {
+            ModuleXmlParser.parseModuleXml((rootPath, loaderPath, loaderName) -> {
+                final ResourceLoader loader = ModuleXmlParser.ResourceRootFactory.getDefault().createResourceLoader(rootPath, loaderPath, loaderName);
+                if (loaders.putIfAbsent(loaderPath, loader) == null) {
+                    final File loaderFile = new File(loaderPath.replace('/', File.separatorChar));
+                    files.put(loaderPath, loaderFile.isAbsolute() ? loaderFile : new File(rootPath.replace('/', File.separatorChar), loaderFile.getPath()));
+                } else {
+                    loader.close();
+                }
+                return loader;
+            }, directory, new ByteArrayInputStream(content), file.toString(), moduleLoader, null);
+        } catch (ModuleLoadException ignored) {
+            // the module fails in the same way when it is loaded from the image
+        }
+        final ModuleRecord module = new ModuleRecord(modulePath, directory, checkedPosition(), tokens.length, roots.size());
+        os.write(tokens);
+        position += tokens.length;
+        modules.add(module);
+        for (Map.Entry<String, ResourceLoader> entry : loaders.entrySet()) {
+            final ResourceLoader loader = entry.getValue();
+            try {
+                if (loader instanceof IterableResourceLoader && isPackable(files.get(entry.getKey()))) {
+                    addRoot(entry.getKey(), (IterableResourceLoader) loader);
+                }
+            } finally {
+                loader.close();
+            }
+        }
+        module.rootCount = roots.size() - module.firstRoot;
+    }
+
+    private static boolean isPackable(final File file) throws IOException {
+        if (file.isDirectory()) {
+            return ! new File(file, "lib").isDirectory();
+        }
+        final MappedZipFile zipFile = MappedZipFile.open(file);
+        if (zipFile == null) {
+            return false;
+        }
+        zipFile.close();
+        return true;
+    }
+
+    private void addRoot(final String loaderPath, final IterableResourceLoader loader) throws IOException {
+        final TreeMap<String, Resource> resources = new TreeMap<>();
+        final Iterator<Resource> iterator = loader.iterateResources("", true);
+        while (iterator.hasNext()) {
+            final Resource resource = iterator.next();
+            if (! resource.getName().endsWith("/")) {
+                resources.putIfAbsent(resource.getName(), resource);
+            }
+        }
+        final int root = roots.size();
+        roots.add(new RootRecord(modules.size() - 1, loaderPath, entries.size(), resources.size(), loader.getPaths()));
+        for (Resource resource : resources.values()) {
+            final byte[] bytes;
+            try (InputStream is = resource.openStream()) {
+                bytes = is.readAllBytes();
+            }
+            byte[] data = bytes;
+            int method = ModuleImage.STORED;
+            if (compress) {
+                final byte[] deflated = deflate(bytes);
+                if (deflated.length < bytes.length) {
+                    data = deflated;
+                    method = ModuleImage.DEFLATED;
+                }
+            }
+            entries.add(new EntryRecord(root, resource.getName(), checkedPosition(), data.length, bytes.length, method));
+            os.write(data);
+            position += data.length;
+        }
+    }
+
+    private byte[] deflate(final byte[] bytes) {
+        final Deflater deflater = this.deflater;
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        byte[] buf = new byte[Math.max(64, bytes.length + (bytes.length >> 3))];
+        int len = 0;
+        while (! deflater.finished()) {
+            if (len == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length << 1);
+            }
+            len += deflater.deflate(buf, len, buf.length - len);
+        }
+        return Arrays.copyOf(buf, len);
+    }
+
+    private int checkedPosition() throws IOException {
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("Module image would exceed 2 GB");
+        }
+        return (int) position;
+    }
+
+    private void pad(final int count) throws IOException {
+        for (int i = 0; i < count; i ++) {
+            os.write(0);
+        }
+        position += count;
+    }
+
+    private void writeInt(final int value) throws IOException {
+        os.writeInt(value);
+        position += 4;
+    }
+
+    private void finish() throws IOException {
+        // strings
+        final Map<String, Integer> strings = new HashMap<>();
+        for (ModuleRecord module : modules) {
+            module.pathRef = string(strings, module.path);
+            module.directoryRef = string(strings, module.directory);
+        }
+        for (RootRecord root : roots) {
+            root.loaderPathRef = string(strings, root.loaderPath);
+            root.pathRefs = new int[root.paths.size()];
+            int i = 0;
+            for (String path : root.paths) {
+                root.pathRefs[i ++] = string(strings, path);
+            }
+        }
+        for (EntryRecord entry : entries) {
+            entry.nameRef = string(strings, entry.name);
+        }
+        // resource root paths
+        for (RootRecord root : roots) {
+            root.pathsOffset = checkedPosition();
+            for (int ref : root.pathRefs) {
+                writeInt(ref);
+            }
+        }
+        header[0] = ModuleImage.MAGIC;
+        header[1] = ModuleImage.VERSION;
+        header[2] = modules.size();
+        header[3] = checkedPosition();
+        for (ModuleRecord module : modules) {
+            writeInt(module.pathRef);
+            writeInt(module.directoryRef);
+            writeInt(module.descriptorOffset);
+            writeInt(module.descriptorLength);
+            writeInt(module.firstRoot);
+            writeInt(module.rootCount);
+        }
+        header[4] = roots.size();
+        header[5] = checkedPosition();
+        for (RootRecord root : roots) {
+            writeInt(root.module);
+            writeInt(root.loaderPathRef);
+            writeInt(root.firstEntry);
+            writeInt(root.entryCount);
+            writeInt(root.pathsOffset);
+            writeInt(root.pathRefs.length);
+        }
+        header[6] = entries.size();
+        header[7] = checkedPosition();
+        for (EntryRecord entry : entries) {
+            writeInt(entry.nameRef);
+            writeInt(entry.offset);
+            writeInt(entry.compressedSize);
+            writeInt(entry.size);
+            writeInt(entry.method);
+        }
+        // at most half full
+        final int tableSize = Integer.highestOneBit(Math.max(entries.size(), 1) * 4 - 1);
+        final int[] table = new int[tableSize * 2];
+        for (int i = 0; i < entries.size(); i ++) {
+            final EntryRecord entry = entries.get(i);
+            final int hash = ModuleImage.hash(entry.root, entry.name);
+            int idx = hash & tableSize - 1;
+            while (table[idx * 2 + 1] != 0) {
+                idx = idx + 1 & tableSize - 1;
+            }
+            table[idx * 2] = hash;
+            table[idx * 2 + 1] = i + 1;
+        }
+        header[8] = tableSize;
+        header[9] = checkedPosition();
+        for (int value : table) {
+            writeInt(value);
+        }
+        // the whole image must be mappable
+        checkedPosition();
+        os.flush();
+    }
+
+    private int string(final Map<String, Integer> strings, final String string) throws IOException {
+        Integer ref = strings.get(string);
+        if (ref == null) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xffff) {
+                throw new IOException("Name is too long for a module image: " + string);
+            }
+            ref = Integer.valueOf(checkedPosition());
+            strings.put(string, ref);
+            os.writeShort(bytes.length);
+            os.write(bytes);
+            position += 2 + bytes.length;
+        }
+        return ref.intValue();
+    }
+
+    private void writeHeader(final File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            for (int value : header) {
+                raf.writeInt(value);
+            }
+        }
+    }
+
+    static final class ModuleRecord {
+        final String path;
+        final String directory;
+        final int descriptorOffset;
+        final int descriptorLength;
+        final int firstRoot;
+        int rootCount;
+        int pathRef;
+        int directoryRef;
+
+        ModuleRecord(final String path, final String directory, final int descriptorOffset, final int descriptorLength, final int firstRoot) {
+            this.path = path;
+            this.directory = directory;
+            this.descriptorOffset = descriptorOffset;
+            this.descriptorLength = descriptorLength;
+            this.firstRoot = firstRoot;
+        }
+    }
+
+    static final class RootRecord {
+        final int module;
+        final String loaderPath;
+        final int firstEntry;
+        final int entryCount;
+        final Collection<String> paths;
+        int loaderPathRef;
+        int[] pathRefs;
+        int pathsOffset;
+
+        RootRecord(final int module, final String loaderPath, final int firstEntry, final int entryCount, final Collection<String> paths) {
+            this.module = module;
+            this.loaderPath = loaderPath;
+            this.firstEntry = firstEntry;
+            this.entryCount = entryCount;
+            this.paths = paths;
+        }
+    }
+
+    static final class EntryRecord {
+        final int root;
+        final String name;
+        final int offset;
+        final int compressedSize;
+        final int size;
+        final int method;
+        int nameRef;
+
+        EntryRecord(final int root, final String name, final int offset, final int compressedSize, final int size, final int method) {
+            this.root = root;
+            this.name = name;
+            this.offset = offset;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.method = method;
+        }
+    }
+}
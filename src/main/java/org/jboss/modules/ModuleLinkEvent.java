@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for the linking of a module to its dependencies.
+ */
+@Name("org.jboss.modules.ModuleLink")
+@Label("Module Link")
+@Category("JBoss Modules")
+@Description("A module was linked to its dependencies")
+final class ModuleLinkEvent extends Event {
+    @Label("Module Name")
+    String moduleName;
+
+    @Label("Dependencies")
+    @Description("The number of direct dependencies of the module")
+    int dependencies;
+
+    @Label("Paths")
+    @Description("The number of paths visible to the module after linking")
+    int paths;
+
+    @Label("Discarded")
+    @Description("Whether the result was discarded because the dependencies of the module changed concurrently")
+    boolean discarded;
+
+    @Label("Incremental")
+    @Description("Whether only the paths of replaced dependencies were recomputed")
+    boolean incremental;
+}
@@ -28,6 +28,8 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.net.URL;
+import java.security.AccessControlContext;
+import java.security.AccessController;
 import java.security.CodeSource;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
@@ -46,8 +48,12 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -91,6 +97,7 @@ public class ModuleLoader {
     public static final ModuleFinder[] NO_FINDERS = new ModuleFinder[0];
 
     private final ConcurrentMap<String, FutureModule> moduleMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Module>> pendingLoads = new ConcurrentHashMap<>();
     private final ModuleFinder[] finders;
 
     private final boolean canRedefine;
@@ -102,6 +109,12 @@ public class ModuleLoader {
     private final AtomicInteger scanCount = new AtomicInteger();
     private final AtomicInteger raceCount = new AtomicInteger();
     private final AtomicInteger classCount = new AtomicInteger();
+    private final AtomicLong negativeCacheHitCount = new AtomicLong();
+    private final AtomicLong negativeCacheMissCount = new AtomicLong();
+    private final AtomicInteger sharedLinkageCount = new AtomicInteger();
+    private final AtomicInteger uniqueLinkageCount = new AtomicInteger();
+
+    private volatile ExportCache exportCache = ExportCache.create();
 
     ModuleLoader(boolean canRedefine, boolean skipRegister) {
         this(canRedefine, skipRegister, NO_FINDERS);
@@ -259,6 +272,170 @@ public class ModuleLoader {
         return module;
     }
 
+    /**
+     * Load a module asynchronously.  The module is loaded and linked as if by {@link #loadModule(String)} on the
+     * default executor, which uses a virtual thread per task on Java runtimes which support them, and otherwise a
+     * shared pool of daemon threads.
+     *
+     * @param name the module name
+     * @return a future which completes with the loaded module, or exceptionally with the reason why it could not be
+     *      loaded
+     */
+    public final CompletableFuture<Module> loadModuleAsync(String name) {
+        return loadModuleAsync(name, AsyncExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Load a module asynchronously, using the given executor.  The module is loaded and linked as if by
+     * {@link #loadModule(String)}, with the access control context of the caller rather than that of the executor's
+     * thread.  Concurrent asynchronous loads of the same module share a single task, so that only one thread is
+     * occupied per module.
+     *
+     * @param name the module name
+     * @param executor the executor to load the module on
+     * @return a future which completes with the loaded module, or exceptionally with the reason why it could not be
+     *      loaded
+     */
+    public final CompletableFuture<Module> loadModuleAsync(String name, Executor executor) {
+        if (name == null) {
+            throw new IllegalArgumentException("name is null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        CompletableFuture<Module> future = pendingLoads.get(name);
+        if (future == null) {
+            final CompletableFuture<Module> newFuture = new CompletableFuture<>();
+            future = pendingLoads.putIfAbsent(name, newFuture);
+            if (future == null) {
+                future = newFuture;
+                final AccessControlContext context = AccessController.getContext();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            newFuture.complete(doPrivileged((PrivilegedExceptionAction<Module>) () -> loadModule(name), context));
+                        } catch (PrivilegedActionException e) {
+                            newFuture.completeExceptionally(e.getCause());
+                        } catch (Throwable t) {
+                            newFuture.completeExceptionally(t);
+                        } finally {
+                            pendingLoads.remove(name, newFuture);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    pendingLoads.remove(name, newFuture);
+                    newFuture.completeExceptionally(e);
+                }
+            }
+        }
+        // callers must not be able to complete the shared future
+        return future.copy();
+    }
+
+    /**
+     * Load several modules asynchronously, for example to warm up a module loader.  The modules are loaded as if by
+     * {@link #loadModuleAsync(String)}.
+     *
+     * @param names the module names
+     * @return a future which completes with the loaded modules, in the order of the given names, or exceptionally if
+     *      any of the modules could not be loaded
+     */
+    public final CompletableFuture<List<Module>> loadModulesAsync(Collection<String> names) {
+        return loadModulesAsync(names, AsyncExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Load several modules asynchronously, using the given executor.  The modules are loaded as if by
+     * {@link #loadModuleAsync(String, Executor)}.
+     *
+     * @param names the module names
+     * @param executor the executor to load the modules on
+     * @return a future which completes with the loaded modules, in the order of the given names, or exceptionally if
+     *      any of the modules could not be loaded
+     */
+    public final CompletableFuture<List<Module>> loadModulesAsync(Collection<String> names, Executor executor) {
+        final List<CompletableFuture<Module>> futures = new ArrayList<>(names.size());
+        for (String name : names) {
+            futures.add(loadModuleAsync(name, executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            final List<Module> modules = new ArrayList<>(futures.size());
+            for (CompletableFuture<Module> future : futures) {
+                modules.add(future.join());
+            }
+            return modules;
+        });
+    }
+
+    /**
+     * Link several modules together, for example once all the modules of a server are loaded, instead of linking each
+     * module on first use.  The modules are linked in dependency order, so that the exports computed for a module are
+     * reused by every module of the set which imports it.  Modules which are already linked are skipped.  The modules
+     * may belong to any module loader.
+     *
+     * @param modules the modules to link
+     * @throws ModuleLoadException if a module could not be linked
+     */
+    public final void linkAll(Collection<Module> modules) throws ModuleLoadException {
+        for (List<Module> component : LinkBatch.of(modules).getComponents()) {
+            LinkBatch.link(component);
+        }
+    }
+
+    /**
+     * Link several modules together, as if by {@link #linkAll(Collection)}, linking independent groups of modules in
+     * parallel on the given executor.  Two modules are in the same group if one of them depends on the other, directly
+     * or through other modules of the set.  This method returns once every group is linked.
+     *
+     * @param modules the modules to link
+     * @param executor the executor to link the groups on
+     * @throws ModuleLoadException if a module could not be linked
+     */
+    public final void linkAll(Collection<Module> modules, Executor executor) throws ModuleLoadException {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        final List<List<Module>> components = LinkBatch.of(modules).getComponents();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(components.size());
+        for (List<Module> component : components) {
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            try {
+                executor.execute(() -> {
+                    try {
+                        LinkBatch.link(component);
+                        future.complete(null);
+                    } catch (Throwable t) {
+                        future.completeExceptionally(t);
+                    }
+                });
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            futures.add(future);
+        }
+        Throwable problem = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (problem == null) {
+                    problem = e.getCause();
+                } else {
+                    problem.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (problem instanceof ModuleLoadException) {
+            throw (ModuleLoadException) problem;
+        } else if (problem instanceof RuntimeException) {
+            throw (RuntimeException) problem;
+        } else if (problem instanceof Error) {
+            throw (Error) problem;
+        } else if (problem != null) {
+            throw new UndeclaredThrowableException(problem);
+        }
+    }
+
     /**
      * Iterate the modules which can be located via this module loader.
      *
@@ -363,13 +540,25 @@ public class ModuleLoader {
             return futureModule.getModule();
         }
 
+        final ModuleLoaderEvent event = FlightRecorder.AVAILABLE ? new ModuleLoaderEvent() : null;
+        if (event != null) event.begin();
         FutureModule newFuture = new FutureModule(name);
         futureModule = moduleMap.putIfAbsent(name, newFuture);
         if (futureModule != null) {
-            return futureModule.getModule();
+            // another thread is loading it
+            final Module module = futureModule.getModule();
+            if (event != null && event.shouldCommit()) {
+                event.moduleName = name;
+                event.moduleLoader = toString();
+                event.found = module != null;
+                event.races = 1;
+                event.commit();
+            }
+            return module;
         }
 
         boolean ok = false;
+        int races = 0;
         try {
             final ModuleLogger log = Module.log;
             log.trace("Locally loading module %s from %s", name, this);
@@ -393,7 +582,11 @@ public class ModuleLoader {
                         throw new ModuleLoadException("Alias module " + name + " is referencing not existing module");
                     }
                     final Set<String> aliases = aliasedModule.aliases;
-                    if (aliases == null) continue; // race condition detected, retry
+                    if (aliases == null) {
+                        // race condition detected, retry
+                        races ++;
+                        continue;
+                    }
                     synchronized (aliases) {
                         if (aliases == aliasedModule.aliases) {
                             // no race-condition with removal, go ahead
@@ -416,6 +609,13 @@ public class ModuleLoader {
                 newFuture.setModule(null);
                 moduleMap.remove(name, newFuture);
             }
+            if (event != null && event.shouldCommit()) {
+                event.moduleName = name;
+                event.moduleLoader = toString();
+                event.found = ok;
+                event.races = races;
+                event.commit();
+            }
         }
     }
 
@@ -493,7 +693,7 @@ public class ModuleLoader {
             throw new SecurityException("Attempted to unload " + module + " from a different module loader");
         }
         final FutureModule futureModule = moduleMap.get(moduleId);
-        if (futureModule != null && futureModule.module == module) {
+        if (futureModule != null && futureModule.getModuleNow() == module) {
             final Set<String> aliases = module.aliases;
             if (aliases != null) {
                 synchronized (aliases) {
@@ -508,7 +708,11 @@ public class ModuleLoader {
                     }
                 }
             }
-            return moduleMap.remove(moduleId, futureModule);
+            if (moduleMap.remove(moduleId, futureModule)) {
+                // drop cached exports which refer to the unloaded module
+                ExportCache.invalidateAll();
+                return true;
+            }
         }
         return false;
     }
@@ -605,6 +809,8 @@ public class ModuleLoader {
         }
 
         module.getClassLoaderPrivate().recalculate();
+        NegativeCache.invalidateAll();
+        ExportCache.invalidateAll();
     }
 
     /**
@@ -629,6 +835,8 @@ public class ModuleLoader {
         }
 
         module.getClassLoaderPrivate().setResourceLoaders(loaders.toArray(ResourceLoaderSpec[]::new));
+        NegativeCache.invalidateAll();
+        ExportCache.invalidateAll();
     }
 
     /**
@@ -701,6 +909,21 @@ public class ModuleLoader {
         if (time != 0L) classLoadTime.addAndGet(time);
     }
 
+    /**
+     * Get the export cache for the modules of this loader, replacing it if it was invalidated.
+     *
+     * @return the export cache
+     */
+    ExportCache getExportCache() {
+        final int epoch = ExportCache.epoch();
+        ExportCache exportCache = this.exportCache;
+        if (exportCache.getEpoch() != epoch) {
+            // racing replacements just lose a few entries
+            this.exportCache = exportCache = ExportCache.create();
+        }
+        return exportCache;
+    }
+
     void incScanCount() {
         if (Metrics.ENABLED) scanCount.getAndIncrement();
     }
@@ -713,42 +936,62 @@ public class ModuleLoader {
         if (Metrics.ENABLED) classCount.getAndIncrement();
     }
 
-    static final Object NOT_FOUND = new Object();
+    void incNegativeCacheHitCount() {
+        if (Metrics.ENABLED) negativeCacheHitCount.getAndIncrement();
+    }
+
+    void incNegativeCacheMissCount() {
+        if (Metrics.ENABLED) negativeCacheMissCount.getAndIncrement();
+    }
+
+    void incSharedLinkageCount() {
+        if (Metrics.ENABLED) sharedLinkageCount.getAndIncrement();
+    }
+
+    void incUniqueLinkageCount() {
+        if (Metrics.ENABLED) uniqueLinkageCount.getAndIncrement();
+    }
 
     static final class FutureModule {
 
         final String name;
-        volatile Object module;
+        // completed with null if the module was not found
+        private final CompletableFuture<Module> future = new CompletableFuture<>();
 
         FutureModule(final String name) {
             this.name = name;
         }
 
         Module getModule() throws ModuleNotFoundException {
-            boolean intr = false;
-            try {
-                Object module = this.module;
-                if (module == null) synchronized (this) {
-                    while ((module = this.module) == null) {
-                        try {
-                            wait();
-                        } catch (InterruptedException e) {
-                            intr = true;
-                        }
-                    }
-                }
-                if (module == NOT_FOUND) return null;
-                return (Module) module;
-            } finally {
-                if (intr) Thread.currentThread().interrupt();
-            }
+            // parks without holding a monitor, and preserves the interrupt status
+            return future.join();
+        }
+
+        Module getModuleNow() {
+            return future.getNow(null);
         }
 
         void setModule(Module m) {
-            synchronized (this) {
-                module = m == null ? NOT_FOUND : m;
-                notifyAll();
+            future.complete(m);
+        }
+    }
+
+    static final class AsyncExecutorHolder {
+        static final Executor EXECUTOR = createExecutor();
+
+        private static Executor createExecutor() {
+            try {
+                // Java 21 and later
+                final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) method.invoke(null);
+            } catch (ReflectiveOperationException ignored) {
             }
+            final AtomicInteger threadSeq = new AtomicInteger(1);
+            return Executors.newCachedThreadPool(task -> {
+                final Thread thread = new Thread(task, "jboss-modules-async-" + threadSeq.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
         }
     }
 
@@ -794,6 +1037,22 @@ public class ModuleLoader {
             return getModuleLoader().classCount.get();
         }
 
+        public long getNegativeCacheHitCount() {
+            return getModuleLoader().negativeCacheHitCount.get();
+        }
+
+        public long getNegativeCacheMissCount() {
+            return getModuleLoader().negativeCacheMissCount.get();
+        }
+
+        public int getSharedLinkageCount() {
+            return getModuleLoader().sharedLinkageCount.get();
+        }
+
+        public int getUniqueLinkageCount() {
+            return getModuleLoader().uniqueLinkageCount.get();
+        }
+
         public List<String> queryLoadedModuleNames() {
             final ModuleLoader loader = getModuleLoader();
             final Set<String> names = loader.moduleMap.keySet();
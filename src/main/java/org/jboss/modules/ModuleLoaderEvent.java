@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for the local loading of a module by a module loader.  The event duration covers finding,
+ * defining and aliasing the module, or waiting for a concurrent load of the same module by another thread.
+ */
+@Name("org.jboss.modules.ModuleLoad")
+@Label("Module Load")
+@Category("JBoss Modules")
+@Description("A module was loaded by a module loader")
+final class ModuleLoaderEvent extends Event {
+    @Label("Module Name")
+    String moduleName;
+
+    @Label("Module Loader")
+    String moduleLoader;
+
+    @Label("Found")
+    @Description("Whether the module was found")
+    boolean found;
+
+    @Label("Races")
+    @Description("The number of times the load raced with another thread, and waited or retried")
+    int races;
+}
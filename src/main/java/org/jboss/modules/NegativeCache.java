@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import java.security.AccessController;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded, lossy cache of names which were recently looked up and not found.  The cache is a fixed-size table
+ * indexed by name hash; a colliding miss simply replaces the previous entry.  Reads and writes take no locks.
+ * <p>
+ * Every entry is stamped with the global epoch which was current when the lookup which produced it started.  Any
+ * change which might make a previously missing name visible (relinking, changing resource loaders, or defining a
+ * class at run time) advances the epoch, which invalidates all entries of all caches at once.
+ * <p>
+ * Changes which are not announced to the module loader, such as a file added to an exploded resource root or a class
+ * defined by the target of a class loader dependency, are not seen while a miss is cached, so the cache is disabled
+ * unless {@code jboss.modules.negative-cache-size} is set to a positive size.  It should only be enabled for
+ * installations whose resource roots do not change behind the module loader's back.
+ */
+final class NegativeCache {
+    private static final AtomicInteger EPOCH = new AtomicInteger();
+
+    static final int SIZE;
+
+    static {
+        final int size = Integer.parseInt(AccessController.doPrivileged(new PropertyReadAction("jboss.modules.negative-cache-size", "0")));
+        SIZE = size <= 0 ? 0 : Integer.highestOneBit(Math.min(size, 1 << 20) * 2 - 1);
+    }
+
+    private volatile Entry[] table;
+
+    NegativeCache() {
+    }
+
+    /**
+     * Get the current global epoch.  Callers should read the epoch before starting a lookup, and pass it to both
+     * {@link #contains(String, int)} and {@link #add(String, int)}.
+     *
+     * @return the current epoch
+     */
+    static int epoch() {
+        return EPOCH.get();
+    }
+
+    /**
+     * Invalidate the contents of every negative cache.
+     */
+    static void invalidateAll() {
+        EPOCH.getAndIncrement();
+    }
+
+    /**
+     * Determine whether the given name is known to be missing.
+     *
+     * @param name the name
+     * @param epoch the epoch read at the start of the lookup
+     * @return {@code true} if the name is known to be missing, {@code false} if it is unknown
+     */
+    boolean contains(final String name, final int epoch) {
+        final Entry[] table = this.table;
+        if (table == null) {
+            return false;
+        }
+        final Entry entry = table[name.hashCode() & table.length - 1];
+        return entry != null && entry.epoch == epoch && name.equals(entry.name);
+    }
+
+    /**
+     * Record that the given name is missing.
+     *
+     * @param name the name
+     * @param epoch the epoch read at the start of the lookup which failed
+     */
+    void add(final String name, final int epoch) {
+        if (SIZE == 0) {
+            return;
+        }
+        Entry[] table = this.table;
+        if (table == null) {
+            // racing initializations just lose a few entries
+            this.table = table = new Entry[SIZE];
+        }
+        table[name.hashCode() & table.length - 1] = new Entry(name, epoch);
+    }
+
+    static final class Entry {
+        final String name;
+        final int epoch;
+
+        Entry(final String name, final int epoch) {
+            this.name = name;
+            this.epoch = epoch;
+        }
+    }
+}
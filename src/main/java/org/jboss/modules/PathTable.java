@@ -0,0 +1,248 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map from path names to lists of loaders, built once at link time.
+ * <p>
+ * Entries are stored in parallel key and value arrays addressed by linear probing, so there is no per-entry node
+ * object.  Equal value lists are coalesced into a single instance, and single-element lists use the compact
+ * singleton list representation, so lookups remain allocation-free.
+ * <p>
+ * A table may also be an overlay on a base map which is shared with other tables, in which case its own entries take
+ * precedence over those of the base map.
+ *
+ * @param <T> the loader type
+ */
+final class PathTable<T> extends AbstractMap<String, List<T>> {
+    private final String[] keys;
+    private final List<T>[] values;
+    private final Map<String, List<T>> base;
+    private final int size;
+    private Set<Entry<String, List<T>>> entrySet;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private PathTable(final Map<String, List<T>> map, final Map<String, List<T>> base) {
+        int size = map.size();
+        // keep the load factor at or below 2/3
+        final int capacity = Integer.highestOneBit(Math.max(2, size + (size >> 1)) - 1) << 1;
+        final String[] keys = new String[capacity];
+        final List<T>[] values = new List[capacity];
+        final int mask = capacity - 1;
+        final Map<List<T>, List<T>> dedup = new HashMap<>();
+        for (Map.Entry<String, List<T>> entry : map.entrySet()) {
+            final String key = entry.getKey();
+            final List<T> value = entry.getValue();
+            List<T> list = dedup.get(value);
+            if (list == null) {
+                dedup.put(value, list = value.size() == 1 ? Collections.singletonList(value.get(0)) : Collections.unmodifiableList(new ArrayList<>(value)));
+            }
+            int idx = hash(key) & mask;
+            while (keys[idx] != null) {
+                idx = idx + 1 & mask;
+            }
+            keys[idx] = key;
+            values[idx] = list;
+            if (base != null && base.containsKey(key)) {
+                size --;
+            }
+        }
+        this.keys = keys;
+        this.values = values;
+        this.base = base;
+        this.size = base == null ? size : size + base.size();
+    }
+
+    /**
+     * Create an immutable path table with the same contents as the given map.
+     *
+     * @param map the map to copy (may be {@code null})
+     * @param <T> the loader type
+     * @return the path table, or {@code null} if the given map was {@code null}
+     */
+    static <T> Map<String, List<T>> of(final Map<String, List<T>> map) {
+        if (map == null) {
+            return null;
+        } else if (map.isEmpty()) {
+            return Collections.emptyMap();
+        } else if (map instanceof PathTable) {
+            return map;
+        } else {
+            return new PathTable<>(map, null);
+        }
+    }
+
+    /**
+     * Create an immutable path table which overlays the given base map.
+     *
+     * @param base the base map, which must be immutable
+     * @param overlay the entries which replace or add to those of the base map
+     * @param <T> the loader type
+     * @return the path table
+     */
+    static <T> Map<String, List<T>> overlay(final Map<String, List<T>> base, final Map<String, List<T>> overlay) {
+        if (overlay.isEmpty()) {
+            return base;
+        } else if (base.isEmpty()) {
+            return of(overlay);
+        } else {
+            return new PathTable<>(overlay, base);
+        }
+    }
+
+    private static int hash(final String key) {
+        final int h = key.hashCode();
+        return h ^ h >>> 16;
+    }
+
+    private int indexOf(final Object key) {
+        if (! (key instanceof String)) {
+            return -1;
+        }
+        final String[] keys = this.keys;
+        final int mask = keys.length - 1;
+        int idx = hash((String) key) & mask;
+        String found;
+        while ((found = keys[idx]) != null) {
+            if (found.equals(key)) {
+                return idx;
+            }
+            idx = idx + 1 & mask;
+        }
+        return -1;
+    }
+
+    public List<T> get(final Object key) {
+        final int idx = indexOf(key);
+        if (idx != -1) {
+            return values[idx];
+        }
+        final Map<String, List<T>> base = this.base;
+        return base == null ? null : base.get(key);
+    }
+
+    public boolean containsKey(final Object key) {
+        if (indexOf(key) != -1) {
+            return true;
+        }
+        final Map<String, List<T>> base = this.base;
+        return base != null && base.containsKey(key);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Set<Entry<String, List<T>>> entrySet() {
+        final Set<Entry<String, List<T>>> entrySet = this.entrySet;
+        if (entrySet != null) {
+            return entrySet;
+        }
+        return this.entrySet = new AbstractSet<>() {
+            public Iterator<Entry<String, List<T>>> iterator() {
+                final Iterator<Entry<String, List<T>>> own = new Iterator<>() {
+                    private int idx = advance(0);
+
+                    private int advance(int idx) {
+                        final String[] keys = PathTable.this.keys;
+                        while (idx < keys.length && keys[idx] == null) {
+                            idx ++;
+                        }
+                        return idx;
+                    }
+
+                    public boolean hasNext() {
+                        return idx < keys.length;
+                    }
+
+                    public Entry<String, List<T>> next() {
+                        if (! hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final int idx = this.idx;
+                        this.idx = advance(idx + 1);
+                        return new SimpleImmutableEntry<>(keys[idx], values[idx]);
+                    }
+                };
+                final Map<String, List<T>> base = PathTable.this.base;
+                if (base == null) {
+                    return own;
+                }
+                // then the entries of the base map which are not overlaid
+                final Iterator<Entry<String, List<T>>> baseIterator = base.entrySet().iterator();
+                return new Iterator<>() {
+                    private Entry<String, List<T>> next;
+
+                    public boolean hasNext() {
+                        if (own.hasNext()) {
+                            return true;
+                        }
+                        while (next == null && baseIterator.hasNext()) {
+                            final Entry<String, List<T>> entry = baseIterator.next();
+                            if (indexOf(entry.getKey()) == -1) {
+                                next = entry;
+                            }
+                        }
+                        return next != null;
+                    }
+
+                    public Entry<String, List<T>> next() {
+                        if (! hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        if (own.hasNext()) {
+                            return own.next();
+                        }
+                        final Entry<String, List<T>> next = this.next;
+                        this.next = null;
+                        return next;
+                    }
+                };
+            }
+
+            public boolean contains(final Object o) {
+                if (! (o instanceof Entry)) {
+                    return false;
+                }
+                final Entry<?, ?> entry = (Entry<?, ?>) o;
+                final List<T> value = get(entry.getKey());
+                return value != null && value.equals(entry.getValue());
+            }
+
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
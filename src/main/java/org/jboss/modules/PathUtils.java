@@ -27,10 +27,8 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.text.Normalizer;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -389,29 +387,14 @@ public final class PathUtils {
     }
 
     /**
-     * Takes a list of maps an returns an immutable representation of the same map, with all duplicate lists
-     * coalesced into a single object, and with all lists replaced by immutable array lists that has a backing array
-     * that is the correct size for the number of contents.
+     * Takes a map and returns an immutable representation of the same map, with all duplicate lists
+     * coalesced into a single object, and with all lists replaced by immutable lists that are the correct size for
+     * the number of contents.  The map itself is a compact {@link PathTable}.
      *
      * This can result in a significant memory saving for some use cases
      *
      */
     static <T> Map<String, List<T>> deduplicateLists(Map<String, List<T>> allPaths) {
-        if (allPaths == null) {
-            return null;
-        } else if (allPaths.size() == 0) {
-            return Collections.emptyMap();
-        } else {
-            Map<String, List<T>> newPaths = new HashMap<>();
-            Map<List<T>, List<T>> dedup = new HashMap<>();
-            for (Map.Entry<String, List<T>> e : allPaths.entrySet()) {
-                List<T> l = dedup.get(e.getValue());
-                if (l == null) {
-                    dedup.put(e.getValue(), l = Collections.unmodifiableList(new ArrayList<>(e.getValue())));
-                }
-                newPaths.put(e.getKey(), l);
-            }
-            return Collections.unmodifiableMap(newPaths);
-        }
+        return PathTable.of(allPaths);
     }
 }
@@ -32,16 +32,31 @@ import java.util.Map;
 final class Paths<T, A> {
     private final A[] sourceList;
     private final Map<String, List<T>> allPaths;
+    private final ClassIndex<T> classIndex;
 
     Paths(final A[] sourceList, final Map<String, List<T>> allPaths) {
+        this(sourceList, allPaths, null);
+    }
+
+    Paths(final A[] sourceList, final Map<String, List<T>> allPaths, final ClassIndex<T> classIndex) {
         this.sourceList = sourceList;
         this.allPaths = PathUtils.deduplicateLists(allPaths);
+        this.classIndex = classIndex;
     }
 
     Map<String, List<T>> getAllPaths() {
         return allPaths;
     }
 
+    /**
+     * Get the class index for these paths, if one was computed.
+     *
+     * @return the class index, or {@code null} if there is none
+     */
+    ClassIndex<T> getClassIndex() {
+        return classIndex;
+    }
+
     A[] getSourceList(A[] defVal) {
         final A[] sourceList = this.sourceList;
         return sourceList == null ? defVal : sourceList;
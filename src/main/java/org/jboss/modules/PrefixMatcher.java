@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable set of string prefixes, compiled into a character trie.  Testing whether a string starts with any of
+ * the prefixes takes time proportional to the length of the matched prefix, independently of the number of prefixes.
+ * <p>
+ * The trie is stored in flat arrays: node {@code n} has the sorted edge characters
+ * {@code chars[offsets[n]..offsets[n + 1]]}, whose target nodes are at the same positions in {@code targets}.
+ */
+final class PrefixMatcher {
+    private static final PrefixMatcher EMPTY = new PrefixMatcher(new int[] { 0, 0 }, new char[0], new int[0], new boolean[1]);
+
+    private final int[] offsets;
+    private final char[] chars;
+    private final int[] targets;
+    private final boolean[] terminal;
+
+    private PrefixMatcher(final int[] offsets, final char[] chars, final int[] targets, final boolean[] terminal) {
+        this.offsets = offsets;
+        this.chars = chars;
+        this.targets = targets;
+        this.terminal = terminal;
+    }
+
+    /**
+     * Compile the given prefixes.
+     *
+     * @param prefixes the prefixes (must not be {@code null} or contain empty strings)
+     * @return the matcher
+     */
+    static PrefixMatcher compile(final String... prefixes) {
+        if (prefixes.length == 0) {
+            return EMPTY;
+        }
+        // build a linked trie, then flatten it in breadth-first order
+        final Node root = new Node();
+        for (String prefix : prefixes) {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && ! node.terminal; i ++) {
+                node = node.children.computeIfAbsent(Character.valueOf(prefix.charAt(i)), c -> new Node());
+            }
+            node.terminal = true;
+            // longer prefixes are subsumed
+            node.children.clear();
+        }
+        final List<Node> nodes = new ArrayList<>();
+        nodes.add(root);
+        int edges = 0;
+        for (int i = 0; i < nodes.size(); i ++) {
+            final Node node = nodes.get(i);
+            for (Node child : node.children.values()) {
+                child.index = nodes.size();
+                nodes.add(child);
+            }
+            edges += node.children.size();
+        }
+        final int[] offsets = new int[nodes.size() + 1];
+        final char[] chars = new char[edges];
+        final int[] targets = new int[edges];
+        final boolean[] terminal = new boolean[nodes.size()];
+        int edge = 0;
+        for (int i = 0; i < nodes.size(); i ++) {
+            final Node node = nodes.get(i);
+            offsets[i] = edge;
+            terminal[i] = node.terminal;
+            for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                chars[edge] = entry.getKey().charValue();
+                targets[edge] = entry.getValue().index;
+                edge ++;
+            }
+        }
+        offsets[nodes.size()] = edge;
+        return new PrefixMatcher(offsets, chars, targets, terminal);
+    }
+
+    /**
+     * Determine whether the given string starts with one of the prefixes of this matcher.
+     *
+     * @param string the string to test
+     * @return {@code true} if the string starts with one of the prefixes, {@code false} otherwise
+     */
+    boolean matches(final String string) {
+        final int[] offsets = this.offsets;
+        final boolean[] terminal = this.terminal;
+        final int length = string.length();
+        int node = 0;
+        for (int i = 0; ! terminal[node]; i ++) {
+            final int start = offsets[node];
+            final int end = offsets[node + 1];
+            if (start == end || i == length) {
+                return false;
+            }
+            final int idx = Arrays.binarySearch(chars, start, end, string.charAt(i));
+            if (idx < 0) {
+                return false;
+            }
+            node = targets[idx];
+        }
+        return true;
+    }
+
+    static final class Node {
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        boolean terminal;
+        int index;
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static org.jboss.modules.Utils.MODULE_FILE;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An index of the directories and module descriptors of a module repository root, stored in a {@value #FILE_NAME}
+ * file at the root.  The index lets a {@link LocalModuleFinder} tell whether a root contains a module without
+ * probing the filesystem for each root and module, and list the modules of a root without walking it.
+ * <p>
+ * The index records the modification time of every directory of the root.  Since adding or removing a module
+ * changes the modification time of the directory which contains it, an answer of the index is valid as long as
+ * the directory it depends on still has its recorded modification time.  Each directory is checked when an answer
+ * first depends on it, and checked again whenever an answer that a module is absent is about to turn into a failed
+ * module lookup, so that modules added while the finder is in use are still found.  A finder stops using an index
+ * which is found to be stale; the index file is only written by {@link #generate(File)}, which is run by the
+ * {@code -index} command.
+ * <p>
+ * The index is a text file: a header line, a line for each directory with its modification time in milliseconds,
+ * whether it contains a {@code module.xml} file, and its path relative to the root, and an end line.
+ */
+final class RepositoryIndex {
+    static final String FILE_NAME = "modules.index";
+
+    static final boolean ENABLED = Boolean.parseBoolean(AccessController.doPrivileged(new PropertyReadAction("jboss.modules.repository-index", "true")));
+
+    /**
+     * The root has a module with the given path.
+     */
+    static final int PRESENT = 0;
+    /**
+     * The root has no module with the given path.
+     */
+    static final int ABSENT = 1;
+    /**
+     * The index is stale for the given path, and the root must be probed directly.
+     */
+    static final int STALE = 2;
+
+    private static final String HEADER = "jboss-modules-index 1";
+    private static final String END = "end";
+
+    private static final byte UNCHECKED = 0;
+    private static final byte VALID = 1;
+    private static final byte CHANGED = 2;
+
+    private final File root;
+    // the directory paths, each starting with a '/'
+    private final String[] paths;
+    private final long[] times;
+    private final boolean[] modules;
+    private final byte[] states;
+    private final Map<String, Integer> indexes;
+
+    private RepositoryIndex(final File root, final String[] paths, final long[] times, final boolean[] modules) {
+        this.root = root;
+        this.paths = paths;
+        this.times = times;
+        this.modules = modules;
+        states = new byte[paths.length];
+        indexes = new HashMap<>(paths.length * 4 / 3 + 1);
+        for (int i = 0; i < paths.length; i ++) {
+            indexes.put(paths[i], Integer.valueOf(i));
+        }
+    }
+
+    /**
+     * Read the index of the given root.
+     *
+     * @param root the repository root
+     * @return the index, or {@code null} if the root has no index or it cannot be read
+     */
+    static RepositoryIndex read(final File root) {
+        final List<String> paths = new ArrayList<>();
+        final List<Long> times = new ArrayList<>();
+        final List<Boolean> modules = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(new File(root, FILE_NAME).toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.startsWith("#"));
+            if (! HEADER.equals(line)) {
+                return null;
+            }
+            for (;;) {
+                line = reader.readLine();
+                if (line == null) {
+                    // truncated
+                    return null;
+                } else if (line.equals(END)) {
+                    break;
+                }
+                final int first = line.indexOf(' ');
+                final int second = line.indexOf(' ', first + 1);
+                final String path = line.substring(second + 1);
+                if (second != first + 2 || ! path.startsWith("/")) {
+                    return null;
+                }
+                times.add(Long.valueOf(Long.parseLong(line.substring(0, first))));
+                modules.add(Boolean.valueOf(line.charAt(first + 1) == 'm'));
+                paths.add(path);
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        final long[] timeArray = new long[times.size()];
+        final boolean[] moduleArray = new boolean[modules.size()];
+        for (int i = 0; i < timeArray.length; i ++) {
+            timeArray[i] = times.get(i).longValue();
+            moduleArray[i] = modules.get(i).booleanValue();
+        }
+        return new RepositoryIndex(root, paths.toArray(new String[0]), timeArray, moduleArray);
+    }
+
+    /**
+     * Scan the given root and write its index.
+     *
+     * @param root the repository root
+     * @return the new index
+     * @throws IOException if the root could not be scanned or the index could not be written
+     */
+    static RepositoryIndex generate(final File root) throws IOException {
+        // creating the index file changes the modification time of the root, so create it before the scan and
+        // write it in place afterwards
+        try (FileChannel channel = FileChannel.open(new File(root, FILE_NAME).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            final RepositoryIndex index = scan(root);
+            final StringWriter writer = new StringWriter();
+            writer.write("# Generated by JBoss Modules; run it with -index again after changing the repository\n");
+            writer.write(HEADER);
+            writer.write('\n');
+            for (int i = 0; i < index.paths.length; i ++) {
+                writer.write(Long.toString(index.times[i]));
+                writer.write(index.modules[i] ? " m " : " d ");
+                writer.write(index.paths[i]);
+                writer.write('\n');
+            }
+            writer.write(END);
+            writer.write('\n');
+            final ByteBuffer buffer = ByteBuffer.wrap(writer.toString().getBytes(StandardCharsets.UTF_8));
+            channel.truncate(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return index;
+        }
+    }
+
+    private static RepositoryIndex scan(final File root) throws IOException {
+        final Path rootPath = root.toPath();
+        final TreeMap<String, long[]> directories = new TreeMap<>();
+        // links are followed, as they are when modules are found
+        Files.walkFileTree(rootPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                directories.put(pathOf(rootPath, dir), new long[] { attrs.lastModifiedTime().toMillis(), 0 });
+                return FileVisitResult.CONTINUE;
+            }
+
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                if (file.getFileName().toString().equals(MODULE_FILE) && ! attrs.isDirectory()) {
+                    directories.get(pathOf(rootPath, file.getParent()))[1] = 1;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            public FileVisitResult visitFileFailed(final Path file, final IOException exc) throws IOException {
+                if (exc instanceof FileSystemLoopException) {
+                    return FileVisitResult.CONTINUE;
+                }
+                throw exc;
+            }
+        });
+        final String[] paths = new String[directories.size()];
+        final long[] times = new long[paths.length];
+        final boolean[] modules = new boolean[paths.length];
+        int i = 0;
+        for (Map.Entry<String, long[]> entry : directories.entrySet()) {
+            paths[i] = entry.getKey();
+            times[i] = entry.getValue()[0];
+            modules[i] = entry.getValue()[1] != 0;
+            i ++;
+        }
+        return new RepositoryIndex(root, paths, times, modules);
+    }
+
+    private static String pathOf(final Path root, final Path dir) {
+        final StringBuilder b = new StringBuilder();
+        for (Path name : root.relativize(dir)) {
+            if (! name.toString().isEmpty()) {
+                b.append('/').append(name);
+            }
+        }
+        return b.length() == 0 ? "/" : b.toString();
+    }
+
+    /**
+     * Get the number of modules in this index.
+     *
+     * @return the number of modules
+     */
+    int getModuleCount() {
+        int count = 0;
+        for (boolean module : modules) {
+            if (module) count ++;
+        }
+        return count;
+    }
+
+    /**
+     * Find a module in the root.
+     *
+     * @param child the module path, relative to the root
+     * @return {@link #PRESENT}, {@link #ABSENT} or {@link #STALE}
+     */
+    int find(final String child) {
+        return find(child, false);
+    }
+
+    /**
+     * Find a module in the root.
+     *
+     * @param child the module path, relative to the root
+     * @param recheck {@code true} to check the directory which the answer depends on even if it was already checked
+     * @return {@link #PRESENT}, {@link #ABSENT} or {@link #STALE}
+     */
+    int find(final String child, final boolean recheck) {
+        String path = "/" + child;
+        Integer index = indexes.get(path);
+        if (index != null) {
+            final int i = index.intValue();
+            return ! check(i, recheck) ? STALE : modules[i] ? PRESENT : ABSENT;
+        }
+        // the module directory does not exist, and the module is absent as long as its closest existing ancestor
+        // is unchanged
+        do {
+            final int idx = path.lastIndexOf('/');
+            path = idx == 0 ? "/" : path.substring(0, idx);
+            index = indexes.get(path);
+        } while (index == null && path.length() > 1);
+        return index == null ? STALE : check(index.intValue(), recheck) ? ABSENT : STALE;
+    }
+
+    /**
+     * List the module paths of the root which are in the given directory, or below it if {@code recursive} is
+     * {@code true}.
+     *
+     * @param base the directory path, relative to the root, or the empty string for the root itself
+     * @param recursive {@code true} to include the modules in the subdirectories of the base directory
+     * @return the module paths, relative to the root, or {@code null} if the index is stale
+     */
+    List<String> list(final String base, final boolean recursive) {
+        final String prefix = "/" + base;
+        final int find = find(base);
+        if (find == STALE) {
+            return null;
+        }
+        final List<String> list = new ArrayList<>();
+        if (find == PRESENT) {
+            list.add(base);
+        }
+        if (recursive && indexes.containsKey(prefix)) {
+            final String subPrefix = prefix.equals("/") ? "/" : prefix + "/";
+            for (int i = 0; i < paths.length; i ++) {
+                if (paths[i].startsWith(subPrefix) && paths[i].length() > subPrefix.length()) {
+                    if (! check(i, false)) {
+                        return null;
+                    }
+                    if (modules[i]) {
+                        list.add(paths[i].substring(1));
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
+    private boolean check(final int i, final boolean recheck) {
+        final byte state = states[i];
+        if (state == CHANGED || state == VALID && ! recheck) {
+            return state == VALID;
+        }
+        // races are benign: the directory is just checked again
+        // a removed directory has a time of zero
+        final boolean valid = new File(root, paths[i]).lastModified() == times[i];
+        states[i] = valid ? VALID : CHANGED;
+        return valid;
+    }
+
+    public String toString() {
+        return "repository index of " + root;
+    }
+}
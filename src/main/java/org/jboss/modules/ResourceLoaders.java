@@ -19,6 +19,7 @@
 package org.jboss.modules;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.security.AccessController;
 import java.util.HashMap;
@@ -143,6 +144,21 @@ public final class ResourceLoaders {
         return createJarResourceLoader(name, jarFile);
     }
 
+    /**
+     * Create a JAR-backed resource loader which reads the JAR through a read-only memory mapping rather than a
+     * {@code JarFile}.  Class files which are stored uncompressed are defined directly from the mapping.  Signed JARs,
+     * multi-release JARs, and JARs which use ZIP64 or unsupported compression methods are opened as a {@code JarFile}
+     * for the current runtime version instead.  JAR resource loaders do not have native library support.
+     * Created classes have a code source with a {@code jar:} URL; nested JARs are not supported.
+     *
+     * @param path the path of the JAR file
+     * @return the resource loader
+     * @throws IOException if the JAR file cannot be opened
+     */
+    public static IterableResourceLoader createMappedJarResourceLoader(final Path path) throws IOException {
+        return MappedJarResourceLoader.create("unnamed", path.toFile());
+    }
+
     /**
      * Create a filtered view of a resource loader, which allows classes to be included or excluded on a name basis.
      * The given filter is matched against the actual class or resource name, not the directory name.
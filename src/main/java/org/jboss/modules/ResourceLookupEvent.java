@@ -0,0 +1,52 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for the lookup of a resource in the resource roots of a module.
+ */
+@Name("org.jboss.modules.ResourceLookup")
+@Label("Resource Lookup")
+@Category("JBoss Modules")
+@Description("The resource roots of a module were searched for a resource")
+final class ResourceLookupEvent extends Event {
+    @Label("Module Name")
+    String moduleName;
+
+    @Label("Resource Name")
+    String resourceName;
+
+    @Label("Resource Root")
+    @Description("The name of the first resource root which contained the resource, if any")
+    String resourceRoot;
+
+    @Label("Roots Searched")
+    @Description("The number of resource roots which were searched")
+    int rootsSearched;
+
+    @Label("Found")
+    @Description("The number of resource roots which contained the resource")
+    int found;
+}
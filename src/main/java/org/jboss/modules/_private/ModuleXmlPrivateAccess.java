@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules._private;
+
+import org.jboss.modules.ModuleLoadException;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.modules.ModuleSpec;
+import org.jboss.modules.xml.ModuleXmlParser;
+
+/**
+ * Private-access methods for the binary form of module descriptors, which is specific to this version of JBoss
+ * Modules.  User classes cannot acquire an instance of this class.
+ */
+public interface ModuleXmlPrivateAccess {
+
+    /**
+     * Convert the content of a {@code module.xml} file to the compact binary form which is read by
+     * {@link #parseTokenizedModuleXml(ModuleXmlParser.ResourceRootFactory, String, byte[], String, ModuleLoader, String)}.
+     *
+     * @param content the {@code module.xml} content (must not be {@code null})
+     * @param moduleInfoFile the name of the {@code module.xml} file, for error messages (must not be {@code null})
+     * @return the binary form of the descriptor
+     * @throws ModuleLoadException if the content is not well-formed
+     */
+    byte[] tokenizeModuleXml(byte[] content, String moduleInfoFile) throws ModuleLoadException;
+
+    /**
+     * Parse a {@code module.xml} file from the binary form produced by {@link #tokenizeModuleXml(byte[], String)}.
+     *
+     * @param factory the resource root factory to use (must not be {@code null})
+     * @param rootPath the root path to send in to the resource root factory (must not be {@code null})
+     * @param tokens the binary form of the {@code module.xml} content (must not be {@code null})
+     * @param moduleInfoFile the name of the {@code module.xml} file, for error messages (must not be {@code null})
+     * @param moduleLoader the module loader to use for dependency specifications (must not be {@code null})
+     * @param moduleName the module name of the module to load
+     * @return a module specification
+     * @throws ModuleLoadException if the binary form is not valid, a dependency could not be established or another
+     *      error occurs
+     */
+    ModuleSpec parseTokenizedModuleXml(ModuleXmlParser.ResourceRootFactory factory, String rootPath, byte[] tokens, String moduleInfoFile, ModuleLoader moduleLoader, String moduleName) throws ModuleLoadException;
+}
@@ -107,7 +107,9 @@ public final class JDKModuleLogger implements ModuleLogger {
 
     /** {@inheritDoc} */
     public void trace(final String message) {
-        doLog(logger, TRACE, message, null);
+        if (logger.isLoggable(TRACE)) {
+            doLog(logger, TRACE, message, null);
+        }
     }
 
     /** {@inheritDoc} */
@@ -171,6 +173,11 @@ public final class JDKModuleLogger implements ModuleLogger {
         }
     }
 
+    /** {@inheritDoc} */
+    public boolean isTraceEnabled() {
+        return logger.isLoggable(TRACE);
+    }
+
     /** {@inheritDoc} */
     public void greeting() {
         doLog(logger, Level.INFO, String.format("JBoss Modules version %s", Main.getVersionString()), null);
@@ -50,6 +50,17 @@ public interface ModuleLogger {
 
     void trace(Throwable t, String format, Object... args);
 
+    /**
+     * Determine whether trace messages are logged.  Callers on hot paths should check this before calling a
+     * {@code trace} method, so that no arguments are evaluated or boxed for messages which would be discarded.  The
+     * default implementation returns {@code true}.
+     *
+     * @return {@code true} if trace messages may be logged, {@code false} if they are discarded
+     */
+    default boolean isTraceEnabled() {
+        return true;
+    }
+
     void greeting();
 
     void moduleDefined(String name, final ModuleLoader moduleLoader);
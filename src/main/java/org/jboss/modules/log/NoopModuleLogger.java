@@ -78,6 +78,11 @@ public final class NoopModuleLogger implements ModuleLogger {
     public void trace(final Throwable t, final String format, final Object... args) {
     }
 
+    @Override
+    public boolean isTraceEnabled() {
+        return false;
+    }
+
     @Override
     public void greeting() {
     }
@@ -140,6 +140,11 @@ public final class StreamModuleLogger implements ModuleLogger {
         print.flush();
     }
 
+    /** {@inheritDoc} */
+    public boolean isTraceEnabled() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     public void greeting() {
     }
@@ -84,6 +84,35 @@ public interface ModuleLoaderMXBean {
      */
     int getClassCount();
 
+    /**
+     * Get the number of class or resource lookups which were answered from the negative lookup cache.
+     *
+     * @return the negative cache hit count
+     */
+    long getNegativeCacheHitCount();
+
+    /**
+     * Get the number of failed class or resource lookups which were added to the negative lookup cache.
+     *
+     * @return the negative cache miss count
+     */
+    long getNegativeCacheMissCount();
+
+    /**
+     * Get the number of module links which reused a table of imports computed for another module with the same
+     * dependencies.
+     *
+     * @return the shared linkage count
+     */
+    int getSharedLinkageCount();
+
+    /**
+     * Get the number of module links which computed their own table of imports.
+     *
+     * @return the unique linkage count
+     */
+    int getUniqueLinkageCount();
+
     /**
      * Obtain a list of the current module names.
      *
@@ -0,0 +1,415 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules.xml;
+
+import static org.jboss.modules.xml.XmlPullParser.END_DOCUMENT;
+import static org.jboss.modules.xml.XmlPullParser.END_TAG;
+import static org.jboss.modules.xml.XmlPullParser.FEATURE_PROCESS_NAMESPACES;
+import static org.jboss.modules.xml.XmlPullParser.START_TAG;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * A persistent cache of parsed {@code module.xml} descriptors, enabled by setting the
+ * {@code jboss.modules.module-xml-cache} system property to the cache directory.
+ * <p>
+ * What a descriptor means depends on more than its content: expressions and conditions are evaluated against the
+ * system properties, and resource roots and artifacts are resolved against the filesystem.  So the cache does not
+ * hold module specifications; it holds the elements and attributes of each descriptor in a compact binary form,
+ * which is replayed through the descriptor parser instead of parsing the XML text again.
+ * <p>
+ * Each descriptor has its own cache file, named after a hash of its path.  A cache file is only used if the size,
+ * modification time and CRC-32C checksum of the descriptor all match the ones recorded in it; otherwise the
+ * descriptor is parsed as XML, and the cache file is replaced once the descriptor was parsed successfully.
+ */
+final class ModuleXmlCache {
+    private static final int MAGIC = 0x4a424d58;
+    private static final int VERSION = 1;
+
+    static final ModuleXmlCache DEFAULT;
+
+    static {
+        final String directory = AccessController.doPrivileged((PrivilegedAction<String>) () -> System.getProperty("jboss.modules.module-xml-cache"));
+        DEFAULT = directory == null || directory.isEmpty() ? null : new ModuleXmlCache(Paths.get(directory));
+    }
+
+    private final Path directory;
+
+    ModuleXmlCache(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Read a descriptor, along with its cached form if it is valid.
+     *
+     * @param file the descriptor file
+     * @return the descriptor
+     * @throws IOException if the descriptor could not be read
+     */
+    Descriptor read(final File file) throws IOException {
+        final Path path = file.toPath();
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        final long modified = attributes.lastModifiedTime().toMillis();
+        final byte[] content = Files.readAllBytes(path);
+        final CRC32C crc = new CRC32C();
+        crc.update(content, 0, content.length);
+        final int checksum = (int) crc.getValue();
+        final String key = path.toAbsolutePath().toString();
+        final Path cacheFile = directory.resolve(fileName(key));
+        ReplayXmlParser parser = null;
+        if (content.length == attributes.size()) {
+            try {
+                parser = readEntry(new Input(Files.readAllBytes(cacheFile)), key, content.length, modified, checksum, "cached " + file.getPath());
+            } catch (NoSuchFileException ignored) {
+                // not cached yet
+            } catch (IOException | RuntimeException ignored) {
+                // stale or damaged; it will be replaced
+            }
+        }
+        return new Descriptor(key, file.getPath(), cacheFile, modified, checksum, content, parser);
+    }
+
+    private static String fileName(final String key) {
+        final CRC32C crc = new CRC32C();
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        crc.update(bytes, 0, bytes.length);
+        return Long.toHexString(crc.getValue() << 32 | key.hashCode() & 0xffffffffL) + ".bin";
+    }
+
+    private static ReplayXmlParser readEntry(final Input is, final String key, final long size, final long modified, final int checksum, final String description) throws IOException {
+        if (is.readInt() != MAGIC || is.readInt() != VERSION || ! is.readString().equals(key) || is.readLong() != size || is.readLong() != modified || is.readInt() != checksum) {
+            return null;
+        }
+        return readTokens(is, description);
+    }
+
+    /**
+     * Read the tokens of a descriptor, which must extend to the end of the input.
+     *
+     * @param is the input
+     * @param description the description of the descriptor, for error messages
+     * @return the parser for the tokens, or {@code null} if there is trailing content
+     * @throws IOException if the tokens are truncated or invalid
+     */
+    static ReplayXmlParser readTokens(final Input is, final String description) throws IOException {
+        final String[] strings = new String[is.readCount()];
+        for (int i = 0; i < strings.length; i ++) {
+            strings[i] = is.readString();
+        }
+        final int[] codes = new int[is.readCount()];
+        for (int i = 0; i < codes.length; i ++) {
+            codes[i] = is.readVarInt();
+        }
+        if (! is.atEnd()) {
+            return null;
+        }
+        validate(strings, codes);
+        return new ReplayXmlParser(strings, codes, description);
+    }
+
+    /**
+     * Write the tokens of a descriptor.
+     *
+     * @param os the output
+     * @param tokens the parser holding the tokens
+     * @throws IOException if writing fails
+     */
+    static void writeTokens(final DataOutputStream os, final ReplayXmlParser tokens) throws IOException {
+        final String[] strings = tokens.getStrings();
+        final int[] codes = tokens.getCodes();
+        writeVarInt(os, strings.length);
+        for (String string : strings) {
+            writeString(os, string);
+        }
+        writeVarInt(os, codes.length);
+        for (int code : codes) {
+            writeVarInt(os, code);
+        }
+    }
+
+    /**
+     * Tokenize the content of a descriptor, with the lexer if possible and with {@code MXParser} otherwise.
+     *
+     * @param content the descriptor content
+     * @param description the description of the descriptor, for error messages
+     * @return the parser holding the tokens
+     * @throws IOException if reading fails
+     * @throws XmlPullParserException if the content is not well-formed
+     */
+    static ReplayXmlParser tokenize(final byte[] content, final String description) throws IOException, XmlPullParserException {
+        final ReplayXmlParser lexed = ModuleXmlLexer.tokenize(content, description);
+        if (lexed != null) {
+            return lexed;
+        }
+        final Map<String, Integer> indexes = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+        int[] codes = new int[64];
+        int count = 0;
+        final MXParser parser = new MXParser();
+        parser.setFeature(FEATURE_PROCESS_NAMESPACES, true);
+        parser.setInput(new ByteArrayInputStream(content), null);
+        for (int eventType = parser.next(); eventType != END_DOCUMENT; eventType = parser.next()) {
+            if (eventType == START_TAG) {
+                final int attributeCount = parser.getAttributeCount();
+                if (count + 5 + 3 * attributeCount > codes.length) {
+                    codes = Arrays.copyOf(codes, Math.max(codes.length << 1, count + 5 + 3 * attributeCount));
+                }
+                codes[count ++] = parser.isEmptyElementTag() ? START_TAG | ReplayXmlParser.EMPTY_FLAG : START_TAG;
+                codes[count ++] = parser.getLineNumber();
+                codes[count ++] = index(strings, indexes, parser.getNamespace());
+                codes[count ++] = index(strings, indexes, parser.getName());
+                codes[count ++] = attributeCount;
+                for (int i = 0; i < attributeCount; i ++) {
+                    codes[count ++] = index(strings, indexes, parser.getAttributeNamespace(i));
+                    codes[count ++] = index(strings, indexes, parser.getAttributeName(i));
+                    codes[count ++] = index(strings, indexes, parser.getAttributeValue(i));
+                }
+            } else if (eventType == END_TAG) {
+                if (count == codes.length) {
+                    codes = Arrays.copyOf(codes, codes.length << 1);
+                }
+                codes[count ++] = END_TAG;
+            }
+            // text in a valid descriptor is only whitespace
+        }
+        return new ReplayXmlParser(strings.toArray(new String[0]), Arrays.copyOf(codes, count), description);
+    }
+
+    private static void validate(final String[] strings, final int[] codes) throws IOException {
+        int depth = 0;
+        int position = 0;
+        while (position < codes.length) {
+            final int code = codes[position];
+            if ((code & ~ReplayXmlParser.EMPTY_FLAG) == START_TAG && position + 5 <= codes.length) {
+                final int attributeCount = codes[position + 4];
+                if (attributeCount < 0 || attributeCount > (codes.length - position - 5) / 3) {
+                    throw new EOFException();
+                }
+                final int end = position + 5 + 3 * attributeCount;
+                for (int i = position + 2; i < end; i ++) {
+                    if (i != position + 4 && (codes[i] < 0 || codes[i] >= strings.length)) {
+                        throw new IOException("Invalid string index");
+                    }
+                }
+                depth ++;
+                position = end;
+            } else if (code == END_TAG && depth > 0) {
+                depth --;
+                position ++;
+            } else {
+                throw new IOException("Invalid code");
+            }
+        }
+        if (depth != 0) {
+            throw new EOFException();
+        }
+    }
+
+    private static int index(final List<String> strings, final Map<String, Integer> indexes, final String string) {
+        Integer index = indexes.get(string);
+        if (index == null) {
+            indexes.put(string, index = Integer.valueOf(strings.size()));
+            strings.add(string);
+        }
+        return index.intValue();
+    }
+
+    private static void writeVarInt(final DataOutputStream os, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            os.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        os.writeByte(value);
+    }
+
+    private static void writeString(final DataOutputStream os, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(os, bytes.length);
+        os.write(bytes);
+    }
+
+    /**
+     * A cursor over the bytes of a cache file.  Decoding from an array is considerably cheaper than going through a
+     * {@code DataInputStream}, which matters since reading the cache file is most of the cost of a cache hit.
+     */
+    static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        boolean atEnd() {
+            return position == bytes.length;
+        }
+
+        int readInt() throws EOFException {
+            return readUnsignedByte() << 24 | readUnsignedByte() << 16 | readUnsignedByte() << 8 | readUnsignedByte();
+        }
+
+        long readLong() throws EOFException {
+            return (long) readInt() << 32 | readInt() & 0xffffffffL;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final int b = readUnsignedByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid variable-length integer");
+        }
+
+        /**
+         * Read the number of elements which follow, each of which takes at least one byte.
+         */
+        int readCount() throws IOException {
+            final int count = readVarInt();
+            if (count < 0 || count > bytes.length - position) {
+                throw new EOFException();
+            }
+            return count;
+        }
+
+        String readString() throws IOException {
+            final int length = readVarInt();
+            if (length < 0 || length > bytes.length - position) {
+                throw new EOFException();
+            }
+            final String string = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return string;
+        }
+
+        private int readUnsignedByte() throws EOFException {
+            if (position == bytes.length) {
+                throw new EOFException();
+            }
+            return bytes[position ++] & 0xff;
+        }
+    }
+
+    /**
+     * The content of a descriptor file, and its cached form if there is a valid one.
+     */
+    final class Descriptor {
+        private final String key;
+        private final String description;
+        private final Path cacheFile;
+        private final long modified;
+        private final int checksum;
+        private final byte[] content;
+        private final ReplayXmlParser cached;
+        private XmlPullParser parser;
+
+        Descriptor(final String key, final String description, final Path cacheFile, final long modified, final int checksum, final byte[] content, final ReplayXmlParser cached) {
+            this.key = key;
+            this.description = description;
+            this.cacheFile = cacheFile;
+            this.modified = modified;
+            this.checksum = checksum;
+            this.content = content;
+            this.cached = cached;
+        }
+
+        /**
+         * Determine whether this descriptor was found in the cache.
+         *
+         * @return {@code true} if the descriptor is replayed from the cache
+         */
+        boolean isCached() {
+            return cached != null;
+        }
+
+        /**
+         * Get a parser for this descriptor.  This method may only be called once.
+         *
+         * @return the parser
+         * @throws XmlPullParserException if the parser could not be created
+         */
+        XmlPullParser getParser() throws XmlPullParserException {
+            return parser = cached != null ? cached : ModuleXmlLexer.createParser(content, description);
+        }
+
+        /**
+         * Store this descriptor in the cache, once it was parsed successfully.  Failures are ignored, since the
+         * descriptor will simply be parsed again.
+         */
+        void store() {
+            if (cached != null) {
+                return;
+            }
+            try {
+                // a descriptor which was lexed already has its cached form
+                final ReplayXmlParser tokens = parser instanceof ReplayXmlParser ? (ReplayXmlParser) parser : tokenize(content, description);
+                Files.createDirectories(directory);
+                final Path tempFile = Files.createTempFile(directory, "module-xml", ".tmp");
+                try {
+                    try (OutputStream fos = Files.newOutputStream(tempFile)) {
+                        final DataOutputStream os = new DataOutputStream(new BufferedOutputStream(fos));
+                        os.writeInt(MAGIC);
+                        os.writeInt(VERSION);
+                        writeString(os, key);
+                        os.writeLong(content.length);
+                        os.writeLong(modified);
+                        os.writeInt(checksum);
+                        writeTokens(os, tokens);
+                        os.flush();
+                    }
+                    try {
+                        Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+            } catch (IOException | XmlPullParserException | RuntimeException ignored) {
+                // the cache is best-effort
+            }
+        }
+    }
+}
@@ -0,0 +1,614 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules.xml;
+
+import static org.jboss.modules.xml.XmlPullParser.END_TAG;
+import static org.jboss.modules.xml.XmlPullParser.FEATURE_PROCESS_NAMESPACES;
+import static org.jboss.modules.xml.XmlPullParser.START_TAG;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A lexer for {@code module.xml} descriptors, which turns the UTF-8 bytes of a descriptor directly into the
+ * element and attribute codes of a {@link ReplayXmlParser}.
+ * <p>
+ * Descriptors use a small subset of XML: elements and attributes with unprefixed names in a single default
+ * namespace, whitespace, comments and processing instructions.  This lexer accepts only that subset; names that
+ * are used by the descriptor schemas are mapped to shared constants without decoding them.  Any document outside
+ * of the subset, or in another namespace than {@code urn:jboss:module:*}, or which is not well-formed, is left to
+ * {@link MXParser}, so that it is accepted or rejected exactly as before.  Setting the
+ * {@code jboss.modules.xml-lexer} system property to {@code false} always uses {@code MXParser}.
+ */
+final class ModuleXmlLexer {
+    private static final boolean ENABLED = Boolean.parseBoolean(AccessController.doPrivileged((PrivilegedAction<String>) () -> System.getProperty("jboss.modules.xml-lexer", "true")));
+
+    private static final String NAMESPACE_PREFIX = "urn:jboss:module:";
+
+    private static final String[] KNOWN_STRINGS = {
+        // element names
+        "module", "artifact", "native-artifact", "dependencies", "resources", "main-class", "resource-root", "path",
+        "exports", "imports", "include", "exclude", "include-set", "exclude-set", "filter", "system", "paths",
+        "module-alias", "module-absent", "properties", "property", "permissions", "grant", "conditions",
+        "property-equal", "property-not-equal", "provides", "service", "with-class",
+        // attribute names
+        "name", "slot", "export", "services", "optional", "target-name", "target-slot", "value", "permission",
+        "actions", "version", "xmlns",
+        // common attribute values
+        "true", "false", "none", "import", "main", "",
+        // namespaces
+        "urn:jboss:module:1.0", "urn:jboss:module:1.1", "urn:jboss:module:1.2", "urn:jboss:module:1.3",
+        "urn:jboss:module:1.5", "urn:jboss:module:1.6", "urn:jboss:module:1.7", "urn:jboss:module:1.8",
+        "urn:jboss:module:1.9",
+    };
+
+    /**
+     * An open-addressed table of the known strings, indexed by their hash code.  For ASCII content, the hash code
+     * of a string is the same as the one computed over its bytes, so a known string is found without decoding it.
+     */
+    private static final String[] KNOWN;
+
+    static {
+        final String[] known = new String[256];
+        for (String string : KNOWN_STRINGS) {
+            int idx = string.hashCode() & 0xff;
+            while (known[idx] != null) {
+                idx = idx + 1 & 0xff;
+            }
+            known[idx] = string;
+        }
+        KNOWN = known;
+    }
+
+    private static final String[] ENTITIES = { "amp;", "lt;", "gt;", "quot;", "apos;" };
+    private static final int[] ENTITY_VALUES = { '&', '<', '>', '"', '\'' };
+
+    /**
+     * The singleton signal that the document must be handed to {@code MXParser}.
+     */
+    private static final Fallback FALLBACK = new Fallback();
+
+    private final byte[] bytes;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private int[] codes = new int[256];
+    private int count;
+    private int position;
+    private int line = 1;
+    private int[] stack = new int[8];
+    private int depth;
+    private int namespace = -1;
+    private byte[] scratch;
+
+    private ModuleXmlLexer(final byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Create a parser for the given descriptor content.
+     *
+     * @param content the descriptor content
+     * @param description the description of the descriptor, used in error messages
+     * @return the parser
+     * @throws XmlPullParserException if the parser could not be created
+     */
+    static XmlPullParser createParser(final byte[] content, final String description) throws XmlPullParserException {
+        if (ENABLED) {
+            final ReplayXmlParser parser = tokenize(content, description);
+            if (parser != null) {
+                return parser;
+            }
+        }
+        final MXParser parser = new MXParser();
+        parser.setFeature(FEATURE_PROCESS_NAMESPACES, true);
+        parser.setInput(new ByteArrayInputStream(content), null);
+        return parser;
+    }
+
+    /**
+     * Tokenize the given descriptor content.
+     *
+     * @param content the descriptor content
+     * @param description the description of the descriptor, used in error messages
+     * @return the parser for the tokenized content, or {@code null} if the content must be parsed by {@code MXParser}
+     */
+    static ReplayXmlParser tokenize(final byte[] content, final String description) {
+        final ModuleXmlLexer lexer = new ModuleXmlLexer(content);
+        try {
+            lexer.document();
+        } catch (Fallback e) {
+            return null;
+        }
+        return new ReplayXmlParser(lexer.strings.toArray(new String[0]), Arrays.copyOf(lexer.codes, lexer.count), description);
+    }
+
+    private void document() throws Fallback {
+        final byte[] bytes = this.bytes;
+        if (startsWith("<?xml") && isSpace(byteAt(5))) {
+            position = 5;
+            declaration();
+        }
+        misc();
+        if (position == bytes.length || bytes[position] != '<') {
+            throw FALLBACK;
+        }
+        position ++;
+        startTag();
+        while (depth > 0) {
+            // content: only whitespace, comments, processing instructions and elements
+            skipSpace();
+            if (byteAt(position) != '<') {
+                throw FALLBACK;
+            }
+            final byte b = byteAt(position + 1);
+            if (b == '/') {
+                position += 2;
+                endTag();
+            } else if (b == '!' || b == '?') {
+                markup();
+            } else {
+                position ++;
+                startTag();
+            }
+        }
+        misc();
+        if (position != bytes.length) {
+            throw FALLBACK;
+        }
+    }
+
+    /**
+     * Lex the XML declaration, accepting only version 1.0 and the UTF-8 encoding.
+     */
+    private void declaration() throws Fallback {
+        skipSpace();
+        if (! startsWith("version") || ! "1.0".equals(attributeValue(7))) {
+            throw FALLBACK;
+        }
+        boolean space = skipSpace();
+        if (space && startsWith("encoding")) {
+            if (! "UTF-8".equalsIgnoreCase(attributeValue(8))) {
+                throw FALLBACK;
+            }
+            space = skipSpace();
+        }
+        if (space && startsWith("standalone")) {
+            final String standalone = attributeValue(10);
+            if (! "yes".equals(standalone) && ! "no".equals(standalone)) {
+                throw FALLBACK;
+            }
+            skipSpace();
+        }
+        if (! startsWith("?>")) {
+            throw FALLBACK;
+        }
+        position += 2;
+    }
+
+    private String attributeValue(final int nameLength) throws Fallback {
+        position += nameLength;
+        skipSpace();
+        if (byteAt(position ++) != '=') {
+            throw FALLBACK;
+        }
+        skipSpace();
+        final byte quote = byteAt(position ++);
+        if (quote != '"' && quote != '\'') {
+            throw FALLBACK;
+        }
+        final int start = position;
+        while (byteAt(position) != quote) {
+            if (byteAt(position) < 0x20) {
+                throw FALLBACK;
+            }
+            position ++;
+        }
+        return new String(bytes, start, position ++ - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lex whitespace, comments and processing instructions outside of the document element.
+     */
+    private void misc() throws Fallback {
+        final byte[] bytes = this.bytes;
+        for (;;) {
+            skipSpace();
+            if (position + 1 < bytes.length && bytes[position] == '<' && (bytes[position + 1] == '!' || bytes[position + 1] == '?')) {
+                markup();
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skip a comment or a processing instruction.  Anything else, such as a document type declaration or a
+     * {@code CDATA} section, is not supported.
+     */
+    private void markup() throws Fallback {
+        final byte[] bytes = this.bytes;
+        if (startsWith("<!--")) {
+            position += 4;
+            for (;;) {
+                final byte b = byteAt(position ++);
+                if (b == '-' && byteAt(position) == '-') {
+                    if (byteAt(position + 1) != '>') {
+                        throw FALLBACK;
+                    }
+                    position += 2;
+                    return;
+                }
+                character(b);
+            }
+        } else if (startsWith("<?")) {
+            position += 2;
+            final int start = position;
+            while (! isSpace(byteAt(position)) && ! startsWith("?>")) {
+                if (byteAt(position ++) < 0x20) {
+                    throw FALLBACK;
+                }
+            }
+            if (position == start || position - start == 3 && (bytes[start] | 0x20) == 'x' && (bytes[start + 1] | 0x20) == 'm' && (bytes[start + 2] | 0x20) == 'l') {
+                // the XML declaration is only allowed at the start
+                throw FALLBACK;
+            }
+            for (;;) {
+                final byte b = byteAt(position ++);
+                if (b == '?' && byteAt(position) == '>') {
+                    position ++;
+                    return;
+                }
+                character(b);
+            }
+        } else {
+            throw FALLBACK;
+        }
+    }
+
+    private void startTag() throws Fallback {
+        final int name = name();
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth << 1);
+        }
+        stack[depth ++] = name;
+        final int tag = count;
+        ensureCapacity(5);
+        count += 5;
+        int attributeCount = 0;
+        boolean empty = false;
+        for (;;) {
+            final boolean space = skipSpace();
+            final byte b = byteAt(position);
+            if (b == '>') {
+                position ++;
+                break;
+            } else if (b == '/') {
+                if (byteAt(++ position) != '>') {
+                    throw FALLBACK;
+                }
+                position ++;
+                // the end tag is implied
+                depth --;
+                empty = true;
+                break;
+            }
+            if (! space) {
+                throw FALLBACK;
+            }
+            final int attributeName = name();
+            skipSpace();
+            if (byteAt(position ++) != '=') {
+                throw FALLBACK;
+            }
+            skipSpace();
+            final int value = value();
+            if (strings.get(attributeName).equals("xmlns")) {
+                // only the document element may declare the namespace
+                if (depth != 1 || ! strings.get(value).startsWith(NAMESPACE_PREFIX)) {
+                    throw FALLBACK;
+                }
+                namespace = value;
+                continue;
+            }
+            for (int i = 0, p = tag + 6; i < attributeCount; i ++, p += 3) {
+                if (codes[p] == attributeName) {
+                    // duplicate attribute
+                    throw FALLBACK;
+                }
+            }
+            ensureCapacity(3);
+            codes[count ++] = -1;
+            codes[count ++] = attributeName;
+            codes[count ++] = value;
+            attributeCount ++;
+        }
+        if (namespace == -1) {
+            throw FALLBACK;
+        }
+        codes[tag] = empty ? START_TAG | ReplayXmlParser.EMPTY_FLAG : START_TAG;
+        codes[tag + 1] = line;
+        codes[tag + 2] = namespace;
+        codes[tag + 3] = name;
+        codes[tag + 4] = attributeCount;
+        // attributes have no namespace
+        final int noNamespace = index("");
+        for (int i = 0, p = tag + 5; i < attributeCount; i ++, p += 3) {
+            codes[p] = noNamespace;
+        }
+        if (empty) {
+            ensureCapacity(1);
+            codes[count ++] = END_TAG;
+        }
+    }
+
+    private void endTag() throws Fallback {
+        if (name() != stack[-- depth]) {
+            throw FALLBACK;
+        }
+        skipSpace();
+        if (byteAt(position ++) != '>') {
+            throw FALLBACK;
+        }
+        ensureCapacity(1);
+        codes[count ++] = END_TAG;
+    }
+
+    /**
+     * Lex an unprefixed ASCII name.
+     *
+     * @return the string index of the name
+     */
+    private int name() throws Fallback {
+        final byte[] bytes = this.bytes;
+        final int start = position;
+        byte b = byteAt(position);
+        if (! (b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b == '_')) {
+            throw FALLBACK;
+        }
+        int hash = b;
+        for (;;) {
+            b = byteAt(++ position);
+            if (b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9' || b == '-' || b == '_' || b == '.') {
+                hash = 31 * hash + b;
+            } else if (b == ':' || b < 0) {
+                // prefixed or non-ASCII names are left to MXParser
+                throw FALLBACK;
+            } else {
+                return index(bytes, start, position - start, hash);
+            }
+        }
+    }
+
+    /**
+     * Lex a quoted attribute value, resolving references and normalizing whitespace as {@code MXParser} does.
+     *
+     * @return the string index of the value
+     */
+    private int value() throws Fallback {
+        final byte[] bytes = this.bytes;
+        final byte quote = byteAt(position ++);
+        if (quote != '"' && quote != '\'') {
+            throw FALLBACK;
+        }
+        final int start = position;
+        int hash = 0;
+        boolean ascii = true;
+        for (;;) {
+            final byte b = byteAt(position);
+            if (b == quote) {
+                break;
+            } else if (b == '&' || b == '\t' || b == '\n' || b == '\r') {
+                return normalizedValue(start, quote);
+            } else if (b == '<') {
+                throw FALLBACK;
+            }
+            character(b);
+            ascii &= b >= 0;
+            hash = 31 * hash + b;
+            position ++;
+        }
+        final int length = position ++ - start;
+        return ascii ? index(bytes, start, length, hash) : index(new String(bytes, start, length, StandardCharsets.UTF_8));
+    }
+
+    private int normalizedValue(final int start, final byte quote) throws Fallback {
+        final byte[] bytes = this.bytes;
+        byte[] scratch = this.scratch;
+        if (scratch == null || scratch.length < position - start + 16) {
+            scratch = this.scratch = new byte[Math.max(64, (position - start) * 2 + 16)];
+        }
+        System.arraycopy(bytes, start, scratch, 0, position - start);
+        int length = position - start;
+        for (;;) {
+            if (length + 4 > scratch.length) {
+                scratch = this.scratch = Arrays.copyOf(scratch, scratch.length << 1);
+            }
+            final byte b = byteAt(position ++);
+            if (b == quote) {
+                return index(new String(scratch, 0, length, StandardCharsets.UTF_8));
+            } else if (b == '<') {
+                throw FALLBACK;
+            } else if (b == '\r') {
+                scratch[length ++] = ' ';
+                if (byteAt(position) == '\n') {
+                    // a CR LF pair is a single space
+                    position ++;
+                    line ++;
+                }
+            } else if (b == '\t' || b == '\n') {
+                if (b == '\n') {
+                    line ++;
+                }
+                scratch[length ++] = ' ';
+            } else if (b == '&') {
+                final int codePoint = reference();
+                if (codePoint < 0x80) {
+                    scratch[length ++] = (byte) codePoint;
+                } else if (codePoint < 0x800) {
+                    scratch[length ++] = (byte) (0xc0 | codePoint >> 6);
+                    scratch[length ++] = (byte) (0x80 | codePoint & 0x3f);
+                } else {
+                    scratch[length ++] = (byte) (0xe0 | codePoint >> 12);
+                    scratch[length ++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    scratch[length ++] = (byte) (0x80 | codePoint & 0x3f);
+                }
+            } else {
+                character(b);
+                scratch[length ++] = b;
+            }
+        }
+    }
+
+    /**
+     * Lex a predefined entity or character reference, after the {@code &}.
+     *
+     * @return the referenced code point
+     */
+    private int reference() throws Fallback {
+        for (int i = 0; i < ENTITIES.length; i ++) {
+            if (startsWith(ENTITIES[i])) {
+                position += ENTITIES[i].length();
+                return ENTITY_VALUES[i];
+            }
+        }
+        if (byteAt(position ++) != '#') {
+            throw FALLBACK;
+        }
+        final int radix = byteAt(position) == 'x' ? 16 : 10;
+        if (radix == 16) {
+            position ++;
+        }
+        int value = 0;
+        int digits = 0;
+        for (byte b = byteAt(position ++); b != ';'; b = byteAt(position ++)) {
+            final int digit = Character.digit(b, radix);
+            if (digit < 0 || ++ digits > 6) {
+                throw FALLBACK;
+            }
+            value = value * radix + digit;
+        }
+        // MXParser does not handle supplementary code points in references
+        if (digits == 0 || value < 0x20 && value != '\t' && value != '\n' && value != '\r' || value >= 0xd800 && value < 0xe000 || value >= 0xfffe) {
+            throw FALLBACK;
+        }
+        return value;
+    }
+
+    /**
+     * Check a byte of character data.  Control characters are left to {@code MXParser}.
+     */
+    private void character(final byte b) throws Fallback {
+        if (b == '\n') {
+            line ++;
+        } else if (b >= 0 && b < 0x20 && b != '\t' && b != '\r') {
+            throw FALLBACK;
+        }
+    }
+
+    private boolean skipSpace() {
+        final byte[] bytes = this.bytes;
+        final int start = position;
+        while (position < bytes.length && isSpace(bytes[position])) {
+            if (bytes[position ++] == '\n') {
+                line ++;
+            }
+        }
+        return position > start;
+    }
+
+    /**
+     * Get a byte of the content.  Reading past the end of the content means that the document is truncated, which
+     * is left to {@code MXParser}.
+     */
+    private byte byteAt(final int index) throws Fallback {
+        if (index >= bytes.length) {
+            throw FALLBACK;
+        }
+        return bytes[index];
+    }
+
+    private static boolean isSpace(final byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+    }
+
+    private boolean startsWith(final String ascii) {
+        final byte[] bytes = this.bytes;
+        final int length = ascii.length();
+        if (position + length > bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i ++) {
+            if (bytes[position + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(final byte[] bytes, final int start, final int length, final int hash) {
+        int idx = hash & 0xff;
+        String known;
+        while ((known = KNOWN[idx]) != null) {
+            if (known.length() == length && matches(known, bytes, start)) {
+                return index(known);
+            }
+            idx = idx + 1 & 0xff;
+        }
+        return index(new String(bytes, start, length, StandardCharsets.ISO_8859_1));
+    }
+
+    private static boolean matches(final String string, final byte[] bytes, final int start) {
+        for (int i = 0; i < string.length(); i ++) {
+            if (bytes[start + i] != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(final String string) {
+        Integer index = indexes.get(string);
+        if (index == null) {
+            indexes.put(string, index = Integer.valueOf(strings.size()));
+            strings.add(string);
+        }
+        return index.intValue();
+    }
+
+    private void ensureCapacity(final int size) {
+        if (count + size > codes.length) {
+            codes = Arrays.copyOf(codes, Math.max(codes.length << 1, count + size));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class Fallback extends Exception {
+        Fallback() {
+            super(null, null, false, false);
+        }
+    }
+}
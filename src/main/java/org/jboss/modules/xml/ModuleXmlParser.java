@@ -19,7 +19,9 @@
 package org.jboss.modules.xml;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -27,6 +29,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -41,12 +47,14 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.jboss.modules.AssertionSetting;
+import org.jboss.modules.ImageModuleFinder;
 import org.jboss.modules.DependencySpec;
 import org.jboss.modules.LocalDependencySpecBuilder;
 import org.jboss.modules.ModuleDependencySpec;
 import org.jboss.modules.ModuleDependencySpecBuilder;
 import org.jboss.modules.Version;
 import org.jboss.modules.VersionDetection;
+import org.jboss.modules._private.ModuleXmlPrivateAccess;
 import org.jboss.modules.maven.ArtifactCoordinates;
 import org.jboss.modules.ModuleLoadException;
 import org.jboss.modules.ModuleLoader;
@@ -114,6 +122,30 @@ public final class ModuleXmlParser {
     private ModuleXmlParser() {
     }
 
+    private static final StackWalker STACK_WALKER = AccessController.doPrivileged((PrivilegedAction<StackWalker>) () -> StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE));
+
+    private static final ModuleXmlPrivateAccess PRIVATE_ACCESS = new ModuleXmlPrivateAccess() {
+        public byte[] tokenizeModuleXml(final byte[] content, final String moduleInfoFile) throws ModuleLoadException {
+            return ModuleXmlParser.tokenizeModuleXml(content, moduleInfoFile);
+        }
+
+        public ModuleSpec parseTokenizedModuleXml(final ResourceRootFactory factory, final String rootPath, final byte[] tokens, final String moduleInfoFile, final ModuleLoader moduleLoader, final String moduleName) throws ModuleLoadException {
+            return ModuleXmlParser.parseTokenizedModuleXml(factory, rootPath, tokens, moduleInfoFile, moduleLoader, moduleName);
+        }
+    };
+
+    /**
+     * Private access for module internal code.  Throws {@link SecurityException} for user code.
+     *
+     * @throws SecurityException always
+     */
+    public static ModuleXmlPrivateAccess getPrivateAccess() {
+        if (STACK_WALKER.getCallerClass() == ImageModuleFinder.class) {
+            return PRIVATE_ACCESS;
+        }
+        throw new SecurityException();
+    }
+
     private static final String MODULE_1_0 = "urn:jboss:module:1.0";
     private static final String MODULE_1_1 = "urn:jboss:module:1.1";
     private static final String MODULE_1_2 = "urn:jboss:module:1.2";
@@ -225,6 +257,10 @@ public final class ModuleXmlParser {
      * @throws IOException if I/O fails
      */
     public static ModuleSpec parseModuleXml(final ResourceRootFactory factory, final ModuleLoader moduleLoader, final String moduleName, final File root, final File moduleInfoFile) throws ModuleLoadException, IOException {
+        final ModuleXmlCache cache = ModuleXmlCache.DEFAULT;
+        if (cache != null) {
+            return parseModuleXml(factory, moduleLoader, moduleName, root, moduleInfoFile, cache);
+        }
         final FileInputStream fis;
         try {
             fis = new FileInputStream(moduleInfoFile);
@@ -238,6 +274,22 @@ public final class ModuleXmlParser {
         }
     }
 
+    static ModuleSpec parseModuleXml(final ResourceRootFactory factory, final ModuleLoader moduleLoader, final String moduleName, final File root, final File moduleInfoFile, final ModuleXmlCache cache) throws ModuleLoadException, IOException {
+        final ModuleXmlCache.Descriptor descriptor;
+        try {
+            descriptor = cache.read(moduleInfoFile);
+        } catch (NoSuchFileException | AccessDeniedException e) {
+            throw new ModuleLoadException("No module.xml file found at " + moduleInfoFile);
+        }
+        try {
+            final ModuleSpec moduleSpec = parseDocument(MavenResolver.createDefaultResolver(), factory, root.getPath(), descriptor.getParser(), moduleLoader, moduleName);
+            descriptor.store();
+            return moduleSpec;
+        } catch (XmlPullParserException e) {
+            throw new ModuleLoadException("Error loading module from " + moduleInfoFile.getPath(), e);
+        }
+    }
+
     /**
      * Parse a {@code module.xml} file.
      *
@@ -270,11 +322,105 @@ public final class ModuleXmlParser {
      * @throws IOException if I/O fails
      */
     public static ModuleSpec parseModuleXml(final ResourceRootFactory factory, final MavenResolver mavenResolver, final String rootPath, InputStream source, final String moduleInfoFile, final ModuleLoader moduleLoader, final String moduleName) throws ModuleLoadException, IOException {
+        try {
+            final XmlPullParser parser = ModuleXmlLexer.createParser(source.readAllBytes(), moduleInfoFile);
+            return parseDocument(mavenResolver, factory, rootPath, parser, moduleLoader, moduleName);
+        } catch (XmlPullParserException e) {
+            throw new ModuleLoadException("Error loading module from " + moduleInfoFile, e);
+        } finally {
+            safeClose(source);
+        }
+    }
+
+    /**
+     * Convert the content of a {@code module.xml} file to the compact binary form which is read by
+     * {@link #parseTokenizedModuleXml(ResourceRootFactory, String, byte[], String, ModuleLoader, String)}.  The
+     * binary form holds the elements and attributes of the descriptor; it is specific to this version of JBoss Modules
+     * and should only be stored alongside it.
+     *
+     * @param content the {@code module.xml} content (must not be {@code null})
+     * @param moduleInfoFile the name of the {@code module.xml} file, for error messages (must not be {@code null})
+     * @return the binary form of the descriptor
+     * @throws ModuleLoadException if the content is not well-formed
+     */
+    private static byte[] tokenizeModuleXml(final byte[] content, final String moduleInfoFile) throws ModuleLoadException {
+        try {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream(content.length / 2);
+            final DataOutputStream os = new DataOutputStream(bos);
+            ModuleXmlCache.writeTokens(os, ModuleXmlCache.tokenize(content, moduleInfoFile));
+            os.flush();
+            return bos.toByteArray();
+        } catch (IOException | XmlPullParserException e) {
+            throw new ModuleLoadException("Error loading module from " + moduleInfoFile, e);
+        }
+    }
+
+    /**
+     * Parse a {@code module.xml} file from the binary form produced by {@link #tokenizeModuleXml(byte[], String)}.
+     *
+     * @param factory the resource root factory to use (must not be {@code null})
+     * @param rootPath the root path to send in to the resource root factory (must not be {@code null})
+     * @param tokens the binary form of the {@code module.xml} content (must not be {@code null})
+     * @param moduleInfoFile the name of the {@code module.xml} file, for error messages (must not be {@code null})
+     * @param moduleLoader the module loader to use for dependency specifications (must not be {@code null})
+     * @param moduleName the module name of the module to load
+     * @return a module specification
+     * @throws ModuleLoadException if the binary form is not valid, a dependency could not be established or another
+     *      error occurs
+     */
+    private static ModuleSpec parseTokenizedModuleXml(final ResourceRootFactory factory, final String rootPath, final byte[] tokens, final String moduleInfoFile, final ModuleLoader moduleLoader, final String moduleName) throws ModuleLoadException {
+        try {
+            final ReplayXmlParser parser = ModuleXmlCache.readTokens(new ModuleXmlCache.Input(tokens), moduleInfoFile);
+            if (parser == null) {
+                throw new ModuleLoadException("Invalid binary module descriptor " + moduleInfoFile);
+            }
+            return parseDocument(MavenResolver.createDefaultResolver(), factory, rootPath, parser, moduleLoader, moduleName);
+        } catch (IOException | XmlPullParserException e) {
+            throw new ModuleLoadException("Error loading module from " + moduleInfoFile, e);
+        }
+    }
+
+    /**
+     * Parse only the root element of a {@code module.xml} file, to determine the name of the module which it
+     * describes.  The content of the root element is not read, and therefore not validated.
+     *
+     * @param source a stream of the {@code module.xml} content (must not be {@code null})
+     * @param moduleInfoFile the name of the {@code module.xml} file, for error messages (must not be {@code null})
+     * @return the name of the module or module alias, or {@code null} if the file declares an absent module
+     * @throws ModuleLoadException if the root element is not valid
+     * @throws IOException if I/O fails
+     */
+    public static String parseModuleName(final InputStream source, final String moduleInfoFile) throws ModuleLoadException, IOException {
         try {
             final MXParser parser = new MXParser();
             parser.setFeature(FEATURE_PROCESS_NAMESPACES, true);
             parser.setInput(source, null);
-            return parseDocument(mavenResolver, factory, rootPath, parser, moduleLoader, moduleName);
+            if (parser.nextTag() != START_TAG) {
+                throw unexpectedContent(parser);
+            }
+            validateNamespace(parser);
+            switch (parser.getName()) {
+                case E_MODULE:
+                case E_MODULE_ALIAS: break;
+                case E_MODULE_ABSENT: return null;
+                default: throw unexpectedContent(parser);
+            }
+            final boolean noSlots = atLeast1_6(parser);
+            String name = null;
+            String slot = null;
+            final int count = parser.getAttributeCount();
+            for (int i = 0; i < count; i ++) {
+                validateAttributeNamespace(parser, i);
+                switch (parser.getAttributeName(i)) {
+                    case A_NAME:    name = parser.getAttributeValue(i); break;
+                    case A_SLOT:    if (noSlots) throw unknownAttribute(parser, i); else slot = parser.getAttributeValue(i); break;
+                    default: break;
+                }
+            }
+            if (name == null) {
+                throw missingAttributes(parser, new HashSet<>(LIST_A_NAME));
+            }
+            return noSlots ? name : composeLegacyName(name, slot);
         } catch (XmlPullParserException e) {
             throw new ModuleLoadException("Error loading module from " + moduleInfoFile, e);
         } finally {
@@ -1547,6 +1693,9 @@ public final class ModuleXmlParser {
 
         static final DefaultResourceRootFactory INSTANCE = new DefaultResourceRootFactory();
 
+        private static final boolean MAPPED_JARS = Boolean.parseBoolean(AccessController.doPrivileged(
+            (PrivilegedAction<String>) () -> System.getProperty("jboss.modules.mapped-jars", "false")));
+
         public ResourceLoader createResourceLoader(final String rootPath, final String loaderPath, final String loaderName) throws IOException {
             final File file;
             final File loaderFile;
@@ -1570,6 +1719,8 @@ public final class ModuleXmlParser {
             }
             if (file.isDirectory()) {
                 return ResourceLoaders.createPathResourceLoader(file.toPath());
+            } else if (MAPPED_JARS) {
+                return ResourceLoaders.createMappedJarResourceLoader(file.toPath());
             } else {
                 final JarFile jarFile = new JarFile(file, true, JarFile.OPEN_READ, JarFile.runtimeVersion());
                 return ResourceLoaders.createJarResourceLoader(jarFile);
@@ -0,0 +1,280 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules.xml;
+
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * A pull parser which replays the elements and attributes of a previously parsed document.  Text, comments and
+ * processing instructions are not retained, so this parser is only suitable for documents whose content is entirely
+ * made of elements and attributes, such as {@code module.xml} descriptors.
+ * <p>
+ * The document is a table of strings and an array of codes.  A start tag is encoded as its type (with
+ * {@link #EMPTY_FLAG} for an empty element tag), line number, namespace, name and attribute count, followed by the
+ * namespace, name and value of each attribute; an end tag is encoded as its type alone.  Strings are given by their
+ * index in the table.
+ */
+final class ReplayXmlParser implements XmlPullParser {
+    static final int EMPTY_FLAG = 0x10;
+
+    private final String[] strings;
+    private final int[] codes;
+    private final String description;
+    private int eventType = START_DOCUMENT;
+    // the position of the next event
+    private int position;
+    // the position of the start tag of the current element
+    private int current = -1;
+    private int depth;
+    private int[] stack = new int[8];
+
+    ReplayXmlParser(final String[] strings, final int[] codes, final String description) {
+        this.strings = strings;
+        this.codes = codes;
+        this.description = description;
+    }
+
+    String[] getStrings() {
+        return strings;
+    }
+
+    int[] getCodes() {
+        return codes;
+    }
+
+    public int next() throws XmlPullParserException {
+        if (eventType == END_DOCUMENT) {
+            throw new XmlPullParserException("already reached end of XML input", this, null);
+        }
+        if (eventType == END_TAG) {
+            depth --;
+            current = depth == 0 ? -1 : stack[depth - 1];
+        }
+        if (position == codes.length) {
+            if (depth > 0) {
+                throw new XmlPullParserException("unexpected end of cached document", this, null);
+            }
+            return eventType = END_DOCUMENT;
+        }
+        final int code = codes[position];
+        if ((code & ~EMPTY_FLAG) == START_TAG) {
+            if (depth == stack.length) {
+                final int[] newStack = new int[depth << 1];
+                System.arraycopy(stack, 0, newStack, 0, depth);
+                stack = newStack;
+            }
+            stack[depth ++] = current = position;
+            position += 5 + 3 * codes[position + 4];
+            return eventType = START_TAG;
+        } else if (code == END_TAG && depth > 0) {
+            position ++;
+            return eventType = END_TAG;
+        } else {
+            throw new XmlPullParserException("invalid cached document", this, null);
+        }
+    }
+
+    public int nextToken() throws XmlPullParserException {
+        return next();
+    }
+
+    public int nextTag() throws XmlPullParserException {
+        final int eventType = next();
+        if (eventType != START_TAG && eventType != END_TAG) {
+            throw new XmlPullParserException("expected START_TAG or END_TAG not " + TYPES[eventType], this, null);
+        }
+        return eventType;
+    }
+
+    public String nextText() throws XmlPullParserException {
+        if (eventType != START_TAG) {
+            throw new XmlPullParserException("parser must be on START_TAG to read next text", this, null);
+        }
+        if (next() != END_TAG) {
+            throw new XmlPullParserException("TEXT must be immediately followed by END_TAG and not " + TYPES[eventType], this, null);
+        }
+        return "";
+    }
+
+    public void require(final int type, final String namespace, final String name) throws XmlPullParserException {
+        if (type != eventType || namespace != null && ! namespace.equals(getNamespace()) || name != null && ! name.equals(getName())) {
+            throw new XmlPullParserException("expected event " + TYPES[type] + (name != null ? " with name '" + name + "'" : "") + (namespace != null ? " with namespace '" + namespace + "'" : ""), this, null);
+        }
+    }
+
+    public int getEventType() {
+        return eventType;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public String getName() {
+        return current == -1 || eventType != START_TAG && eventType != END_TAG ? null : strings[codes[current + 3]];
+    }
+
+    public String getNamespace() {
+        return current == -1 || eventType != START_TAG && eventType != END_TAG ? null : strings[codes[current + 2]];
+    }
+
+    public String getPrefix() {
+        return null;
+    }
+
+    public boolean isEmptyElementTag() throws XmlPullParserException {
+        if (eventType != START_TAG) {
+            throw new XmlPullParserException("parser must be on START_TAG to check for empty element", this, null);
+        }
+        return (codes[current] & EMPTY_FLAG) != 0;
+    }
+
+    public int getAttributeCount() {
+        return eventType == START_TAG ? codes[current + 4] : -1;
+    }
+
+    private int attribute(final int index) {
+        if (eventType != START_TAG) {
+            throw new IndexOutOfBoundsException("only START_TAG can have attributes");
+        }
+        if (index < 0 || index >= codes[current + 4]) {
+            throw new IndexOutOfBoundsException("attribute position must be 0.." + (codes[current + 4] - 1) + " and not " + index);
+        }
+        return current + 5 + 3 * index;
+    }
+
+    public String getAttributeNamespace(final int index) {
+        return strings[codes[attribute(index)]];
+    }
+
+    public String getAttributeName(final int index) {
+        return strings[codes[attribute(index) + 1]];
+    }
+
+    public String getAttributeValue(final int index) {
+        return strings[codes[attribute(index) + 2]];
+    }
+
+    public String getAttributePrefix(final int index) {
+        attribute(index);
+        return null;
+    }
+
+    public String getAttributeType(final int index) {
+        attribute(index);
+        return "CDATA";
+    }
+
+    public boolean isAttributeDefault(final int index) {
+        attribute(index);
+        return false;
+    }
+
+    public String getAttributeValue(final String namespace, final String name) {
+        if (eventType != START_TAG) {
+            throw new IndexOutOfBoundsException("only START_TAG can have attributes");
+        }
+        final int count = codes[current + 4];
+        for (int i = 0, p = current + 5; i < count; i ++, p += 3) {
+            if ((namespace == null || namespace.equals(strings[codes[p]])) && name.equals(strings[codes[p + 1]])) {
+                return strings[codes[p + 2]];
+            }
+        }
+        return null;
+    }
+
+    public String getText() {
+        return null;
+    }
+
+    public char[] getTextCharacters(final int[] holderForStartAndLength) {
+        holderForStartAndLength[0] = -1;
+        holderForStartAndLength[1] = -1;
+        return null;
+    }
+
+    public boolean isWhitespace() throws XmlPullParserException {
+        throw new XmlPullParserException("no content available to check for white spaces", this, null);
+    }
+
+    public int getLineNumber() {
+        return current == -1 ? -1 : codes[current + 1];
+    }
+
+    public int getColumnNumber() {
+        return -1;
+    }
+
+    public String getPositionDescription() {
+        final String name = getName();
+        return " " + TYPES[eventType] + (name == null ? "" : " <" + name + ">") + " in " + description + " @" + getLineNumber();
+    }
+
+    public void setFeature(final String name, final boolean state) throws XmlPullParserException {
+        if (getFeature(name) != state) {
+            throw new XmlPullParserException("unsupported feature " + name);
+        }
+    }
+
+    public boolean getFeature(final String name) {
+        return FEATURE_PROCESS_NAMESPACES.equals(name);
+    }
+
+    public void setProperty(final String name, final Object value) throws XmlPullParserException {
+        throw new XmlPullParserException("unsupported property " + name);
+    }
+
+    public Object getProperty(final String name) {
+        return null;
+    }
+
+    public void setInput(final Reader in) throws XmlPullParserException {
+        throw new XmlPullParserException("input of a replayed document cannot be changed");
+    }
+
+    public void setInput(final InputStream inputStream, final String inputEncoding) throws XmlPullParserException {
+        throw new XmlPullParserException("input of a replayed document cannot be changed");
+    }
+
+    public String getInputEncoding() {
+        return null;
+    }
+
+    public void defineEntityReplacementText(final String entityName, final String replacementText) throws XmlPullParserException {
+        throw new XmlPullParserException("entities of a replayed document cannot be defined");
+    }
+
+    public int getNamespaceCount(final int depth) {
+        return 0;
+    }
+
+    public String getNamespacePrefix(final int pos) throws XmlPullParserException {
+        throw new XmlPullParserException("namespace declarations are not retained");
+    }
+
+    public String getNamespaceUri(final int pos) throws XmlPullParserException {
+        throw new XmlPullParserException("namespace declarations are not retained");
+    }
+
+    public String getNamespace(final String prefix) {
+        return "xml".equals(prefix) ? "http://www.w3.org/XML/1998/namespace" : "xmlns".equals(prefix) ? "http://www.w3.org/2000/xmlns/" : null;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.DomainCombiner;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.modules.test.TestClass;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Test;
+
+/**
+ * Test asynchronous module loading.
+ */
+public class AsyncModuleLoadTest extends AbstractModuleTestCase {
+
+    private static ModuleSpec createSpec(final String name) throws ModuleLoadException {
+        final ModuleSpec.Builder builder = ModuleSpec.build(name);
+        try {
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build().addClass(TestClass.class).create()));
+        } catch (Exception e) {
+            throw new ModuleLoadException(e);
+        }
+        builder.addDependency(DependencySpec.createLocalDependencySpec());
+        return builder.create();
+    }
+
+    @Test
+    public void testLoadModuleAsync() throws Exception {
+        final ModuleLoader moduleLoader = new ModuleLoader((name, delegateLoader) -> name.startsWith("test-") ? createSpec(name) : null);
+        final Module module = moduleLoader.loadModuleAsync("test-async").get(1L, TimeUnit.MINUTES);
+        assertSame(moduleLoader.loadModule("test-async"), module);
+        assertSame(module.getClassLoader(), module.getClassLoader().loadClass(TestClass.class.getName()).getClassLoader());
+
+        final List<Module> modules = moduleLoader.loadModulesAsync(Arrays.asList("test-b", "test-a", "test-async")).get(1L, TimeUnit.MINUTES);
+        assertEquals(3, modules.size());
+        assertEquals("test-b", modules.get(0).getName());
+        assertEquals("test-a", modules.get(1).getName());
+        assertSame(module, modules.get(2));
+    }
+
+    @Test
+    public void testCallerContext() throws Exception {
+        final AtomicReference<DomainCombiner> combiner = new AtomicReference<>();
+        final ModuleLoader moduleLoader = new ModuleLoader((name, delegateLoader) -> {
+            combiner.set(AccessController.getContext().getDomainCombiner());
+            return name.startsWith("test-") ? createSpec(name) : null;
+        });
+        // the combiner marks the context of the caller, which must be used on the executor's thread as well
+        final DomainCombiner callerCombiner = (currentDomains, assignedDomains) -> currentDomains;
+        final AccessControlContext context = new AccessControlContext(AccessController.getContext(), callerCombiner);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // start the thread first, so that it does not inherit the context of the caller
+            executor.submit(() -> {}).get(1L, TimeUnit.MINUTES);
+            final CompletableFuture<Module> future = AccessController.doPrivileged((PrivilegedAction<CompletableFuture<Module>>) () -> moduleLoader.loadModuleAsync("test-context", executor), context);
+            future.get(1L, TimeUnit.MINUTES);
+            assertSame(callerCombiner, combiner.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testModuleNotFound() throws Exception {
+        final ModuleLoader moduleLoader = new ModuleLoader((name, delegateLoader) -> name.startsWith("test-") ? createSpec(name) : null);
+        try {
+            moduleLoader.loadModuleAsync("missing").get(1L, TimeUnit.MINUTES);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof ModuleNotFoundException);
+        }
+        final CompletableFuture<List<Module>> bulk = moduleLoader.loadModulesAsync(Arrays.asList("test-a", "missing"));
+        try {
+            bulk.get(1L, TimeUnit.MINUTES);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof ModuleNotFoundException);
+        }
+    }
+
+    @Test
+    public void testConcurrentLoadsShareTask() throws Exception {
+        final CountDownLatch findStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ModuleLoader moduleLoader = new ModuleLoader((name, delegateLoader) -> {
+            if (! name.equals("test-slow")) {
+                return null;
+            }
+            findStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return createSpec(name);
+        });
+        final AtomicInteger tasks = new AtomicInteger();
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+        try {
+            final CompletableFuture<Module> first = moduleLoader.loadModuleAsync("test-slow", task -> {
+                tasks.incrementAndGet();
+                executorService.execute(task);
+            });
+            assertTrue(findStarted.await(1L, TimeUnit.MINUTES));
+            final CompletableFuture<Module> second = moduleLoader.loadModuleAsync("test-slow", task -> {
+                tasks.incrementAndGet();
+                executorService.execute(task);
+            });
+            assertFalse(second.isDone());
+            // completing a returned future does not affect other callers
+            first.cancel(false);
+            release.countDown();
+            final Module module = second.get(1L, TimeUnit.MINUTES);
+            assertEquals("test-slow", module.getName());
+            assertEquals(1, tasks.get());
+            assertTrue(first.isCancelled());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
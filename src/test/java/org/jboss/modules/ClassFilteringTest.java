@@ -31,6 +31,8 @@ import org.jboss.modules.util.TestResourceLoader;
 import org.junit.Test;
 
 import static org.jboss.modules.ResourceLoaderSpec.createResourceLoaderSpec;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.jboss.modules.util.TestResourceLoader.TestResourceLoaderBuilder;
 
 /**
@@ -98,6 +100,70 @@ public class ClassFilteringTest extends ModulesTestBase {
         assertLoadClass(identifierB, BarImpl.class.getName());
     }
 
+    @Test
+    public void testNestedClassFilters() throws Exception {
+        String packagePath = QuxBar.class.getPackage().getName().replace('.', '/');
+        ClassFilter notQuxImpl = ClassFilters.fromResourcePathFilter(PathFilters.not(PathFilters.match(packagePath + "/QuxImpl.class")));
+        ClassFilter notBarImpl = ClassFilters.fromResourcePathFilter(PathFilters.not(PathFilters.match(packagePath + "/BarImpl.class")));
+
+        ModuleSpec.Builder specBuilderA = ModuleSpec.build("nestedA");
+        specBuilderA.addResourceRoot(createResourceLoaderSpec(getTestResourceLoader()));
+        specBuilderA.addDependency(new LocalDependencySpecBuilder()
+            .setExport(true)
+            .setClassExportFilter(notQuxImpl)
+            .build());
+        addModuleSpec(specBuilderA.create());
+
+        ModuleSpec.Builder specBuilderB = ModuleSpec.build("nestedB");
+        specBuilderB.addDependency(new ModuleDependencySpecBuilder()
+            .setName("nestedA")
+            .setExport(true)
+            .setClassExportFilter(notBarImpl)
+            .build());
+        addModuleSpec(specBuilderB.create());
+
+        ModuleSpec.Builder specBuilderC = ModuleSpec.build("nestedC");
+        specBuilderC.addDependency(new ModuleDependencySpecBuilder()
+            .setName("nestedB")
+            .setClassImportFilter(ClassFilters.acceptAll())
+            .build());
+        addModuleSpec(specBuilderC.create());
+
+        assertLoadClass("nestedB", QuxFoo.class.getName());
+        assertLoadClassFail("nestedB", QuxImpl.class.getName());
+        assertLoadClass("nestedB", BarImpl.class.getName());
+
+        assertLoadClass("nestedC", QuxFoo.class.getName());
+        assertLoadClass("nestedC", QuxBar.class.getName());
+        assertLoadClassFail("nestedC", QuxImpl.class.getName());
+        assertLoadClassFail("nestedC", BarImpl.class.getName());
+    }
+
+    @Test
+    public void testRejectedLocalLoaderKeepsPackages() throws Exception {
+        ModuleSpec.Builder specBuilderA = ModuleSpec.build("rejectedA");
+        specBuilderA.addResourceRoot(createResourceLoaderSpec(getTestResourceLoader()));
+        specBuilderA.addDependency(new LocalDependencySpecBuilder()
+            .setExport(true)
+            .setClassExportFilter(ClassFilters.rejectAll())
+            .setResourceExportFilter(PathFilters.rejectAll())
+            .build());
+        addModuleSpec(specBuilderA.create());
+
+        ModuleSpec.Builder specBuilderB = ModuleSpec.build("rejectedB");
+        specBuilderB.addDependency(new ModuleDependencySpecBuilder()
+            .setName("rejectedA")
+            .build());
+        addModuleSpec(specBuilderB.create());
+
+        assertLoadClass("rejectedA", QuxFoo.class.getName());
+        assertLoadClassFail("rejectedB", QuxFoo.class.getName());
+        // the loader is still imported, so the package defined by rejectedA remains visible
+        final String packageName = QuxFoo.class.getPackage().getName();
+        assertTrue(loadModule("rejectedB").getPaths().containsKey(packageName.replace('.', '/')));
+        assertNotNull(loadModule("rejectedB").getPackage(packageName));
+    }
+
     private TestResourceLoader getTestResourceLoader() throws Exception {
         TestResourceLoaderBuilder builder = new TestResourceLoaderBuilder();
         builder.addClasses(QuxBar.class, QuxFoo.class, QuxImpl.class, BarImpl.class);
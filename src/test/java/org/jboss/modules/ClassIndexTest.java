@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.jar.JarFile;
+
+import org.jboss.modules.filter.PathFilters;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Test;
+
+/**
+ * Test the class index used by module class loaders.
+ */
+public class ClassIndexTest extends AbstractModuleTestCase {
+
+    private static final String TEST_CLASS_FILE = "org/jboss/modules/test/TestClass.class";
+
+    @Test
+    public void testFirstLoaderWins() throws Exception {
+        final IterableResourceLoader jarLoader = createJarLoader();
+        final IterableResourceLoader pathLoader = ResourceLoaders.createPathResourceLoader(getResource("test/fileresourceloader").toPath());
+        final ClassIndex<ResourceLoader> index = ClassIndex.build(new ResourceLoaderSpec[] {
+            ResourceLoaderSpec.createResourceLoaderSpec(jarLoader),
+            ResourceLoaderSpec.createResourceLoaderSpec(pathLoader),
+        });
+        assertEquals(1, index.size());
+        assertSame(jarLoader, index.get(TEST_CLASS_FILE));
+        assertNull(index.get("org/jboss/modules/test/BogusClass.class"));
+        assertNull(index.get("test.txt"));
+    }
+
+    @Test
+    public void testPathFilterExcludesClasses() throws Exception {
+        final IterableResourceLoader jarLoader = createJarLoader();
+        final ClassIndex<ResourceLoader> index = ClassIndex.build(new ResourceLoaderSpec[] {
+            ResourceLoaderSpec.createResourceLoaderSpec(jarLoader, PathFilters.not(PathFilters.is("org/jboss/modules/test"))),
+        });
+        assertNull(index.get(TEST_CLASS_FILE));
+    }
+
+    @Test
+    public void testNonIterableLoaderDisablesIndex() throws Exception {
+        final ClassIndex<ResourceLoader> index = ClassIndex.build(new ResourceLoaderSpec[] {
+            ResourceLoaderSpec.createResourceLoaderSpec(createJarLoader()),
+            ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build().create()),
+        });
+        assertNull(index);
+    }
+
+    private IterableResourceLoader createJarLoader() throws Exception {
+        copyResource("org/jboss/modules/test/TestClass.class", "test/fileresourceloader", "org/jboss/modules/test");
+        final File outputFile = new File(getResource("test"), "classindex/test.jar");
+        outputFile.getParentFile().mkdirs();
+        JarResourceLoaderTest.buildJar(getResource("test/fileresourceloader"), outputFile);
+        return ResourceLoaders.createJarResourceLoader("test-root", new JarFile(outputFile, true));
+    }
+}
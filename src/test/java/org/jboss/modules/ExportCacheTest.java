@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.modules.filter.PathFilter;
+import org.jboss.modules.filter.PathFilters;
+import org.jboss.modules.util.TestModuleLoader;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the cache of exported paths which is shared between links.
+ */
+public class ExportCacheTest extends AbstractModuleTestCase {
+
+    private TestModuleLoader moduleLoader;
+    private URL resourceUrl;
+
+    @Before
+    public void setupModuleLoader() throws Exception {
+        moduleLoader = new TestModuleLoader();
+        resourceUrl = getClass().getResource("/test/filesystem-module-1/test.txt");
+        // base <- mid1 <- mid2, where mid2 re-exports mid1 without its own path
+        addModule("base");
+        addModule("mid1", DependencySpec.createModuleDependencySpec("base", true));
+        addModule("mid2", DependencySpec.createModuleDependencySpec("base", true),
+            new ModuleDependencySpecBuilder().setName("mid1").setExportFilter(PathFilters.not(PathFilters.is("mid1"))).build());
+    }
+
+    private void addModule(final String name, final DependencySpec... dependencies) {
+        final ModuleSpec.Builder builder = ModuleSpec.build(name);
+        builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build().addResource(name + "/test.txt", resourceUrl).create()));
+        builder.addDependency(new LocalDependencySpecBuilder().setExport(true).build());
+        for (DependencySpec dependency : dependencies) {
+            builder.addDependency(dependency);
+        }
+        moduleLoader.addModuleSpec(builder.create());
+    }
+
+    private void addImportingModule(final String name) {
+        addModule(name, DependencySpec.createModuleDependencySpec("mid2"),
+            new ModuleDependencySpecBuilder().setName("mid1").setResourceImportFilter(PathFilters.isChildOf("mid1")).build());
+    }
+
+    @Test
+    public void testExportsAreShared() throws Exception {
+        assumeTrue(ExportCache.ENABLED);
+        addImportingModule("app1");
+        addImportingModule("app2");
+        final Map<String, List<LocalLoader>> paths1 = moduleLoader.loadModule("app1").getPaths();
+        assertTrue(paths1.keySet().containsAll(Arrays.asList("app1", "base", "mid1", "mid2")));
+        // base is visible directly through mid2, and with a resource filter through mid1
+        final LocalLoader baseLoader = moduleLoader.loadModule("base").getClassLoaderPrivate().getLocalLoader();
+        assertEquals(2, paths1.get("base").size());
+        assertSame(baseLoader, paths1.get("base").get(0));
+        assertNotSame(baseLoader, paths1.get("base").get(1));
+        assertEquals(1, paths1.get("mid1").size());
+        assertEquals(1, paths1.get("mid2").size());
+        final int cached = ((ModuleLoader) moduleLoader).getExportCache().size();
+        assertTrue(cached > 0);
+
+        // the second link reuses the cached entries, including the filtered loaders
+        final Map<String, List<LocalLoader>> paths2 = moduleLoader.loadModule("app2").getPaths();
+        assertEquals(cached, ((ModuleLoader) moduleLoader).getExportCache().size());
+        for (String path : Arrays.asList("base", "mid1", "mid2")) {
+            assertEquals(paths1.get(path), paths2.get(path));
+        }
+    }
+
+    @Test
+    public void testClosuresAreCompact() throws Exception {
+        assumeTrue(ExportCache.ENABLED);
+        addImportingModule("app1");
+        moduleLoader.loadModule("app1").getPaths();
+        // the key of the dependency of app1 on mid2
+        final Module.Visited key = new Module.Visited(moduleLoader.loadModule("mid2"), FilterStack.<PathFilter>empty().with(PathFilters.getDefaultImportFilter()), FilterStack.empty(), FilterStack.empty());
+        final ExportCache.Entry entry = ((ModuleLoader) moduleLoader).getExportCache().get(key);
+        assertNotNull(entry);
+        final Map<String, List<LocalLoader>> closure = entry.getClosure();
+        assertTrue(closure instanceof PathTable);
+        // mid2 re-exports mid1 without its own path
+        assertTrue(closure.keySet().containsAll(Arrays.asList("base", "mid2")));
+        assertFalse(closure.containsKey("mid1"));
+    }
+
+    @Test
+    public void testInvalidatedOnRelink() throws Exception {
+        addImportingModule("app1");
+        final Module app1 = moduleLoader.loadModule("app1");
+        assertFalse(app1.getPaths().containsKey("extra"));
+        final int epoch = ExportCache.epoch();
+
+        addModule("extra");
+        moduleLoader.setAndRelinkDependencies(moduleLoader.loadModule("base"), Arrays.asList(
+            new LocalDependencySpecBuilder().setExport(true).build(),
+            DependencySpec.createModuleDependencySpec("extra", true)));
+        assertTrue(ExportCache.epoch() != epoch);
+        moduleLoader.relink(app1);
+        assertTrue(app1.getPaths().containsKey("extra"));
+    }
+
+    @Test
+    public void testInvalidationEmptiesOutdatedCaches() throws Exception {
+        assumeTrue(ExportCache.ENABLED);
+        addImportingModule("app1");
+        moduleLoader.loadModule("app1").getPaths();
+        final ExportCache cache = ((ModuleLoader) moduleLoader).getExportCache();
+        assertTrue(cache.size() > 0);
+
+        // the module loader does not link again, so it still holds the outdated cache
+        ExportCache.invalidateAll();
+        assertEquals(0, cache.size());
+        // a link which raced with the invalidation does not refill it
+        final Module.Visited key = new Module.Visited(moduleLoader.loadModule("base"), FilterStack.empty(), FilterStack.empty(), FilterStack.empty());
+        cache.putIfAbsent(key, new ExportCache.Entry(new Object[0], true));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMissingOptionalDependencyIsNotCached() throws Exception {
+        addModule("optional", DependencySpec.createModuleDependencySpec("late", true, true));
+        addModule("app1", DependencySpec.createModuleDependencySpec("optional"));
+        assertFalse(moduleLoader.loadModule("app1").getPaths().containsKey("late"));
+
+        addModule("late");
+        addModule("app2", DependencySpec.createModuleDependencySpec("optional"));
+        assertTrue(moduleLoader.loadModule("app2").getPaths().containsKey("late"));
+    }
+}
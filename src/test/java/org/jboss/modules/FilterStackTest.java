@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.modules.filter.PathFilter;
+import org.jboss.modules.filter.PathFilters;
+import org.jboss.modules.log.NoopModuleLogger;
+import org.jboss.modules.log.StreamModuleLogger;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Test;
+
+/**
+ * Test the interned filter stacks used while linking.
+ */
+public class FilterStackTest extends AbstractModuleTestCase {
+
+    private static final int DEPTH = 40;
+
+    @Test
+    public void testInterning() {
+        final PathFilter a = PathFilters.isChildOf("a");
+        final PathFilter b = PathFilters.isChildOf("b");
+        final FilterStack<PathFilter> empty = FilterStack.empty();
+        assertEquals(0, empty.size());
+        final FilterStack<PathFilter> stackA = empty.with(a);
+        assertNotSame(empty, stackA);
+        assertSame(stackA, empty.with(a));
+        assertSame(stackA, stackA.with(a));
+        assertTrue(stackA.contains(a));
+        assertFalse(stackA.contains(b));
+        assertFalse(empty.contains(a));
+        final FilterStack<PathFilter> stackAB = stackA.with(b);
+        assertEquals(2, stackAB.size());
+        assertSame(a, stackAB.get(0));
+        assertSame(b, stackAB.get(1));
+        assertSame(stackAB, stackAB.with(a).with(b));
+    }
+
+    @Test
+    public void testOrderIndependence() {
+        final PathFilter a = PathFilters.isChildOf("x");
+        final PathFilter b = PathFilters.isChildOf("y");
+        final PathFilter c = PathFilters.isChildOf("z");
+        final FilterStack<PathFilter> abc = FilterStack.<PathFilter>empty().with(a).with(b).with(c);
+        assertSame(abc, FilterStack.<PathFilter>empty().with(c).with(b).with(a));
+        assertSame(abc, FilterStack.<PathFilter>empty().with(b).with(a).with(c));
+        assertNotSame(abc, FilterStack.<PathFilter>empty().with(a).with(b));
+    }
+
+    @Test
+    public void testLinkAllocations() throws Exception {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        final Method getAllocatedBytes;
+        try {
+            getAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ClassNotFoundException e) {
+            // allocation counters are not available on this JVM
+            return;
+        }
+        // a deep graph in which every level re-exports the two levels below it through an export filter
+        final URL content = getClass().getResource("/test/filesystem-module-1/test.txt");
+        final Map<String, ModuleSpec> specs = new HashMap<>();
+        for (int i = 0; i < DEPTH; i ++) {
+            final ModuleSpec.Builder builder = ModuleSpec.build("level-" + i);
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build()
+                .addResource("level/" + i + "/file.txt", content)
+                .addResource("common/" + (i % 4) + "/file" + i + ".txt", content)
+                .create()));
+            builder.addDependency(new LocalDependencySpecBuilder().setExport(true).build());
+            for (int j = i - 2; j < i; j ++) {
+                if (j >= 0) {
+                    builder.addDependency(new ModuleDependencySpecBuilder()
+                        .setName("level-" + j)
+                        .setExportFilter(PathFilters.not(PathFilters.isChildOf("common/" + (i % 4))))
+                        .build());
+                }
+            }
+            specs.put("level-" + i, builder.create());
+        }
+        final ModuleLoader moduleLoader = new ModuleLoader((name, delegateLoader) -> specs.get(name));
+        final Module module = moduleLoader.loadModule("level-" + (DEPTH - 1));
+        final long threadId = Thread.currentThread().getId();
+        final int iterations = 200;
+        final long allocated;
+        // trace logging would dominate the allocations
+        Module.setModuleLogger(NoopModuleLogger.getInstance());
+        try {
+            // warm up
+            for (int i = 0; i < iterations; i ++) {
+                module.relink();
+            }
+            final long start = (Long) getAllocatedBytes.invoke(threadMXBean, threadId);
+            for (int i = 0; i < iterations; i ++) {
+                module.relink();
+            }
+            allocated = (Long) getAllocatedBytes.invoke(threadMXBean, threadId) - start;
+        } finally {
+            Module.setModuleLogger(new StreamModuleLogger(System.err));
+        }
+        assertTrue(module.getPaths().containsKey("level/0"));
+        System.out.printf("Allocated per link of %d filtered levels: %d bytes%n", DEPTH, allocated / iterations);
+    }
+}
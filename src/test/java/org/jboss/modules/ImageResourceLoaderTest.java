@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static org.jboss.modules.util.Util.readBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.jboss.modules.filter.PathFilter;
+import org.jboss.modules.test.TestClass;
+import org.jboss.modules.util.TestModuleLoader;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test the functionality of the ImageResourceLoader.
+ */
+public class ImageResourceLoaderTest extends AbstractResourceLoaderTestCase {
+
+    private static final String TEST_CLASS_FILE = "org/jboss/modules/test/TestClass.class";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File resourceRoot;
+    private ModuleImage image;
+
+    protected ResourceLoader createLoader(final PathFilter exportFilter) throws Exception {
+        // deflate, so that class specs carry byte arrays like those of the other loaders
+        image = packFileResourceRoot("modules.image", true);
+        return createImageLoader(image);
+    }
+
+    private ModuleImage packFileResourceRoot(final String imageName, final boolean compress) throws Exception {
+        resourceRoot = getResource("test/fileresourceloader");
+        // Copy the classfile over
+        copyResource(TEST_CLASS_FILE, "test/fileresourceloader", "org/jboss/modules/test");
+
+        // Pack a module whose only resource root is the file resource loader directory
+        final File base = temporaryFolder.getRoot();
+        final File moduleDir = new File(base, "repo/test/image/main");
+        moduleDir.mkdirs();
+        try (OutputStream os = new FileOutputStream(new File(moduleDir, "module.xml"))) {
+            os.write(("<module xmlns=\"urn:jboss:module:1.9\" name=\"test.image\">\n" +
+                "    <resources>\n" +
+                "        <resource-root path=\"" + resourceRoot.getAbsolutePath() + "\"/>\n" +
+                "    </resources>\n" +
+                "</module>\n").getBytes(StandardCharsets.UTF_8));
+        }
+        final File imageFile = new File(base, imageName);
+        assertEquals(1, ModuleImageBuilder.build(new File[] { new File(base, "repo") }, imageFile, compress));
+        return ModuleImage.open(imageFile);
+    }
+
+    private ImageResourceLoader createImageLoader(final ModuleImage image) {
+        final int module = image.findModule("test/image/main");
+        assertTrue(module >= 0);
+        final int root = image.findResourceRoot(module, resourceRoot.getAbsolutePath());
+        assertTrue(root >= 0);
+        return new ImageResourceLoader(image, root, "test-root");
+    }
+
+    @After
+    public void closeImage() {
+        if (image != null) image.close();
+    }
+
+    @Test
+    public void testStoredClassIsDefinedFromMapping() throws Exception {
+        final byte[] expected = readBytes(getClass().getClassLoader().getResourceAsStream(TEST_CLASS_FILE));
+        final ModuleImage storedImage = packFileResourceRoot("stored.image", false);
+        try {
+            final ImageResourceLoader storedLoader = createImageLoader(storedImage);
+            final ClassSpec spec = storedLoader.getClassSpec(TEST_CLASS_FILE);
+            final ByteBuffer buffer = spec.getByteBuffer();
+            assertNotNull(buffer);
+            assertTrue(buffer.isDirect());
+            final byte[] actual = new byte[buffer.remaining()];
+            buffer.duplicate().get(actual);
+            assertArrayEquals(expected, actual);
+
+            final TestModuleLoader moduleLoader = new TestModuleLoader();
+            final ModuleSpec.Builder builder = ModuleSpec.build("test-image");
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(storedLoader));
+            builder.addDependency(DependencySpec.createLocalDependencySpec());
+            moduleLoader.addModuleSpec(builder.create());
+            final ModuleClassLoader classLoader = moduleLoader.loadModule("test-image").getClassLoader();
+            final Class<?> testClass = classLoader.loadClass(TestClass.class.getName());
+            assertSame(classLoader, testClass.getClassLoader());
+        } finally {
+            storedImage.close();
+        }
+    }
+
+    @Override
+    protected void assertResource(final Resource resource, final String fileName) throws Exception {
+        final byte[] expected = Files.readAllBytes(new File(resourceRoot, fileName).toPath());
+        assertEquals(expected.length, resource.getSize());
+        try (InputStream is = resource.openStream()) {
+            assertArrayEquals(expected, readBytes(is));
+        }
+        try (InputStream is = resource.getURL().openStream()) {
+            assertArrayEquals(expected, readBytes(is));
+        }
+    }
+}
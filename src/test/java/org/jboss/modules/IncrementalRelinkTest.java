@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jboss.modules.filter.ClassFilters;
+import org.jboss.modules.filter.PathFilter;
+import org.jboss.modules.filter.PathFilters;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Test;
+
+/**
+ * Test that relinking a module after replacing some of its dependencies gives the same result as a full link.
+ */
+public class IncrementalRelinkTest extends AbstractModuleTestCase {
+
+    private static final int LIBRARIES = 30;
+    private static final int APPLICATIONS = 8;
+    private static final int DEPENDENCIES = 6;
+
+    private static final PathFilter[] IMPORT_FILTERS = {
+        PathFilters.acceptAll(),
+        PathFilters.isChildOf("common"),
+        PathFilters.not(PathFilters.isChildOf("common/1")),
+        PathFilters.isOrIsChildOf("lib"),
+    };
+
+    @Test
+    public void testAgainstFullLink() throws Exception {
+        assumeTrue(ExportCache.ENABLED);
+        final Random random = new Random(23L);
+        final URL content = getClass().getResource("/test/filesystem-module-1/test.txt");
+        final Map<String, ModuleSpec> specs = new HashMap<>();
+        for (int i = 0; i < LIBRARIES; i ++) {
+            final ModuleSpec.Builder builder = ModuleSpec.build("lib-" + i);
+            final TestResourceLoader.TestResourceLoaderBuilder resources = TestResourceLoader.build();
+            resources.addResource("lib/" + i + "/file.txt", content);
+            for (int j = 0; j < 3; j ++) {
+                resources.addResource("common/" + random.nextInt(6) + "/file" + i + ".txt", content);
+            }
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(resources.create()));
+            builder.addDependency(new LocalDependencySpecBuilder().setExport(true).build());
+            // re-export a few lower libraries, possibly through filters
+            for (int j = 0; j < i && j < 3; j ++) {
+                builder.addDependency(createDependency(random, "lib-" + random.nextInt(i), true));
+            }
+            specs.put("lib-" + i, builder.create());
+        }
+        final List<List<DependencySpec>> applicationDependencies = new ArrayList<>();
+        for (int i = 0; i < APPLICATIONS; i ++) {
+            final List<DependencySpec> dependencies = new ArrayList<>();
+            for (int j = 0; j < DEPENDENCIES; j ++) {
+                dependencies.add(createDependency(random, "lib-" + random.nextInt(LIBRARIES), false));
+            }
+            dependencies.add(random.nextInt(DEPENDENCIES + 1), DependencySpec.createLocalDependencySpec());
+            applicationDependencies.add(dependencies);
+            final ModuleSpec.Builder builder = ModuleSpec.build("app-" + i);
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build()
+                .addResource("app/" + i + "/file.txt", content)
+                .addResource("common/" + random.nextInt(6) + "/app.txt", content)
+                .create()));
+            for (DependencySpec dependency : dependencies) {
+                builder.addDependency(dependency);
+            }
+            specs.put("app-" + i, builder.create());
+        }
+        final ModuleLoader moduleLoader = new ModuleLoader((name, delegateLoader) -> specs.get(name));
+
+        final Path file = Files.createTempFile("jboss-modules-", ".jfr");
+        int incremental = 0;
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("org.jboss.modules.ModuleLink").withoutThreshold();
+                recording.start();
+                for (int trial = 0; trial < 200; trial ++) {
+                    final int app = random.nextInt(APPLICATIONS);
+                    final Module module = moduleLoader.loadModule("app-" + app);
+                    final List<DependencySpec> dependencies = applicationDependencies.get(app);
+                    // replace one or two dependencies other than the local one
+                    final int replacements = 1 + random.nextInt(2);
+                    for (int i = 0; i < replacements; i ++) {
+                        int idx;
+                        do {
+                            idx = random.nextInt(dependencies.size());
+                        } while (dependencies.get(idx) instanceof ModuleClassLoaderDependencySpec);
+                        final String name = random.nextInt(20) == 0 ? "missing" : "lib-" + random.nextInt(LIBRARIES);
+                        dependencies.set(idx, createDependency(random, name, random.nextInt(10) == 0));
+                    }
+                    module.setDependencies(dependencies);
+                    module.relinkIfNecessary();
+                    final Map<String, List<LocalLoader>> relinked = new HashMap<>(module.getPaths());
+                    module.relink();
+                    assertEquals("trial " + trial, module.getPaths(), relinked);
+                    // the full link invalidated the export caches; bring the other modules up to date
+                    for (int i = 0; i < APPLICATIONS; i ++) {
+                        final Module other = moduleLoader.loadModule("app-" + i);
+                        other.link(other.getLinkage());
+                    }
+                }
+                recording.stop();
+                recording.dump(file);
+            }
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals("org.jboss.modules.ModuleLink") && event.getBoolean("incremental")) {
+                    incremental ++;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        assertTrue(incremental > 50);
+    }
+
+    private static DependencySpec createDependency(final Random random, final String name, final boolean export) {
+        final ModuleDependencySpecBuilder builder = new ModuleDependencySpecBuilder()
+            .setName(name)
+            .setOptional(name.equals("missing") || random.nextInt(10) == 0)
+            .setExport(export)
+            .setImportFilter(IMPORT_FILTERS[random.nextInt(IMPORT_FILTERS.length)]);
+        if (random.nextInt(5) == 0) {
+            builder.setResourceImportFilter(PathFilters.not(PathFilters.isChildOf("common/2")));
+        }
+        if (random.nextInt(5) == 0) {
+            builder.setClassImportFilter(ClassFilters.acceptAll());
+        }
+        return builder.build();
+    }
+}
@@ -20,12 +20,22 @@ package org.jboss.modules;
 
 import org.jboss.modules.filter.PathFilter;
 import org.junit.Assert;
+import org.junit.Test;
 
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
@@ -59,6 +69,62 @@ public class JarResourceLoaderTest extends AbstractResourceLoaderTestCase {
         Assert.assertEquals(entry.getSize(), resource.getSize());
     }
 
+    @Test
+    public void testClassSpecNotBlockedByLoaderMonitor() throws Exception {
+        final String fileName = Module.fileNameOfClass("org.jboss.modules.test.TestClass");
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            synchronized (loader) {
+                final Future<ClassSpec> future = executor.submit(() -> loader.getClassSpec(fileName));
+                Assert.assertNotNull(future.get(10L, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentClassSpecReads() throws Exception {
+        final String fileName = Module.fileNameOfClass("org.jboss.modules.test.TestClass");
+        final ClassSpec reference = loader.getClassSpec(fileName);
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final int iterations = 2000;
+        long singleThreaded = readClassSpecs(1, iterations, fileName, reference);
+        long multiThreaded = readClassSpecs(threads, iterations, fileName, reference);
+        System.out.printf("Read %d class specs on 1 thread in %d ms, %d class specs on %d threads in %d ms%n",
+            iterations, TimeUnit.NANOSECONDS.toMillis(singleThreaded), iterations * threads, threads, TimeUnit.NANOSECONDS.toMillis(multiThreaded));
+    }
+
+    private long readClassSpecs(final int threads, final int iterations, final String fileName, final ClassSpec reference) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final List<Future<Void>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i ++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        latch.await();
+                        for (int j = 0; j < iterations; j ++) {
+                            final ClassSpec spec = loader.getClassSpec(fileName);
+                            Assert.assertArrayEquals(reference.getBytes(), spec.getBytes());
+                            final CodeSource codeSource = spec.getCodeSource();
+                            Assert.assertSame(reference.getCodeSource(), codeSource);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            final long start = System.nanoTime();
+            latch.countDown();
+            for (Future<Void> future : futures) {
+                future.get(1L, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     static void buildJar(final File source, final File targetFile) throws IOException {
         final JarOutputStream target = new JarOutputStream(new FileOutputStream(targetFile));
         final String sourceBase = source.getPath();
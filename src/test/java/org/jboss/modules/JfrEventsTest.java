@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jboss.modules.test.TestClass;
+import org.jboss.modules.util.TestModuleLoader;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Test;
+
+/**
+ * Test the flight recorder events emitted while loading modules, classes and resources.
+ */
+public class JfrEventsTest extends AbstractModuleTestCase {
+
+    private static final String[] EVENT_NAMES = {
+        "org.jboss.modules.ModuleLoad",
+        "org.jboss.modules.ModuleLink",
+        "org.jboss.modules.ClassDefine",
+        "org.jboss.modules.ResourceLookup",
+    };
+
+    @Test
+    public void testEvents() throws Exception {
+        final TestModuleLoader moduleLoader = new TestModuleLoader();
+        final ModuleSpec.Builder builder = ModuleSpec.build("test-jfr");
+        builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build()
+            .addClass(TestClass.class)
+            .addResource("test.txt", getClass().getResource("/test/filesystem-module-1/test.txt"))
+            .create()));
+        builder.addDependency(DependencySpec.createLocalDependencySpec());
+        moduleLoader.addModuleSpec(builder.create());
+
+        final Path file = Files.createTempFile("jboss-modules-", ".jfr");
+        final List<RecordedEvent> events = new ArrayList<>();
+        try {
+            try (Recording recording = new Recording()) {
+                for (String eventName : EVENT_NAMES) {
+                    recording.enable(eventName).withoutThreshold();
+                }
+                recording.start();
+                final Module module = moduleLoader.loadModule("test-jfr");
+                module.getClassLoader().loadClass(TestClass.class.getName());
+                assertNotNull(module.getClassLoader().getResource("test.txt"));
+                assertFalse(module.getClassLoader().loadResourceLocal("missing.txt").iterator().hasNext());
+                recording.stop();
+                recording.dump(file);
+            }
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().startsWith("org.jboss.modules.")) {
+                    events.add(event);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        final RecordedEvent load = findEvent(events, "org.jboss.modules.ModuleLoad", "moduleName", "test-jfr");
+        assertTrue(load.getBoolean("found"));
+        assertEquals(0, load.getInt("races"));
+        final RecordedEvent link = findEvent(events, "org.jboss.modules.ModuleLink", "moduleName", "test-jfr");
+        assertTrue(link.getInt("dependencies") > 0);
+        assertTrue(link.getInt("paths") > 0);
+        assertFalse(link.getBoolean("discarded"));
+        final RecordedEvent define = findEvent(events, "org.jboss.modules.ClassDefine", "className", TestClass.class.getName());
+        assertEquals("test-jfr", define.getString("moduleName"));
+        assertEquals(0, define.getInt("races"));
+        final RecordedEvent found = findEvent(events, "org.jboss.modules.ResourceLookup", "resourceName", "test.txt");
+        assertEquals(1, found.getInt("found"));
+        assertEquals(1, found.getInt("rootsSearched"));
+        final RecordedEvent missing = findEvent(events, "org.jboss.modules.ResourceLookup", "resourceName", "missing.txt");
+        assertEquals(0, missing.getInt("found"));
+        assertEquals(null, missing.getString("resourceRoot"));
+    }
+
+    private static RecordedEvent findEvent(final List<RecordedEvent> events, final String eventName, final String field, final String value) {
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(eventName) && value.equals(event.getString(field))) {
+                return event;
+            }
+        }
+        throw new AssertionError("No " + eventName + " event with " + field + " " + value + " in " + events);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modules.filter.PathFilter;
+import org.jboss.modules.filter.PathFilters;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Test;
+
+/**
+ * Test linking a set of modules together.
+ */
+public class LinkAllTest extends AbstractModuleTestCase {
+
+    private static final int GROUPS = 4;
+    private static final int LIBRARIES = 40;
+    private static final int APPLICATIONS = 20;
+
+    private static final PathFilter[] EXPORT_FILTERS = {
+        PathFilters.acceptAll(),
+        PathFilters.acceptAll(),
+        PathFilters.not(PathFilters.isChildOf("common/1")),
+        PathFilters.isOrIsChildOf("lib"),
+    };
+
+    @Test
+    public void testOrder() throws Exception {
+        final Map<String, ModuleSpec> specs = new HashMap<>();
+        addSpec(specs, "a", "b");
+        addSpec(specs, "b", "c");
+        addSpec(specs, "c");
+        addSpec(specs, "d", "e");
+        addSpec(specs, "e", "d");
+        addSpec(specs, "f", "c", "outside");
+        addSpec(specs, "outside");
+        final ModuleLoader moduleLoader = new ModuleLoader((name, delegateLoader) -> specs.get(name));
+        final Module a = moduleLoader.preloadModule("a");
+        final Module b = moduleLoader.preloadModule("b");
+        final Module c = moduleLoader.preloadModule("c");
+        final Module d = moduleLoader.preloadModule("d");
+        final Module e = moduleLoader.preloadModule("e");
+        final Module f = moduleLoader.preloadModule("f");
+        moduleLoader.preloadModule("outside");
+        final List<List<Module>> components = LinkBatch.of(Arrays.asList(a, d, f, c, e, b, a)).getComponents();
+        assertEquals(2, components.size());
+        final List<Module> first = components.get(0);
+        assertEquals(4, first.size());
+        assertTrue(first.indexOf(c) < first.indexOf(b));
+        assertTrue(first.indexOf(b) < first.indexOf(a));
+        assertTrue(first.indexOf(c) < first.indexOf(f));
+        assertEquals(2, components.get(1).size());
+        assertTrue(components.get(1).contains(d));
+        assertTrue(components.get(1).contains(e));
+    }
+
+    @Test
+    public void testAgainstLazyLinking() throws Exception {
+        // warm up
+        for (Module module : preloadAll(createModuleLoader())) {
+            module.getPaths();
+        }
+        final ModuleLoader warmUpLoader = createModuleLoader();
+        warmUpLoader.linkAll(preloadAll(warmUpLoader));
+        final ModuleLoader lazyLoader = createModuleLoader();
+        final ModuleLoader sequentialLoader = createModuleLoader();
+        final ModuleLoader parallelLoader = createModuleLoader();
+        final List<Module> lazyModules = preloadAll(lazyLoader);
+        final List<Module> sequentialModules = preloadAll(sequentialLoader);
+        final List<Module> parallelModules = preloadAll(parallelLoader);
+
+        long start = System.nanoTime();
+        for (Module module : lazyModules) {
+            module.getPaths();
+        }
+        final long lazy = System.nanoTime() - start;
+        start = System.nanoTime();
+        sequentialLoader.linkAll(sequentialModules);
+        final long sequential = System.nanoTime() - start;
+        final ExecutorService executor = Executors.newFixedThreadPool(GROUPS);
+        final long parallel;
+        try {
+            start = System.nanoTime();
+            parallelLoader.linkAll(parallelModules, executor);
+            parallel = System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < lazyModules.size(); i ++) {
+            final Module module = lazyModules.get(i);
+            assertEquals(module.getName(), Linkage.State.LINKED, sequentialModules.get(i).getLinkageUnchecked().getState());
+            assertEquals(module.getName(), Linkage.State.LINKED, parallelModules.get(i).getLinkageUnchecked().getState());
+            assertEquals(module.getName(), describe(module.getPaths()), describe(sequentialModules.get(i).getPaths()));
+            assertEquals(module.getName(), describe(module.getPaths()), describe(parallelModules.get(i).getPaths()));
+        }
+        System.out.printf("Linked %d modules: lazily %d ms, linkAll %d ms, linkAll in parallel %d ms%n", lazyModules.size(),
+            TimeUnit.NANOSECONDS.toMillis(lazy), TimeUnit.NANOSECONDS.toMillis(sequential), TimeUnit.NANOSECONDS.toMillis(parallel));
+    }
+
+    private static void addSpec(final Map<String, ModuleSpec> specs, final String name, final String... dependencies) {
+        final ModuleSpec.Builder builder = ModuleSpec.build(name);
+        for (String dependency : dependencies) {
+            builder.addDependency(new ModuleDependencySpecBuilder().setName(dependency).build());
+        }
+        specs.put(name, builder.create());
+    }
+
+    private ModuleLoader createModuleLoader() {
+        final Random random = new Random(31L);
+        final URL content = getClass().getResource("/test/filesystem-module-1/test.txt");
+        final Map<String, ModuleSpec> specs = new HashMap<>();
+        for (int g = 0; g < GROUPS; g ++) {
+            for (int i = 0; i < LIBRARIES; i ++) {
+                final ModuleSpec.Builder builder = ModuleSpec.build("g" + g + "-lib-" + i);
+                final TestResourceLoader.TestResourceLoaderBuilder resources = TestResourceLoader.build();
+                resources.addResource("lib/" + g + "/" + i + "/file.txt", content);
+                for (int j = 0; j < 3; j ++) {
+                    resources.addResource("common/" + random.nextInt(6) + "/file" + i + ".txt", content);
+                }
+                builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(resources.create()));
+                builder.addDependency(new LocalDependencySpecBuilder().setExport(true).build());
+                for (int j = 0; j < i && j < 3; j ++) {
+                    builder.addDependency(new ModuleDependencySpecBuilder()
+                        .setName("g" + g + "-lib-" + random.nextInt(i))
+                        .setExportFilter(EXPORT_FILTERS[random.nextInt(EXPORT_FILTERS.length)])
+                        .build());
+                }
+                specs.put("g" + g + "-lib-" + i, builder.create());
+            }
+            for (int i = 0; i < APPLICATIONS; i ++) {
+                final ModuleSpec.Builder builder = ModuleSpec.build("g" + g + "-app-" + i);
+                builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build()
+                    .addResource("app/" + g + "/" + i + "/file.txt", content)
+                    .create()));
+                builder.addDependency(DependencySpec.createLocalDependencySpec());
+                for (int j = 0; j < 5; j ++) {
+                    builder.addDependency(new ModuleDependencySpecBuilder()
+                        .setName("g" + g + "-lib-" + random.nextInt(LIBRARIES))
+                        .setOptional(random.nextInt(10) == 0)
+                        .build());
+                }
+                if (random.nextInt(5) == 0) {
+                    builder.addDependency(new ModuleDependencySpecBuilder().setName("missing").setOptional(true).build());
+                }
+                specs.put("g" + g + "-app-" + i, builder.create());
+            }
+        }
+        return new ModuleLoader((name, delegateLoader) -> specs.get(name));
+    }
+
+    private static List<Module> preloadAll(final ModuleLoader moduleLoader) throws ModuleLoadException {
+        final List<Module> modules = new ArrayList<>();
+        for (int g = 0; g < GROUPS; g ++) {
+            for (int i = 0; i < APPLICATIONS; i ++) {
+                modules.add(moduleLoader.preloadModule("g" + g + "-app-" + i));
+            }
+            for (int i = 0; i < LIBRARIES; i ++) {
+                modules.add(moduleLoader.preloadModule("g" + g + "-lib-" + i));
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Describe a path map independently of the module loader, by the number of loaders which provide each path.
+     */
+    private static Map<String, Integer> describe(final Map<String, List<LocalLoader>> paths) {
+        final Map<String, Integer> description = new HashMap<>();
+        for (Map.Entry<String, List<LocalLoader>> entry : paths.entrySet()) {
+            description.put(entry.getKey(), Integer.valueOf(entry.getValue().size()));
+        }
+        return description;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modules.test.TestClass;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Test;
+
+/**
+ * Test that threads waiting for a module to be linked park on a lock rather than block on a monitor.
+ */
+public class LinkWaitTest extends AbstractModuleTestCase {
+
+    private static final int THREADS = 64;
+
+    @Test
+    public void testWaitersDoNotHoldMonitors() throws Exception {
+        final CountDownLatch linking = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ModuleLoader moduleLoader = new ModuleLoader((name, delegateLoader) -> {
+            final ModuleSpec.Builder builder = ModuleSpec.build(name);
+            if (name.equals("test-linked")) {
+                try {
+                    builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build().addClass(TestClass.class).create()));
+                } catch (Exception e) {
+                    throw new ModuleLoadException(e);
+                }
+                builder.addDependency(DependencySpec.createModuleDependencySpec("test-slow"));
+            } else if (name.equals("test-slow")) {
+                // hold the linking thread of test-linked here
+                linking.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                return null;
+            }
+            builder.addDependency(DependencySpec.createLocalDependencySpec());
+            return builder.create();
+        });
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            final Future<Module> linker = executor.submit(() -> moduleLoader.loadModule("test-linked"));
+            assertTrue(linking.await(1L, TimeUnit.MINUTES));
+            final List<Thread> waiters = new ArrayList<>(THREADS);
+            final List<Future<Class<?>>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i ++) {
+                futures.add(executor.submit(() -> {
+                    synchronized (waiters) {
+                        waiters.add(Thread.currentThread());
+                    }
+                    return moduleLoader.loadModule("test-linked").getClassLoader().loadClass(TestClass.class.getName());
+                }));
+            }
+            final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            final long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1L);
+            List<ThreadInfo> parked;
+            do {
+                Thread.sleep(10L);
+                parked = new ArrayList<>();
+                synchronized (waiters) {
+                    for (Thread waiter : waiters) {
+                        final ThreadInfo info = threadMXBean.getThreadInfo(new long[] { waiter.getId() }, true, false)[0];
+                        if (info != null && info.getThreadState() == Thread.State.WAITING && waitsForLinkage(info)) {
+                            parked.add(info);
+                        }
+                    }
+                }
+            } while (parked.size() < THREADS && System.nanoTime() < deadline);
+            assertEquals(THREADS, parked.size());
+            for (ThreadInfo info : parked) {
+                assertNotNull(info.getLockInfo());
+                assertFalse(info.getLockInfo().getClassName(), info.getLockInfo().getClassName().startsWith("org.jboss.modules."));
+                for (MonitorInfo monitor : info.getLockedMonitors()) {
+                    assertFalse(monitor.toString(), monitor.getLockedStackFrame().getClassName().startsWith("org.jboss.modules."));
+                }
+            }
+            release.countDown();
+            final Module module = linker.get(1L, TimeUnit.MINUTES);
+            for (Future<Class<?>> future : futures) {
+                assertSame(module.getClassLoader(), future.get(1L, TimeUnit.MINUTES).getClassLoader());
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean waitsForLinkage(final ThreadInfo info) {
+        for (StackTraceElement element : info.getStackTrace()) {
+            if (element.getClassName().equals(Module.class.getName()) && element.getMethodName().equals("getLinkage")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
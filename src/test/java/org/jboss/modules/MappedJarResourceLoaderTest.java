@@ -0,0 +1,208 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.jboss.modules.util.Util.readBytes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.jboss.modules.filter.PathFilter;
+import org.jboss.modules.test.TestClass;
+import org.jboss.modules.util.TestModuleLoader;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the functionality of the memory-mapped JAR resource loader.
+ */
+public class MappedJarResourceLoaderTest extends AbstractResourceLoaderTestCase {
+
+    private static final String TEST_CLASS_FILE = "org/jboss/modules/test/TestClass.class";
+
+    private JarFile jarFile;
+
+    protected ResourceLoader createLoader(final PathFilter exportFilter) throws Exception {
+        File fileResourceRoot = getResource("test/fileresourceloader");
+        // Copy the classfile over
+        copyResource(TEST_CLASS_FILE, "test/fileresourceloader", "org/jboss/modules/test");
+
+        // Build a jar to match the fileresource loader
+        final File outputFile = new File(getResource("test"), "mappedjarresourceloader/test.jar");
+        outputFile.getParentFile().mkdirs();
+        JarResourceLoaderTest.buildJar(fileResourceRoot, outputFile);
+        jarFile = new JarFile(outputFile, true);
+        final IterableResourceLoader loader = ResourceLoaders.createMappedJarResourceLoader(outputFile.toPath());
+        Assert.assertTrue(loader instanceof MappedJarResourceLoader);
+        return loader;
+    }
+
+    @Override
+    protected void assertResource(Resource resource, String fileName) throws Exception {
+        final JarEntry entry = jarFile.getJarEntry(fileName);
+        Assert.assertEquals(entry.getSize(), resource.getSize());
+        Assert.assertArrayEquals(readBytes(jarFile.getInputStream(entry)), readBytes(resource.openStream()));
+        Assert.assertArrayEquals(readBytes(jarFile.getInputStream(entry)), readBytes(resource.getURL().openStream()));
+    }
+
+    @Test
+    public void testStoredClassIsDefinedFromMapping() throws Exception {
+        final byte[] expected = readBytes(getClass().getClassLoader().getResourceAsStream(TEST_CLASS_FILE));
+        final File outputFile = new File(getResource("test"), "mappedjarresourceloader/stored.jar");
+        try (JarOutputStream target = new JarOutputStream(new FileOutputStream(outputFile))) {
+            addStoredEntry(target, TEST_CLASS_FILE, expected);
+        }
+        final IterableResourceLoader storedLoader = ResourceLoaders.createMappedJarResourceLoader(outputFile.toPath());
+        final ClassSpec spec = storedLoader.getClassSpec(TEST_CLASS_FILE);
+        final ByteBuffer buffer = spec.getByteBuffer();
+        Assert.assertNotNull(buffer);
+        Assert.assertTrue(buffer.isDirect());
+        final byte[] actual = new byte[buffer.remaining()];
+        buffer.duplicate().get(actual);
+        Assert.assertArrayEquals(expected, actual);
+
+        final TestModuleLoader moduleLoader = new TestModuleLoader();
+        final ModuleSpec.Builder builder = ModuleSpec.build("test-mapped");
+        builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(storedLoader));
+        builder.addDependency(DependencySpec.createLocalDependencySpec());
+        moduleLoader.addModuleSpec(builder.create());
+        final ModuleClassLoader classLoader = moduleLoader.loadModule("test-mapped").getClassLoader();
+        final Class<?> testClass = classLoader.loadClass(TestClass.class.getName());
+        Assert.assertSame(classLoader, testClass.getClassLoader());
+    }
+
+    @Test
+    public void testMultiReleaseJarFallsBack() throws Exception {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+        final File outputFile = new File(getResource("test"), "mappedjarresourceloader/multi-release.jar");
+        try (JarOutputStream target = new JarOutputStream(new FileOutputStream(outputFile), manifest)) {
+            addStoredEntry(target, "test.txt", new byte[] { 'x' });
+        }
+        final IterableResourceLoader fallbackLoader = ResourceLoaders.createMappedJarResourceLoader(outputFile.toPath());
+        Assert.assertTrue(fallbackLoader instanceof JarFileResourceLoader);
+        fallbackLoader.close();
+    }
+
+    @Test
+    public void testTruncatedCentralDirectory() throws Exception {
+        final File outputFile = new File(getResource("test"), "mappedjarresourceloader/truncated.jar");
+        try (JarOutputStream target = new JarOutputStream(new FileOutputStream(outputFile))) {
+            addStoredEntry(target, "test.txt", new byte[] { 'x' });
+        }
+        final byte[] bytes = Files.readAllBytes(outputFile.toPath());
+        // make the name of the central directory entry run past the end of the central directory
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        final int cen = buffer.getInt(bytes.length - 22 + 16);
+        buffer.putShort(cen + 28, (short) 0xfff0);
+        Files.write(outputFile.toPath(), bytes);
+        try {
+            MappedZipFile.open(outputFile);
+            Assert.fail("Expected ZipException");
+        } catch (ZipException expected) {
+        }
+    }
+
+    @Test
+    public void testClassSpecReadTimes() throws Exception {
+        // build stored and deflated JARs from the classes of this project
+        final File classes = new File(Module.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        final List<String> names = new ArrayList<>();
+        final File deflatedJar = new File(getResource("test"), "mappedjarresourceloader/classes-deflated.jar");
+        final File storedJar = new File(getResource("test"), "mappedjarresourceloader/classes-stored.jar");
+        JarResourceLoaderTest.buildJar(classes, deflatedJar);
+        try (JarOutputStream target = new JarOutputStream(new FileOutputStream(storedJar))) {
+            final Iterator<Resource> iterator = ResourceLoaders.createPathResourceLoader(classes.toPath()).iterateResources("", true);
+            while (iterator.hasNext()) {
+                final Resource resource = iterator.next();
+                if (resource.getName().endsWith(".class")) {
+                    names.add(resource.getName());
+                    addStoredEntry(target, resource.getName(), readBytes(resource.openStream()));
+                }
+            }
+        }
+        final int rounds = 20;
+        for (File file : new File[] { deflatedJar, storedJar }) {
+            final IterableResourceLoader jarLoader = new JarFileResourceLoader("jar", new JarFile(file, true));
+            final IterableResourceLoader mappedLoader = ResourceLoaders.createMappedJarResourceLoader(file.toPath());
+            try {
+                for (String name : names) {
+                    Assert.assertArrayEquals(jarLoader.getClassSpec(name).getBytes(), bytesOf(mappedLoader.getClassSpec(name)));
+                }
+                final long jarTime = readClassSpecs(jarLoader, names, rounds);
+                final long mappedTime = readClassSpecs(mappedLoader, names, rounds);
+                System.out.printf("Read %d class specs from %s: JarFile %d ms, mapped %d ms%n", names.size() * rounds,
+                    file.getName(), TimeUnit.NANOSECONDS.toMillis(jarTime), TimeUnit.NANOSECONDS.toMillis(mappedTime));
+            } finally {
+                jarLoader.close();
+                mappedLoader.close();
+            }
+        }
+    }
+
+    private static long readClassSpecs(final ResourceLoader loader, final List<String> names, final int rounds) throws IOException {
+        final long start = System.nanoTime();
+        for (int i = 0; i < rounds; i ++) {
+            for (String name : names) {
+                Assert.assertNotNull(loader.getClassSpec(name));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static byte[] bytesOf(final ClassSpec spec) {
+        final ByteBuffer buffer = spec.getByteBuffer();
+        if (buffer == null) {
+            return spec.getBytes();
+        }
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static void addStoredEntry(final JarOutputStream target, final String name, final byte[] bytes) throws IOException {
+        final JarEntry entry = new JarEntry(name);
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCompressedSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        target.putNextEntry(entry);
+        target.write(bytes);
+        target.closeEntry();
+    }
+}
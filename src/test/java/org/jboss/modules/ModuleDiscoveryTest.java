@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modules.util.TestModuleLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test that parallel module discovery finds the same modules as the serial iteration of a local module finder.
+ */
+public class ModuleDiscoveryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesSerial() throws Exception {
+        final File first = temporaryFolder.newFolder("first");
+        final File second = temporaryFolder.newFolder("second");
+        writeModule(first, "a", 0);
+        writeModule(first, "b.c", 2);
+        writeModule(first, "b.c.d", 1);
+        writeDescriptor(first, "b.e", "<module-alias xmlns=\"urn:jboss:module:1.9\" name=\"b.e\" target-name=\"b.c\"/>");
+        writeDescriptor(first, "f", "<module-absent xmlns=\"urn:jboss:module:1.9\" name=\"f\"/>");
+        writeDescriptor(first, "g", "<other xmlns=\"urn:jboss:module:1.9\" name=\"g\"/>");
+        writeDescriptor(first, "h:1.0", "<module xmlns=\"urn:jboss:module:1.5\" name=\"h\" slot=\"1.0\"/>");
+        writeModule(second, "a", 0);
+        writeModule(second, "b.c", 0);
+        writeModule(second, "b.x", 3);
+        writeModule(second, "f", 0);
+        writeModule(second, "i", 1);
+        final File[] roots = { first, second };
+        final TestModuleLoader moduleLoader = new TestModuleLoader();
+
+        LocalModuleFinder finder = new LocalModuleFinder(roots);
+        final List<String> all = Arrays.asList("a", "b.c", "b.c.d", "b.e", "b.x", "f", "h:1.0", "i");
+        assertEquals(all, sorted(finder.iterateModules(null, true, moduleLoader)));
+        assertEquals(all, sorted(finder.discoverModules("", true)));
+        assertEquals(Collections.singletonList("b.c"), sorted(finder.iterateModules("b.c", true, moduleLoader)));
+        assertEquals(Collections.singletonList("b.c"), sorted(finder.discoverModules(PathUtils.basicModuleNameToPath("b.c"), true)));
+        assertEquals(Arrays.asList("b.c", "b.c.d", "b.e", "b.x"), sorted(finder.discoverModules("b", true)));
+        assertEquals(Collections.singletonList("b.x"), sorted(finder.discoverModules(PathUtils.basicModuleNameToPath("b.x"), false)));
+        assertEquals(Collections.emptyList(), sorted(finder.discoverModules("missing", true)));
+
+        // the names of the first root come first
+        final List<String> discovered = toList(finder.discoverModules("", true));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b.c", "b.c.d", "b.e", "h:1.0")), new HashSet<>(discovered.subList(0, 5)));
+
+        // roots with an index are not walked
+        RepositoryIndex.generate(second);
+        finder = new LocalModuleFinder(roots);
+        assertEquals(all, sorted(finder.discoverModules("", true)));
+    }
+
+    @Test
+    public void testDiscoveryTimes() throws Exception {
+        final int moduleCount = 2000;
+        final File[] roots = { temporaryFolder.newFolder("base"), temporaryFolder.newFolder("layer") };
+        for (int i = 0; i < moduleCount; i ++) {
+            writeModule(roots[i % 2], "org.example" + i % 10 + ".module" + i, 10);
+        }
+        final LocalModuleFinder finder = new LocalModuleFinder(roots);
+        final TestModuleLoader moduleLoader = new TestModuleLoader();
+        // warm up
+        toList(finder.iterateModules(null, true, moduleLoader));
+        toList(finder.discoverModules("", true));
+        long start = System.nanoTime();
+        final Set<String> serial = new HashSet<>(toList(finder.iterateModules(null, true, moduleLoader)));
+        final long serialTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        final Set<String> parallel = new HashSet<>(toList(finder.discoverModules("", true)));
+        final long parallelTime = System.nanoTime() - start;
+        assertEquals(moduleCount, serial.size());
+        assertEquals(serial, parallel);
+        System.out.printf("Discovered %d modules: serial %d ms, parallel %d ms%n", Integer.valueOf(moduleCount),
+            Long.valueOf(TimeUnit.NANOSECONDS.toMillis(serialTime)), Long.valueOf(TimeUnit.NANOSECONDS.toMillis(parallelTime)));
+    }
+
+    private static List<String> toList(final Iterator<String> iterator) {
+        final List<String> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static List<String> sorted(final Iterator<String> iterator) {
+        final List<String> list = toList(iterator);
+        Collections.sort(list);
+        return list;
+    }
+
+    private static void writeModule(final File root, final String name, final int dependencies) throws IOException {
+        final StringBuilder b = new StringBuilder();
+        b.append("<module xmlns=\"urn:jboss:module:1.9\" name=\"").append(name).append("\">\n");
+        b.append("    <dependencies>\n");
+        for (int i = 0; i < dependencies; i ++) {
+            b.append("        <module name=\"org.example.dependency").append(i).append("\" export=\"true\"/>\n");
+        }
+        b.append("    </dependencies>\n");
+        b.append("</module>\n");
+        writeDescriptor(root, name, b.toString());
+    }
+
+    private static void writeDescriptor(final File root, final String name, final String content) throws IOException {
+        final File dir = new File(root, PathUtils.basicModuleNameToPath(name));
+        assertTrue(dir.isDirectory() || dir.mkdirs());
+        Files.write(new File(dir, "module.xml").toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static org.jboss.modules.util.Util.readBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.jboss.modules.test.TestClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test loading modules from a module image.
+ */
+public class ModuleImageTest {
+
+    private static final String TEST_CLASS_FILE = "org/jboss/modules/test/TestClass.class";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStoredImage() throws Exception {
+        checkImage(false);
+    }
+
+    @Test
+    public void testCompressedImage() throws Exception {
+        checkImage(true);
+    }
+
+    private void checkImage(final boolean compress) throws Exception {
+        final File repo = temporaryFolder.newFolder("repo");
+        final File shadowed = temporaryFolder.newFolder("shadowed");
+        final byte[] classBytes = readBytes(getClass().getClassLoader().getResourceAsStream(TEST_CLASS_FILE));
+        // a module with a JAR, which depends on a module with a directory
+        final File aDir = moduleDir(repo, "a");
+        writeJar(new File(aDir, "a.jar"), null, TEST_CLASS_FILE, classBytes, "a.txt", bytes("in a"));
+        writeModuleXml(aDir, "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\">\n"
+            + "    <resources><resource-root path=\"a.jar\"/></resources>\n"
+            + "    <dependencies><module name=\"b.c\" export=\"true\"/></dependencies>\n"
+            + "</module>\n");
+        final File bDir = moduleDir(repo, "b.c");
+        assertTrue(new File(bDir, "classes/b").mkdirs());
+        Files.write(new File(bDir, "classes/b/b.txt").toPath(), bytes("in b"));
+        writeModuleXml(bDir, "<module xmlns=\"urn:jboss:module:1.9\" name=\"b.c\">\n"
+            + "    <resources><resource-root path=\"classes\"/></resources>\n"
+            + "</module>\n");
+        writeModuleXml(moduleDir(repo, "alias"), "<module-alias xmlns=\"urn:jboss:module:1.9\" name=\"alias\" target-name=\"a\"/>\n");
+        writeModuleXml(moduleDir(repo, "absent"), "<module-absent xmlns=\"urn:jboss:module:1.9\" name=\"absent\"/>\n");
+        // a multi-release JAR cannot be packed, and is loaded from the file system
+        final File mrDir = moduleDir(repo, "mr");
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+        writeJar(new File(mrDir, "mr.jar"), manifest, "mr.txt", bytes("in mr"));
+        writeModuleXml(mrDir, "<module xmlns=\"urn:jboss:module:1.9\" name=\"mr\">\n"
+            + "    <resources><resource-root path=\"mr.jar\"/></resources>\n"
+            + "</module>\n");
+        writeModuleXml(moduleDir(repo, "broken"), "<module xmlns=\"urn:jboss:module:1.9\" name=\"broken\">\n");
+        // the first root wins
+        writeModuleXml(moduleDir(shadowed, "a"), "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/>\n");
+
+        final File imageFile = new File(temporaryFolder.getRoot(), "modules.image");
+        final File[] roots = { repo, shadowed };
+        assertEquals(5, ModuleImageBuilder.build(roots, imageFile, compress));
+        try (ImageModuleFinder imageFinder = new ImageModuleFinder(imageFile)) {
+            final LocalModuleFinder localFinder = new LocalModuleFinder(roots);
+            final ModuleLoader moduleLoader = new ModuleLoader(imageFinder);
+            assertEquals(sorted(localFinder.iterateModules(null, true, moduleLoader)), sorted(imageFinder.iterateModules(null, true, moduleLoader)));
+            assertEquals(sorted(localFinder.iterateModules("b", true, moduleLoader)), sorted(imageFinder.iterateModules("b", true, moduleLoader)));
+            assertEquals(Arrays.asList("a", "alias", "b.c", "mr"), sorted(imageFinder.iterateModules(null, true, moduleLoader)));
+            assertNull(imageFinder.findModule("absent", moduleLoader));
+            assertNull(imageFinder.findModule("missing", moduleLoader));
+
+            final Module a = moduleLoader.loadModule("a");
+            assertSame(a, moduleLoader.loadModule("alias"));
+            final ModuleClassLoader classLoader = a.getClassLoader();
+            final Class<?> testClass = classLoader.loadClass(TestClass.class.getName());
+            assertSame(classLoader, testClass.getClassLoader());
+            assertResource(classLoader.getResource(TEST_CLASS_FILE), classBytes, ModuleImage.PROTOCOL);
+            assertResource(classLoader.getResource("a.txt"), bytes("in a"), ModuleImage.PROTOCOL);
+            // exported from the dependency
+            assertResource(classLoader.getResource("b/b.txt"), bytes("in b"), ModuleImage.PROTOCOL);
+            assertResource(moduleLoader.loadModule("mr").getClassLoader().getResource("mr.txt"), bytes("in mr"), "jar");
+
+            // resource URLs still resolve when rebuilt from their string form
+            final URL url = classLoader.getResource("a.txt");
+            assertResource(new URL(url.toExternalForm()), bytes("in a"), ModuleImage.PROTOCOL);
+            assertResource(url.toURI().toURL(), bytes("in a"), ModuleImage.PROTOCOL);
+            // classes have the code source of the JAR they were packed from
+            final URL location = testClass.getProtectionDomain().getCodeSource().getLocation();
+            final Class<?> localClass = new ModuleLoader(localFinder).loadModule("a").getClassLoader().loadClass(TestClass.class.getName());
+            assertEquals(localClass.getProtectionDomain().getCodeSource().getLocation(), location);
+            assertEquals(location, new URL(location.toExternalForm()));
+        }
+    }
+
+    @Test
+    public void testLoadTimes() throws Exception {
+        final int moduleCount = 200;
+        final File repo = temporaryFolder.newFolder("repo");
+        final byte[] classBytes = readBytes(getClass().getClassLoader().getResourceAsStream(TEST_CLASS_FILE));
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < moduleCount; i ++) {
+            final String name = "org.example" + i % 10 + ".module" + i;
+            final File dir = moduleDir(repo, name);
+            final Object[] content = new Object[42];
+            content[0] = TEST_CLASS_FILE;
+            content[1] = classBytes;
+            for (int j = 1; j < 21; j ++) {
+                content[2 * j] = "org/example/module" + i + "/resource" + j + ".properties";
+                content[2 * j + 1] = bytes("key" + j + "=value" + i);
+            }
+            writeJar(new File(dir, "module.jar"), null, content);
+            writeModuleXml(dir, "<module xmlns=\"urn:jboss:module:1.9\" name=\"" + name + "\">\n"
+                + "    <resources><resource-root path=\"module.jar\"/></resources>\n"
+                + "</module>\n");
+            names.add(name);
+        }
+        final File imageFile = new File(temporaryFolder.getRoot(), "modules.image");
+        assertEquals(moduleCount, ModuleImageBuilder.build(new File[] { repo }, imageFile, false));
+        // warm up
+        loadAll(new LocalModuleFinder(new File[] { repo }), names);
+        try (ImageModuleFinder finder = new ImageModuleFinder(imageFile)) {
+            loadAll(finder, names);
+        }
+        long start = System.nanoTime();
+        loadAll(new LocalModuleFinder(new File[] { repo }), names);
+        final long explodedTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        try (ImageModuleFinder finder = new ImageModuleFinder(imageFile)) {
+            loadAll(finder, names);
+        }
+        final long imageTime = System.nanoTime() - start;
+        System.out.printf("Loaded %d modules: exploded %d ms, image %d ms%n", Integer.valueOf(moduleCount),
+            Long.valueOf(TimeUnit.NANOSECONDS.toMillis(explodedTime)), Long.valueOf(TimeUnit.NANOSECONDS.toMillis(imageTime)));
+    }
+
+    @Test(timeout = 30000L)
+    public void testCorruptImage() throws Exception {
+        final File repo = temporaryFolder.newFolder("repo");
+        final File dir = moduleDir(repo, "a");
+        writeJar(new File(dir, "a.jar"), null, "a.txt", bytes("in a"));
+        writeModuleXml(dir, "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\">\n"
+            + "    <resources><resource-root path=\"a.jar\"/></resources>\n"
+            + "</module>\n");
+        final File imageFile = new File(temporaryFolder.getRoot(), "modules.image");
+        assertEquals(1, ModuleImageBuilder.build(new File[] { repo }, imageFile, false));
+        final byte[] bytes = Files.readAllBytes(imageFile.toPath());
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final int modulesOffset = buffer.getInt(12);
+        final int rootsOffset = buffer.getInt(20);
+        final int tableSize = buffer.getInt(32);
+        final int tableOffset = buffer.getInt(36);
+
+        // a hash table without an empty slot
+        final ByteBuffer full = ByteBuffer.wrap(bytes.clone());
+        for (int i = 0; i < tableSize; i ++) {
+            full.putInt(tableOffset + i * ModuleImage.SLOT_SIZE + 4, 1);
+        }
+        Files.write(imageFile.toPath(), full.array());
+        final ModuleImage image = ModuleImage.open(imageFile);
+        try {
+            assertEquals(-1, image.find(0, "missing.txt"));
+        } finally {
+            image.close();
+        }
+
+        // a module with resource roots beyond the root table
+        final ByteBuffer roots = ByteBuffer.wrap(bytes.clone());
+        roots.putInt(modulesOffset + 20, Integer.MAX_VALUE);
+        Files.write(imageFile.toPath(), roots.array());
+        assertInvalid(imageFile);
+
+        // a resource root with entries beyond the entry table
+        final ByteBuffer entries = ByteBuffer.wrap(bytes.clone());
+        entries.putInt(rootsOffset + 8, -1);
+        Files.write(imageFile.toPath(), entries.array());
+        assertInvalid(imageFile);
+    }
+
+    private static void assertInvalid(final File imageFile) {
+        try {
+            ModuleImage.open(imageFile).close();
+            fail("Expected an invalid module image");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void loadAll(final ModuleFinder finder, final List<String> names) throws Exception {
+        final ModuleLoader moduleLoader = new ModuleLoader(finder);
+        for (String name : names) {
+            final ModuleClassLoader classLoader = moduleLoader.loadModule(name).getClassLoader();
+            assertSame(classLoader, classLoader.loadClass(TestClass.class.getName()).getClassLoader());
+            assertNotNull(classLoader.getResource("org/example/" + name.substring(name.indexOf('.', 4) + 1) + "/resource1.properties"));
+        }
+    }
+
+    private static void assertResource(final URL url, final byte[] expected, final String protocol) throws IOException {
+        assertNotNull(url);
+        assertEquals(protocol, url.getProtocol());
+        try (InputStream is = url.openStream()) {
+            assertArrayEquals(expected, readBytes(is));
+        }
+    }
+
+    private static List<String> sorted(final Iterator<String> iterator) {
+        final List<String> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        Collections.sort(list);
+        return list;
+    }
+
+    private static byte[] bytes(final String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static File moduleDir(final File root, final String name) {
+        final File dir = new File(root, PathUtils.basicModuleNameToPath(name));
+        assertTrue(dir.isDirectory() || dir.mkdirs());
+        return dir;
+    }
+
+    private static void writeModuleXml(final File dir, final String content) throws IOException {
+        Files.write(new File(dir, "module.xml").toPath(), bytes(content));
+    }
+
+    private static void writeJar(final File file, final Manifest manifest, final Object... content) throws IOException {
+        try (JarOutputStream target = manifest == null ? new JarOutputStream(new FileOutputStream(file)) : new JarOutputStream(new FileOutputStream(file), manifest)) {
+            for (int i = 0; i < content.length; i += 2) {
+                target.putNextEntry(new JarEntry((String) content[i]));
+                target.write((byte[]) content[i + 1]);
+                target.closeEntry();
+            }
+        }
+    }
+}
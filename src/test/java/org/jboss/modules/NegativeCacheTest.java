@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.jboss.modules.test.ImportedClass;
+import org.jboss.modules.test.TestClass;
+import org.jboss.modules.util.TestModuleLoader;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the negative lookup cache of class and resource misses.
+ */
+public class NegativeCacheTest extends AbstractModuleTestCase {
+
+    private static final String MODULE_ID = "test-negative-cache";
+    private static final String MISSING_CLASS = "org.jboss.modules.test.BogusClass";
+    private static final String MISSING_RESOURCE = "nested/bogus.txt";
+
+    static {
+        // the cache is disabled by default; forks are not reused, so this only affects this test class
+        System.setProperty("jboss.modules.negative-cache-size", "256");
+    }
+
+    private TestModuleLoader moduleLoader;
+
+    @Before
+    public void setupModuleLoader() throws Exception {
+        moduleLoader = new TestModuleLoader();
+        final ModuleSpec.Builder builder = ModuleSpec.build(MODULE_ID);
+        builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(
+            TestResourceLoader.build()
+                .addClass(TestClass.class)
+                .addResources(getResource("test/modulecontentloader/rootOne"))
+                .create()
+        ));
+        builder.addDependency(DependencySpec.createLocalDependencySpec());
+        moduleLoader.addModuleSpec(builder.create());
+    }
+
+    @Test
+    public void testClassMissIsCached() throws Exception {
+        final Module module = moduleLoader.loadModule(MODULE_ID);
+        assertMissing(module, MISSING_CLASS);
+        assertTrue(module.getLinkage().getMissingClasses().contains(MISSING_CLASS, NegativeCache.epoch()));
+        // a cached miss still fails the same way
+        assertMissing(module, MISSING_CLASS);
+        assertNotNull(module.getClassLoader().loadClass(TestClass.class.getName()));
+    }
+
+    @Test
+    public void testResourceMissIsCached() throws Exception {
+        final Module module = moduleLoader.loadModule(MODULE_ID);
+        assertNull(module.getClassLoader().getResource(MISSING_RESOURCE));
+        assertTrue(module.getLinkage().getMissingResources().contains(MISSING_RESOURCE, NegativeCache.epoch()));
+        assertNull(module.getClassLoader().getResource(MISSING_RESOURCE));
+        assertFalse(module.getClassLoader().getResources(MISSING_RESOURCE).hasMoreElements());
+        assertNull(module.getClassLoader().getResourceAsStream(MISSING_RESOURCE));
+        assertNotNull(module.getClassLoader().getResource("nested/nested.txt"));
+    }
+
+    @Test
+    public void testRelinkInvalidates() throws Exception {
+        final Module module = moduleLoader.loadModule(MODULE_ID);
+        assertMissing(module, MISSING_CLASS);
+        moduleLoader.relink(module);
+        assertFalse(module.getLinkage().getMissingClasses().contains(MISSING_CLASS, NegativeCache.epoch()));
+    }
+
+    @Test
+    public void testRefreshResourceLoadersInvalidates() throws Exception {
+        final Module module = moduleLoader.loadModule(MODULE_ID);
+        final String importedClass = ImportedClass.class.getName();
+        assertMissing(module, importedClass);
+        assertNull(module.getClassLoader().getResource("testTwo.txt"));
+
+        moduleLoader.setAndRefreshResourceLoaders(module, Arrays.asList(
+            ResourceLoaderSpec.createResourceLoaderSpec(
+                TestResourceLoader.build()
+                    .addClass(TestClass.class)
+                    .addResources(getResource("test/modulecontentloader/rootOne"))
+                    .create()
+            ),
+            ResourceLoaderSpec.createResourceLoaderSpec(
+                TestResourceLoader.build()
+                    .addClass(ImportedClass.class)
+                    .addResources(getResource("test/modulecontentloader/rootTwo"))
+                    .create()
+            )
+        ));
+
+        assertNotNull(module.getClassLoader().loadClass(importedClass));
+        assertNotNull(module.getClassLoader().getResource("testTwo.txt"));
+    }
+
+    private static void assertMissing(final Module module, final String className) {
+        try {
+            module.getClassLoader().loadClass(className);
+            fail("Expected ClassNotFoundException for " + className);
+        } catch (ClassNotFoundException expected) {
+        }
+    }
+}
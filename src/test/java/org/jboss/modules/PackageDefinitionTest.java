@@ -0,0 +1,209 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modules.util.TestModuleLoader;
+import org.junit.Test;
+
+/**
+ * Test package definition and sealing in module class loaders under concurrent class definition.
+ */
+public class PackageDefinitionTest extends AbstractModuleTestCase {
+
+    @Test
+    public void testConcurrentDefinitionAcrossPackages() throws Exception {
+        final int packageCount = 64;
+        final int classCount = 32;
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final List<String> classNames = new ArrayList<>();
+        final GeneratedResourceLoader resourceLoader = new GeneratedResourceLoader(new URL("file:/generated/"), null);
+        for (int i = 0; i < packageCount; i ++) {
+            for (int j = 0; j < classCount; j ++) {
+                final String className = "gen.p" + i + ".C" + j;
+                classNames.add(className);
+                resourceLoader.addClass(className);
+            }
+        }
+        final ModuleClassLoader classLoader = createModule("test-packages", resourceLoader).getClassLoader();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final List<Future<Void>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t ++) {
+                final List<String> order = new ArrayList<>(classNames);
+                Collections.rotate(order, t * classCount / 2);
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        latch.await();
+                        for (String className : order) {
+                            classLoader.loadClass(className);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            final long start = System.nanoTime();
+            latch.countDown();
+            for (Future<Void> future : futures) {
+                future.get(1L, TimeUnit.MINUTES);
+            }
+            final long elapsed = System.nanoTime() - start;
+            System.out.printf("Defined %d classes in %d packages from %d threads in %d ms%n", classNames.size(), packageCount, threads, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Map<String, Package> packages = new HashMap<>();
+        for (String className : classNames) {
+            final Class<?> loaded = classLoader.loadClass(className);
+            assertSame(classLoader, loaded.getClassLoader());
+            final Package pkg = loaded.getPackage();
+            assertNotNull(pkg);
+            final Package existing = packages.putIfAbsent(pkg.getName(), pkg);
+            if (existing != null) {
+                assertSame(existing, pkg);
+            }
+        }
+        assertEquals(packageCount, packages.size());
+    }
+
+    @Test
+    public void testSealedPackage() throws Exception {
+        final URL sealedUrl = new URL("file:/sealed/");
+        final GeneratedResourceLoader sealedLoader = new GeneratedResourceLoader(sealedUrl, sealedUrl);
+        sealedLoader.addClass("gen.sealed.A");
+        final GeneratedResourceLoader otherLoader = new GeneratedResourceLoader(new URL("file:/other/"), null);
+        otherLoader.addClass("gen.sealed.B");
+        final ModuleClassLoader classLoader = createModule("test-sealed", sealedLoader, otherLoader).getClassLoader();
+
+        final Package pkg = classLoader.loadClass("gen.sealed.A").getPackage();
+        assertTrue(pkg.isSealed());
+        assertTrue(pkg.isSealed(sealedUrl));
+        try {
+            classLoader.loadClass("gen.sealed.B");
+            fail("Expected sealing violation");
+        } catch (SecurityException expected) {
+            assertTrue(expected.getMessage().contains("sealing violation"));
+        }
+    }
+
+    private static Module createModule(final String name, final ResourceLoader... resourceLoaders) throws ModuleLoadException {
+        final TestModuleLoader moduleLoader = new TestModuleLoader();
+        final ModuleSpec.Builder builder = ModuleSpec.build(name);
+        for (ResourceLoader resourceLoader : resourceLoaders) {
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(resourceLoader));
+        }
+        builder.addDependency(DependencySpec.createLocalDependencySpec());
+        moduleLoader.addModuleSpec(builder.create());
+        return moduleLoader.loadModule(name);
+    }
+
+    /**
+     * Generate the bytes of an empty class which extends {@code Object}.
+     */
+    static byte[] generateClass(final String className) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(52);
+        // constant pool
+        out.writeShort(5);
+        out.writeByte(1);
+        out.writeUTF(className.replace('.', '/'));
+        out.writeByte(7);
+        out.writeShort(1);
+        out.writeByte(1);
+        out.writeUTF("java/lang/Object");
+        out.writeByte(7);
+        out.writeShort(3);
+        // ACC_PUBLIC | ACC_SUPER, this class, super class
+        out.writeShort(0x21);
+        out.writeShort(2);
+        out.writeShort(4);
+        // interfaces, fields, methods, attributes
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    static final class GeneratedResourceLoader extends AbstractResourceLoader {
+        private final Map<String, ClassSpec> classSpecs = new HashMap<>();
+        private final Collection<String> paths = new HashSet<>();
+        private final CodeSource codeSource;
+        private final URL sealBase;
+
+        GeneratedResourceLoader(final URL location, final URL sealBase) {
+            codeSource = new CodeSource(location, (CodeSigner[]) null);
+            this.sealBase = sealBase;
+        }
+
+        void addClass(final String className) throws IOException {
+            final ClassSpec classSpec = new ClassSpec();
+            classSpec.setBytes(generateClass(className));
+            classSpec.setCodeSource(codeSource);
+            classSpecs.put(Module.fileNameOfClass(className), classSpec);
+            paths.add(Module.pathOfClass(className));
+        }
+
+        public ClassSpec getClassSpec(final String fileName) {
+            return classSpecs.get(fileName);
+        }
+
+        public PackageSpec getPackageSpec(final String name) {
+            final PackageSpec spec = new PackageSpec();
+            spec.setSealBase(sealBase);
+            return spec;
+        }
+
+        public Collection<String> getPaths() {
+            return paths;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modules.filter.PathFilters;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Test;
+
+/**
+ * Test that preloading dependencies in parallel does not change the result of linking.
+ */
+public class ParallelLinkTest extends AbstractModuleTestCase {
+
+    private static final int MODULE_COUNT = 1000;
+
+    @Test
+    public void testGeneratedGraph() throws Exception {
+        final long seed = 12345L;
+        // modules are linked by the first call to getPaths()
+        long start = System.nanoTime();
+        final Module sequentialRoot = new ModuleLoader(new GraphModuleFinder(seed, null)).preloadModule("root");
+        final Map<String, List<LocalLoader>> sequentialPaths = sequentialRoot.getPaths();
+        final long sequential = System.nanoTime() - start;
+        start = System.nanoTime();
+        final Module parallelRoot = new ModuleLoader(new GraphModuleFinder(seed, null)).preloadModule("root");
+        DependencyPreloader.preload(parallelRoot.getDependenciesInternal());
+        final Map<String, List<LocalLoader>> parallelPaths = parallelRoot.getPaths();
+        final long parallel = System.nanoTime() - start;
+
+        assertTrue(sequentialPaths.size() > MODULE_COUNT / 2);
+        assertEquals(sequentialPaths.keySet(), parallelPaths.keySet());
+        for (Map.Entry<String, List<LocalLoader>> entry : sequentialPaths.entrySet()) {
+            if (! entry.getKey().startsWith("p")) {
+                // platform paths
+                continue;
+            }
+            final List<LocalLoader> parallelLoaders = parallelPaths.get(entry.getKey());
+            assertEquals(entry.getKey(), entry.getValue().size(), parallelLoaders.size());
+            for (int i = 0; i < parallelLoaders.size(); i ++) {
+                assertEquals(moduleNameOf(entry.getValue().get(i)), moduleNameOf(parallelLoaders.get(i)));
+            }
+        }
+        System.out.printf("Linked %d paths of %d generated modules: sequential %d ms, preloaded in parallel %d ms%n", sequentialPaths.size(), MODULE_COUNT,
+            TimeUnit.NANOSECONDS.toMillis(sequential), TimeUnit.NANOSECONDS.toMillis(parallel));
+    }
+
+    @Test
+    public void testMissingDependency() throws Exception {
+        final Module root = new ModuleLoader(new GraphModuleFinder(6789L, "m" + MODULE_COUNT / 2)).preloadModule("root");
+        DependencyPreloader.preload(root.getDependenciesInternal());
+        try {
+            root.getPaths();
+            fail("Expected ModuleNotFoundException");
+        } catch (ModuleNotFoundException expected) {
+        }
+    }
+
+    private static String moduleNameOf(final LocalLoader loader) {
+        // local loaders name their module class loader
+        final String string = loader.toString();
+        final int idx = string.indexOf("Module \"");
+        return string.substring(idx, string.indexOf('"', idx + 8));
+    }
+
+    /**
+     * Generates a graph where every module re-exports up to three modules with higher numbers, with a delay which
+     * simulates parsing the module descriptor and opening its resource roots.
+     */
+    static final class GraphModuleFinder implements ModuleFinder {
+        private final long seed;
+        private final String missing;
+        private final URL resourceUrl = GraphModuleFinder.class.getResource("/test/filesystem-module-1/test.txt");
+
+        GraphModuleFinder(final long seed, final String missing) {
+            this.seed = seed;
+            this.missing = missing;
+        }
+
+        public ModuleSpec findModule(final String name, final ModuleLoader delegateLoader) {
+            if (name.equals(missing)) {
+                return null;
+            }
+            final ModuleSpec.Builder builder = ModuleSpec.build(name);
+            if (name.equals("root")) {
+                builder.addDependency(DependencySpec.createModuleDependencySpec("m0"));
+                return builder.create();
+            }
+            if (! name.startsWith("m")) {
+                return null;
+            }
+            final int index = Integer.parseInt(name.substring(1));
+            try {
+                Thread.sleep(1L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build().addResource("p" + index + "/test.txt", resourceUrl).create()));
+            builder.addDependency(DependencySpec.createLocalDependencySpec(PathFilters.acceptAll(), PathFilters.acceptAll()));
+            final Random random = new Random(seed + index);
+            final int count = Math.min(3, MODULE_COUNT - 1 - index);
+            for (int i = 0; i < count; i ++) {
+                final int target = index + 1 + random.nextInt(Math.min(50, MODULE_COUNT - 1 - index));
+                builder.addDependency(DependencySpec.createModuleDependencySpec("m" + target, true));
+            }
+            return builder.create();
+        }
+    }
+}
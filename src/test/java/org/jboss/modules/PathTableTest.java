@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test the compact path table.
+ */
+public class PathTableTest {
+
+    @Test
+    public void testEmpty() {
+        assertNull(PathTable.of(null));
+        assertSame(Collections.emptyMap(), PathTable.of(new HashMap<String, List<Object>>()));
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        final Random random = new Random(3L);
+        for (int size : new int[] { 1, 2, 3, 5, 6, 17, 100, 4000 }) {
+            final Map<String, List<Object>> expected = createPaths(random, size, 8);
+            final Map<String, List<Object>> table = PathTable.of(expected);
+            assertEquals(expected, table);
+            assertEquals(expected.hashCode(), table.hashCode());
+            assertEquals(expected.keySet(), table.keySet());
+            assertEquals(size, table.size());
+            for (Map.Entry<String, List<Object>> entry : expected.entrySet()) {
+                assertTrue(table.containsKey(entry.getKey()));
+                assertEquals(entry.getValue(), table.get(entry.getKey()));
+                assertTrue(table.entrySet().contains(entry));
+            }
+            assertFalse(table.containsKey("missing/path"));
+            assertNull(table.get("missing/path"));
+            assertNull(table.get(Integer.valueOf(1)));
+            assertSame(table, PathTable.of(table));
+        }
+    }
+
+    @Test
+    public void testListsAreShared() {
+        final Object a = new Object();
+        final Object b = new Object();
+        final Map<String, List<Object>> map = new HashMap<>();
+        map.put("x", new ArrayList<>(Arrays.asList(a, b)));
+        map.put("y", new ArrayList<>(Arrays.asList(a, b)));
+        map.put("z", new ArrayList<>(Collections.singletonList(a)));
+        final Map<String, List<Object>> table = PathTable.of(map);
+        assertSame(table.get("x"), table.get("y"));
+        assertEquals(Collections.singletonList(a), table.get("z"));
+        try {
+            table.get("x").add(a);
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            table.put("w", Collections.emptyList());
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testHeapUsage() throws Exception {
+        // a synthetic graph of 800 modules with 2000 visible packages each
+        final int modules = 800;
+        final int packages = 2000;
+        final Random random = new Random(5L);
+        final Map<String, List<Object>> template = createPaths(random, packages, 16);
+        final Object[] retained = new Object[modules];
+        final long base = usedHeap();
+        for (int i = 0; i < modules; i ++) {
+            retained[i] = hashMapCopy(template);
+        }
+        final long hashMaps = usedHeap() - base;
+        Arrays.fill(retained, null);
+        final long base2 = usedHeap();
+        for (int i = 0; i < modules; i ++) {
+            retained[i] = PathTable.of(template);
+        }
+        final long tables = usedHeap() - base2;
+        System.out.printf("Path maps for %d modules with %d packages each: hash maps %d KiB, path tables %d KiB%n", modules, packages, hashMaps / 1024, tables / 1024);
+        assertEquals(modules, retained.length);
+    }
+
+    private static Map<String, List<Object>> hashMapCopy(final Map<String, List<Object>> template) {
+        // the representation used before path tables were introduced
+        final Map<String, List<Object>> newPaths = new HashMap<>();
+        final Map<List<Object>, List<Object>> dedup = new HashMap<>();
+        for (Map.Entry<String, List<Object>> e : template.entrySet()) {
+            List<Object> l = dedup.get(e.getValue());
+            if (l == null) {
+                dedup.put(e.getValue(), l = Collections.unmodifiableList(new ArrayList<>(e.getValue())));
+            }
+            newPaths.put(e.getKey(), l);
+        }
+        return Collections.unmodifiableMap(newPaths);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i ++) {
+            System.gc();
+            Thread.sleep(20L);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static Map<String, List<Object>> createPaths(final Random random, final int size, final int loaderCount) {
+        final Object[] loaders = new Object[loaderCount];
+        for (int i = 0; i < loaderCount; i ++) {
+            loaders[i] = new Object();
+        }
+        final Map<String, List<Object>> map = new HashMap<>();
+        while (map.size() < size) {
+            final StringBuilder b = new StringBuilder("org");
+            final int segments = 1 + random.nextInt(4);
+            for (int i = 0; i < segments; i ++) {
+                b.append('/').append((char) ('a' + random.nextInt(26))).append(random.nextInt(50));
+            }
+            final List<Object> list = new ArrayList<>();
+            list.add(loaders[random.nextInt(loaderCount)]);
+            if (random.nextInt(4) == 0) {
+                list.add(loaders[random.nextInt(loaderCount)]);
+            }
+            map.put(b.toString(), list);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test the compiled prefix matcher used for system packages.
+ */
+public class PrefixMatcherTest {
+
+    @Test
+    public void testEmpty() {
+        final PrefixMatcher matcher = PrefixMatcher.compile();
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches("java.lang.Object"));
+    }
+
+    @Test
+    public void testPrefixes() {
+        final PrefixMatcher matcher = PrefixMatcher.compile("org.jboss.logmanager.", "org.jboss.byteman.", "sun.", "org.jboss.");
+        assertTrue(matcher.matches("org.jboss.logmanager.Logger"));
+        assertTrue(matcher.matches("org.jboss.modules.Module"));
+        assertTrue(matcher.matches("sun.misc.Unsafe"));
+        assertTrue(matcher.matches("sun."));
+        assertFalse(matcher.matches("sun"));
+        assertFalse(matcher.matches("sunny.Day"));
+        assertFalse(matcher.matches("org.jbos"));
+        assertFalse(matcher.matches("com.sun.Foo"));
+        assertFalse(matcher.matches(""));
+    }
+
+    @Test
+    public void testAgainstLinearScan() {
+        final Random random = new Random(7L);
+        final String[] prefixes = createPackageList(random, 200);
+        final PrefixMatcher matcher = PrefixMatcher.compile(prefixes);
+        final List<String> names = createClassNames(random, prefixes, 10000);
+        for (String name : names) {
+            assertEquals(name, linearMatches(prefixes, name), matcher.matches(name));
+        }
+    }
+
+    @Test
+    public void testMatchTimes() {
+        final Random random = new Random(11L);
+        for (int size : new int[] { 2, 20, 200 }) {
+            final String[] prefixes = createPackageList(random, size);
+            final PrefixMatcher matcher = PrefixMatcher.compile(prefixes);
+            final List<String> names = createClassNames(random, prefixes, 10000);
+            final int rounds = 50;
+            int hits = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i ++) {
+                for (String name : names) {
+                    if (linearMatches(prefixes, name)) hits ++;
+                }
+            }
+            final long linear = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < rounds; i ++) {
+                for (String name : names) {
+                    if (matcher.matches(name)) hits --;
+                }
+            }
+            final long compiled = System.nanoTime() - start;
+            assertEquals(0, hits);
+            System.out.printf("Matched %d names against %d prefixes: linear %d ms, compiled %d ms%n", names.size() * rounds, size,
+                TimeUnit.NANOSECONDS.toMillis(linear), TimeUnit.NANOSECONDS.toMillis(compiled));
+        }
+    }
+
+    private static boolean linearMatches(final String[] prefixes, final String name) {
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final String[] ROOTS = { "org.jboss.", "org.apache.", "com.sun.", "org.wildfly.", "io.netty.", "javax.", "jdk.internal." };
+
+    private static String[] createPackageList(final Random random, final int size) {
+        final String[] prefixes = new String[size];
+        for (int i = 0; i < size; i ++) {
+            final StringBuilder b = new StringBuilder(ROOTS[random.nextInt(ROOTS.length)]);
+            final int segments = 1 + random.nextInt(3);
+            for (int j = 0; j < segments; j ++) {
+                b.append(randomSegment(random)).append('.');
+            }
+            prefixes[i] = b.toString();
+        }
+        return prefixes;
+    }
+
+    private static List<String> createClassNames(final Random random, final String[] prefixes, final int count) {
+        final List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i ++) {
+            final String base = random.nextBoolean() ? prefixes[random.nextInt(prefixes.length)] : ROOTS[random.nextInt(ROOTS.length)] + randomSegment(random) + ".";
+            names.add(base + "impl.Class" + i);
+        }
+        return names;
+    }
+
+    private static String randomSegment(final Random random) {
+        final char[] chars = new char[2 + random.nextInt(8)];
+        for (int i = 0; i < chars.length; i ++) {
+            chars[i] = (char) ('a' + random.nextInt(4));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.URL;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modules.PackageDefinitionTest.GeneratedResourceLoader;
+import org.jboss.modules.util.TestModuleLoader;
+import org.junit.Test;
+
+/**
+ * Test the protection domains assigned to classes defined by module class loaders.
+ */
+public class ProtectionDomainTest extends AbstractModuleTestCase {
+
+    @Test
+    public void testEqualCodeSourcesShareDomain() throws Exception {
+        final GeneratedResourceLoader first = new GeneratedResourceLoader(new URL("file:/shared/"), null);
+        first.addClass("gen.pd.A");
+        final GeneratedResourceLoader second = new GeneratedResourceLoader(new URL("file:/shared/"), null);
+        second.addClass("gen.pd.B");
+        final GeneratedResourceLoader other = new GeneratedResourceLoader(new URL("file:/other/"), null);
+        other.addClass("gen.pd.C");
+        final ModuleClassLoader classLoader = loadModule("test-pd", first, second, other).getClassLoader();
+
+        final ProtectionDomain a = classLoader.loadClass("gen.pd.A").getProtectionDomain();
+        assertSame(a, classLoader.loadClass("gen.pd.B").getProtectionDomain());
+        assertNotSame(a, classLoader.loadClass("gen.pd.C").getProtectionDomain());
+        assertSame(classLoader, a.getClassLoader());
+    }
+
+    @Test
+    public void testDomainsAreNotSharedAcrossModules() throws Exception {
+        final GeneratedResourceLoader first = new GeneratedResourceLoader(new URL("file:/shared/"), null);
+        first.addClass("gen.pd.A");
+        final GeneratedResourceLoader second = new GeneratedResourceLoader(new URL("file:/shared/"), null);
+        second.addClass("gen.pd.A");
+        final ModuleClassLoader firstLoader = loadModule("test-pd-1", first).getClassLoader();
+        final ModuleClassLoader secondLoader = loadModule("test-pd-2", second).getClassLoader();
+
+        // a protection domain identifies its defining class loader
+        final ProtectionDomain firstDomain = firstLoader.loadClass("gen.pd.A").getProtectionDomain();
+        final ProtectionDomain secondDomain = secondLoader.loadClass("gen.pd.A").getProtectionDomain();
+        assertNotSame(firstDomain, secondDomain);
+        assertSame(firstLoader, firstDomain.getClassLoader());
+        assertSame(secondLoader, secondDomain.getClassLoader());
+    }
+
+    @Test
+    public void testConcurrentDefinitionsShareDomain() throws Exception {
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final GeneratedResourceLoader resourceLoader = new GeneratedResourceLoader(new URL("file:/concurrent/"), null);
+        for (int i = 0; i < threads; i ++) {
+            resourceLoader.addClass("gen.pd.C" + i);
+        }
+        final ModuleClassLoader classLoader = loadModule("test-pd-concurrent", resourceLoader).getClassLoader();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<ProtectionDomain>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i ++) {
+                final String className = "gen.pd.C" + i;
+                futures.add(executor.submit(() -> classLoader.loadClass(className).getProtectionDomain()));
+            }
+            final ProtectionDomain expected = futures.get(0).get(1L, TimeUnit.MINUTES);
+            for (Future<ProtectionDomain> future : futures) {
+                assertSame(expected, future.get(1L, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Module loadModule(final String name, final ResourceLoader... resourceLoaders) throws ModuleLoadException {
+        final TestModuleLoader moduleLoader = new TestModuleLoader();
+        final ModuleSpec.Builder builder = ModuleSpec.build(name);
+        for (ResourceLoader resourceLoader : resourceLoaders) {
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(resourceLoader));
+        }
+        builder.addDependency(DependencySpec.createLocalDependencySpec());
+        moduleLoader.addModuleSpec(builder.create());
+        return moduleLoader.loadModule(name);
+    }
+}
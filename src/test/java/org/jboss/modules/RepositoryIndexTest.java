@@ -0,0 +1,246 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modules.util.TestModuleLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test the module repository index.
+ */
+public class RepositoryIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testFind() throws Exception {
+        final File root = temporaryFolder.newFolder("repo");
+        writeModule(root, "a");
+        writeModule(root, "a-b");
+        writeModule(root, "b.c");
+        writeModule(root, "b.c:1.0");
+        writeModule(root, "b.c.d");
+        final RepositoryIndex generated = RepositoryIndex.generate(root);
+        assertEquals(5, generated.getModuleCount());
+        final RepositoryIndex index = RepositoryIndex.read(root);
+        assertNotNull(index);
+        assertEquals(5, index.getModuleCount());
+        assertEquals(RepositoryIndex.PRESENT, index.find("a/main"));
+        assertEquals(RepositoryIndex.PRESENT, index.find("a-b/main"));
+        assertEquals(RepositoryIndex.PRESENT, index.find("b/c/1.0"));
+        assertEquals(RepositoryIndex.ABSENT, index.find("a"));
+        assertEquals(RepositoryIndex.ABSENT, index.find("a/other"));
+        assertEquals(RepositoryIndex.ABSENT, index.find("x/y/main"));
+        assertEquals(RepositoryIndex.ABSENT, index.find("b/c/d/e/main"));
+
+        assertEquals(Arrays.asList("a-b/main", "a/main", "b/c/1.0", "b/c/d/main", "b/c/main"), sorted(index.list("", true)));
+        assertEquals(Arrays.asList("b/c/1.0", "b/c/d/main", "b/c/main"), sorted(index.list("b", true)));
+        assertEquals(Collections.singletonList("b/c/main"), index.list("b/c/main", false));
+        assertEquals(Collections.emptyList(), index.list("b/c", false));
+        assertEquals(Collections.emptyList(), index.list("x", true));
+    }
+
+    @Test
+    public void testStale() throws Exception {
+        final File root = temporaryFolder.newFolder("repo");
+        writeModule(root, "a.b");
+        writeModule(root, "c");
+        RepositoryIndex.generate(root);
+
+        // a new module in an existing directory
+        writeModule(root, "a.x");
+        assertEquals(RepositoryIndex.STALE, RepositoryIndex.read(root).find("a/x/main"));
+        assertEquals(RepositoryIndex.PRESENT, RepositoryIndex.read(root).find("c/main"));
+        assertNull(RepositoryIndex.read(root).list("a", true));
+        RepositoryIndex.generate(root);
+        assertEquals(RepositoryIndex.PRESENT, RepositoryIndex.read(root).find("a/x/main"));
+
+        // a removed module
+        final File moduleXml = new File(root, "c/main/module.xml");
+        assertTrue(moduleXml.delete());
+        touch(moduleXml.getParentFile());
+        assertEquals(RepositoryIndex.STALE, RepositoryIndex.read(root).find("c/main"));
+
+        // a truncated index
+        RepositoryIndex.generate(root);
+        final File indexFile = new File(root, RepositoryIndex.FILE_NAME);
+        final byte[] bytes = Files.readAllBytes(indexFile.toPath());
+        Files.write(indexFile.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+        assertNull(RepositoryIndex.read(root));
+    }
+
+    @Test
+    public void testFinder() throws Exception {
+        final File first = temporaryFolder.newFolder("first");
+        final File second = temporaryFolder.newFolder("second");
+        writeModule(first, "a");
+        writeModule(second, "a");
+        writeModule(second, "b");
+        writeModule(second, "c.d");
+        RepositoryIndex.generate(first);
+        RepositoryIndex.generate(second);
+        final File[] roots = { first, second };
+        final TestModuleLoader moduleLoader = new TestModuleLoader();
+
+        LocalModuleFinder finder = new LocalModuleFinder(roots);
+        assertEquals("first", findRoot(finder, "a", moduleLoader));
+        assertEquals("second", findRoot(finder, "b", moduleLoader));
+        assertNull(finder.findModule("x", moduleLoader));
+        assertEquals(Arrays.asList("a", "b", "c.d"), iterate(finder, moduleLoader));
+        final byte[] firstIndex = Files.readAllBytes(new File(first, RepositoryIndex.FILE_NAME).toPath());
+
+        // a module added to a root with an index is found by the finder which already missed it
+        writeModule(first, "x");
+        touch(first);
+        assertNotNull(finder.findModule("x", moduleLoader));
+
+        // and by a new finder, which leaves the stale index alone
+        writeModule(first, "c.e");
+        touch(new File(first, "c"));
+        finder = new LocalModuleFinder(roots);
+        assertNotNull(finder.findModule("c.e", moduleLoader));
+        assertArrayEquals(firstIndex, Files.readAllBytes(new File(first, RepositoryIndex.FILE_NAME).toPath()));
+        assertEquals(RepositoryIndex.STALE, RepositoryIndex.read(first).find("c/e/main"));
+        assertEquals(Arrays.asList("a", "b", "c.d", "c.e", "x"), iterate(finder, moduleLoader));
+        assertEquals(Collections.singletonList("c.e"), toList(finder.iterateModules("c.e", false, moduleLoader)));
+    }
+
+    @Test
+    public void testProbeTimes() throws Exception {
+        final int rootCount = 8;
+        final int moduleCount = 2000;
+        final File[] roots = new File[rootCount];
+        final List<String> children = new ArrayList<>();
+        for (int i = 0; i < rootCount; i ++) {
+            roots[i] = temporaryFolder.newFolder("root" + i);
+        }
+        for (int i = 0; i < moduleCount; i ++) {
+            final String name = "org.example" + i % 10 + ".module" + i;
+            // most modules are in the last roots, as in a layered installation
+            writeModule(roots[rootCount - 1 - i % 2], name);
+            children.add(PathUtils.basicModuleNameToPath(name));
+        }
+        for (File root : roots) {
+            RepositoryIndex.generate(root);
+        }
+        // warm up
+        probe(roots, children);
+        find(roots, children);
+        long start = System.nanoTime();
+        final int probed = probe(roots, children);
+        final long probeTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        final int found = find(roots, children);
+        final long indexTime = System.nanoTime() - start;
+        assertEquals(moduleCount, probed);
+        assertEquals(moduleCount, found);
+        System.out.printf("Found %d modules in %d roots: probing %d ms, index %d ms%n", Integer.valueOf(moduleCount), Integer.valueOf(rootCount),
+            Long.valueOf(TimeUnit.NANOSECONDS.toMillis(probeTime)), Long.valueOf(TimeUnit.NANOSECONDS.toMillis(indexTime)));
+    }
+
+    private static int probe(final File[] roots, final List<String> children) {
+        int found = 0;
+        for (String child : children) {
+            for (File root : roots) {
+                if (new File(new File(root, child), "module.xml").exists()) {
+                    found ++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int find(final File[] roots, final List<String> children) {
+        final RepositoryIndex[] indexes = new RepositoryIndex[roots.length];
+        for (int i = 0; i < roots.length; i ++) {
+            indexes[i] = RepositoryIndex.read(roots[i]);
+        }
+        int found = 0;
+        for (String child : children) {
+            for (RepositoryIndex index : indexes) {
+                if (index.find(child) == RepositoryIndex.PRESENT) {
+                    found ++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static String findRoot(final LocalModuleFinder finder, final String name, final ModuleLoader moduleLoader) throws ModuleLoadException {
+        final ModuleSpec spec = finder.findModule(name, moduleLoader);
+        assertNotNull(name, spec);
+        assertEquals(name, spec.getName());
+        // the main class names the root of the module
+        return ((ConcreteModuleSpec) spec).getMainClass();
+    }
+
+    private static List<String> iterate(final LocalModuleFinder finder, final ModuleLoader moduleLoader) {
+        return sorted(toList(finder.iterateModules(null, true, moduleLoader)));
+    }
+
+    private static List<String> toList(final Iterator<String> iterator) {
+        final List<String> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static List<String> sorted(final List<String> list) {
+        assertNotNull(list);
+        final List<String> sorted = new ArrayList<>(list);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static void touch(final File dir) throws IOException {
+        Files.setLastModifiedTime(dir.toPath(), FileTime.fromMillis(System.currentTimeMillis() + 10000L));
+    }
+
+    private static void writeModule(final File root, final String name) throws IOException {
+        final File dir = new File(root, PathUtils.basicModuleNameToPath(name));
+        assertTrue(dir.isDirectory() || dir.mkdirs());
+        final String content = "<module xmlns=\"urn:jboss:module:1.9\" name=\"" + name + "\">\n"
+            + "    <main-class name=\"" + root.getName() + "\"/>\n"
+            + "</module>\n";
+        Files.write(new File(dir, "module.xml").toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.modules.filter.PathFilters;
+import org.jboss.modules.util.TestModuleLoader;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that modules with identical dependencies share their tables of imports.
+ */
+public class SharedLinkageTest extends AbstractModuleTestCase {
+
+    private TestModuleLoader moduleLoader;
+    private URL content;
+
+    @Before
+    public void setupModuleLoader() throws Exception {
+        assumeTrue(ExportCache.ENABLED);
+        moduleLoader = new TestModuleLoader();
+        content = getClass().getResource("/test/filesystem-module-1/test.txt");
+        addModule("api-a", "shared/p/a.txt", "api/a/a.txt");
+        addModule("api-b", "shared/p/b.txt", "api/b/b.txt");
+        for (String name : new String[] { "dep-1", "dep-2" }) {
+            final ModuleSpec.Builder builder = ModuleSpec.build(name);
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build()
+                .addResource("shared/p/" + name + ".txt", content)
+                .addResource("own/" + name + "/x.txt", content)
+                .create()));
+            builder.addDependency(DependencySpec.createModuleDependencySpec("api-a"));
+            builder.addDependency(DependencySpec.createLocalDependencySpec());
+            builder.addDependency(DependencySpec.createModuleDependencySpec("api-b"));
+            moduleLoader.addModuleSpec(builder.create());
+        }
+        for (String name : new String[] { "opt-1", "opt-2" }) {
+            final ModuleSpec.Builder builder = ModuleSpec.build(name);
+            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build().addResource("own/" + name + "/x.txt", content).create()));
+            builder.addDependency(DependencySpec.createLocalDependencySpec());
+            builder.addDependency(DependencySpec.createModuleDependencySpec("api-a"));
+            builder.addDependency(new ModuleDependencySpecBuilder().setName("missing").setOptional(true).build());
+            moduleLoader.addModuleSpec(builder.create());
+        }
+    }
+
+    private void addModule(final String name, final String... resources) {
+        final ModuleSpec.Builder builder = ModuleSpec.build(name);
+        final TestResourceLoader.TestResourceLoaderBuilder resourceLoaderBuilder = TestResourceLoader.build();
+        for (String resource : resources) {
+            resourceLoaderBuilder.addResource(resource, content);
+        }
+        builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(resourceLoaderBuilder.create()));
+        builder.addDependency(new LocalDependencySpecBuilder().setExportFilter(PathFilters.acceptAll()).build());
+        moduleLoader.addModuleSpec(builder.create());
+    }
+
+    @Test
+    public void testIdenticalDependenciesShareImports() throws Exception {
+        final Module first = moduleLoader.loadModule("dep-1");
+        final Module second = moduleLoader.loadModule("dep-2");
+        final Map<String, List<LocalLoader>> firstPaths = first.getPaths();
+        final Map<String, List<LocalLoader>> secondPaths = second.getPaths();
+
+        // imports which do not involve the module's own class loader are shared
+        assertNotNull(firstPaths.get("api/a"));
+        assertSame(firstPaths.get("api/a"), secondPaths.get("api/a"));
+        assertSame(firstPaths.get("api/b"), secondPaths.get("api/b"));
+
+        // own paths are not visible to the other module
+        assertTrue(firstPaths.containsKey("own/dep-1"));
+        assertFalse(firstPaths.containsKey("own/dep-2"));
+        assertTrue(secondPaths.containsKey("own/dep-2"));
+        assertFalse(secondPaths.containsKey("own/dep-1"));
+        assertEquals(firstPaths.size(), secondPaths.size());
+        assertEquals(firstPaths.size(), firstPaths.keySet().size());
+
+        // the own class loader is merged in dependency order
+        final List<LocalLoader> firstShared = firstPaths.get("shared/p");
+        final List<LocalLoader> secondShared = secondPaths.get("shared/p");
+        assertEquals(3, firstShared.size());
+        assertEquals(3, secondShared.size());
+        assertSame(firstShared.get(0), secondShared.get(0));
+        assertNotSame(firstShared.get(1), secondShared.get(1));
+        assertSame(firstShared.get(2), secondShared.get(2));
+        assertSame(first.getClassLoader().getLocalLoader(), firstShared.get(1));
+        assertSame(second.getClassLoader().getLocalLoader(), secondShared.get(1));
+
+        assertNotNull(first.getClassLoader().getResource("shared/p/a.txt"));
+        assertNotNull(first.getClassLoader().getResource("shared/p/dep-1.txt"));
+        assertNotNull(first.getClassLoader().getResource("shared/p/b.txt"));
+        assertEquals(null, first.getClassLoader().getResource("shared/p/dep-2.txt"));
+        assertNotNull(second.getClassLoader().getResource("own/dep-2/x.txt"));
+    }
+
+    @Test
+    public void testMissingOptionalDependencyIsNotShared() throws Exception {
+        final Map<String, List<LocalLoader>> firstPaths = moduleLoader.loadModule("opt-1").getPaths();
+        final Map<String, List<LocalLoader>> secondPaths = moduleLoader.loadModule("opt-2").getPaths();
+        assertEquals(firstPaths.get("api/a"), secondPaths.get("api/a"));
+        assertNotSame(firstPaths.get("api/a"), secondPaths.get("api/a"));
+    }
+}
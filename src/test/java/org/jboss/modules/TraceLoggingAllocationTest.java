@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jboss.modules.log.JDKModuleLogger;
+import org.jboss.modules.log.NoopModuleLogger;
+import org.jboss.modules.log.StreamModuleLogger;
+import org.jboss.modules.test.TestClass;
+import org.jboss.modules.util.TestModuleLoader;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Test;
+
+/**
+ * Test that disabled trace logging does not allocate on the class loading hot path.
+ */
+public class TraceLoggingAllocationTest extends AbstractModuleTestCase {
+
+    @Test
+    public void testTraceEnabled() {
+        assertFalse(NoopModuleLogger.getInstance().isTraceEnabled());
+        assertTrue(new StreamModuleLogger(System.err).isTraceEnabled());
+        final Logger logger = Logger.getLogger("org.jboss.modules.test.trace");
+        final JDKModuleLogger jdkModuleLogger = new JDKModuleLogger(logger, logger);
+        logger.setLevel(Level.INFO);
+        assertFalse(jdkModuleLogger.isTraceEnabled());
+        logger.setLevel(Level.ALL);
+        assertTrue(jdkModuleLogger.isTraceEnabled());
+    }
+
+    @Test
+    public void testWarmClassCacheHitAllocations() throws Exception {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        final Method getAllocatedBytes;
+        try {
+            getAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ClassNotFoundException e) {
+            // allocation counters are not available on this JVM
+            return;
+        }
+        final TestModuleLoader moduleLoader = new TestModuleLoader();
+        final ModuleSpec.Builder builder = ModuleSpec.build("test-trace");
+        builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build().addClass(TestClass.class).create()));
+        builder.addDependency(DependencySpec.createLocalDependencySpec());
+        moduleLoader.addModuleSpec(builder.create());
+        final ModuleClassLoader classLoader = moduleLoader.loadModule("test-trace").getClassLoader();
+        final String className = TestClass.class.getName();
+        final Class<?> loaded = classLoader.loadClass(className);
+        final long threadId = Thread.currentThread().getId();
+        final int iterations = 100000;
+        final long allocated;
+        Module.setModuleLogger(NoopModuleLogger.getInstance());
+        try {
+            // warm up, so that the measurement is not disturbed by compilation
+            for (int i = 0; i < iterations; i ++) {
+                assertSame(loaded, classLoader.loadClass(className));
+                assertSame(loaded, classLoader.loadClassLocal(className));
+            }
+            // measure the counter itself, which may allocate when called reflectively
+            long start = (Long) getAllocatedBytes.invoke(threadMXBean, threadId);
+            final long overhead = (Long) getAllocatedBytes.invoke(threadMXBean, threadId) - start;
+            start = (Long) getAllocatedBytes.invoke(threadMXBean, threadId);
+            for (int i = 0; i < iterations; i ++) {
+                classLoader.loadClass(className);
+                classLoader.loadClassLocal(className);
+            }
+            allocated = (Long) getAllocatedBytes.invoke(threadMXBean, threadId) - start - overhead;
+        } finally {
+            Module.setModuleLogger(new StreamModuleLogger(System.err));
+        }
+        System.out.printf("Allocated %d bytes for %d warm class cache hits%n", allocated, iterations * 2);
+        assertEquals(0L, allocated / iterations);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.modules;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import org.jboss.modules.log.NoopModuleLogger;
+import org.jboss.modules.log.StreamModuleLogger;
+import org.jboss.modules.test.ImportedClass;
+import org.jboss.modules.test.TestClass;
+import org.jboss.modules.util.TestModuleLoader;
+import org.jboss.modules.util.TestResourceLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the non-throwing class lookup methods.
+ */
+public class TryLoadClassTest extends AbstractModuleTestCase {
+
+    private static final String MISSING_CLASS = "org.jboss.modules.test.BogusClass";
+
+    private TestModuleLoader moduleLoader;
+
+    @Before
+    public void setupModuleLoader() throws Exception {
+        moduleLoader = new TestModuleLoader();
+        final ModuleSpec.Builder importedBuilder = ModuleSpec.build("test-imported");
+        importedBuilder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build().addClass(ImportedClass.class).create()));
+        importedBuilder.addDependency(DependencySpec.createLocalDependencySpec());
+        moduleLoader.addModuleSpec(importedBuilder.create());
+        final ModuleClassLoader importedLoader = moduleLoader.loadModule("test-imported").getClassLoader();
+
+        final ModuleSpec.Builder builder = ModuleSpec.build("test-importing");
+        builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(TestResourceLoader.build().addClass(TestClass.class).create()));
+        builder.addDependency(DependencySpec.createClassLoaderDependencySpec(importedLoader, Collections.singleton("org/jboss/modules/test")));
+        builder.addDependency(DependencySpec.createLocalDependencySpec());
+        moduleLoader.addModuleSpec(builder.create());
+    }
+
+    @Test
+    public void testTryLoadClass() throws Exception {
+        final ModuleClassLoader classLoader = moduleLoader.loadModule("test-importing").getClassLoader();
+        assertSame(classLoader, classLoader.tryLoadClass(TestClass.class.getName()).getClassLoader());
+        final Class<?> importedClass = classLoader.tryLoadClass(ImportedClass.class.getName());
+        assertNotNull(importedClass);
+        assertSame(moduleLoader.loadModule("test-imported").getClassLoader(), importedClass.getClassLoader());
+        assertNull(classLoader.tryLoadClass(MISSING_CLASS));
+        assertNull(classLoader.tryLoadClass("[L" + MISSING_CLASS + ";"));
+        try {
+            classLoader.loadClass(MISSING_CLASS);
+            fail("Expected ClassNotFoundException");
+        } catch (ClassNotFoundException expected) {
+        }
+    }
+
+    @Test
+    public void testMissAllocations() throws Exception {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        final Method getAllocatedBytes;
+        try {
+            getAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ClassNotFoundException e) {
+            // allocation counters are not available on this JVM
+            return;
+        }
+        final ModuleClassLoader classLoader = moduleLoader.loadModule("test-importing").getClassLoader();
+        final long threadId = Thread.currentThread().getId();
+        final int iterations = 10000;
+        final long throwing;
+        final long returning;
+        // trace logging would dominate the allocations
+        Module.setModuleLogger(NoopModuleLogger.getInstance());
+        try {
+            // warm up both paths
+            missWithException(classLoader, iterations);
+            missWithoutException(classLoader, iterations);
+            long start = (Long) getAllocatedBytes.invoke(threadMXBean, threadId);
+            missWithException(classLoader, iterations);
+            throwing = (Long) getAllocatedBytes.invoke(threadMXBean, threadId) - start;
+            start = (Long) getAllocatedBytes.invoke(threadMXBean, threadId);
+            missWithoutException(classLoader, iterations);
+            returning = (Long) getAllocatedBytes.invoke(threadMXBean, threadId) - start;
+        } finally {
+            Module.setModuleLogger(new StreamModuleLogger(System.err));
+        }
+        System.out.printf("Allocated per miss: loadClass %d bytes, tryLoadClass %d bytes%n", throwing / iterations, returning / iterations);
+    }
+
+    private static void missWithException(final ModuleClassLoader classLoader, final int iterations) {
+        for (int i = 0; i < iterations; i ++) {
+            try {
+                classLoader.loadClass(MISSING_CLASS);
+                fail("Expected ClassNotFoundException");
+            } catch (ClassNotFoundException expected) {
+            }
+        }
+    }
+
+    private static void missWithoutException(final ModuleClassLoader classLoader, final int iterations) {
+        for (int i = 0; i < iterations; i ++) {
+            assertNull(classLoader.tryLoadClass(MISSING_CLASS));
+        }
+    }
+}
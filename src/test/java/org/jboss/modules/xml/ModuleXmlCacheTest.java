@@ -0,0 +1,303 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jboss.modules.AbstractModuleTestCase;
+import org.jboss.modules.ConcreteModuleSpec;
+import org.jboss.modules.DependencySpec;
+import org.jboss.modules.ModuleLoadException;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.modules.ModuleSpec;
+import org.jboss.modules.util.TestModuleLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the persistent cache of parsed {@code module.xml} descriptors.
+ */
+public class ModuleXmlCacheTest extends AbstractModuleTestCase {
+
+    private static final int MODULES = 600;
+
+    private static final ModuleLoader MODULE_LOADER = new TestModuleLoader();
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("jboss-modules-xml-cache-");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted((a, b) -> b.compareTo(a)).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testReplayMatchesXml() throws Exception {
+        final ModuleXmlCache cache = new ModuleXmlCache(directory.resolve("cache"));
+        final List<Path> files;
+        try (Stream<Path> paths = Files.walk(getResource("test/repo").toPath())) {
+            files = paths.filter(path -> path.getFileName().toString().equals("module.xml")).collect(Collectors.toList());
+        }
+        assertFalse(files.isEmpty());
+        for (Path path : files) {
+            final ModuleXmlCache.Descriptor cold = cache.read(path.toFile());
+            assertFalse(path.toString(), cold.isCached());
+            cold.store();
+            final ModuleXmlCache.Descriptor warm = cache.read(path.toFile());
+            assertTrue(path.toString(), warm.isCached());
+            assertEvents(path.toString(), cache.read(path.toFile()).getParser(), createParser(path));
+        }
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        final ModuleXmlCache cache = new ModuleXmlCache(directory.resolve("cache"));
+        final File file = writeModule(directory, 0, 1).toFile();
+        final long modified = file.lastModified();
+        cache.read(file).store();
+        assertTrue(cache.read(file).isCached());
+
+        // same size and modification time, different content
+        final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Files.write(file.toPath(), content.replace("module-0-dep-0", "module-0-dep-X").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(modified));
+        assertFalse(cache.read(file).isCached());
+
+        // different modification time
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(modified + 2000L));
+        assertFalse(cache.read(file).isCached());
+        cache.read(file).store();
+        assertTrue(cache.read(file).isCached());
+
+        // different size
+        Files.write(file.toPath(), (content + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(modified + 2000L));
+        assertFalse(cache.read(file).isCached());
+
+        // damaged cache file
+        cache.read(file).store();
+        try (Stream<Path> paths = Files.list(directory.resolve("cache"))) {
+            for (Path cacheFile : paths.collect(Collectors.toList())) {
+                final byte[] bytes = Files.readAllBytes(cacheFile);
+                Files.write(cacheFile, Arrays.copyOf(bytes, bytes.length - 3));
+            }
+        }
+        assertFalse(cache.read(file).isCached());
+    }
+
+    @Test
+    public void testInvalidStringIndex() throws Exception {
+        // one string, then a module element whose name is string 0 and whose namespace is the given index
+        assertNotNull(ModuleXmlCache.readTokens(new ModuleXmlCache.Input(tokens(0)), "test"));
+        try {
+            ModuleXmlCache.readTokens(new ModuleXmlCache.Input(tokens(-1)), "test");
+            fail("Expected IOException");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static byte[] tokens(final int namespace) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[] { 1, 6, 'm', 'o', 'd', 'u', 'l', 'e', 6, XmlPullParser.START_TAG, 1 });
+        writeVarInt(bytes, namespace);
+        bytes.write(new byte[] { 0, 0, XmlPullParser.END_TAG });
+        return bytes.toByteArray();
+    }
+
+    private static void writeVarInt(final ByteArrayOutputStream os, int value) {
+        while ((value & ~0x7f) != 0) {
+            os.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        os.write(value);
+    }
+
+    @Test
+    public void testParseMatchesXml() throws Exception {
+        final ModuleXmlCache cache = new ModuleXmlCache(directory.resolve("cache"));
+        final Path root = directory.resolve("modules");
+        for (int i = 0; i < 10; i ++) {
+            final Path file = writeModule(root, i, 4);
+            final ModuleSpec expected = ModuleXmlParser.parseModuleXml(MODULE_LOADER, "module-" + i, file.getParent().toFile(), file.toFile());
+            final ModuleSpec cold = ModuleXmlParser.parseModuleXml(ModuleXmlParser.ResourceRootFactory.getDefault(), MODULE_LOADER, "module-" + i, file.getParent().toFile(), file.toFile(), cache);
+            final ModuleSpec warm = ModuleXmlParser.parseModuleXml(ModuleXmlParser.ResourceRootFactory.getDefault(), MODULE_LOADER, "module-" + i, file.getParent().toFile(), file.toFile(), cache);
+            assertTrue(cache.read(file.toFile()).isCached());
+            assertEquals(describe(expected), describe(cold));
+            assertEquals(describe(expected), describe(warm));
+        }
+    }
+
+    @Test
+    public void testParseTimes() throws Exception {
+        final ModuleXmlCache cache = new ModuleXmlCache(directory.resolve("cache"));
+        final Path root = directory.resolve("modules");
+        final List<Path> files = new ArrayList<>(MODULES);
+        for (int i = 0; i < MODULES; i ++) {
+            files.add(writeModule(root, i, 8));
+        }
+        // warm up the parser code
+        parseAll(files, null);
+        final long cold = parseAll(files, cache);
+        long xml = Long.MAX_VALUE;
+        long warm = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i ++) {
+            xml = Math.min(xml, parseAll(files, null));
+            warm = Math.min(warm, parseAll(files, cache));
+        }
+        System.out.printf("Parsed %d module descriptors: XML %d ms, cold cache %d ms, warm cache %d ms%n", MODULES,
+            TimeUnit.NANOSECONDS.toMillis(xml), TimeUnit.NANOSECONDS.toMillis(cold), TimeUnit.NANOSECONDS.toMillis(warm));
+    }
+
+    private static long parseAll(final List<Path> files, final ModuleXmlCache cache) throws IOException, ModuleLoadException {
+        final long start = System.nanoTime();
+        for (int i = 0; i < files.size(); i ++) {
+            final File file = files.get(i).toFile();
+            final ModuleSpec spec;
+            if (cache == null) {
+                spec = ModuleXmlParser.parseModuleXml(MODULE_LOADER, "module-" + i, file.getParentFile(), file);
+            } else {
+                spec = ModuleXmlParser.parseModuleXml(ModuleXmlParser.ResourceRootFactory.getDefault(), MODULE_LOADER, "module-" + i, file.getParentFile(), file, cache);
+            }
+            assertEquals("module-" + i, spec.getName());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Path writeModule(final Path root, final int index, final int dependencies) throws IOException {
+        final Path dir = root.resolve("module-" + index).resolve("main");
+        Files.createDirectories(dir);
+        final StringBuilder b = new StringBuilder();
+        b.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        b.append("<!-- generated -->\n");
+        b.append("<module xmlns=\"urn:jboss:module:1.7\" name=\"module-").append(index).append("\" version=\"1.").append(index).append("\">\n");
+        b.append("    <properties>\n");
+        b.append("        <property name=\"jboss.api\" value=\"private\"/>\n");
+        b.append("        <property name=\"index\" value=\"").append(index).append("\"/>\n");
+        b.append("    </properties>\n");
+        b.append("    <main-class name=\"org.example.Main").append(index).append("\"/>\n");
+        b.append("    <dependencies>\n");
+        for (int i = 0; i < dependencies; i ++) {
+            b.append("        <module name=\"module-").append(index).append("-dep-").append(i).append('"');
+            if (i % 3 == 0) {
+                b.append(" export=\"true\"");
+            }
+            if (i % 2 == 0) {
+                b.append(" optional=\"true\"/>\n");
+            } else {
+                b.append(">\n");
+                b.append("            <imports>\n");
+                b.append("                <include path=\"org/example/api\"/>\n");
+                b.append("                <exclude-set>\n");
+                b.append("                    <path name=\"org/example/impl\"/>\n");
+                b.append("                </exclude-set>\n");
+                b.append("            </imports>\n");
+                b.append("        </module>\n");
+            }
+        }
+        b.append("        <system export=\"true\">\n");
+        b.append("            <paths>\n");
+        b.append("                <path name=\"javax/sql\"/>\n");
+        b.append("            </paths>\n");
+        b.append("        </system>\n");
+        b.append("    </dependencies>\n");
+        b.append("    <permissions>\n");
+        b.append("        <grant permission=\"java.util.PropertyPermission\" name=\"${java.home}\" actions=\"read\"/>\n");
+        b.append("    </permissions>\n");
+        b.append("</module>\n");
+        final Path file = dir.resolve("module.xml");
+        Files.write(file, b.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    static XmlPullParser createParser(final Path path) throws Exception {
+        final MXParser parser = new MXParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+        parser.setInput(new ByteArrayInputStream(Files.readAllBytes(path)), null);
+        return parser;
+    }
+
+    static void assertEvents(final String message, final XmlPullParser replayed, final XmlPullParser parsed) throws Exception {
+        for (;;) {
+            int eventType;
+            do {
+                eventType = parsed.next();
+            } while (eventType == XmlPullParser.TEXT);
+            assertEquals(message, eventType, replayed.next());
+            if (eventType == XmlPullParser.END_DOCUMENT) {
+                return;
+            }
+            assertEquals(message, parsed.getDepth(), replayed.getDepth());
+            assertEquals(message, parsed.getName(), replayed.getName());
+            assertEquals(message, parsed.getNamespace(), replayed.getNamespace());
+            if (eventType == XmlPullParser.START_TAG) {
+                assertEquals(message, parsed.getLineNumber(), replayed.getLineNumber());
+                assertEquals(message, parsed.isEmptyElementTag(), replayed.isEmptyElementTag());
+                assertEquals(message, parsed.getAttributeCount(), replayed.getAttributeCount());
+                for (int i = 0; i < parsed.getAttributeCount(); i ++) {
+                    assertEquals(message, parsed.getAttributeNamespace(i), replayed.getAttributeNamespace(i));
+                    assertEquals(message, parsed.getAttributeName(i), replayed.getAttributeName(i));
+                    assertEquals(message, parsed.getAttributeValue(i), replayed.getAttributeValue(i));
+                    assertEquals(message, parsed.getAttributeValue(null, parsed.getAttributeName(i)), replayed.getAttributeValue(null, parsed.getAttributeName(i)));
+                }
+            }
+        }
+    }
+
+    private static String describe(final ModuleSpec spec) {
+        final StringBuilder b = new StringBuilder(spec.getName());
+        if (spec instanceof ConcreteModuleSpec) {
+            final ConcreteModuleSpec concrete = (ConcreteModuleSpec) spec;
+            b.append(' ').append(concrete.getMainClass()).append(' ').append(concrete.getVersion());
+            for (DependencySpec dependency : concrete.getDependencies()) {
+                b.append(", ").append(dependency).append(' ').append(dependency.getImportFilter()).append(' ').append(dependency.getExportFilter());
+            }
+        }
+        return b.toString();
+    }
+}
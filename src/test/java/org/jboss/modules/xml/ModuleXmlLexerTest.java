@@ -0,0 +1,246 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.modules.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jboss.modules.AbstractModuleTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that the {@code module.xml} lexer produces the same events as {@code MXParser}, or leaves the document to it.
+ */
+public class ModuleXmlLexerTest extends AbstractModuleTestCase {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
+    private List<byte[]> descriptors;
+
+    @Before
+    public void readDescriptors() throws Exception {
+        descriptors = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(getResource("test").toPath())) {
+            for (Path path : paths.filter(path -> path.toString().endsWith(".xml")).sorted().collect(Collectors.toList())) {
+                final byte[] content = Files.readAllBytes(path);
+                if (new String(content, StandardCharsets.UTF_8).contains("urn:jboss:module:")) {
+                    descriptors.add(content);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDescriptors() throws Exception {
+        assertEquals(39, descriptors.size());
+        for (byte[] content : descriptors) {
+            final ReplayXmlParser lexed = ModuleXmlLexer.tokenize(content, "test");
+            assertNotNull(new String(content, StandardCharsets.UTF_8), lexed);
+            ModuleXmlCacheTest.assertEvents(new String(content, StandardCharsets.UTF_8), lexed, createParser(content));
+        }
+    }
+
+    @Test
+    public void testSupported() throws Exception {
+        assertLexed(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/>");
+        assertLexed("<module xmlns='urn:jboss:module:1.1' name='a'></module>");
+        assertLexed("<?xml version='1.0'?><module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/>");
+        assertLexed("<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"yes\" ?>\n<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/>\n");
+        assertLexed(HEADER + "<!-- a - comment -->\n<?pi data?>\n<module xmlns=\"urn:jboss:module:1.9\"\n    name=\"a\"\n    version=\"1\"\n>\n  <!-- inner -->\n  <?pi?>\n  <dependencies >\n    <module name = \"b\" />\n  </dependencies  >\n</module>\n<!-- trailing -->\n");
+        assertLexed(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a&amp;b&lt;c&gt;d&quot;e&apos;f\" version=\"&#65;&#x42;&#xe9;&#x4E2D;\"/>");
+        assertLexed(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\tb\nc\r\nd\re&#10;f\"/>");
+        assertLexed(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"caf\u00e9 \u65e5\u672c \ud83d\ude00\"/>");
+        assertLexed(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"><properties><property name=\"x\" value=\"\"/></properties></module>");
+        assertLexed(HEADER + "<other xmlns=\"urn:jboss:module:1.9\" unknown-attribute=\"1\"><unknown-element/></other>");
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        assertFallback("");
+        assertFallback(HEADER);
+        assertFallback("\ufeff" + HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/>");
+        assertFallback("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/>");
+        assertFallback("<?xml version=\"1.1\"?><module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/>");
+        assertFallback(HEADER + "<!DOCTYPE module><module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/>");
+        assertFallback(HEADER + "<module name=\"a\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:example\" name=\"a\"/>");
+        assertFallback(HEADER + "<m:module xmlns:m=\"urn:jboss:module:1.9\" name=\"a\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" name=\"a\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"><resources xmlns=\"urn:jboss:module:1.9\"/></module>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\">text</module>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"><![CDATA[x]]></module>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\">&amp;</module>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a&unknown;\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a&#0;\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a&#x1F600;\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a<\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\" name=\"b\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"name=\"b\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"></other>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"><resources>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/><module/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/><!-- a -- b -->");
+        assertFallback(HEADER + "<?xml version=\"1.0\"?><module xmlns=\"urn:jboss:module:1.9\" name=\"a\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" n\u00e4me=\"a\"/>");
+        assertFallback(HEADER + "<module xmlns=\"urn:jboss:module:1.9\" name=\"a\u0001\"/>");
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+        // the lexer checks for the end of the content rather than reading past it, so any truncation falls back
+        for (byte[] descriptor : descriptors) {
+            for (int length = 0; length < descriptor.length; length ++) {
+                final byte[] content = Arrays.copyOf(descriptor, length);
+                final ReplayXmlParser replayed = ModuleXmlLexer.tokenize(content, "test");
+                if (replayed != null) {
+                    // only trailing whitespace was cut
+                    assertEquals(events(createParser(content)), events(replayed));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMutations() throws Exception {
+        final Random random = new Random(23L);
+        final byte[] special = "<>/=\"'&;#!?- \n\txa:".getBytes(StandardCharsets.US_ASCII);
+        int lexed = 0;
+        for (int i = 0; i < 20000; i ++) {
+            final byte[] original = descriptors.get(random.nextInt(descriptors.size()));
+            final byte[] content;
+            if (random.nextInt(10) == 0) {
+                content = Arrays.copyOf(original, random.nextInt(original.length));
+            } else {
+                content = original.clone();
+                for (int j = random.nextInt(3); j >= 0; j --) {
+                    content[random.nextInt(content.length)] = random.nextBoolean() ? special[random.nextInt(special.length)] : (byte) random.nextInt(256);
+                }
+            }
+            final ReplayXmlParser replayed = ModuleXmlLexer.tokenize(content, "test");
+            final List<String> expected;
+            try {
+                expected = events(createParser(content));
+            } catch (XmlPullParserException | IOException | RuntimeException e) {
+                // MXParser rejects the document, so the lexer must leave it to MXParser
+                assertNull(new String(content, StandardCharsets.UTF_8), replayed);
+                continue;
+            }
+            if (replayed != null) {
+                assertEquals(new String(content, StandardCharsets.UTF_8), expected, events(replayed));
+                lexed ++;
+            }
+        }
+        System.out.printf("Lexed %d of 20000 mutated descriptors%n", Integer.valueOf(lexed));
+    }
+
+    @Test
+    public void testLexTimes() throws Exception {
+        final int rounds = 500;
+        // warm up both parsers
+        final long events = lexAll(rounds, false) + lexAll(rounds, true);
+        long start = System.nanoTime();
+        long mx = lexAll(rounds, false);
+        final long mxTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        long lexer = lexAll(rounds, true);
+        final long lexerTime = System.nanoTime() - start;
+        assertEquals(mx, lexer);
+        assertEquals(events, mx + lexer);
+        final long bytes = descriptors.stream().mapToLong(content -> content.length).sum() * rounds;
+        System.out.printf("Parsed %d descriptors (%d KiB): MXParser %d ms, lexer %d ms%n", Integer.valueOf(descriptors.size() * rounds), Long.valueOf(bytes >> 10),
+            Long.valueOf(TimeUnit.NANOSECONDS.toMillis(mxTime)), Long.valueOf(TimeUnit.NANOSECONDS.toMillis(lexerTime)));
+    }
+
+    private long lexAll(final int rounds, final boolean lexer) throws Exception {
+        long events = 0;
+        for (int i = 0; i < rounds; i ++) {
+            for (byte[] content : descriptors) {
+                final XmlPullParser parser = lexer ? ModuleXmlLexer.tokenize(content, "test") : createParser(content);
+                int eventType;
+                do {
+                    eventType = parser.nextToken();
+                    if (eventType == XmlPullParser.START_TAG) {
+                        events += parser.getAttributeCount() + 1;
+                    }
+                } while (eventType != XmlPullParser.END_DOCUMENT);
+            }
+        }
+        return events;
+    }
+
+    private static void assertLexed(final String document) throws Exception {
+        final byte[] content = document.getBytes(StandardCharsets.UTF_8);
+        final ReplayXmlParser replayed = ModuleXmlLexer.tokenize(content, "test");
+        assertNotNull(document, replayed);
+        assertEquals(document, events(createParser(content)), events(replayed));
+    }
+
+    private static void assertFallback(final String document) throws Exception {
+        assertNull(document, ModuleXmlLexer.tokenize(document.getBytes(StandardCharsets.UTF_8), "test"));
+    }
+
+    private static XmlPullParser createParser(final byte[] content) throws XmlPullParserException {
+        final MXParser parser = new MXParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+        parser.setInput(new ByteArrayInputStream(content), null);
+        return parser;
+    }
+
+    /**
+     * Get the events of a document as seen by the descriptor parser, which skips whitespace.
+     */
+    private static List<String> events(final XmlPullParser parser) throws Exception {
+        final List<String> events = new ArrayList<>();
+        for (;;) {
+            final int eventType = parser.next();
+            if (eventType == XmlPullParser.END_DOCUMENT) {
+                return events;
+            } else if (eventType == XmlPullParser.START_TAG) {
+                final StringBuilder b = new StringBuilder();
+                b.append('<').append(parser.getNamespace()).append(' ').append(parser.getName()).append(" depth=").append(parser.getDepth());
+                b.append(" line=").append(parser.getLineNumber()).append(" empty=").append(parser.isEmptyElementTag());
+                for (int i = 0; i < parser.getAttributeCount(); i ++) {
+                    b.append(' ').append(parser.getAttributeNamespace(i)).append(':').append(parser.getAttributeName(i)).append("=[").append(parser.getAttributeValue(i)).append(']');
+                }
+                events.add(b.toString());
+            } else if (eventType == XmlPullParser.END_TAG) {
+                events.add("</" + parser.getName() + " depth=" + parser.getDepth());
+            } else if (! parser.isWhitespace()) {
+                // the descriptor parser rejects content other than whitespace
+                events.add("text " + parser.getText());
+            }
+        }
+    }
+}